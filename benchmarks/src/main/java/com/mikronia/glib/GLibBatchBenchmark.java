@@ -0,0 +1,184 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * GLib batch benchmark
+ * <p>
+ * Frames of draw calls executed by a batch on an offscreen
+ * image, through Java2D or the software rasterizer.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Djava.awt.headless=true")
+public class GLibBatchBenchmark {
+	
+	private static final int WIDTH				= 320;
+	private static final int HEIGHT				= 240;
+	private static final int DRAW_CALLS			= 1000;
+	
+	@Param({ "java2d", "rasterizer" })
+	public String renderer;
+	
+	@Param({ "false", "true" })
+	public boolean deferred;
+	
+	private BufferedImage image;
+	private GLibBatch batch;
+	private int[] sprites;
+	
+	// instances of drawSprites
+	private float[] xs;
+	private float[] ys;
+	
+	@Setup(Level.Trial)
+	public void setup() {
+		image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		
+		var rasterizer = renderer.equals("rasterizer") ? new GLibRasterizer(image) : null;
+		
+		batch = new GLibBatch(image.createGraphics(), rasterizer, WIDTH, HEIGHT);
+		batch.setDeferred(deferred);
+		
+		// a 4x4 sheet of 16x16 cells
+		var sheet = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+		
+		for (int y = 0; y < 64; y++) {
+			for (int x = 0; x < 64; x++)
+				sheet.setRGB(x, y, ((x ^ y) & 0x8) == 0 ? 0xFFFF8000 : 0x800080FF);
+		}
+		
+		int handle = GLibSpritesheets.loadSpritesheet("benchmark", sheet, 16, 16);
+		
+		sprites = new int[16];
+		
+		for (int i = 0; i < sprites.length; i++)
+			sprites[i] = GLibSpritesheets.getSpriteHandle(handle, i);
+		
+		xs = new float[DRAW_CALLS];
+		ys = new float[DRAW_CALLS];
+		
+		for (int i = 0; i < DRAW_CALLS; i++) {
+			xs[i] = i % WIDTH;
+			ys[i] = i * 7 % HEIGHT;
+		}
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		GLibSpritesheets.deleteSpritesheets();
+	}
+	
+	/////////////////////////
+	
+	@Benchmark
+	public BufferedImage fillRects() {
+		batch.beginFrame();
+		
+		for (int i = 0; i < DRAW_CALLS; i++) {
+			batch.color(0xFF000000 | i * 0x10305);
+			batch.fillRect(i % WIDTH, i * 7 % HEIGHT, 12, 12);
+		}
+		
+		batch.endFrame();
+		return image;
+	}
+	
+	@Benchmark
+	public BufferedImage drawSprites() {
+		batch.beginFrame();
+		
+		for (int i = 0; i < DRAW_CALLS; i++)
+			batch.drawSprite(sprites[i & 0xF], i % WIDTH, i * 7 % HEIGHT);
+		
+		batch.endFrame();
+		return image;
+	}
+	
+	@Benchmark
+	public BufferedImage drawSpriteInstances() {
+		batch.beginFrame();
+		batch.drawSprites(sprites[0], xs, ys, DRAW_CALLS);
+		batch.endFrame();
+		return image;
+	}
+	
+	@Benchmark
+	public BufferedImage drawDepthSorted() {
+		batch.beginFrame();
+		
+		// sorted by the bottom of the sprites in deferred mode
+		for (int i = 0; i < DRAW_CALLS; i++) {
+			batch.depth(ys[i] + 16);
+			batch.drawSprite(sprites[i & 0xF], xs[i], ys[i]);
+		}
+		
+		batch.endFrame();
+		return image;
+	}
+	
+	@Benchmark
+	public BufferedImage drawMixed() {
+		batch.beginFrame();
+		
+		for (int i = 0; i < DRAW_CALLS; i++) {
+			float x = i % WIDTH;
+			float y = i * 7 % HEIGHT;
+			
+			if ((i & 1) == 0) {
+				batch.color(0xFF000000 | i * 0x10305);
+				batch.fillRect(x, y, 12, 12);
+			} else {
+				batch.drawSprite(sprites[i & 0xF], x, y);
+			}
+		}
+		
+		batch.endFrame();
+		return image;
+	}
+}
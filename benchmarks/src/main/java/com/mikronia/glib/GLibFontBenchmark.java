@@ -0,0 +1,113 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * GLib font benchmark
+ * <p>
+ * Text drawn on an offscreen image: a repeated string served
+ * by the layout cache, strings that miss it, and retained text.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Djava.awt.headless=true")
+public class GLibFontBenchmark {
+	
+	private static final String TEXT			= "The quick brown fox jumps over the lazy dog";
+	
+	@Param({ "java2d", "rasterizer" })
+	public String renderer;
+	
+	private BufferedImage image;
+	private GLibBatch batch;
+	private GLibFont font;
+	private GLibText text;
+	private GLibGlyphAtlas atlas;
+	private int next;
+	
+	@Setup
+	public void setup() {
+		image = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+		
+		var rasterizer = renderer.equals("rasterizer") ? new GLibRasterizer(image) : null;
+		
+		var graphics = image.createGraphics();
+		
+		batch = new GLibBatch(graphics, rasterizer, 320, 240);
+		font = GLibFont.DIALOG.deriveFont(12.0f);
+		atlas = font.getGlyphAtlas(graphics);
+		text = batch.createText(TEXT + " " + TEXT, font, 200);
+	}
+	
+	/////////////////////////
+	
+	@Benchmark
+	public BufferedImage drawCachedText() {
+		batch.drawText(TEXT, 4, 4, font);
+		batch.flush();
+		return image;
+	}
+	
+	@Benchmark
+	public BufferedImage drawUncachedText() {
+		// more distinct strings than the cache holds
+		batch.drawText(TEXT + (next++ & 0x3FF), 4, 4, font);
+		batch.flush();
+		return image;
+	}
+	
+	@Benchmark
+	public BufferedImage drawRetainedText() {
+		batch.drawText(text, 4, 4);
+		batch.flush();
+		return image;
+	}
+	
+	@Benchmark
+	public float measureText() {
+		return atlas.getTextWidth(TEXT);
+	}
+}
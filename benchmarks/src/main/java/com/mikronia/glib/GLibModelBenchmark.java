@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import java.awt.Polygon;
+import java.awt.geom.Path2D;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * GLib model benchmark
+ * <p>
+ * Models built vertex by vertex and converted to polygons,
+ * and transformed paths.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GLibModelBenchmark {
+	
+	@Param({ "8", "64", "512" })
+	public int vertices;
+	
+	private float[] xCoords;
+	private float[] yCoords;
+	private GLibModel model;
+	private float angle;
+	
+	@Setup
+	public void setup() {
+		xCoords = new float[vertices];
+		yCoords = new float[vertices];
+		
+		for (int i = 0; i < vertices; i++) {
+			double angle = Math.PI * 2 * i / vertices;
+			
+			xCoords[i] = (float) (Math.cos(angle) * 100);
+			yCoords[i] = (float) (Math.sin(angle) * 100);
+		}
+		
+		model = buildModel();
+		model.getBasePolygon();
+	}
+	
+	/////////////////////////
+	
+	@Benchmark
+	public Polygon buildPolygon() {
+		return buildModel().getBasePolygon();
+	}
+	
+	@Benchmark
+	public Polygon cachedPolygon() {
+		return model.getBasePolygon();
+	}
+	
+	@Benchmark
+	public Path2D.Float transformedPath() {
+		angle += 0.01f;
+		return model.getPath(160, 120, angle, 1.5f);
+	}
+	
+	private GLibModel buildModel() {
+		var model = new GLibModel();
+		
+		for (int i = 0; i < vertices; i++)
+			model.vertex(xCoords[i], yCoords[i]);
+		
+		return model;
+	}
+}
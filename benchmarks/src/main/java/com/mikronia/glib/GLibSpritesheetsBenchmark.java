@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * GLib spritesheets benchmark
+ * <p>
+ * Sprite lookups by name, by spritesheet handle
+ * and by sprite handle.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Djava.awt.headless=true")
+public class GLibSpritesheetsBenchmark {
+	
+	// an 8x8 sheet of 16x16 cells
+	private static final int CELLS				= 8;
+	
+	private int spritesheet;
+	private int[] sprites;
+	private int next;
+	
+	@Setup
+	public void setup() {
+		var sheet = new BufferedImage(CELLS * 16, CELLS * 16, BufferedImage.TYPE_INT_ARGB);
+		
+		spritesheet = GLibSpritesheets.loadSpritesheet("benchmark", sheet, 16, 16);
+		sprites = new int[CELLS * CELLS];
+		
+		for (int i = 0; i < sprites.length; i++)
+			sprites[i] = GLibSpritesheets.getSpriteHandle(spritesheet, i);
+	}
+	
+	@TearDown
+	public void tearDown() {
+		GLibSpritesheets.deleteSpritesheets();
+	}
+	
+	/////////////////////////
+	
+	@Benchmark
+	public int lookupByName() {
+		int cell = next++ & (CELLS * CELLS - 1);
+		return GLibSpritesheets.getSpriteHandle("benchmark", cell % CELLS, cell / CELLS);
+	}
+	
+	@Benchmark
+	public int lookupByHandle() {
+		int cell = next++ & (CELLS * CELLS - 1);
+		return GLibSpritesheets.getSpriteHandle(spritesheet, cell % CELLS, cell / CELLS);
+	}
+	
+	@Benchmark
+	public GLibSprite resolveHandle() {
+		return GLibSpritesheets.getSprite(sprites[next++ & (CELLS * CELLS - 1)]);
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib.audio;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JOrbis clip benchmark
+ * <p>
+ * Decodes a whole Ogg Vorbis file into a sink that only
+ * counts the samples. No file ships with the benchmarks;
+ * pass one with {@code -p file=<path>}.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JOrbisClipBenchmark {
+	
+	@Param({ "" })
+	public String file;
+	
+	private JOrbisClip clip;
+	private NullSink sink;
+	
+	@Setup
+	public void setup() throws IOException {
+		if (file.isEmpty())
+			throw new IllegalStateException(
+				"Pass an Ogg Vorbis file with -p file=<path>");
+		
+		clip = new JOrbisClip(new FileInputStream(file));
+		sink = new NullSink();
+	}
+	
+	@TearDown
+	public void tearDown() {
+		clip.close();
+	}
+	
+	/////////////////////////
+	
+	@Benchmark
+	public void decode(Blackhole blackhole) throws IOException {
+		sink.bytes = 0;
+		clip.decode(sink);
+		blackhole.consume(sink.bytes);
+	}
+	
+	/*
+	 * Counts the decoded bytes.
+	 */
+	private static final class NullSink extends OutputStream {
+		
+		private long bytes;
+		
+		@Override
+		public void write(int b) {
+			bytes++;
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) {
+			bytes += len;
+		}
+	}
+}
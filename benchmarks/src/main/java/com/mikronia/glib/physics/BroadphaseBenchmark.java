@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib.physics;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Broadphase benchmark
+ * <p>
+ * One tick of {@code Broadphase} with every box moving,
+ * which must fit in a 60 Hz frame.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadphaseBenchmark {
+	
+	private static final float WORLD_SIZE = 5000;
+	
+	@Param({ "20000" })
+	public int count;
+	
+	@Param({ "1", "4" })
+	public int workers;
+	
+	private Broadphase broadphase;
+	
+	private float[] x;
+	private float[] y;
+	private float[] w;
+	private float[] h;
+	private float[] vx;
+	private float[] vy;
+	
+	private int contacts;
+	
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+		
+		x = new float[count];
+		y = new float[count];
+		w = new float[count];
+		h = new float[count];
+		vx = new float[count];
+		vy = new float[count];
+		
+		broadphase = new Broadphase();
+		broadphase.setWorkers(workers);
+		broadphase.setListener(new ContactListener() {
+			
+			@Override
+			public void beginContact(int a, int b) {
+				contacts++;
+			}
+			
+			@Override
+			public void endContact(int a, int b) {
+				contacts--;
+			}
+		});
+		
+		for (int i = 0; i < count; i++) {
+			x[i] = random.nextFloat() * WORLD_SIZE;
+			y[i] = random.nextFloat() * WORLD_SIZE;
+			w[i] = 4 + random.nextFloat() * 28;
+			h[i] = 4 + random.nextFloat() * 28;
+			vx[i] = random.nextFloat() * 4 - 2;
+			vy[i] = random.nextFloat() * 4 - 2;
+			
+			broadphase.insert(i, x[i], y[i], w[i], h[i]);
+		}
+		
+		broadphase.update();
+	}
+	
+	@TearDown
+	public void tearDown() {
+		broadphase.setWorkers(1);
+	}
+	
+	/////////////////////////
+	
+	@Benchmark
+	public int tick() {
+		for (int i = 0; i < count; i++) {
+			float px = x[i] + vx[i];
+			float py = y[i] + vy[i];
+			
+			// bounces off the edges of the world
+			if (px < 0 || px > WORLD_SIZE) vx[i] = -vx[i];
+			if (py < 0 || py > WORLD_SIZE) vy[i] = -vy[i];
+			
+			x[i] = px;
+			y[i] = py;
+			broadphase.insert(i, px, py, w[i], h[i]);
+		}
+		
+		broadphase.update();
+		
+		return contacts;
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib.physics;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mikronia.glib.spatial.LooseQuadtree;
+import com.mikronia.glib.spatial.SpatialHash;
+
+/**
+ * Swept resolver benchmark
+ * <p>
+ * Fast projectiles moved through a level of static walls
+ * by {@code SweptResolver} in a single batch.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SweptResolverBenchmark {
+	
+	private static final float WORLD_SIZE = 4096;
+	private static final int WALLS = 4096;
+	
+	@Param({ "hash", "quadtree" })
+	public String index;
+	
+	@Param({ "1000" })
+	public int count;
+	
+	private SweptResolver resolver;
+	
+	private Projectile[] projectiles;
+	private float[] velocities;
+	private float[] motions;
+	private float[] normals;
+	private int[] targets;
+	
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+		
+		if (index.equals("hash"))
+			resolver = new SweptResolver(new SpatialHash(64));
+		else
+			resolver = new SweptResolver(new LooseQuadtree(0, 0, WORLD_SIZE, WORLD_SIZE, 7));
+		
+		// thin walls, both ways
+		for (int i = 0; i < WALLS; i++) {
+			float x = random.nextFloat() * WORLD_SIZE;
+			float y = random.nextFloat() * WORLD_SIZE;
+			float length = 16 + random.nextFloat() * 112;
+			
+			if ((i & 1) == 0)
+				resolver.addStatic(i, x, y, length, 2);
+			else
+				resolver.addStatic(i, x, y, 2, length);
+		}
+		
+		projectiles = new Projectile[count];
+		velocities = new float[count * 2];
+		motions = new float[count * 2];
+		normals = new float[count * 2];
+		targets = new int[count];
+		
+		for (int i = 0; i < count; i++) {
+			double angle = random.nextDouble() * Math.PI * 2;
+			
+			projectiles[i] = new Projectile(random.nextFloat() * WORLD_SIZE, random.nextFloat() * WORLD_SIZE);
+			velocities[i * 2] = (float) Math.cos(angle) * 64;
+			velocities[i * 2 + 1] = (float) Math.sin(angle) * 64;
+		}
+	}
+	
+	/////////////////////////
+	
+	@Benchmark
+	public int moveAll() {
+		System.arraycopy(velocities, 0, motions, 0, motions.length);
+		
+		int hits = resolver.moveAll(projectiles, motions, normals, targets, count);
+		
+		// bounces off the walls and wraps around the world
+		for (int i = 0; i < count; i++) {
+			if (normals[i * 2] != 0) velocities[i * 2] = -velocities[i * 2];
+			if (normals[i * 2 + 1] != 0) velocities[i * 2 + 1] = -velocities[i * 2 + 1];
+			
+			projectiles[i].wrap();
+		}
+		
+		return hits;
+	}
+	
+	/////////////////////////
+	
+	private static final class Projectile extends Box {
+		
+		Projectile(float x, float y) {
+			super(x, y, 2, 2);
+		}
+		
+		void wrap() {
+			x = (x + WORLD_SIZE) % WORLD_SIZE;
+			y = (y + WORLD_SIZE) % WORLD_SIZE;
+		}
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib.spatial;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Spatial index benchmark
+ * <p>
+ * Queries and moves on {@code SpatialHash} and {@code LooseQuadtree},
+ * against testing every object.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialIndexBenchmark {
+	
+	private static final float WORLD_SIZE = 10000;
+	private static final int QUERIES = 64;
+	
+	@Param({ "hash", "quadtree" })
+	public String index;
+	
+	@Param({ "100000" })
+	public int count;
+	
+	private SpatialIndex spatialIndex;
+	
+	private float[] x;
+	private float[] y;
+	private float[] w;
+	private float[] h;
+	private float[] queries;
+	
+	private int found;
+	private final SpatialVisitor counter = id -> {
+		found++;
+		return true;
+	};
+	
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+		
+		x = new float[count];
+		y = new float[count];
+		w = new float[count];
+		h = new float[count];
+		queries = new float[QUERIES * 3];
+		
+		if (index.equals("hash"))
+			spatialIndex = new SpatialHash(32);
+		else
+			spatialIndex = new LooseQuadtree(0, 0, WORLD_SIZE, WORLD_SIZE, 8);
+		
+		for (int i = 0; i < count; i++) {
+			x[i] = random.nextFloat() * WORLD_SIZE;
+			y[i] = random.nextFloat() * WORLD_SIZE;
+			w[i] = 4 + random.nextFloat() * 28;
+			h[i] = 4 + random.nextFloat() * 28;
+			
+			spatialIndex.insert(i, x[i], y[i], w[i], h[i]);
+		}
+		
+		for (int i = 0; i < queries.length; i += 3) {
+			queries[i] = random.nextFloat() * WORLD_SIZE;
+			queries[i + 1] = random.nextFloat() * WORLD_SIZE;
+			queries[i + 2] = random.nextFloat() * 6.2831855f;
+		}
+	}
+	
+	/////////////////////////
+	
+	@Benchmark
+	public int queryRect() {
+		found = 0;
+		
+		for (int i = 0; i < queries.length; i += 3)
+			spatialIndex.queryRect(queries[i], queries[i + 1], 320, 240, counter);
+		
+		return found;
+	}
+	
+	@Benchmark
+	public int queryRadius() {
+		found = 0;
+		
+		for (int i = 0; i < queries.length; i += 3)
+			spatialIndex.queryRadius(queries[i], queries[i + 1], 200, counter);
+		
+		return found;
+	}
+	
+	@Benchmark
+	public int queryRay() {
+		found = 0;
+		
+		for (int i = 0; i < queries.length; i += 3) {
+			float angle = queries[i + 2];
+			
+			spatialIndex.queryRay(queries[i], queries[i + 1], (float) Math.cos(angle), (float) Math.sin(angle), 1000, counter);
+		}
+		
+		return found;
+	}
+	
+	@Benchmark
+	public int update() {
+		for (int i = 0; i < count; i++) {
+			x[i] += (i & 1) == 0 ? 1 : -1;
+			spatialIndex.update(i, x[i], y[i], w[i], h[i]);
+		}
+		
+		return spatialIndex.size();
+	}
+	
+	@Benchmark
+	public int queryRectBruteForce() {
+		found = 0;
+		
+		for (int i = 0; i < queries.length; i += 3) {
+			float minX = queries[i];
+			float minY = queries[i + 1];
+			float maxX = minX + 320;
+			float maxY = minY + 240;
+			
+			for (int j = 0; j < count; j++) {
+				if (x[j] <= maxX && x[j] + w[j] >= minX && y[j] <= maxY && y[j] + h[j] >= minY)
+					found++;
+			}
+		}
+		
+		return found;
+	}
+}
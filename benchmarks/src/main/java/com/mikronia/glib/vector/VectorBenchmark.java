@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib.vector;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Vector benchmark
+ * <p>
+ * Arithmetic on {@code Vector2f} and {@code Vector3f}.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorBenchmark {
+	
+	@Param({ "1024" })
+	public int count;
+	
+	private Vector2f[] vectors2;
+	private Vector3f[] vectors3;
+	
+	@Setup
+	public void setup() {
+		vectors2 = new Vector2f[count];
+		vectors3 = new Vector3f[count];
+		
+		for (int i = 0; i < count; i++) {
+			vectors2[i] = new Vector2f((float) i, (float) -i);
+			vectors3[i] = new Vector3f((float) i, (float) -i, 0.5f * i);
+		}
+	}
+	
+	/////////////////////////
+	
+	@Benchmark
+	public Vector2f integrate2f() {
+		for (var vector : vectors2) {
+			vector.add(0.5f, -0.25f);
+			vector.mul(0.99f, 0.99f);
+		}
+		
+		return vectors2[0];
+	}
+	
+	@Benchmark
+	public float dot2f() {
+		float sum = 0;
+		
+		for (int i = 1; i < count; i++)
+			sum += vectors2[i].dot(vectors2[i - 1]);
+		
+		return sum;
+	}
+	
+	@Benchmark
+	public Vector3f integrate3f() {
+		for (var vector : vectors3) {
+			vector.add(0.5f, -0.25f, 0.125f);
+			vector.mul(0.99f, 0.99f, 0.99f);
+		}
+		
+		return vectors3[0];
+	}
+	
+	@Benchmark
+	public float dot3f() {
+		float sum = 0;
+		
+		for (int i = 1; i < count; i++)
+			sum += vectors3[i].dot(vectors3[i - 1]);
+		
+		return sum;
+	}
+	
+	@Benchmark
+	public float cross3f() {
+		float sum = 0;
+		
+		for (int i = 1; i < count; i++)
+			sum += vectors3[i].cross(vectors3[i - 1]);
+		
+		return sum;
+	}
+}
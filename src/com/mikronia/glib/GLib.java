@@ -69,6 +69,10 @@ public final class GLib {
 	// stroke mode
 	public static final int PURE						= 0x100B;
 	public static final int NORMALIZE					= 0x100C;
+	
+	// renderers
+	public static final int JAVA2D						= 0x100D;
+	public static final int SOFTWARE					= 0x100E;
 
 	/////////// PROPERTIES ////////////
 	
@@ -213,6 +217,10 @@ public final class GLib {
 
 	private static int frameRate;
 	
+	private static int renderer = JAVA2D;
+	
+	private static boolean headless;
+	
 	// static use only!
 	private GLib() { }
 	
@@ -235,10 +243,43 @@ public final class GLib {
 	 * well with the pixel size 1.
 	 */
 	public static void initialize(GLibApp application, int width, int height, int pixelSize, int fps, boolean fullscreen, boolean unlimitedFPS) {
+		initialize(application, width, height, pixelSize, fps, fullscreen, unlimitedFPS, JAVA2D);
+	}
+	
+	/**
+	 * Initializes the application with the given renderer.
+	 * 
+	 * @param application the application
+	 * @param width image width
+	 * @param height image height
+	 * @param pixelSize pixel size
+	 * @param fullscreen indicates whether the application
+	 * will start with fullscreen mode
+	 * @param fps frames per second
+	 * @param unlimitedFPS indicates whether the application
+	 * will not limit the frames to {@code fps}.
+	 * @param renderer the renderer used by the graphics batch.
+	 * <p>
+	 * Valid values:
+	 * 
+	 * <pre>
+	 *  JAVA2D
+	 *  SOFTWARE
+	 * </pre>
+	 * 
+	 * <b>NOTE</b>: the software renderer draws straight into
+	 * the pixels of the screen image and is only used when the
+	 * pixel size is greater than 1. Texts, scaled/rotated
+	 * graphics and thick strokes are still drawn by Java2D.
+	 */
+	public static void initialize(GLibApp application, int width, int height, int pixelSize, int fps, boolean fullscreen, boolean unlimitedFPS, int renderer) {
 		GLib.application = GLibChecks.requireNonNull(application, "Application must not be null!");
 		
+		GLibChecks.assertTrue(renderer == JAVA2D || renderer == SOFTWARE, "Invalid renderer.");
+		GLib.renderer = renderer;
+		
 		// test if frameRate is from 1 to 999
-		GLibChecks.assertFalse(fps < 0 && fps > 1000, "Frame frame must be from 1 up to 999.");
+		GLibChecks.assertFalse(fps < 1 || fps > 999, "Frame frame must be from 1 up to 999.");
 		
 		// store values
 		GLib.unlimitedFrames = unlimitedFPS;
@@ -246,6 +287,8 @@ public final class GLib {
 		
 		// configure window
 		var window = GLib.application.window();
+		GLibChecks.assertNotNull(window, "There is no display, use initializeHeadless instead.");
+		
 		window.setSize(width, height);
 		window.centralize();
 		window.show();
@@ -263,6 +306,46 @@ public final class GLib {
 		GLibAudio.initialize();
 	}
 	
+	/**
+	 * Initializes the application without a window. The frames
+	 * are drawn into an offscreen image (see
+	 * {@link GLibCanvas#getOffscreenImage()}) with the same batch
+	 * as a windowed application, and the input only comes from
+	 * the synthetic events of {@link GLibInput}. Works with
+	 * {@code java.awt.headless=true}.
+	 * 
+	 * @param application the application
+	 * @param width image width
+	 * @param height image height
+	 * @param pixelSize pixel size
+	 * @param fps frames per second
+	 * @param unlimitedFPS indicates whether the application
+	 * will not limit the frames to {@code fps}.
+	 * @param renderer the renderer used by the graphics batch
+	 */
+	public static void initializeHeadless(GLibApp application, int width, int height, int pixelSize, int fps, boolean unlimitedFPS, int renderer) {
+		GLib.application = GLibChecks.requireNonNull(application, "Application must not be null!");
+		
+		GLibChecks.assertTrue(renderer == JAVA2D || renderer == SOFTWARE, "Invalid renderer.");
+		GLib.renderer = renderer;
+		
+		GLibChecks.assertFalse(fps < 1 || fps > 999, "Frame frame must be from 1 up to 999.");
+		
+		GLib.unlimitedFrames = unlimitedFPS;
+		GLib.frameRate = fps;
+		GLib.headless = true;
+		
+		// configure canvas
+		var canvas = GLib.application.canvas();
+		canvas.setOffscreen(width, height);
+		canvas.setPixelSize(pixelSize);
+		
+		// initialize components
+		GLibTimer.initialize(GLib.application);
+		GLibInput.initialize();
+		GLibAudio.initialize();
+	}
+	
 	/**
 	 * Terminates the application with
 	 * no errors.
@@ -338,12 +421,12 @@ public final class GLib {
 	
 	public static int getWindowWidth() {
 		validateApplicationInitialization();
-		return application.window().getSize().width;
+		return headless ? application.canvas().getWidth() : application.window().getSize().width;
 	}
 	
 	public static int getWindowHeight() {
 		validateApplicationInitialization();
-		return application.window().getSize().height;
+		return headless ? application.canvas().getHeight() : application.window().getSize().height;
 	}
 	
 	public static int getScreenWidth() {
@@ -356,6 +439,13 @@ public final class GLib {
 		return application.canvas().getScreenHeight();
 	}
 
+	/**
+	 * Tests whether the application runs without a window.
+	 */
+	public static boolean isHeadless() {
+		return headless;
+	}
+	
 	/**
 	 * Gets the state of unlimited frames.
 	 */
@@ -363,6 +453,13 @@ public final class GLib {
 		return unlimitedFrames;
 	}
 	
+	/**
+	 * Gets the renderer used by the graphics batch.
+	 */
+	public static int getRenderer() {
+		return renderer;
+	}
+	
 	/**
 	 * Gets the number of frames.
 	 */
@@ -24,13 +24,15 @@
 
 package com.mikronia.glib;
 
+import java.awt.GraphicsEnvironment;
+
 /**
  * GLib application
  * 
  * @author Thaynan M. Silva
  * @version 1.0
  */
-public abstract class GLibApp {
+public abstract class GLibApp implements GLibRenderable {
 
 	// components
 	private final GLibCanvas canvas;
@@ -41,7 +43,9 @@ public abstract class GLibApp {
 	 */
 	public GLibApp() {
 		canvas = new GLibCanvas();
-		window = new GLibWindow(canvas);
+		
+		// there's no window without a display
+		window = GraphicsEnvironment.isHeadless() ? null : new GLibWindow(canvas);
 	}
 
 	/**
@@ -80,7 +84,8 @@ public abstract class GLibApp {
 	}
 	
 	/**
-	 * Gets the application window.
+	 * Gets the application window, or {@code null}
+	 * when running without a display.
 	 */
 	public GLibWindow window() {
 		return window;
@@ -24,12 +24,17 @@
 
 package com.mikronia.glib;
 
+import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
 import java.awt.image.BufferedImage;
 
 import com.mikronia.glib.utils.glib.GLibChecks;
+import com.mikronia.glib.view.Camera;
 
 /**
  * GLib graphics batch
@@ -39,15 +44,77 @@ import com.mikronia.glib.utils.glib.GLibChecks;
  */
 public final class GLibBatch {
 	
-	private final Graphics2D graphics;
+	private static final AffineTransform IDENTITY = new AffineTransform();
+	
+	// recently used colors
+	private static final int COLOR_CACHE_BITS = 8;
+	private static final int COLOR_CACHE_SIZE = 1 << COLOR_CACHE_BITS;
+	
+	// source-over composites by alpha, for tinted sprites
+	private static final AlphaComposite[] COMPOSITES = new AlphaComposite[256];
+	
+	private Graphics2D graphics;
+	private GLibCommandBuffer commands;
+	
+	// software backend (optional)
+	private final GLibRasterizer rasterizer;
+	private boolean rasterizable;
+	private boolean thinStroke;
 	
 	private final int screenWidth;
 	private final int screenHeight;
 	
-	private BufferedImage sprite;
+	private GLibSprite sprite;
 	private String spritesheet;
 	
-	private Color clearColor;
+	// packed ARGB colors
+	private int clearColor;
+	private int color;
+	
+	// color set on the graphics and recently used colors
+	private int graphicsColor;
+	private final Color[] colorCache;
+	
+	private BasicStroke stroke;
+	private BasicStroke graphicsStroke;
+	
+	// transform set on the graphics (null when it changed
+	// and a copy wasn't taken yet)
+	private AffineTransform graphicsTransform;
+	
+	// deferred mode
+	private boolean deferred;
+	private int layer;
+	private float depth;
+	
+	// dirty rendering
+	private boolean dirtyRendering;
+	private GLibCommandBuffer previousCommands;
+	private GLibDirtyRegion dirtyRegion;
+	private GLibDirtyRegion frameRegion;
+	private final double[] corners;
+	private boolean cleared;
+	private boolean previousCleared;
+	private int previousClearColor;
+	private boolean previousFrame;
+	
+	// tile rendering (software backend only)
+	private GLibTileRenderer tileRenderer;
+	
+	// camera and the transform it is applied on
+	private Camera camera;
+	private AffineTransform cameraBase;
+	private boolean culling;
+	private final float[] drawBounds;
+	
+	// frame statistics
+	private int recordedCommands;
+	private int stateSwitches;
+	private int savedStateSwitches;
+	private int allocations;
+	private int dirtyArea;
+	private int submittedCommands;
+	private int culledCommands;
 	
 	/**
 	 * Creates a new {@code MkBatch}.
@@ -57,11 +124,459 @@ public final class GLibBatch {
 	 * @param height screen height
 	 */
 	GLibBatch(Graphics2D g, int width, int height) {
+		this(g, null, width, height);
+	}
+	
+	/**
+	 * Creates a new {@code MkBatch} that draws through
+	 * the given software rasterizer whenever possible.
+	 * 
+	 * @param g screen graphics
+	 * @param rasterizer software rasterizer drawing on
+	 * the same image as {@code g}
+	 * @param width screen width
+	 * @param height screen height
+	 */
+	GLibBatch(Graphics2D g, GLibRasterizer rasterizer, int width, int height) {
 		this.graphics = g;
+		this.rasterizer = rasterizer;
 		this.screenWidth = width;
 		this.screenHeight = height;
-		this.clearColor = Color.black;
+		this.commands = new GLibCommandBuffer();
+		this.colorCache = new Color[COLOR_CACHE_SIZE];
+		this.clearColor = 0xFF000000;
+		this.color = g.getColor().getRGB();
+		this.graphicsColor = color;
 		this.sprite = null;
+		this.stroke = g.getStroke() instanceof BasicStroke basic ? basic : new BasicStroke();
+		this.graphicsStroke = g.getStroke() == stroke ? stroke : null;
+		this.thinStroke = stroke.getLineWidth() <= 1.0f;
+		this.corners = new double[8];
+		this.drawBounds = new float[4];
+		
+		updateRasterizerTransform();
+	}
+	
+	/**
+	 * Moves the batch to the graphics of the next frame. The
+	 * transform and stroke are carried over, and the color is
+	 * set again when next used.
+	 * 
+	 * @param g graphics of the frame
+	 */
+	void setGraphics(Graphics2D g) {
+		if (g == graphics) return;
+		
+		g.setTransform(getGraphicsTransform());
+		
+		if (graphicsStroke != null)
+			g.setStroke(graphicsStroke);
+		
+		this.graphics = g;
+		this.graphicsColor = g.getColor().getRGB();
+	}
+	
+	/**
+	 * Keeps the state of the graphics before it is
+	 * disposed at the end of the frame.
+	 */
+	void releaseGraphics() {
+		getGraphicsTransform();
+	}
+	
+	// CAMERA //
+	
+	/**
+	 * Binds a camera, so the next draw calls take world coordinates.
+	 * The camera is applied on top of the current transform when
+	 * bound and again at the start of every frame. Until the
+	 * transform is changed with {@link #translate}, {@link #scale}
+	 * or {@link #rotate}, draw calls entirely outside the view are
+	 * culled before reaching the graphics.
+	 * 
+	 * @param camera the camera or {@code null} to unbind it
+	 */
+	public void setCamera(Camera camera) {
+		flushState();
+		
+		if (this.camera != null) {
+			graphics.setTransform(cameraBase);
+			graphicsTransform = null;
+			updateRasterizerTransform();
+		}
+		
+		this.camera = camera;
+		this.culling = false;
+		
+		if (camera == null) {
+			cameraBase = null;
+			return;
+		}
+		
+		cameraBase = graphics.getTransform();
+		allocations++;
+		
+		if (camera.getViewportWidth() == 0 && camera.getViewportHeight() == 0)
+			camera.setViewport(0, 0, screenWidth, screenHeight);
+		
+		applyCamera();
+	}
+	
+	private void applyCamera() {
+		flushState();
+		
+		graphics.setTransform(cameraBase);
+		graphics.transform(camera.getTransform());
+		graphicsTransform = null;
+		updateRasterizerTransform();
+		
+		culling = true;
+	}
+	
+	/*
+	 * Tests whether the draw call is entirely outside
+	 * the view of the camera, counting it if so.
+	 */
+	private boolean cull(int opcode, float x, float y, float w, float h, Object resource, GLibFont font) {
+		submittedCommands++;
+		
+		if (!culling) return false;
+		
+		computeBounds(opcode, x, y, w, h, resource, font);
+		
+		var bounds = drawBounds;
+		
+		if (camera.isVisible(bounds[0], bounds[1], bounds[2] - bounds[0], bounds[3] - bounds[1]))
+			return false;
+		
+		culledCommands++;
+		return true;
+	}
+	
+	/**
+	 * Gets the area of the current coordinate space shown
+	 * on the screen, as left, top, right and bottom. While
+	 * draw calls are culled, it is the view of the camera;
+	 * otherwise the screen is mapped back through the current
+	 * transform.
+	 * 
+	 * @param bounds receives the bounds
+	 * @return false if nothing can be seen
+	 * (the transform can't be inverted)
+	 */
+	boolean getVisibleBounds(float[] bounds) {
+		if (culling) {
+			bounds[0] = camera.getViewLeft();
+			bounds[1] = camera.getViewTop();
+			bounds[2] = camera.getViewRight();
+			bounds[3] = camera.getViewBottom();
+			return true;
+		}
+		
+		corners[0] = corners[6] = 0;
+		corners[1] = corners[3] = 0;
+		corners[2] = corners[4] = screenWidth;
+		corners[5] = corners[7] = screenHeight;
+		
+		try {
+			getGraphicsTransform().inverseTransform(corners, 0, corners, 0, 4);
+		} catch (NoninvertibleTransformException e) {
+			return false;
+		}
+		
+		bounds[0] = bounds[2] = (float) corners[0];
+		bounds[1] = bounds[3] = (float) corners[1];
+		
+		for (int i = 2; i < 8; i += 2) {
+			bounds[0] = Math.min(bounds[0], (float) corners[i]);
+			bounds[1] = Math.min(bounds[1], (float) corners[i + 1]);
+			bounds[2] = Math.max(bounds[2], (float) corners[i]);
+			bounds[3] = Math.max(bounds[3], (float) corners[i + 1]);
+		}
+		
+		return true;
+	}
+	
+	// DEFERRED MODE //
+	
+	/**
+	 * Enables or disables the deferred mode. While enabled,
+	 * draw calls are recorded and only executed on {@link #flush()},
+	 * sorted by layer, then by depth and then by sprite/color to
+	 * reduce state changes. The order of the draw calls sharing a
+	 * layer and depth is not preserved, so overlapping elements
+	 * must use different layers or depths.
+	 * 
+	 * @param deferred deferred mode state
+	 */
+	public void setDeferred(boolean deferred) {
+		if (this.deferred && !deferred)
+			flush();
+		
+		this.deferred = deferred;
+	}
+	
+	/**
+	 * Sets the layer of the next recorded draw calls. Lower
+	 * layers are drawn first. Only used in deferred mode.
+	 * 
+	 * @param layer layer from -32768 to 32767
+	 */
+	public void layer(int layer) {
+		this.layer = layer;
+	}
+	
+	/**
+	 * Sets the depth of the next recorded draw calls. Inside a
+	 * layer, lower depths are drawn first: passing the bottom Y
+	 * of each entity draws the entities of top-down and isometric
+	 * views in the right order without sorting them. Only used in
+	 * deferred mode.
+	 * 
+	 * @param depth draw depth
+	 */
+	public void depth(float depth) {
+		this.depth = depth;
+	}
+	
+	/**
+	 * Executes all the recorded draw calls. Called by the
+	 * timer at the end of every frame. Does nothing in dirty
+	 * rendering mode, where the commands are kept until the
+	 * end of the frame.
+	 */
+	public void flush() {
+		int size = commands.size();
+		
+		if (size == 0 || dirtyRendering) return;
+		
+		if (tileRenderer != null) {
+			flushTiles();
+			return;
+		}
+		
+		int sortedSwitches = commands.countSortedStateSwitches();
+		
+		recordedCommands += size;
+		stateSwitches += sortedSwitches;
+		savedStateSwitches += commands.countRecordedStateSwitches() - sortedSwitches;
+		
+		for (int i = 0; i < size; i++)
+			executeCommand(commands.command(i));
+		
+		commands.clear();
+	}
+	
+	/**
+	 * Resets the statistics of the batch. Called by
+	 * the timer before rendering a frame.
+	 */
+	void beginFrame() {
+		recordedCommands = 0;
+		stateSwitches = 0;
+		savedStateSwitches = 0;
+		allocations = 0;
+		dirtyArea = 0;
+		submittedCommands = 0;
+		culledCommands = 0;
+		
+		if (tileRenderer != null)
+			tileRenderer.resetTimes();
+		
+		if (camera != null)
+			applyCamera();
+	}
+	
+	/**
+	 * Draws what is left of the frame. Called by the
+	 * timer after rendering a frame.
+	 */
+	void endFrame() {
+		if (!dirtyRendering) {
+			flush();
+			return;
+		}
+		
+		findDirtyRegion();
+		
+		if (!dirtyRegion.isEmpty())
+			redrawDirtyRegion();
+		
+		recordedCommands += commands.size();
+		dirtyArea = dirtyRegion.getArea();
+		
+		// keeps this frame to be compared with the next one
+		var region = frameRegion;
+		frameRegion = dirtyRegion;
+		dirtyRegion = region;
+		dirtyRegion.clear();
+		
+		var buffer = previousCommands;
+		previousCommands = commands;
+		commands = buffer;
+		commands.clear();
+		
+		previousClearColor = clearColor;
+		previousCleared = cleared;
+		previousFrame = true;
+		cleared = false;
+	}
+	
+	public boolean isDeferred() {
+		return deferred;
+	}
+	
+	// TILE RENDERING //
+	
+	/**
+	 * Sets the renderer splitting the frame into tiles drawn
+	 * in parallel, or {@code null} to draw serially. Commands
+	 * are recorded and drawn at the end of the frame, except
+	 * in dirty rendering mode, which is always serial.
+	 */
+	void setTileRenderer(GLibTileRenderer tileRenderer) {
+		if (rasterizer == null)
+			tileRenderer = null;
+		
+		this.tileRenderer = tileRenderer;
+	}
+	
+	public boolean isTileRendering() {
+		return tileRenderer != null;
+	}
+	
+	/**
+	 * Gets the number of screen tiles, or zero
+	 * when the tile rendering is disabled.
+	 */
+	public int getTileCount() {
+		return tileRenderer == null ? 0 : tileRenderer.getTileCount();
+	}
+	
+	/**
+	 * Gets the time spent rasterizing a tile in the last frame.
+	 * Tiles are numbered row by row from the top left corner.
+	 * 
+	 * @param tile the tile index
+	 * @return the time in nanoseconds
+	 */
+	public long getTileTime(int tile) {
+		return tileRenderer == null ? 0 : tileRenderer.getTileTime(tile);
+	}
+	
+	// DIRTY RENDERING //
+	
+	/**
+	 * Enables or disables the dirty rendering mode. While enabled,
+	 * draw calls are recorded and compared with the ones of the
+	 * previous frame, and only the screen areas where they differ
+	 * are cleared and drawn again. Keeping the same draw order
+	 * from frame to frame gives the smallest areas.
+	 */
+	void setDirtyRendering(boolean dirtyRendering) {
+		if (dirtyRendering && dirtyRegion == null) {
+			dirtyRegion = new GLibDirtyRegion(screenWidth, screenHeight);
+			frameRegion = new GLibDirtyRegion(screenWidth, screenHeight);
+			previousCommands = new GLibCommandBuffer();
+		}
+		
+		this.dirtyRendering = dirtyRendering;
+		this.previousFrame = false;
+	}
+	
+	public boolean isDirtyRendering() {
+		return dirtyRendering;
+	}
+	
+	/**
+	 * Marks an area of the screen to be drawn again in the next
+	 * frame, e.g. after changing a model or a sprite in place.
+	 * Only used in dirty rendering mode.
+	 * 
+	 * @param x X-axis position in screen pixels
+	 * @param y Y-axis position in screen pixels
+	 * @param w width in screen pixels
+	 * @param h height in screen pixels
+	 */
+	public void markDirty(int x, int y, int w, int h) {
+		if (dirtyRendering)
+			dirtyRegion.add(x, y, x + w, y + h);
+	}
+	
+	/**
+	 * Marks the whole screen to be drawn again in the
+	 * next frame. Only used in dirty rendering mode.
+	 */
+	public void markAllDirty() {
+		if (dirtyRendering)
+			dirtyRegion.addAll();
+	}
+	
+	/**
+	 * Gets the number of pixels drawn again
+	 * in the last frame (dirty rendering only).
+	 */
+	public int getDirtyArea() {
+		return dirtyArea;
+	}
+	
+	/**
+	 * Gets the region drawn in the last frame.
+	 */
+	GLibDirtyRegion getFrameRegion() {
+		return frameRegion;
+	}
+	
+	/**
+	 * Gets the number of commands recorded in the last frame.
+	 */
+	public int getRecordedCommands() {
+		return recordedCommands;
+	}
+	
+	/**
+	 * Gets the number of sprite/color changes performed
+	 * while flushing the last frame.
+	 */
+	public int getStateSwitches() {
+		return stateSwitches;
+	}
+	
+	/**
+	 * Gets the number of sprite/color changes avoided
+	 * in the last frame by sorting the commands.
+	 */
+	public int getSavedStateSwitches() {
+		return savedStateSwitches;
+	}
+	
+	/**
+	 * Gets the number of colors, strokes and transforms the batch
+	 * had to allocate in the current frame. Stays at zero
+	 * once the colors of a scene are cached.
+	 */
+	public int getAllocations() {
+		return allocations;
+	}
+	
+	/**
+	 * Gets the number of draw calls submitted in the
+	 * current frame, culled or not.
+	 */
+	public int getSubmittedCommands() {
+		return submittedCommands;
+	}
+	
+	/**
+	 * Gets the number of draw calls culled in the current
+	 * frame for being outside the view of the camera.
+	 */
+	public int getCulledCommands() {
+		return culledCommands;
+	}
+	
+	public Camera getCamera() {
+		return camera;
 	}
 
 	// TEXTURE PROPERTIES //
@@ -86,6 +601,16 @@ public final class GLibBatch {
 		this.bindSprite(spritesheet, x, y, w, h);
 	}
 	
+	/**
+	 * Binds a sprite by its handle.
+	 * 
+	 * @param spriteHandle the sprite handle
+	 * @see GLibSpritesheets#getSpriteHandle(int, int, int)
+	 */
+	public void bindSprite(int spriteHandle) {
+		this.sprite = GLibSpritesheets.getSprite(spriteHandle);
+	}
+	
 	public void bindSprite(String spritesheet, int x, int y) {
 		this.sprite = GLibSpritesheets.getSpriteCell(spritesheet, x, y);
 	}
@@ -105,33 +630,33 @@ public final class GLibBatch {
 	// BASIC SHAPES (LINES)
 	
 	public void drawLine(float x1, float y1, float x2, float y2) {
-		graphics.drawLine((int) x1, (int) y1, (int) x2, (int) y2);
+		submit(GLibCommandBuffer.DRAW_LINE, x1, y1, x2, y2, 0, 0, null, null);
 	}
 	
 	public void drawRect(float x, float y, float w, float h) {
-		graphics.drawRect((int) x, (int) y, (int) w, (int) h);
+		submit(GLibCommandBuffer.DRAW_RECT, x, y, w, h, 0, 0, null, null);
 	}
 	
 	public void drawOval(float x, float y, float w, float h) {
-		graphics.drawOval((int) x, (int) y, (int) w, (int) h);
+		submit(GLibCommandBuffer.DRAW_OVAL, x, y, w, h, 0, 0, null, null);
 	}
 	
 	public void drawRoundRect(float x, float y, float w, float h, float arcWidth, float arcHeight) {
-		graphics.drawRoundRect((int) x, (int) y, (int) w, (int) h, (int) arcWidth, (int) arcHeight);
+		submit(GLibCommandBuffer.DRAW_ROUND_RECT, x, y, w, h, arcWidth, arcHeight, null, null);
 	}
 	
 	// BASIC SHAPES (FILLED)
 	
 	public void fillRect(float x, float y, float w, float h) {
-		graphics.fillRect((int) x, (int) y, (int) w, (int) h);
+		submit(GLibCommandBuffer.FILL_RECT, x, y, w, h, 0, 0, null, null);
 	}
 	
 	public void fillOval(float x, float y, float w, float h) {
-		graphics.fillOval((int) x, (int) y, (int) w, (int) h);
+		submit(GLibCommandBuffer.FILL_OVAL, x, y, w, h, 0, 0, null, null);
 	}
 	
 	public void fillRoundRect(float x, float y, float w, float h, float arcWidth, float arcHeight) {
-		graphics.fillRoundRect((int) x, (int) y, (int) w, (int) h, (int) arcWidth, (int) arcHeight);
+		submit(GLibCommandBuffer.FILL_ROUND_RECT, x, y, w, h, arcWidth, arcHeight, null, null);
 	}
 	
 	// MODELS //
@@ -139,13 +664,69 @@ public final class GLibBatch {
 	public void drawModel(String modelName) {
 		var model = GLibModels.model(modelName);
 		
-		graphics.drawPolygon(model.getBasePolygon());
+		submit(GLibCommandBuffer.DRAW_MODEL, 0, 0, 0, 0, 0, 0, model, null);
 	}
 	
 	public void fillModel(String modelName) {
 		var model = GLibModels.model(modelName);
 		
-		graphics.fillPolygon(model.getBasePolygon());
+		submit(GLibCommandBuffer.FILL_MODEL, 0, 0, 0, 0, 0, 0, model, null);
+	}
+	
+	/**
+	 * Draws the outline of a model scaled, rotated around
+	 * its origin and moved to the given position.
+	 * 
+	 * @param modelName a reference to the model
+	 * @param x X-axis position
+	 * @param y Y-axis position
+	 * @param angle rotation in radians
+	 * @param scale scale of the model
+	 */
+	public void drawModel(String modelName, float x, float y, float angle, float scale) {
+		var model = GLibModels.model(modelName);
+		
+		submit(GLibCommandBuffer.DRAW_MODEL_TRANSFORMED, x, y, angle, scale, 0, 0, model, null);
+	}
+	
+	/**
+	 * Fills a model scaled, rotated around its
+	 * origin and moved to the given position.
+	 * 
+	 * @param modelName a reference to the model
+	 * @param x X-axis position
+	 * @param y Y-axis position
+	 * @param angle rotation in radians
+	 * @param scale scale of the model
+	 */
+	public void fillModel(String modelName, float x, float y, float angle, float scale) {
+		var model = GLibModels.model(modelName);
+		
+		submit(GLibCommandBuffer.FILL_MODEL_TRANSFORMED, x, y, angle, scale, 0, 0, model, null);
+	}
+	
+	/**
+	 * Draws the outline of a model by its handle.
+	 * 
+	 * @param modelHandle the model handle
+	 * @see GLibModels#getModelHandle(String)
+	 */
+	public void drawModel(int modelHandle, float x, float y, float angle, float scale) {
+		var model = GLibModels.model(modelHandle);
+		
+		submit(GLibCommandBuffer.DRAW_MODEL_TRANSFORMED, x, y, angle, scale, 0, 0, model, null);
+	}
+	
+	/**
+	 * Fills a model by its handle.
+	 * 
+	 * @param modelHandle the model handle
+	 * @see GLibModels#getModelHandle(String)
+	 */
+	public void fillModel(int modelHandle, float x, float y, float angle, float scale) {
+		var model = GLibModels.model(modelHandle);
+		
+		submit(GLibCommandBuffer.FILL_MODEL_TRANSFORMED, x, y, angle, scale, 0, 0, model, null);
 	}
 	
 	// TEXTURE //
@@ -153,13 +734,91 @@ public final class GLibBatch {
 	public void drawSprite(float x, float y) {
 		if (sprite == null) return;
 		
-		graphics.drawImage(sprite, (int) x, (int) y, null);
+		submit(GLibCommandBuffer.DRAW_SPRITE, x, y, 0, 0, 0, 0, sprite, null);
 	}
 	
 	public void drawSprite(float x, float y, float w, float h) {
 		if (sprite == null) return;
 		
-		graphics.drawImage(sprite, (int) x, (int) y, (int) w, (int) h, null);
+		submit(GLibCommandBuffer.DRAW_SPRITE_SCALED, x, y, w, h, 0, 0, sprite, null);
+	}
+	
+	/**
+	 * Draws a sprite by its handle, without
+	 * changing the bound sprite.
+	 * 
+	 * @param spriteHandle the sprite handle
+	 * @param x X-axis position
+	 * @param y Y-axis position
+	 */
+	public void drawSprite(int spriteHandle, float x, float y) {
+		var region = GLibSpritesheets.getSprite(spriteHandle);
+		
+		if (region == null) return;
+		
+		submit(GLibCommandBuffer.DRAW_SPRITE, x, y, 0, 0, 0, 0, region, null);
+	}
+	
+	/**
+	 * Draws many instances of a sprite.
+	 * 
+	 * @param spriteHandle the sprite handle
+	 * @param xs X-axis position of each instance
+	 * @param ys Y-axis position of each instance
+	 * @param count number of instances
+	 */
+	public void drawSprites(int spriteHandle, float[] xs, float[] ys, int count) {
+		drawSprites(spriteHandle, null, xs, ys, null, null, count);
+	}
+	
+	/**
+	 * Draws many instances of a sprite, each one with its own
+	 * scale and tint. The tint multiplies the sprite colors and
+	 * {@code 0xFFFFFFFF} leaves them as they are.
+	 * 
+	 * @param spriteHandle the sprite handle
+	 * @param xs X-axis position of each instance
+	 * @param ys Y-axis position of each instance
+	 * @param scales scale of each instance, or {@code null}
+	 * @param tints packed ARGB tint of each instance, or {@code null}
+	 * @param count number of instances
+	 */
+	public void drawSprites(int spriteHandle, float[] xs, float[] ys, float[] scales, int[] tints, int count) {
+		drawSprites(spriteHandle, null, xs, ys, scales, tints, count);
+	}
+	
+	/**
+	 * Draws many sprite instances, each one with its own sprite,
+	 * scale and tint. Consecutive instances of the same sprite
+	 * share its lookup.
+	 * 
+	 * @param spriteHandles sprite handle of each instance
+	 * @param xs X-axis position of each instance
+	 * @param ys Y-axis position of each instance
+	 * @param scales scale of each instance, or {@code null}
+	 * @param tints packed ARGB tint of each instance, or {@code null}
+	 * @param count number of instances
+	 */
+	public void drawSprites(int[] spriteHandles, float[] xs, float[] ys, float[] scales, int[] tints, int count) {
+		if (spriteHandles == null)
+			throw new NullPointerException("The sprite handles must not be null.");
+		
+		drawSprites(GLibSpritesheets.NO_SPRITE, spriteHandles, xs, ys, scales, tints, count);
+	}
+	
+	/**
+	 * Draws a sprite that doesn't belong to a spritesheet.
+	 */
+	void drawSprite(GLibSprite sprite, float x, float y) {
+		submit(GLibCommandBuffer.DRAW_SPRITE, x, y, 0, 0, 0, 0, sprite, null);
+	}
+	
+	int getScreenWidth() {
+		return screenWidth;
+	}
+	
+	int getScreenHeight() {
+		return screenHeight;
 	}
 	
 	// TEXT //
@@ -167,34 +826,125 @@ public final class GLibBatch {
 	public void drawText(String text, float x, float y, GLibFont font) {
 		if (text == null || text.trim().isEmpty()) return;
 		
-		graphics.setFont(font.getBaseFont());
-
-		var fontMetrics = graphics.getFontMetrics();
-		var textSize = fontMetrics.getStringBounds(text, graphics);
-
-		float textWidth = (float) textSize.getWidth();
-		float textHeight = (float) textSize.getHeight();
-		float textXOffset = (float) Math.abs(textSize.getX());
-		float textYOffset = (float) Math.abs(textSize.getY());
+		submit(GLibCommandBuffer.DRAW_TEXT, x, y, 0, 0, 0, 0, text, font);
+	}
+	
+	/**
+	 * Draws a text laid out by {@link #createText(String, GLibFont, float)}.
+	 * 
+	 * @param text the text
+	 * @param x X-axis position of the first line
+	 * @param y Y-axis position of the first line
+	 */
+	public void drawText(GLibText text, float x, float y) {
+		if (text == null) return;
+		
+		submit(GLibCommandBuffer.DRAW_TEXT, x, y, 0, 0, 0, 0, text, text.getFont());
+	}
+	
+	public GLibText createText(String text, GLibFont font) {
+		return createText(text, font, GLibText.NO_WRAP);
+	}
+	
+	/**
+	 * Lays out a text to be drawn many times.
+	 * 
+	 * @param text the text, with its lines separated by {@code '\n'}
+	 * @param font the font
+	 * @param wrapWidth the maximum width of the lines
+	 * or {@link GLibText#NO_WRAP}
+	 * @return the laid out text
+	 */
+	public GLibText createText(String text, GLibFont font, float wrapWidth) {
+		if (text == null || font == null)
+			throw new NullPointerException("The text and the font must not be null.");
+		
+		return new GLibText(text, font, wrapWidth, font.getGlyphAtlas(graphics));
+	}
+	
+	/*
+	 * Draws a string or the lines of a laid out text, with
+	 * a software rasterizer or with the Java2D graphics when
+	 * it is null. Strings are laid out unless already done.
+	 */
+	private void paintText(Object text, int color, float x, float y, GLibFont font,
+			GLibRasterizer rasterizer, boolean thinStroke, GLibTextLayout layout) {
+		if (text instanceof GLibText) {
+			var lines = (GLibText) text;
+			var atlas = lines.getAtlas();
+			
+			for (int i = 0; i < lines.getLineCount(); i++) {
+				paintLayout(atlas, lines.getLayout(i), color, x, y + i * atlas.getHeight(),
+						font, rasterizer, thinStroke);
+			}
+		} else {
+			var atlas = font.getGlyphAtlas(graphics);
+			
+			if (layout == null)
+				layout = atlas.layout((String) text);
+			
+			paintLayout(atlas, layout, color, x, y, font, rasterizer, thinStroke);
+		}
+	}
+	
+	/*
+	 * Draws the glyphs of a line from the atlas of the font,
+	 * and the underline and strikeout lines from its metrics.
+	 */
+	private void paintLayout(GLibGlyphAtlas atlas, GLibTextLayout layout, int color,
+			float x, float y, GLibFont font, GLibRasterizer rasterizer, boolean thinStroke) {
+		float baseline = y + atlas.getAscent();
+		
+		for (int i = 0; i < layout.getGlyphCount(); i++) {
+			int glyph = layout.getGlyph(i);
+			
+			if (glyph < 0 || atlas.bound(glyph, 2) == 0)
+				continue;
+			
+			int page = atlas.page(glyph);
+			int sourceX = atlas.bound(glyph, 0);
+			int sourceY = atlas.bound(glyph, 1);
+			int w = atlas.bound(glyph, 2);
+			int h = atlas.bound(glyph, 3);
+			int glyphX = (int) Math.floor(x + layout.getPosition(i) + atlas.offsetX(glyph));
+			int glyphY = (int) Math.floor(baseline + atlas.offsetY(glyph));
+			
+			if (rasterizer != null) {
+				rasterizer.drawTinted(atlas.getPagePixels(page), atlas.getPage(page).getWidth(),
+						sourceX, sourceY, w, h, glyphX, glyphY);
+			} else {
+				graphics.drawImage(atlas.getTintedPage(page, color), glyphX, glyphY, glyphX + w, glyphY + h,
+						sourceX, sourceY, sourceX + w, sourceY + h, null);
+			}
+		}
+		
+		if (!font.isStrike() && !font.isUnderline())
+			return;
+		
+		int x0 = (int) x;
+		int x1 = (int) (x + layout.getWidth());
 		
-		graphics.drawString(text, x + textXOffset, y + textYOffset);
-
 		if (font.isStrike())
-			drawLine(x, y + textYOffset * 0.75f, x + textWidth, y + textYOffset * 0.75f);
-
+			paintTextLine(x0, x1, (int) (y + atlas.getAscent() * 0.75f), color, rasterizer, thinStroke);
+		
 		if (font.isUnderline())
-			drawLine(x, y + textHeight, x + textWidth, y + textHeight);
+			paintTextLine(x0, x1, (int) (y + atlas.getHeight()), color, rasterizer, thinStroke);
+	}
+	
+	private void paintTextLine(int x0, int x1, int y, int color, GLibRasterizer rasterizer, boolean thinStroke) {
+		if (rasterizer != null && thinStroke) {
+			rasterizer.drawLine(x0, y, x1, y);
+			return;
+		}
+		
+		useGraphicsColor(color);
+		graphics.drawLine(x0, y, x1, y);
 	}
 	
 	// COLORS //
 	
 	public void color(float r, float g, float b, float a) {
-		float newRed = constraintsNumber(r, 0.0f, 1.0f);
-		float newGreen = constraintsNumber(g, 0.0f, 1.0f);
-		float newBlue = constraintsNumber(b, 0.0f, 1.0f);
-		float newAlpha = constraintsNumber(a, 0.0f, 1.0f);
-		
-		graphics.setColor(new Color(newRed, newGreen, newBlue, newAlpha));
+		color = packColor(r, g, b, a);
 	}
 
 	public void color(float r, float g, float b) {
@@ -202,12 +952,7 @@ public final class GLibBatch {
 	}
 	
 	public void color(int r, int g, int b, int a) {
-		float newRed = constraintsNumber(r, 0, 255);
-		float newGreen = constraintsNumber(g, 0, 255);
-		float newBlue = constraintsNumber(b, 0, 255);
-		float newAlpha = constraintsNumber(a, 0, 255);
-		
-		graphics.setColor(new Color(newRed, newGreen, newBlue, newAlpha));
+		color = packColor(r, g, b, a);
 	}
 	
 	public void color(int r, int g, int b) {
@@ -215,45 +960,848 @@ public final class GLibBatch {
 	}
 	
 	public void color(int rgba) {
-		graphics.setColor(new Color(rgba, true));
+		color = rgba;
 	}
 	
 	// CLEAR COLOR //
 	
 	public void clearColor(float r, float g, float b, float a) {
-		float newRed = constraintsNumber(r, 0.0f, 1.0f);
-		float newGreen = constraintsNumber(g, 0.0f, 1.0f);
-		float newBlue = constraintsNumber(b, 0.0f, 1.0f);
-		float newAlpha = constraintsNumber(a, 0.0f, 1.0f);
-		
-		clearColor = new Color(newRed, newGreen, newBlue, newAlpha);
+		clearColor = packColor(r, g, b, a);
+	}
+	
+	public void clearColor(int rgba) {
+		clearColor = rgba;
 	}
 	
 	// GRAPHICS //
 	
+	// transformations and strokes are not recorded in deferred
+	// mode, so the pending commands are flushed before they change
+	// (dirty rendering stores them along with every command)
+	
 	public void translate(float x, float y) {
+		flushState();
 		graphics.translate(x, y);
+		graphicsTransform = null;
+		updateRasterizerTransform();
+		
+		// the draw calls aren't in camera space anymore
+		culling = false;
 	}
 	
 	public void scale(float x, float y) {
+		flushState();
 		graphics.scale(x, y);
+		graphicsTransform = null;
+		updateRasterizerTransform();
+		
+		// the draw calls aren't in camera space anymore
+		culling = false;
 	}
 	
 	public void rotate(float angle, float x, float y) {
+		flushState();
 		graphics.rotate(angle, x, y);
+		graphicsTransform = null;
+		updateRasterizerTransform();
+		
+		// the draw calls aren't in camera space anymore
+		culling = false;
 	}
 	
 	public void stroke(float intensity) {
-		graphics.setStroke(new BasicStroke(intensity));
+		flushState();
+		
+		if (stroke != null && stroke.getLineWidth() == intensity)
+			return;
+		
+		stroke = new BasicStroke(intensity);
+		allocations++;
+		
+		useGraphicsStroke(stroke);
 	}
 	
 	public void clearScreen() {
-		graphics.setColor(clearColor);
+		if (dirtyRendering) {
+			// what was drawn so far is discarded and only
+			// the dirty region is cleared at the end of the frame
+			commands.clear();
+			cleared = true;
+			return;
+		}
+		
+		flush();
+		
+		if (rasterizable) {
+			rasterizer.setColor(clearColor);
+			rasterizer.fillRect(0, 0, screenWidth, screenHeight);
+			return;
+		}
+		
+		useGraphicsColor(clearColor);
 		graphics.fillRect(0, 0, screenWidth, screenHeight);
 	}
 	
 	/////////////////////////
 	
+	/*
+	 * Sets the color of the graphics, reusing the Color
+	 * objects of the recently used colors.
+	 */
+	private void useGraphicsColor(int argb) {
+		if (argb == graphicsColor) return;
+		
+		int slot = (argb * 0x9E3779B9) >>> (32 - COLOR_CACHE_BITS);
+		var cached = colorCache[slot];
+		
+		if (cached == null || cached.getRGB() != argb) {
+			cached = new Color(argb, true);
+			colorCache[slot] = cached;
+			allocations++;
+		}
+		
+		graphics.setColor(cached);
+		graphicsColor = argb;
+	}
+	
+	/*
+	 * Draws a sprite multiplied by a tint with Java2D. The
+	 * color channels come from a tinted copy of the sprite
+	 * and the alpha from the composite, so the copy is shared
+	 * by the alphas of the same color.
+	 */
+	private void drawTinted(GLibSprite sprite, int tint, int x, int y, int w, int h) {
+		int alpha = tint >>> 24;
+		
+		if (alpha == 0) return;
+		
+		Image drawable = (tint & 0xFFFFFF) == 0xFFFFFF ? sprite.getDrawable() : sprite.getTinted(tint);
+		
+		if (alpha == 0xFF) {
+			graphics.drawImage(drawable, x, y, w, h, null);
+			return;
+		}
+		
+		var composite = COMPOSITES[alpha];
+		
+		if (composite == null) {
+			composite = AlphaComposite.SrcOver.derive(alpha / 255.0f);
+			COMPOSITES[alpha] = composite;
+		}
+		
+		var previous = graphics.getComposite();
+		
+		graphics.setComposite(composite);
+		graphics.drawImage(drawable, x, y, w, h, null);
+		graphics.setComposite(previous);
+	}
+	
+	private void useGraphicsStroke(BasicStroke stroke) {
+		if (stroke == graphicsStroke) return;
+		
+		graphics.setStroke(stroke);
+		graphicsStroke = stroke;
+		thinStroke = stroke.getLineWidth() <= 1.0f;
+	}
+	
+	private void useGraphicsTransform(AffineTransform transform) {
+		if (transform == graphicsTransform) return;
+		
+		graphics.setTransform(transform);
+		graphicsTransform = transform;
+		updateRasterizerTransform(transform);
+	}
+	
+	/*
+	 * Gets a copy of the transform of the graphics,
+	 * taken again only after it changes.
+	 */
+	private AffineTransform getGraphicsTransform() {
+		if (graphicsTransform == null) {
+			graphicsTransform = graphics.getTransform();
+			allocations++;
+		}
+		
+		return graphicsTransform;
+	}
+	
+	private void updateRasterizerTransform() {
+		if (rasterizer == null) return;
+		
+		updateRasterizerTransform(graphics.getTransform());
+	}
+	
+	/*
+	 * The rasterizer only handles translations, anything
+	 * else is drawn by the Java2D graphics.
+	 */
+	private void updateRasterizerTransform(AffineTransform transform) {
+		if (rasterizer == null) return;
+		
+		rasterizable = (transform.getType() & ~AffineTransform.TYPE_TRANSLATION) == 0;
+		
+		if (rasterizable) {
+			rasterizer.setTranslation(toPixels(transform.getTranslateX()), toPixels(transform.getTranslateY()));
+		}
+	}
+	
+	/*
+	 * Rounds a translation so that the rasterizer covers the
+	 * pixels whose centers are inside the translated area.
+	 */
+	private static int toPixels(double translation) {
+		return (int) Math.ceil(translation - 0.5);
+	}
+	
+	/*
+	 * Draws the recorded commands before the graphics state
+	 * changes, unless they keep the state they were recorded
+	 * with. Deferred tile rendering still flushes, so that
+	 * it sorts the same runs of commands as the serial path.
+	 */
+	private void flushState() {
+		if (tileRenderer == null || deferred)
+			flush();
+	}
+	
+	/*
+	 * Draws the sprite instances. Recorded instances are submitted
+	 * one by one; otherwise the sprite, its pixels and the graphics
+	 * state are resolved once per run of instances of the same sprite.
+	 */
+	private void drawSprites(int spriteHandle, int[] spriteHandles, float[] xs, float[] ys,
+			float[] scales, int[] tints, int count) {
+		if (xs == null || ys == null)
+			throw new NullPointerException("The positions must not be null.");
+		
+		if (count < 0 || count > xs.length || count > ys.length
+				|| (spriteHandles != null && count > spriteHandles.length)
+				|| (scales != null && count > scales.length)
+				|| (tints != null && count > tints.length))
+			throw new IllegalArgumentException("Invalid instance count: " + count);
+		
+		boolean recorded = deferred || dirtyRendering || tileRenderer != null;
+		
+		GLibSprite sprite = null;
+		BufferedImage image = null;
+		int[] pixels = null;
+		int handle = GLibSpritesheets.NO_SPRITE;
+		
+		for (int i = 0; i < count; i++) {
+			int next = spriteHandles != null ? spriteHandles[i] : spriteHandle;
+			
+			if (i == 0 || next != handle) {
+				handle = next;
+				sprite = GLibSpritesheets.getSprite(handle);
+				
+				if (sprite != null) {
+					image = sprite.getImage();
+					pixels = rasterizable && !recorded ? GLibRasterizer.getPixels(image) : null;
+				}
+			}
+			
+			if (sprite == null) continue;
+			
+			float x = xs[i];
+			float y = ys[i];
+			float scale = scales != null ? scales[i] : 1.0f;
+			int tint = tints != null ? tints[i] : 0xFFFFFFFF;
+			
+			int opcode = tint != 0xFFFFFFFF ? GLibCommandBuffer.DRAW_SPRITE_TINTED
+					: scale != 1.0f ? GLibCommandBuffer.DRAW_SPRITE_SCALED : GLibCommandBuffer.DRAW_SPRITE;
+			
+			float w = image.getWidth() * scale;
+			float h = image.getHeight() * scale;
+			
+			submittedCommands++;
+			
+			if (culling && !camera.isVisible(x, y, w, h)) {
+				culledCommands++;
+				continue;
+			}
+			
+			if (recorded) {
+				commands.record(opcode, x, y, w, h, 0, 0, tint, layer, depth, sprite, null);
+				recordBounds(opcode, x, y, w, h, sprite, null);
+			} else if (rasterizable) {
+				rasterizer.setColor(tint);
+				rasterizeSprite(rasterizer, opcode, image, pixels, x, y, w, h);
+			} else if (opcode == GLibCommandBuffer.DRAW_SPRITE) {
+				graphics.drawImage(sprite.getDrawable(), (int) x, (int) y, null);
+			} else {
+				drawTinted(sprite, tint, (int) x, (int) y, (int) w, (int) h);
+			}
+		}
+	}
+	
+	/*
+	 * Records the command in deferred mode or
+	 * executes it right away.
+	 */
+	private void submit(int opcode, float x, float y, float w, float h,
+			float arcWidth, float arcHeight, Object resource, GLibFont font) {
+		if (cull(opcode, x, y, w, h, resource, font))
+			return;
+		
+		if (dirtyRendering || tileRenderer != null) {
+			commands.record(opcode, x, y, w, h, arcWidth, arcHeight, color, layer, depth, resource, font);
+			recordBounds(opcode, x, y, w, h, resource, font);
+		} else if (deferred) {
+			commands.record(opcode, x, y, w, h, arcWidth, arcHeight, color, layer, depth, resource, font);
+		} else {
+			execute(opcode, color, x, y, w, h, arcWidth, arcHeight, resource, font);
+		}
+	}
+	
+	/*
+	 * Stores the screen area touched by the last recorded
+	 * command, with a pixel of margin for antialiasing.
+	 */
+	private void recordBounds(int opcode, float x, float y, float w, float h, Object resource, GLibFont font) {
+		computeBounds(opcode, x, y, w, h, resource, font);
+		
+		float left = drawBounds[0];
+		float top = drawBounds[1];
+		float right = drawBounds[2];
+		float bottom = drawBounds[3];
+		
+		var transform = getGraphicsTransform();
+		
+		if ((transform.getType() & ~AffineTransform.TYPE_TRANSLATION) == 0) {
+			left += transform.getTranslateX();
+			top += transform.getTranslateY();
+			right += transform.getTranslateX();
+			bottom += transform.getTranslateY();
+		} else {
+			// bounds of the transformed corners
+			corners[0] = corners[6] = left;
+			corners[1] = corners[3] = top;
+			corners[2] = corners[4] = right;
+			corners[5] = corners[7] = bottom;
+			
+			transform.transform(corners, 0, corners, 0, 4);
+			
+			left = top = Float.POSITIVE_INFINITY;
+			right = bottom = Float.NEGATIVE_INFINITY;
+			
+			for (int i = 0; i < 8; i += 2) {
+				left = Math.min(left, (float) corners[i]);
+				top = Math.min(top, (float) corners[i + 1]);
+				right = Math.max(right, (float) corners[i]);
+				bottom = Math.max(bottom, (float) corners[i + 1]);
+			}
+		}
+		
+		commands.bound((int) Math.floor(left), (int) Math.floor(top),
+				(int) Math.ceil(right), (int) Math.ceil(bottom), transform, stroke);
+	}
+	
+	/*
+	 * Finds the area touched by a draw call before the
+	 * transform, with a pixel of margin for antialiasing.
+	 */
+	private void computeBounds(int opcode, float x, float y, float w, float h, Object resource, GLibFont font) {
+		float left = x;
+		float top = y;
+		float right = x + w;
+		float bottom = y + h;
+		float margin = 1.0f;
+		
+		switch (opcode) {
+		case GLibCommandBuffer.DRAW_LINE:
+			left = Math.min(x, w);
+			top = Math.min(y, h);
+			right = Math.max(x, w) + 1;
+			bottom = Math.max(y, h) + 1;
+			margin += stroke.getLineWidth() / 2;
+			break;
+		case GLibCommandBuffer.DRAW_RECT:
+		case GLibCommandBuffer.DRAW_OVAL:
+		case GLibCommandBuffer.DRAW_ROUND_RECT:
+			right++;
+			bottom++;
+			margin += stroke.getLineWidth() / 2;
+			break;
+		case GLibCommandBuffer.DRAW_MODEL:
+		case GLibCommandBuffer.FILL_MODEL:
+			var polygon = ((GLibModel) resource).getBasePolygon();
+			
+			left = top = Float.POSITIVE_INFINITY;
+			right = bottom = Float.NEGATIVE_INFINITY;
+			
+			for (int i = 0; i < polygon.npoints; i++) {
+				left = Math.min(left, polygon.xpoints[i]);
+				top = Math.min(top, polygon.ypoints[i]);
+				right = Math.max(right, polygon.xpoints[i] + 1);
+				bottom = Math.max(bottom, polygon.ypoints[i] + 1);
+			}
+			
+			if (polygon.npoints == 0)
+				left = top = right = bottom = 0;
+			if (opcode == GLibCommandBuffer.DRAW_MODEL)
+				margin += stroke.getLineWidth() / 2;
+			break;
+		case GLibCommandBuffer.DRAW_MODEL_TRANSFORMED:
+		case GLibCommandBuffer.FILL_MODEL_TRANSFORMED:
+			var model = (GLibModel) resource;
+			var points = model.transform(x, y, w, h);
+			
+			left = top = Float.POSITIVE_INFINITY;
+			right = bottom = Float.NEGATIVE_INFINITY;
+			
+			for (int i = 0; i < model.getVertexCount() * 2; i += 2) {
+				left = Math.min(left, points[i]);
+				top = Math.min(top, points[i + 1]);
+				right = Math.max(right, points[i] + 1);
+				bottom = Math.max(bottom, points[i + 1] + 1);
+			}
+			
+			if (model.getVertexCount() == 0)
+				left = top = right = bottom = 0;
+			if (opcode == GLibCommandBuffer.DRAW_MODEL_TRANSFORMED)
+				margin += stroke.getLineWidth() / 2;
+			break;
+		case GLibCommandBuffer.DRAW_SPRITE:
+			var image = ((GLibSprite) resource).getImage();
+			
+			right = x + image.getWidth();
+			bottom = y + image.getHeight();
+			break;
+		case GLibCommandBuffer.DRAW_TEXT:
+			var atlas = font.getGlyphAtlas(graphics);
+			
+			// underline and glyphs going past their advance
+			if (resource instanceof GLibText) {
+				right = x + ((GLibText) resource).getWidth() + 1;
+				bottom = y + ((GLibText) resource).getHeight() + 1;
+			} else {
+				right = x + atlas.getTextWidth((String) resource) + 1;
+				bottom = y + atlas.getHeight() + 1;
+			}
+			
+			margin += atlas.getHeight() / 4;
+			break;
+		}
+		
+		left -= margin;
+		top -= margin;
+		right += margin;
+		bottom += margin;
+		
+		drawBounds[0] = left;
+		drawBounds[1] = top;
+		drawBounds[2] = right;
+		drawBounds[3] = bottom;
+	}
+	
+	/*
+	 * Compares the commands with the ones of the previous
+	 * frame and marks where they differ.
+	 */
+	private void findDirtyRegion() {
+		if (!previousFrame || cleared != previousCleared || clearColor != previousClearColor) {
+			dirtyRegion.addAll();
+			return;
+		}
+		
+		int size = commands.size();
+		int previousSize = previousCommands.size();
+		
+		for (int i = 0; i < Math.max(size, previousSize); i++) {
+			if (i < size && i < previousSize && commands.matches(i, previousCommands, i))
+				continue;
+			
+			// clears where it was and draws where it is
+			if (i < size)
+				commands.addBounds(i, dirtyRegion);
+			if (i < previousSize)
+				previousCommands.addBounds(i, dirtyRegion);
+		}
+	}
+	
+	/*
+	 * Clears and draws every rectangle of the dirty region,
+	 * clipping the commands that touch it.
+	 */
+	private void redrawDirtyRegion() {
+		var transform = getGraphicsTransform();
+		int size = commands.size();
+		
+		if (deferred)
+			commands.sort();
+		
+		for (int rect = 0; rect < dirtyRegion.size(); rect++) {
+			int x = dirtyRegion.getX(rect);
+			int y = dirtyRegion.getY(rect);
+			int w = dirtyRegion.getWidth(rect);
+			int h = dirtyRegion.getHeight(rect);
+			
+			useGraphicsTransform(IDENTITY);
+			graphics.setClip(x, y, w, h);
+			
+			if (rasterizer != null)
+				rasterizer.setClip(x, y, w, h);
+			
+			if (cleared) {
+				if (rasterizable) {
+					rasterizer.setColor(clearColor);
+					rasterizer.fillRect(x, y, w, h);
+				} else {
+					useGraphicsColor(clearColor);
+					graphics.fillRect(x, y, w, h);
+				}
+			}
+			
+			for (int i = 0; i < size; i++) {
+				int command = deferred ? commands.command(i) : i;
+				
+				if (!commands.intersects(command, dirtyRegion, rect))
+					continue;
+				
+				useGraphicsTransform(commands.transform(command));
+				useGraphicsStroke(commands.stroke(command));
+				executeCommand(command);
+			}
+		}
+		
+		graphics.setClip(null);
+		
+		if (rasterizer != null)
+			rasterizer.resetClip();
+		
+		useGraphicsTransform(transform);
+		useGraphicsStroke(stroke);
+	}
+	
+	/*
+	 * Draws the commands with the tile renderer. Commands the
+	 * rasterizer can't draw split the frame: what was binned
+	 * so far is drawn, then they are drawn by the graphics.
+	 */
+	private void flushTiles() {
+		var transform = getGraphicsTransform();
+		int size = commands.size();
+		
+		if (deferred)
+			commands.sort();
+		
+		recordedCommands += size;
+		tileRenderer.ensureCapacity(size);
+		
+		for (int i = 0; i < size; i++) {
+			int command = deferred ? commands.command(i) : i;
+			
+			if (!isRasterizable(commands.opcode(command), commands.transform(command),
+					commands.stroke(command), commands.font(command))) {
+				tileRenderer.render(this);
+				
+				useGraphicsTransform(commands.transform(command));
+				useGraphicsStroke(commands.stroke(command));
+				executeCommand(command);
+				continue;
+			}
+			
+			resolveTileResources(command);
+			tileRenderer.add(command, commands.bound(command, 0), commands.bound(command, 1),
+					commands.bound(command, 2), commands.bound(command, 3));
+		}
+		
+		tileRenderer.render(this);
+		tileRenderer.clear(size);
+		
+		useGraphicsTransform(transform);
+		useGraphicsStroke(stroke);
+		
+		commands.clear();
+	}
+	
+	/*
+	 * Converts the pixels and lays out the text of a command
+	 * before the tiles draw it, as the caches aren't thread-safe.
+	 */
+	private void resolveTileResources(int command) {
+		var resource = commands.resource(command);
+		
+		switch (commands.opcode(command)) {
+		case GLibCommandBuffer.DRAW_SPRITE:
+		case GLibCommandBuffer.DRAW_SPRITE_SCALED:
+		case GLibCommandBuffer.DRAW_SPRITE_TINTED:
+			tileRenderer.setPixels(command, GLibRasterizer.getPixels(((GLibSprite) resource).getImage()));
+			break;
+		case GLibCommandBuffer.DRAW_TEXT:
+			var atlas = resource instanceof GLibText
+					? ((GLibText) resource).getAtlas() : commands.font(command).getGlyphAtlas(graphics);
+			
+			if (resource instanceof String)
+				tileRenderer.setLayout(command, atlas.layout((String) resource));
+			
+			for (int page = 0; page < atlas.getPageCount(); page++)
+				atlas.getPagePixels(page);
+			break;
+		case GLibCommandBuffer.DRAW_OVAL:
+		case GLibCommandBuffer.DRAW_ROUND_RECT:
+		case GLibCommandBuffer.FILL_OVAL:
+		case GLibCommandBuffer.FILL_ROUND_RECT:
+			traceTileSpans(command);
+			break;
+		}
+	}
+	
+	/*
+	 * Traces a curved shape once, clipped to the screen, so
+	 * that the tiles it touches only draw their part of it.
+	 */
+	private void traceTileSpans(int command) {
+		var transform = commands.transform(command);
+		var spans = tileRenderer.getSpans();
+		int opcode = commands.opcode(command);
+		int from = spans.size();
+		
+		boolean oval = opcode == GLibCommandBuffer.DRAW_OVAL || opcode == GLibCommandBuffer.FILL_OVAL;
+		boolean fill = opcode == GLibCommandBuffer.FILL_OVAL || opcode == GLibCommandBuffer.FILL_ROUND_RECT;
+		
+		if (rasterizer.traceSpans(
+				(int) commands.coord(command, 0) + toPixels(transform.getTranslateX()),
+				(int) commands.coord(command, 1) + toPixels(transform.getTranslateY()),
+				(int) commands.coord(command, 2), (int) commands.coord(command, 3),
+				(int) commands.coord(command, 4), (int) commands.coord(command, 5), oval, fill, spans))
+			tileRenderer.setSpans(command, from, spans.size());
+	}
+	
+	/**
+	 * Draws a command clipped to a tile. Called by the tile
+	 * renderer from its worker threads.
+	 */
+	void rasterizeTile(GLibRasterizer tile, int command) {
+		var transform = commands.transform(command);
+		
+		tile.setTranslation(toPixels(transform.getTranslateX()), toPixels(transform.getTranslateY()));
+		
+		// curved shapes were traced before the tiles started
+		tile.setColor(commands.color(command));
+		
+		if (tileRenderer.drawSpans(tile, command))
+			return;
+		
+		rasterize(tile, true, commands.opcode(command), commands.color(command),
+			commands.coord(command, 0), commands.coord(command, 1),
+			commands.coord(command, 2), commands.coord(command, 3),
+			commands.coord(command, 4), commands.coord(command, 5),
+			commands.resource(command), commands.font(command),
+			tileRenderer.getPixels(command), tileRenderer.getLayout(command));
+	}
+	
+	/*
+	 * Checks if the rasterizer can draw a command with the given
+	 * graphics state. It only handles translations, and thick
+	 * strokes are left to the Java2D graphics.
+	 */
+	private static boolean isRasterizable(int opcode, AffineTransform transform, BasicStroke stroke, GLibFont font) {
+		if ((transform.getType() & ~AffineTransform.TYPE_TRANSLATION) != 0)
+			return false;
+		
+		if (stroke.getLineWidth() <= 1.0f)
+			return true;
+		
+		switch (opcode) {
+		case GLibCommandBuffer.DRAW_LINE:
+		case GLibCommandBuffer.DRAW_RECT:
+		case GLibCommandBuffer.DRAW_OVAL:
+		case GLibCommandBuffer.DRAW_ROUND_RECT:
+		case GLibCommandBuffer.DRAW_MODEL:
+		case GLibCommandBuffer.DRAW_MODEL_TRANSFORMED:
+			return false;
+		case GLibCommandBuffer.DRAW_TEXT:
+			return !font.isUnderline() && !font.isStrike();
+		default:
+			return true;
+		}
+	}
+	
+	private void executeCommand(int command) {
+		execute(commands.opcode(command), commands.color(command),
+			commands.coord(command, 0), commands.coord(command, 1),
+			commands.coord(command, 2), commands.coord(command, 3),
+			commands.coord(command, 4), commands.coord(command, 5),
+			commands.resource(command), commands.font(command));
+	}
+	
+	private void execute(int opcode, int color, float x, float y, float w, float h,
+			float arcWidth, float arcHeight, Object resource, GLibFont font) {
+		if (rasterizable && rasterize(rasterizer, thinStroke, opcode, color, x, y, w, h,
+				arcWidth, arcHeight, resource, font, null, null))
+			return;
+		
+		// sprites and glyphs do not depend on the color
+		if (opcode != GLibCommandBuffer.DRAW_SPRITE && opcode != GLibCommandBuffer.DRAW_SPRITE_SCALED
+				&& opcode != GLibCommandBuffer.DRAW_SPRITE_TINTED && opcode != GLibCommandBuffer.DRAW_TEXT)
+			useGraphicsColor(color);
+		
+		switch (opcode) {
+		case GLibCommandBuffer.DRAW_LINE:
+			graphics.drawLine((int) x, (int) y, (int) w, (int) h);
+			break;
+		case GLibCommandBuffer.DRAW_RECT:
+			graphics.drawRect((int) x, (int) y, (int) w, (int) h);
+			break;
+		case GLibCommandBuffer.DRAW_OVAL:
+			graphics.drawOval((int) x, (int) y, (int) w, (int) h);
+			break;
+		case GLibCommandBuffer.DRAW_ROUND_RECT:
+			graphics.drawRoundRect((int) x, (int) y, (int) w, (int) h, (int) arcWidth, (int) arcHeight);
+			break;
+		case GLibCommandBuffer.FILL_RECT:
+			graphics.fillRect((int) x, (int) y, (int) w, (int) h);
+			break;
+		case GLibCommandBuffer.FILL_OVAL:
+			graphics.fillOval((int) x, (int) y, (int) w, (int) h);
+			break;
+		case GLibCommandBuffer.FILL_ROUND_RECT:
+			graphics.fillRoundRect((int) x, (int) y, (int) w, (int) h, (int) arcWidth, (int) arcHeight);
+			break;
+		case GLibCommandBuffer.DRAW_MODEL:
+			graphics.drawPolygon(((GLibModel) resource).getBasePolygon());
+			break;
+		case GLibCommandBuffer.FILL_MODEL:
+			graphics.fillPolygon(((GLibModel) resource).getBasePolygon());
+			break;
+		case GLibCommandBuffer.DRAW_MODEL_TRANSFORMED:
+			graphics.draw(((GLibModel) resource).getPath(x, y, w, h));
+			break;
+		case GLibCommandBuffer.FILL_MODEL_TRANSFORMED:
+			graphics.fill(((GLibModel) resource).getPath(x, y, w, h));
+			break;
+		case GLibCommandBuffer.DRAW_SPRITE:
+			graphics.drawImage(((GLibSprite) resource).getDrawable(), (int) x, (int) y, null);
+			break;
+		case GLibCommandBuffer.DRAW_SPRITE_SCALED:
+			graphics.drawImage(((GLibSprite) resource).getDrawable(), (int) x, (int) y, (int) w, (int) h, null);
+			break;
+		case GLibCommandBuffer.DRAW_SPRITE_TINTED:
+			drawTinted((GLibSprite) resource, color, (int) x, (int) y, (int) w, (int) h);
+			break;
+		case GLibCommandBuffer.DRAW_TEXT:
+			paintText(resource, color, x, y, font, null, false, null);
+			break;
+		}
+	}
+	
+	/*
+	 * Draws the command with a software rasterizer. Returns
+	 * false when it must be drawn by the Java2D graphics. The
+	 * sprite pixels and the text layout are looked up when
+	 * they weren't resolved beforehand.
+	 */
+	private boolean rasterize(GLibRasterizer rasterizer, boolean thinStroke, int opcode, int color,
+			float x, float y, float w, float h, float arcWidth, float arcHeight,
+			Object resource, GLibFont font, int[] pixels, GLibTextLayout layout) {
+		rasterizer.setColor(color);
+		
+		switch (opcode) {
+		case GLibCommandBuffer.DRAW_LINE:
+			if (!thinStroke) return false;
+			rasterizer.drawLine((int) x, (int) y, (int) w, (int) h);
+			return true;
+		case GLibCommandBuffer.DRAW_RECT:
+			if (!thinStroke) return false;
+			rasterizer.drawRect((int) x, (int) y, (int) w, (int) h);
+			return true;
+		case GLibCommandBuffer.DRAW_OVAL:
+			if (!thinStroke) return false;
+			rasterizer.drawOval((int) x, (int) y, (int) w, (int) h);
+			return true;
+		case GLibCommandBuffer.DRAW_ROUND_RECT:
+			if (!thinStroke) return false;
+			rasterizer.drawRoundRect((int) x, (int) y, (int) w, (int) h, (int) arcWidth, (int) arcHeight);
+			return true;
+		case GLibCommandBuffer.FILL_RECT:
+			rasterizer.fillRect((int) x, (int) y, (int) w, (int) h);
+			return true;
+		case GLibCommandBuffer.FILL_OVAL:
+			rasterizer.fillOval((int) x, (int) y, (int) w, (int) h);
+			return true;
+		case GLibCommandBuffer.FILL_ROUND_RECT:
+			rasterizer.fillRoundRect((int) x, (int) y, (int) w, (int) h, (int) arcWidth, (int) arcHeight);
+			return true;
+		case GLibCommandBuffer.DRAW_MODEL:
+			if (!thinStroke) return false;
+			rasterizer.drawPolygon(((GLibModel) resource).getBasePolygon());
+			return true;
+		case GLibCommandBuffer.FILL_MODEL:
+			rasterizer.fillPolygon(((GLibModel) resource).getBasePolygon());
+			return true;
+		case GLibCommandBuffer.DRAW_MODEL_TRANSFORMED:
+			if (!thinStroke) return false;
+			var outline = (GLibModel) resource;
+			
+			rasterizer.drawModel(outline.getVertices(), outline.getVertexCount(), x, y, w, h);
+			return true;
+		case GLibCommandBuffer.FILL_MODEL_TRANSFORMED:
+			var shape = (GLibModel) resource;
+			
+			rasterizer.fillModel(shape.getVertices(), shape.getVertexCount(), x, y, w, h);
+			return true;
+		case GLibCommandBuffer.DRAW_SPRITE:
+		case GLibCommandBuffer.DRAW_SPRITE_SCALED:
+		case GLibCommandBuffer.DRAW_SPRITE_TINTED:
+			var image = ((GLibSprite) resource).getImage();
+			
+			rasterizeSprite(rasterizer, opcode, image, pixels != null ? pixels : GLibRasterizer.getPixels(image),
+					x, y, w, h);
+			return true;
+		case GLibCommandBuffer.DRAW_TEXT:
+			paintText(resource, color, x, y, font, rasterizer, thinStroke, layout);
+			return true;
+		}
+		
+		return false;
+	}
+	
+	/*
+	 * Draws a sprite with a software rasterizer. Tinted
+	 * sprites are multiplied by the rasterizer color.
+	 */
+	private static void rasterizeSprite(GLibRasterizer rasterizer, int opcode, BufferedImage image, int[] pixels,
+			float x, float y, float w, float h) {
+		int imageWidth = image.getWidth();
+		int imageHeight = image.getHeight();
+		
+		switch (opcode) {
+		case GLibCommandBuffer.DRAW_SPRITE:
+			rasterizer.drawImage(image, pixels, (int) x, (int) y);
+			break;
+		case GLibCommandBuffer.DRAW_SPRITE_SCALED:
+			rasterizer.drawImage(image, pixels, (int) x, (int) y, (int) w, (int) h);
+			break;
+		case GLibCommandBuffer.DRAW_SPRITE_TINTED:
+			if ((int) w == imageWidth && (int) h == imageHeight)
+				rasterizer.drawTinted(pixels, imageWidth, 0, 0, imageWidth, imageHeight, (int) x, (int) y);
+			else
+				rasterizer.drawTinted(pixels, imageWidth, imageHeight, (int) x, (int) y, (int) w, (int) h);
+			break;
+		}
+	}
+	
+	/////////////////////////
+	
+	private static int packColor(float r, float g, float b, float a) {
+		int red = (int) (constraintsNumber(r, 0.0f, 1.0f) * 255 + 0.5f);
+		int green = (int) (constraintsNumber(g, 0.0f, 1.0f) * 255 + 0.5f);
+		int blue = (int) (constraintsNumber(b, 0.0f, 1.0f) * 255 + 0.5f);
+		int alpha = (int) (constraintsNumber(a, 0.0f, 1.0f) * 255 + 0.5f);
+		
+		return packColor(red, green, blue, alpha);
+	}
+	
+	private static int packColor(int r, int g, int b, int a) {
+		int red = (int) constraintsNumber(r, 0, 255);
+		int green = (int) constraintsNumber(g, 0, 255);
+		int blue = (int) constraintsNumber(b, 0, 255);
+		int alpha = (int) constraintsNumber(a, 0, 255);
+		
+		return (alpha << 24) | (red << 16) | (green << 8) | blue;
+	}
+	
 	private static float constraintsNumber(float val, float min, float max) {
 		return val < min ? min : val > max ? max : val;
 	}
@@ -24,11 +24,22 @@
 
 package com.mikronia.glib;
 
+import java.awt.AWTException;
+import java.awt.BufferCapabilities;
 import java.awt.Canvas;
 import java.awt.Color;
+import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.ImageCapabilities;
 import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import com.mikronia.glib.utils.glib.GLibSystem;
 
 /**
  * GLib canvas
@@ -40,13 +51,56 @@ public final class GLibCanvas extends Canvas {
 	
 	private static final long serialVersionUID = 1L;
 	
+	// times a frame is drawn again when its buffer is lost
+	private static final int MAX_PRESENT_ATTEMPTS = 3;
+	
 	private BufferedImage pixelatedBuffer  = null;
 	private BufferStrategy graphicsBuffer  = null;
 	
 	private Graphics2D sourceGraphics      = null;
+	private GLibRasterizer rasterizer      = null;
 	private GLibBatch graphicsBatch        = null;
 	
 	private int pixelSize                  = 1;
+	
+	// buffer strategy
+	private int bufferCount                = 2;
+	private int createdBuffers             = 0;
+	private boolean retainedBuffers        = true;
+	private int lostFrames                 = 0;
+	
+	// direct rendering (into the back buffer)
+	private boolean directRendering        = false;
+	private Graphics2D frameGraphics       = null;
+	private int presentAttempts            = 0;
+	
+	// present stage
+	private BufferedImage screenImage      = null;
+	private int[] sourcePixels             = null;
+	private int[] screenPixels             = null;
+	private GLibUpscaler upscaler          = null;
+	private int presentWorkers             = 1;
+	private int presentX                   = 0;
+	private int presentY                   = 0;
+	private long presentTime               = 0;
+	
+	// dirty rendering
+	private boolean dirtyRendering         = false;
+	private GLibDirtyRegion presentRegion  = null;
+	private GLibDirtyRegion[] previousRegions = null;
+	private int fullPresents               = 0;
+	
+	// tile rendering
+	private boolean tileRendering          = false;
+	private int tileSize                   = GLibTileRenderer.DEFAULT_TILE_SIZE;
+	private int renderWorkers              = Runtime.getRuntime().availableProcessors();
+	private GLibTileRenderer tileRenderer  = null;
+	
+	// offscreen mode (no window)
+	private boolean offscreen              = false;
+	private File dumpDirectory             = null;
+	private int dumpInterval               = 0;
+	private int dumpedFrames               = 0;
 
 	private boolean graphicsValidated      = false;
 	
@@ -67,6 +121,14 @@ public final class GLibCanvas extends Canvas {
 	 * Show drawn stuff on the screen.
 	 */
 	void prepareToDraw() {
+		if (offscreen) {
+			if (!graphicsValidated)
+				createGraphicsElements();
+			
+			graphicsValidated = true;
+			return;
+		}
+		
 		var parent = getParent();
 		
 		// does not prepare if parent component is
@@ -74,22 +136,43 @@ public final class GLibCanvas extends Canvas {
 		if (parent == null || !parent.isShowing())
 			return;
 		
-		// does not prepare if current graphics
-		// are valid.
-		if (graphicsValidated)
-			return;
-		
-		fitCanvasToParent();
-		createGraphicsElements();
+		// creates the graphics again only
+		// when they aren't valid.
+		if (!graphicsValidated) {
+			fitCanvasToParent();
+			createGraphicsElements();
+			
+			graphicsValidated = true;
+		}
 		
-		graphicsValidated = true;
+		if (directRendering && frameGraphics == null)
+			acquireFrameGraphics();
 	}
 	
-	void drawOnScreen() {
-		if (!graphicsValidated)
-			return;
+	/**
+	 * Shows the frame on the screen.
+	 * 
+	 * @return {@code false} when the frame was lost
+	 * and must be drawn again
+	 */
+	boolean drawOnScreen() {
+		if (!graphicsValidated) {
+			releaseFrameGraphics();
+			return true;
+		}
+		
+		if (offscreen) {
+			dumpFrame();
+			return true;
+		}
+		
+		long startTime = System.nanoTime();
+		
+		boolean shown = directRendering
+			? showFrameGraphics() : drawBufferOnScreen();
 		
-		drawBufferOnScreen();
+		presentTime = System.nanoTime() - startTime;
+		return shown;
 	}
 	
 	private void fitCanvasToParent() {
@@ -100,16 +183,66 @@ public final class GLibCanvas extends Canvas {
 		int imageWidth = getWidth() / pixelSize;
 		int imageHeight = getHeight() / pixelSize;
 		
-		if (pixelSize == 1) {
+		// dirty and tile rendering keep the frame in the buffer image
+		boolean tiled = tileRendering && GLib.getRenderer() == GLib.SOFTWARE;
+		
+		if (upscaler != null) {
+			upscaler.dispose();
+			upscaler = null;
+		}
+		
+		screenImage = null;
+		sourcePixels = null;
+		screenPixels = null;
+		
+		releaseFrameGraphics();
+		
+		// centers the image when the canvas size
+		// isn't a multiple of the pixel size
+		presentX = offscreen ? 0 : (getWidth() - imageWidth * pixelSize) / 2;
+		presentY = offscreen ? 0 : (getHeight() - imageHeight * pixelSize) / 2;
+		
+		directRendering = !offscreen && pixelSize == 1 && !dirtyRendering && !tiled;
+		
+		if (offscreen) {
+			graphicsBuffer = null;
+			
+			pixelatedBuffer = new BufferedImage(imageWidth,
+					imageHeight, BufferedImage.TYPE_INT_RGB);
+			
+			sourceGraphics = (Graphics2D) pixelatedBuffer.getGraphics();
+			
+			rasterizer = GLib.getRenderer() == GLib.SOFTWARE
+				? new GLibRasterizer(pixelatedBuffer) : null;
+		} else if (directRendering) {
 			graphicsBuffer = getBufferStrategy();
 			pixelatedBuffer = null;
+			rasterizer = null;
 			
-			sourceGraphics = (Graphics2D) graphicsBuffer.getDrawGraphics();
+			// the graphics of the first frame
+			frameGraphics = (Graphics2D) graphicsBuffer.getDrawGraphics();
+			sourceGraphics = frameGraphics;
 		} else {
+			graphicsBuffer = getBufferStrategy();
+			
 			pixelatedBuffer = new BufferedImage(imageWidth,
 					imageHeight, BufferedImage.TYPE_INT_RGB);
 			
 			sourceGraphics = (Graphics2D) pixelatedBuffer.getGraphics();
+			
+			// the software renderer writes straight into the pixels
+			rasterizer = GLib.getRenderer() == GLib.SOFTWARE
+				? new GLibRasterizer(pixelatedBuffer) : null;
+			
+			if (pixelSize != 1) {
+				// the letterbox bars stay black
+				screenImage = new BufferedImage(getWidth(),
+						getHeight(), BufferedImage.TYPE_INT_RGB);
+				
+				sourcePixels = ((DataBufferInt) pixelatedBuffer.getRaster().getDataBuffer()).getData();
+				screenPixels = ((DataBufferInt) screenImage.getRaster().getDataBuffer()).getData();
+				upscaler = new GLibUpscaler(presentWorkers);
+			}
 		}
 		
 		// set this app's graphics as default
@@ -119,7 +252,33 @@ public final class GLibCanvas extends Canvas {
 		applyInitialRenderingHints();
 		
 		// creates graphics batch
-		graphicsBatch = new GLibBatch(sourceGraphics, imageWidth, imageHeight);
+		var previousBatch = graphicsBatch;
+		graphicsBatch = new GLibBatch(sourceGraphics, rasterizer, imageWidth, imageHeight);
+		
+		// keeps the mode of the previous batch
+		if (previousBatch != null)
+			graphicsBatch.setDeferred(previousBatch.isDeferred());
+		
+		if (tileRenderer != null) {
+			tileRenderer.dispose();
+			tileRenderer = null;
+		}
+		
+		if (tiled) {
+			tileRenderer = new GLibTileRenderer(pixelatedBuffer, tileSize, renderWorkers);
+			graphicsBatch.setTileRenderer(tileRenderer);
+		}
+		
+		if (dirtyRendering) {
+			graphicsBatch.setDirtyRendering(true);
+			
+			presentRegion = new GLibDirtyRegion(imageWidth, imageHeight);
+			previousRegions = new GLibDirtyRegion[bufferCount - 1];
+			fullPresents = bufferCount;
+			
+			for (int i = 0; i < previousRegions.length; i++)
+				previousRegions[i] = new GLibDirtyRegion(imageWidth, imageHeight);
+		}
 	}
 	
 	private void applyInitialRenderingHints() {
@@ -134,23 +293,230 @@ public final class GLibCanvas extends Canvas {
 		GLib.setHint(GLib.FRAC_METRICS, GLib.FALSE);
 	}
 	
-	private void drawBufferOnScreen() {
+	/*
+	 * Copies the frame to the back buffer and shows it, copying
+	 * it again while the contents of the buffers are lost.
+	 */
+	private boolean drawBufferOnScreen() {
+		boolean full = !dirtyRendering || updatePresentRegion();
+		
+		// nothing changed since the back buffer was shown
+		if (!full && presentRegion.isEmpty())
+			return true;
+		
 		if (pixelSize != 1) {
-			// draw image
-			sourceGraphics.drawImage(pixelatedBuffer, 0, 0, getWidth(), getHeight(), null);
+			if (full) {
+				upscale(0, 0, pixelatedBuffer.getWidth(), pixelatedBuffer.getHeight());
+			} else {
+				for (int i = 0; i < presentRegion.size(); i++)
+					upscale(presentRegion.getX(i), presentRegion.getY(i),
+						presentRegion.getX(i) + presentRegion.getWidth(i),
+						presentRegion.getY(i) + presentRegion.getHeight(i));
+			}
+		}
+		
+		var image = pixelSize != 1 ? screenImage : pixelatedBuffer;
+		
+		for (int attempt = 0; attempt < MAX_PRESENT_ATTEMPTS; attempt++) {
+			var graphics = (Graphics2D) graphicsBuffer.getDrawGraphics();
+			
+			try {
+				if (full)
+					graphics.drawImage(image, 0, 0, null);
+				else
+					copyPresentRegion(graphics, image);
+			} finally {
+				graphics.dispose();
+			}
+			
+			if (!graphicsBuffer.contentsRestored()) {
+				graphicsBuffer.show();
+				
+				if (!graphicsBuffer.contentsLost())
+					break;
+			}
+			
+			// the buffers lost their frames
+			lostFrames++;
+			fullPresents = bufferCount;
+			full = true;
+		}
+		
+		return true;
+	}
+	
+	/*
+	 * Scales the buffer area [x0, x1) x [y0, y1)
+	 * into the screen image.
+	 */
+	private void upscale(int x0, int y0, int x1, int y1) {
+		upscaler.upscale(sourcePixels, pixelatedBuffer.getWidth(), screenPixels, getWidth(),
+				pixelSize, presentX, presentY, x0, y0, x1, y1);
+	}
+	
+	/*
+	 * Finds the areas to copy in dirty rendering mode. The back
+	 * buffer may hold the frame shown one buffer count ago, so the
+	 * regions of the frames drawn since then are copied as well.
+	 * Returns true when the whole frame must be copied.
+	 */
+	private boolean updatePresentRegion() {
+		var frameRegion = graphicsBatch.getFrameRegion();
+		boolean full = fullPresents > 0 || !retainedBuffers;
+		
+		presentRegion.clear();
+		
+		if (fullPresents > 0) {
+			fullPresents--;
+		} else {
+			presentRegion.add(frameRegion);
+			
+			for (var region : previousRegions)
+				presentRegion.add(region);
+		}
+		
+		// the oldest region holds this frame now
+		var region = previousRegions[previousRegions.length - 1];
+		
+		System.arraycopy(previousRegions, 0, previousRegions, 1, previousRegions.length - 1);
+		previousRegions[0] = region;
+		
+		region.clear();
+		region.add(frameRegion);
+		
+		return full;
+	}
+	
+	private void copyPresentRegion(Graphics2D graphics, BufferedImage image) {
+		for (int i = 0; i < presentRegion.size(); i++) {
+			int x0 = presentX + presentRegion.getX(i) * pixelSize;
+			int y0 = presentY + presentRegion.getY(i) * pixelSize;
+			int x1 = x0 + presentRegion.getWidth(i) * pixelSize;
+			int y1 = y0 + presentRegion.getHeight(i) * pixelSize;
+			
+			graphics.drawImage(image, x0, y0, x1, y1, x0, y0, x1, y1, null);
+		}
+	}
+	
+	/////////////////////////
+	
+	/*
+	 * Gets the graphics of the back buffer for the next
+	 * frame drawn straight into it.
+	 */
+	private void acquireFrameGraphics() {
+		frameGraphics = (Graphics2D) graphicsBuffer.getDrawGraphics();
+		sourceGraphics = frameGraphics;
+		
+		GLibHints.applyHintsToGraphics(frameGraphics);
+		graphicsBatch.setGraphics(frameGraphics);
+	}
+	
+	private void releaseFrameGraphics() {
+		if (frameGraphics == null) return;
+		
+		graphicsBatch.releaseGraphics();
+		frameGraphics.dispose();
+		frameGraphics = null;
+	}
+	
+	/*
+	 * Shows the frame drawn straight into the back buffer. When
+	 * the buffer is lost, a new graphics is taken and the frame
+	 * must be drawn again (up to a few times).
+	 */
+	private boolean showFrameGraphics() {
+		if (frameGraphics == null)
+			return true;
+		
+		releaseFrameGraphics();
+		
+		if (!graphicsBuffer.contentsRestored()) {
+			graphicsBuffer.show();
+			
+			if (!graphicsBuffer.contentsLost()) {
+				presentAttempts = 0;
+				return true;
+			}
+		}
+		
+		lostFrames++;
+		
+		if (++presentAttempts >= MAX_PRESENT_ATTEMPTS) {
+			presentAttempts = 0;
+			return true;
+		}
+		
+		acquireFrameGraphics();
+		return false;
+	}
+	
+	/////////////////////////
+	
+	/*
+	 * Writes the offscreen image to a PNG file
+	 * every few frames when dumping is enabled.
+	 */
+	private void dumpFrame() {
+		if (dumpDirectory == null || dumpedFrames++ % dumpInterval != 0)
+			return;
+		
+		var file = new File(dumpDirectory, String.format("frame-%06d.png", dumpedFrames - 1));
+		
+		try {
+			ImageIO.write(pixelatedBuffer, "png", file);
+		} catch (IOException e) {
+			GLibSystem.crashApplication("Could not dump the frame.", e);
 		}
-
-		graphicsBuffer.show();
+	}
+	
+	@Override
+	public void paint(Graphics g) {
+		// the window was exposed
+		fullPresents = bufferCount;
 	}
 	
 	@Override
 	public BufferStrategy getBufferStrategy() {
-		if (super.getBufferStrategy() == null) {
-			this.createBufferStrategy(2);
-		}
+		if (super.getBufferStrategy() == null || createdBuffers != bufferCount)
+			createBuffers();
+		
 		return super.getBufferStrategy();
 	}
 	
+	/*
+	 * Creates the buffer strategy, flipping pages when the screen
+	 * can do it keeping the previous frames in the back buffers.
+	 * Otherwise the back buffers are copied to the screen.
+	 */
+	private void createBuffers() {
+		var configuration = getGraphicsConfiguration();
+		boolean created = false;
+		
+		if (configuration != null && configuration.getBufferCapabilities().isPageFlipping()) {
+			try {
+				createBufferStrategy(bufferCount, new BufferCapabilities(new ImageCapabilities(true),
+						new ImageCapabilities(true), BufferCapabilities.FlipContents.PRIOR));
+				created = true;
+			} catch (AWTException e) {
+				// the previous frames can't be kept
+			}
+		}
+		
+		if (!created)
+			createBufferStrategy(bufferCount);
+		
+		createdBuffers = bufferCount;
+		
+		var capabilities = super.getBufferStrategy().getCapabilities();
+		var contents = capabilities.getFlipContents();
+		
+		// dirty rendering needs the frames kept in the back buffers
+		retainedBuffers = !capabilities.isPageFlipping()
+				|| contents == BufferCapabilities.FlipContents.PRIOR
+				|| contents == BufferCapabilities.FlipContents.COPIED;
+	}
+	
 	/**
 	 * Invalidates the canvas.
 	 */
@@ -173,6 +539,119 @@ public final class GLibCanvas extends Canvas {
 		this.pixelSize = pixelSize;
 	}
 
+	/**
+	 * Enables or disables the dirty rendering mode, where only
+	 * the areas of the screen that changed since the previous
+	 * frame are drawn and copied to the screen (see
+	 * {@link GLibBatch#markDirty(int, int, int, int)}).
+	 * 
+	 * @param dirtyRendering dirty rendering state
+	 */
+	public void setDirtyRendering(boolean dirtyRendering) {
+		this.dirtyRendering = dirtyRendering;
+		invalidateGraphics();
+	}
+	
+	/**
+	 * Enables or disables the tile rendering mode, where the
+	 * frame is split into tiles rasterized in parallel by the
+	 * software renderer. The output is the same as drawing
+	 * serially. Ignored by the other renderers and while the
+	 * dirty rendering mode is enabled.
+	 * 
+	 * @param tileRendering tile rendering state
+	 */
+	public void setTileRendering(boolean tileRendering) {
+		this.tileRendering = tileRendering;
+		invalidateGraphics();
+	}
+	
+	/**
+	 * Sets the width and height of the tiles
+	 * in pixels (64 by default).
+	 */
+	public void setTileSize(int tileSize) {
+		if (tileSize < 8)
+			throw new IllegalArgumentException("Tile size must be at least 8. You typed " + tileSize);
+		
+		this.tileSize = tileSize;
+		invalidateGraphics();
+	}
+	
+	/**
+	 * Sets the number of threads rasterizing the tiles
+	 * (the number of processors by default).
+	 */
+	public void setRenderWorkers(int renderWorkers) {
+		if (renderWorkers < 1)
+			throw new IllegalArgumentException("There must be at least one render worker. You typed " + renderWorkers);
+		
+		this.renderWorkers = renderWorkers;
+		invalidateGraphics();
+	}
+	
+	/**
+	 * Sets the number of buffers of the screen, 2 for double
+	 * buffering (default) or 3 for triple buffering. Triple
+	 * buffering keeps the frames coming when showing a frame
+	 * waits for the screen, at the cost of one more frame of
+	 * latency.
+	 * 
+	 * @param bufferCount number of buffers
+	 */
+	public void setBufferCount(int bufferCount) {
+		if (bufferCount < 2 || bufferCount > 3)
+			throw new IllegalArgumentException("Buffer count must be 2 or 3. You typed " + bufferCount);
+		
+		this.bufferCount = bufferCount;
+		invalidateGraphics();
+	}
+	
+	/**
+	 * Sets the number of threads scaling the frame to the
+	 * screen when the pixel size is above one (1 by default,
+	 * scaling in the timer thread). Large frames are split
+	 * into bands of rows scaled in parallel.
+	 */
+	public void setPresentWorkers(int presentWorkers) {
+		if (presentWorkers < 1)
+			throw new IllegalArgumentException("There must be at least one present worker. You typed " + presentWorkers);
+		
+		this.presentWorkers = presentWorkers;
+		invalidateGraphics();
+	}
+	
+	/**
+	 * Draws the frames into an offscreen image instead of
+	 * the screen. Used by {@link GLib#initializeHeadless}.
+	 * 
+	 * @param width image width
+	 * @param height image height
+	 */
+	void setOffscreen(int width, int height) {
+		this.offscreen = true;
+		setSize(width, height);
+		invalidateGraphics();
+	}
+	
+	/**
+	 * Writes every {@code interval}-th offscreen frame to
+	 * a numbered PNG file ({@code frame-000000.png}, ...).
+	 * Only the offscreen mode dumps frames.
+	 * 
+	 * @param directory the directory of the files
+	 * or {@code null} to stop dumping
+	 * @param interval frames between two dumps
+	 */
+	public void setFrameDump(File directory, int interval) {
+		if (interval < 1)
+			throw new IllegalArgumentException("Dump interval must be at least 1. You typed " + interval);
+		
+		this.dumpDirectory = directory;
+		this.dumpInterval = interval;
+		this.dumpedFrames = 0;
+	}
+	
 	private int calculateMaximumPixelSize(int width, int height) {
 		int totalPixels = width * height;
 		int maximumPixelSize = 1;
@@ -189,6 +668,77 @@ public final class GLibCanvas extends Canvas {
 	public int getPixelSize() {
 		return pixelSize;
 	}
+	
+	public boolean isDirtyRendering() {
+		return dirtyRendering;
+	}
+	
+	public boolean isTileRendering() {
+		return tileRendering;
+	}
+	
+	public boolean isOffscreen() {
+		return offscreen;
+	}
+	
+	/**
+	 * Gets the image the frames are drawn into in
+	 * offscreen mode, or {@code null} otherwise.
+	 */
+	public BufferedImage getOffscreenImage() {
+		return offscreen ? pixelatedBuffer : null;
+	}
+	
+	public int getTileSize() {
+		return tileSize;
+	}
+	
+	public int getRenderWorkers() {
+		return renderWorkers;
+	}
+	
+	public int getPresentWorkers() {
+		return presentWorkers;
+	}
+	
+	public int getBufferCount() {
+		return bufferCount;
+	}
+	
+	/**
+	 * Tests whether the buffers are shown by flipping
+	 * pages instead of copying the back buffer.
+	 */
+	public boolean isPageFlipping() {
+		return graphicsBuffer != null && graphicsBuffer.getCapabilities().isPageFlipping();
+	}
+	
+	/**
+	 * Gets the number of times the contents of the
+	 * buffers were lost and a frame was shown again.
+	 */
+	public int getLostFrames() {
+		return lostFrames;
+	}
+	
+	/**
+	 * Gets the time spent scaling and showing the
+	 * last frame, in milliseconds. The render time
+	 * is not included.
+	 */
+	public double getPresentTime() {
+		return presentTime / 1e6;
+	}
+	
+	// position of the frame past the letterbox bars
+	
+	int getPresentX() {
+		return presentX;
+	}
+	
+	int getPresentY() {
+		return presentY;
+	}
 
 	/////////////////////////
 	
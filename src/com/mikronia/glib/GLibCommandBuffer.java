@@ -0,0 +1,582 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import java.awt.BasicStroke;
+import java.awt.geom.AffineTransform;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * GLib command buffer
+ * <p>
+ * Stores the draw calls of a {@link GLibBatch} in primitive
+ * arrays so they can be sorted by layer, depth and render
+ * state before reaching the graphics. The sort packs them
+ * into 64-bit keys and radix sorts the keys.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+final class GLibCommandBuffer {
+	
+	// opcodes
+	static final int DRAW_LINE					= 0x01;
+	static final int DRAW_RECT					= 0x02;
+	static final int DRAW_OVAL					= 0x03;
+	static final int DRAW_ROUND_RECT			= 0x04;
+	static final int FILL_RECT					= 0x05;
+	static final int FILL_OVAL					= 0x06;
+	static final int FILL_ROUND_RECT			= 0x07;
+	static final int DRAW_MODEL					= 0x08;
+	static final int FILL_MODEL					= 0x09;
+	static final int DRAW_SPRITE				= 0x0A;
+	static final int DRAW_SPRITE_SCALED			= 0x0B;
+	static final int DRAW_TEXT					= 0x0C;
+	static final int DRAW_SPRITE_TINTED			= 0x0D;
+	static final int DRAW_MODEL_TRANSFORMED		= 0x0E;
+	static final int FILL_MODEL_TRANSFORMED		= 0x0F;
+	
+	// x, y, w, h, arc width, arc height
+	static final int COORDS						= 6;
+	
+	private static final int INITIAL_CAPACITY	= 1024;
+	private static final int MAX_STATE			= 0xFFFF;
+	
+	// commands sorted by insertion below this size
+	private static final int RADIX_THRESHOLD	= 64;
+	
+	// commands
+	private int[] opcodes;
+	private float[] coords;
+	private int[] colors;
+	private int[] layers;
+	private float[] depths;
+	private int[] states;
+	private Object[] resources;
+	private GLibFont[] fonts;
+	
+	// screen bounds and graphics state (dirty and tile rendering only)
+	private int[] bounds;
+	private AffineTransform[] transforms;
+	private BasicStroke[] strokes;
+	
+	// sort keys (layer | depth | state) and commands in sorted order
+	private long[] keys;
+	private int[] order;
+	
+	// radix sort buffers and byte counts of the keys
+	private long[] sortKeys;
+	private int[] sortOrder;
+	private final int[] digitCounts;
+	
+	private int size;
+	private boolean sorted;
+	
+	// state tables (reset on every clear)
+	private Object[] imageKeys;
+	private int[] imageIds;
+	private int[] colorKeys;
+	private int[] colorIds;
+	private int imageCount;
+	private int colorCount;
+	private int stateCount;
+	
+	/**
+	 * Creates a new {@code GLibCommandBuffer}.
+	 */
+	GLibCommandBuffer() {
+		this.opcodes = new int[INITIAL_CAPACITY];
+		this.coords = new float[INITIAL_CAPACITY * COORDS];
+		this.colors = new int[INITIAL_CAPACITY];
+		this.layers = new int[INITIAL_CAPACITY];
+		this.depths = new float[INITIAL_CAPACITY];
+		this.states = new int[INITIAL_CAPACITY];
+		this.resources = new Object[INITIAL_CAPACITY];
+		this.fonts = new GLibFont[INITIAL_CAPACITY];
+		this.keys = new long[INITIAL_CAPACITY];
+		this.order = new int[INITIAL_CAPACITY];
+		this.sortKeys = new long[INITIAL_CAPACITY];
+		this.sortOrder = new int[INITIAL_CAPACITY];
+		this.digitCounts = new int[8 * 256];
+		this.bounds = new int[INITIAL_CAPACITY * 4];
+		this.transforms = new AffineTransform[INITIAL_CAPACITY];
+		this.strokes = new BasicStroke[INITIAL_CAPACITY];
+		
+		this.imageKeys = new Object[256];
+		this.imageIds = new int[256];
+		this.colorKeys = new int[256];
+		this.colorIds = new int[256];
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Records a command.
+	 * 
+	 * @param opcode the command opcode
+	 * @param color packed ARGB color
+	 * @param layer the command layer
+	 * @param depth the command depth inside the layer
+	 * @param resource sprite, model or text
+	 * @param font text font (text commands only)
+	 */
+	void record(int opcode, float x, float y, float w, float h, float arcWidth, float arcHeight,
+			int color, int layer, float depth, Object resource, GLibFont font) {
+		if (size == opcodes.length)
+			grow();
+		
+		int index = size++;
+		int offset = index * COORDS;
+		
+		opcodes[index] = opcode;
+		coords[offset] = x;
+		coords[offset + 1] = y;
+		coords[offset + 2] = w;
+		coords[offset + 3] = h;
+		coords[offset + 4] = arcWidth;
+		coords[offset + 5] = arcHeight;
+		colors[index] = color;
+		layers[index] = layer;
+		depths[index] = depth;
+		resources[index] = resource;
+		fonts[index] = font;
+		
+		// sprites only depend on the image, everything
+		// else depends on the current color
+		states[index] = isSprite(opcode) ? imageState(resource) : colorState(color);
+		
+		sorted = false;
+	}
+	
+	/**
+	 * Stores the screen bounds [left, right) x [top, bottom)
+	 * and the graphics state of the last recorded command.
+	 */
+	void bound(int left, int top, int right, int bottom, AffineTransform transform, BasicStroke stroke) {
+		int index = size - 1;
+		int offset = index * 4;
+		
+		bounds[offset] = left;
+		bounds[offset + 1] = top;
+		bounds[offset + 2] = right;
+		bounds[offset + 3] = bottom;
+		transforms[index] = transform;
+		strokes[index] = stroke;
+	}
+	
+	/**
+	 * Sorts the recorded commands by layer, then by depth
+	 * and then by render state. Commands sharing all of
+	 * them keep the order they were recorded in.
+	 */
+	void sort() {
+		if (sorted) return;
+		
+		for (int i = 0; i < size; i++) {
+			long layer = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, layers[i])) - Short.MIN_VALUE;
+			
+			// flips the float bits so they compare as unsigned integers
+			int bits = Float.floatToIntBits(depths[i]);
+			long depth = (bits ^ ((bits >> 31) | 0x80000000)) & 0xFFFFFFFFL;
+			
+			keys[i] = (layer << 48) | (depth << 16) | states[i];
+			order[i] = i;
+		}
+		
+		if (size < RADIX_THRESHOLD)
+			insertionSort();
+		else
+			radixSort();
+		
+		sorted = true;
+	}
+	
+	/*
+	 * Stable sort of a few keys.
+	 */
+	private void insertionSort() {
+		for (int i = 1; i < size; i++) {
+			long key = keys[i];
+			int command = order[i];
+			int j = i - 1;
+			
+			while (j >= 0 && Long.compareUnsigned(keys[j], key) > 0) {
+				keys[j + 1] = keys[j];
+				order[j + 1] = order[j];
+				j--;
+			}
+			
+			keys[j + 1] = key;
+			order[j + 1] = command;
+		}
+	}
+	
+	/*
+	 * Stable LSD radix sort of the keys, one byte per pass. The
+	 * bytes are counted in a single pass over the keys, and the
+	 * passes where all the keys share the byte are skipped.
+	 */
+	private void radixSort() {
+		var counts = digitCounts;
+		Arrays.fill(counts, 0);
+		
+		for (int i = 0; i < size; i++) {
+			long key = keys[i];
+			
+			for (int digit = 0; digit < 8; digit++)
+				counts[(digit << 8) | (int) ((key >>> (digit << 3)) & 0xFF)]++;
+		}
+		
+		var sourceKeys = keys;
+		var sourceOrder = order;
+		var targetKeys = sortKeys;
+		var targetOrder = sortOrder;
+		
+		for (int digit = 0; digit < 8; digit++) {
+			int base = digit << 8;
+			int shift = digit << 3;
+			
+			if (counts[base | (int) ((sourceKeys[0] >>> shift) & 0xFF)] == size)
+				continue;
+			
+			// first position of each byte value
+			for (int i = 0, position = 0; i < 256; i++) {
+				int count = counts[base | i];
+				counts[base | i] = position;
+				position += count;
+			}
+			
+			for (int i = 0; i < size; i++) {
+				long key = sourceKeys[i];
+				int position = counts[base | (int) ((key >>> shift) & 0xFF)]++;
+				
+				targetKeys[position] = key;
+				targetOrder[position] = sourceOrder[i];
+			}
+			
+			var swapKeys = sourceKeys;
+			sourceKeys = targetKeys;
+			targetKeys = swapKeys;
+			
+			var swapOrder = sourceOrder;
+			sourceOrder = targetOrder;
+			targetOrder = swapOrder;
+		}
+		
+		this.keys = sourceKeys;
+		this.order = sourceOrder;
+		this.sortKeys = targetKeys;
+		this.sortOrder = targetOrder;
+	}
+	
+	/**
+	 * Erases all the recorded commands.
+	 */
+	void clear() {
+		Arrays.fill(resources, 0, size, null);
+		Arrays.fill(fonts, 0, size, null);
+		Arrays.fill(transforms, 0, size, null);
+		Arrays.fill(strokes, 0, size, null);
+		Arrays.fill(imageKeys, null);
+		Arrays.fill(colorIds, 0);
+		
+		size = 0;
+		imageCount = 0;
+		colorCount = 0;
+		stateCount = 0;
+		sorted = false;
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Counts how many times the render state changes
+	 * when the commands are executed in recording order.
+	 */
+	int countRecordedStateSwitches() {
+		int switches = 0;
+		int current = 0;
+		
+		for (int i = 0; i < size; i++) {
+			if (states[i] != current) {
+				current = states[i];
+				switches++;
+			}
+		}
+		
+		return switches;
+	}
+	
+	/**
+	 * Counts how many times the render state changes
+	 * when the commands are executed in sorted order.
+	 */
+	int countSortedStateSwitches() {
+		sort();
+		
+		int switches = 0;
+		int current = 0;
+		
+		for (int i = 0; i < size; i++) {
+			int state = states[command(i)];
+			
+			if (state != current) {
+				current = state;
+				switches++;
+			}
+		}
+		
+		return switches;
+	}
+	
+	/**
+	 * Checks if a command draws exactly the same pixels
+	 * as a command of another buffer.
+	 */
+	boolean matches(int command, GLibCommandBuffer other, int otherCommand) {
+		if (opcodes[command] != other.opcodes[otherCommand]
+				|| colors[command] != other.colors[otherCommand]
+				|| layers[command] != other.layers[otherCommand]
+				|| Float.compare(depths[command], other.depths[otherCommand]) != 0
+				|| fonts[command] != other.fonts[otherCommand])
+			return false;
+		
+		// text is compared by value, anything else by identity
+		var resource = resources[command];
+		var otherResource = other.resources[otherCommand];
+		
+		if (resource instanceof String ? !resource.equals(otherResource) : resource != otherResource)
+			return false;
+		
+		if (!Arrays.equals(coords, command * COORDS, (command + 1) * COORDS,
+				other.coords, otherCommand * COORDS, (otherCommand + 1) * COORDS))
+			return false;
+		
+		if (!Arrays.equals(bounds, command * 4, command * 4 + 4,
+				other.bounds, otherCommand * 4, otherCommand * 4 + 4))
+			return false;
+		
+		return Objects.equals(transforms[command], other.transforms[otherCommand])
+				&& Objects.equals(strokes[command], other.strokes[otherCommand]);
+	}
+	
+	/**
+	 * Adds the screen bounds of a command to a region.
+	 */
+	void addBounds(int command, GLibDirtyRegion region) {
+		int offset = command * 4;
+		
+		region.add(bounds[offset], bounds[offset + 1], bounds[offset + 2], bounds[offset + 3]);
+	}
+	
+	/**
+	 * Checks if a command touches a rectangle of a region.
+	 */
+	boolean intersects(int command, GLibDirtyRegion region, int rect) {
+		int offset = command * 4;
+		
+		return region.intersects(rect, bounds[offset], bounds[offset + 1], bounds[offset + 2], bounds[offset + 3]);
+	}
+	
+	/////////////////////////
+	
+	int size() {
+		return size;
+	}
+	
+	/**
+	 * Gets the index of the command executed
+	 * at the given position once sorted.
+	 */
+	int command(int position) {
+		return order[position];
+	}
+	
+	int opcode(int command) {
+		return opcodes[command];
+	}
+	
+	float coord(int command, int coord) {
+		return coords[command * COORDS + coord];
+	}
+	
+	int color(int command) {
+		return colors[command];
+	}
+	
+	Object resource(int command) {
+		return resources[command];
+	}
+	
+	GLibFont font(int command) {
+		return fonts[command];
+	}
+	
+	AffineTransform transform(int command) {
+		return transforms[command];
+	}
+	
+	BasicStroke stroke(int command) {
+		return strokes[command];
+	}
+	
+	/**
+	 * Gets the screen bounds of a command.
+	 * 
+	 * @param bound 0 for left, 1 for top, 2 for right, 3 for bottom
+	 */
+	int bound(int command, int bound) {
+		return bounds[command * 4 + bound];
+	}
+	
+	/////////////////////////
+	
+	private static boolean isSprite(int opcode) {
+		return opcode == DRAW_SPRITE || opcode == DRAW_SPRITE_SCALED || opcode == DRAW_SPRITE_TINTED;
+	}
+	
+	private int imageState(Object image) {
+		int mask = imageKeys.length - 1;
+		int slot = System.identityHashCode(image) & mask;
+		
+		while (imageKeys[slot] != null) {
+			if (imageKeys[slot] == image)
+				return imageIds[slot];
+			
+			slot = (slot + 1) & mask;
+		}
+		
+		int id = nextState();
+		
+		imageKeys[slot] = image;
+		imageIds[slot] = id;
+		
+		if (++imageCount * 2 > imageKeys.length)
+			rehashImages();
+		
+		return id;
+	}
+	
+	private int colorState(int color) {
+		int mask = colorKeys.length - 1;
+		int slot = hash(color) & mask;
+		
+		while (colorIds[slot] != 0) {
+			if (colorKeys[slot] == color)
+				return colorIds[slot];
+			
+			slot = (slot + 1) & mask;
+		}
+		
+		int id = nextState();
+		
+		colorKeys[slot] = color;
+		colorIds[slot] = id;
+		
+		if (++colorCount * 2 > colorKeys.length)
+			rehashColors();
+		
+		return id;
+	}
+	
+	private static int hash(int value) {
+		int h = value * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+	
+	private int nextState() {
+		// states past the limit share the last id; they
+		// are still drawn correctly, just not grouped
+		if (stateCount < MAX_STATE)
+			stateCount++;
+		
+		return stateCount;
+	}
+	
+	private void rehashImages() {
+		var oldKeys = imageKeys;
+		var oldIds = imageIds;
+		
+		imageKeys = new Object[oldKeys.length * 2];
+		imageIds = new int[oldIds.length * 2];
+		
+		int mask = imageKeys.length - 1;
+		
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] == null) continue;
+			
+			int slot = System.identityHashCode(oldKeys[i]) & mask;
+			
+			while (imageKeys[slot] != null)
+				slot = (slot + 1) & mask;
+			
+			imageKeys[slot] = oldKeys[i];
+			imageIds[slot] = oldIds[i];
+		}
+	}
+	
+	private void rehashColors() {
+		var oldKeys = colorKeys;
+		var oldIds = colorIds;
+		
+		colorKeys = new int[oldKeys.length * 2];
+		colorIds = new int[oldIds.length * 2];
+		
+		int mask = colorKeys.length - 1;
+		
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldIds[i] == 0) continue;
+			
+			int slot = hash(oldKeys[i]) & mask;
+			
+			while (colorIds[slot] != 0)
+				slot = (slot + 1) & mask;
+			
+			colorKeys[slot] = oldKeys[i];
+			colorIds[slot] = oldIds[i];
+		}
+	}
+	
+	private void grow() {
+		int capacity = opcodes.length * 2;
+		
+		opcodes = Arrays.copyOf(opcodes, capacity);
+		coords = Arrays.copyOf(coords, capacity * COORDS);
+		colors = Arrays.copyOf(colors, capacity);
+		layers = Arrays.copyOf(layers, capacity);
+		depths = Arrays.copyOf(depths, capacity);
+		states = Arrays.copyOf(states, capacity);
+		resources = Arrays.copyOf(resources, capacity);
+		fonts = Arrays.copyOf(fonts, capacity);
+		keys = Arrays.copyOf(keys, capacity);
+		order = Arrays.copyOf(order, capacity);
+		sortKeys = Arrays.copyOf(sortKeys, capacity);
+		sortOrder = Arrays.copyOf(sortOrder, capacity);
+		bounds = Arrays.copyOf(bounds, capacity * 4);
+		transforms = Arrays.copyOf(transforms, capacity);
+		strokes = Arrays.copyOf(strokes, capacity);
+	}
+}
@@ -0,0 +1,228 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+/**
+ * GLib dirty region
+ * <p>
+ * A small set of rectangles covering the parts of the screen
+ * that changed in a frame. Rectangles are merged as they are
+ * added whenever their union is about as cheap to draw.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+final class GLibDirtyRegion {
+	
+	private static final int MAX_RECTS			= 16;
+	
+	// merging costs less than drawing a rectangle of this area
+	private static final int MERGE_SLACK		= 1024;
+	
+	private final int width;
+	private final int height;
+	
+	// rectangle bounds [x0, x1) and [y0, y1)
+	private final int[] x0;
+	private final int[] y0;
+	private final int[] x1;
+	private final int[] y1;
+	
+	private int size;
+	
+	/**
+	 * Creates a new {@code GLibDirtyRegion}.
+	 * 
+	 * @param width screen width
+	 * @param height screen height
+	 */
+	GLibDirtyRegion(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.x0 = new int[MAX_RECTS];
+		this.y0 = new int[MAX_RECTS];
+		this.x1 = new int[MAX_RECTS];
+		this.y1 = new int[MAX_RECTS];
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Adds the rectangle [left, right) x [top, bottom)
+	 * to the region, clipped to the screen.
+	 */
+	void add(int left, int top, int right, int bottom) {
+		left = Math.max(left, 0);
+		top = Math.max(top, 0);
+		right = Math.min(right, width);
+		bottom = Math.min(bottom, height);
+		
+		if (left >= right || top >= bottom)
+			return;
+		
+		// merges with the rectangles it is close to, until
+		// the merged rectangle is far from all the others
+		int i = 0;
+		
+		while (i < size) {
+			if (worthMerging(i, left, top, right, bottom)) {
+				left = Math.min(left, x0[i]);
+				top = Math.min(top, y0[i]);
+				right = Math.max(right, x1[i]);
+				bottom = Math.max(bottom, y1[i]);
+				
+				remove(i);
+				i = 0;
+			} else {
+				i++;
+			}
+		}
+		
+		if (size == MAX_RECTS) {
+			// too many rectangles, grows the cheapest one
+			int best = 0;
+			long bestGrowth = Long.MAX_VALUE;
+			
+			for (i = 0; i < size; i++) {
+				long growth = unionArea(i, left, top, right, bottom) - area(i);
+				
+				if (growth < bestGrowth) {
+					best = i;
+					bestGrowth = growth;
+				}
+			}
+			
+			left = Math.min(left, x0[best]);
+			top = Math.min(top, y0[best]);
+			right = Math.max(right, x1[best]);
+			bottom = Math.max(bottom, y1[best]);
+			
+			remove(best);
+			add(left, top, right, bottom);
+			return;
+		}
+		
+		x0[size] = left;
+		y0[size] = top;
+		x1[size] = right;
+		y1[size] = bottom;
+		size++;
+	}
+	
+	/**
+	 * Adds all the rectangles of another region.
+	 */
+	void add(GLibDirtyRegion region) {
+		for (int i = 0; i < region.size; i++)
+			add(region.x0[i], region.y0[i], region.x1[i], region.y1[i]);
+	}
+	
+	/**
+	 * Marks the whole screen as dirty.
+	 */
+	void addAll() {
+		size = 0;
+		add(0, 0, width, height);
+	}
+	
+	void clear() {
+		size = 0;
+	}
+	
+	/////////////////////////
+	
+	boolean isEmpty() {
+		return size == 0;
+	}
+	
+	int size() {
+		return size;
+	}
+	
+	int getX(int rect) {
+		return x0[rect];
+	}
+	
+	int getY(int rect) {
+		return y0[rect];
+	}
+	
+	int getWidth(int rect) {
+		return x1[rect] - x0[rect];
+	}
+	
+	int getHeight(int rect) {
+		return y1[rect] - y0[rect];
+	}
+	
+	/**
+	 * Checks if a rectangle intersects the
+	 * rectangle [left, right) x [top, bottom).
+	 */
+	boolean intersects(int rect, int left, int top, int right, int bottom) {
+		return left < x1[rect] && right > x0[rect] && top < y1[rect] && bottom > y0[rect];
+	}
+	
+	/**
+	 * Gets the number of pixels covered by the region.
+	 */
+	int getArea() {
+		int area = 0;
+		
+		for (int i = 0; i < size; i++)
+			area += area(i);
+		
+		return area;
+	}
+	
+	/////////////////////////
+	
+	private boolean worthMerging(int rect, int left, int top, int right, int bottom) {
+		// overlapping areas are drawn twice when not merged
+		long separate = area(rect) + (long) (right - left) * (bottom - top);
+		
+		return unionArea(rect, left, top, right, bottom) - separate < MERGE_SLACK;
+	}
+	
+	private long unionArea(int rect, int left, int top, int right, int bottom) {
+		long w = Math.max(right, x1[rect]) - Math.min(left, x0[rect]);
+		long h = Math.max(bottom, y1[rect]) - Math.min(top, y0[rect]);
+		
+		return w * h;
+	}
+	
+	private int area(int rect) {
+		return (x1[rect] - x0[rect]) * (y1[rect] - y0[rect]);
+	}
+	
+	private void remove(int rect) {
+		size--;
+		
+		x0[rect] = x0[size];
+		y0[rect] = y0[size];
+		x1[rect] = x1[size];
+		y1[rect] = y1[size];
+	}
+}
@@ -26,8 +26,14 @@ package com.mikronia.glib;
 
 import java.awt.Font;
 import java.awt.FontFormatException;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 
 import com.mikronia.glib.utils.glib.GLibChecks;
 import com.mikronia.glib.utils.glib.GLibSystem;
@@ -62,6 +68,10 @@ public class GLibFont {
 	private final float fontSize;
 
 	private final int fontStyle;
+	
+	// glyphs drawn by the batch (given for bitmap fonts)
+	private GLibGlyphAtlas glyphAtlas;
+	private final boolean bitmapFont;
 
 	private GLibFont(String name, int style, float size) {
 		this.fontName = name;
@@ -70,6 +80,7 @@ public class GLibFont {
 		
 		this.baseFont = createFontDerivation(
 			new Font(name, 0, (int) size), style, size);
+		this.bitmapFont = false;
 	}
 
 	private GLibFont(Font baseFont, int style, float size) {
@@ -78,19 +89,38 @@ public class GLibFont {
 		this.fontSize = size;
 		
 		this.baseFont = createFontDerivation(baseFont, style, size);
+		this.bitmapFont = false;
+	}
+	
+	private GLibFont(GLibGlyphAtlas glyphAtlas, String name, int style, float size) {
+		this.fontName = name;
+		this.fontStyle = style;
+		this.fontSize = size;
+		
+		// only used by the metrics of the base font
+		this.baseFont = new Font(Font.DIALOG, Font.PLAIN, (int) size);
+		this.glyphAtlas = glyphAtlas;
+		this.bitmapFont = true;
 	}
 
 	///////////////////////////////////
 
 	public GLibFont deriveFont(int style) {
-		return new GLibFont(fontName, style, fontSize);
+		return deriveFont(style, fontSize);
 	}
 
 	public GLibFont deriveFont(float size) {
-		return new GLibFont(fontName, fontStyle, size);
+		return deriveFont(fontStyle, size);
 	}
 	
+	/**
+	 * Derives a font. Bitmap fonts can't be resized
+	 * and only take the underline and strikeout styles.
+	 */
 	public GLibFont deriveFont(int style, float size) {
+		if (bitmapFont)
+			return new GLibFont(glyphAtlas, fontName, style & (UNDERLINE | STRIKEOUT), fontSize);
+		
 		return new GLibFont(fontName, style, size);
 	}
 
@@ -109,6 +139,26 @@ public class GLibFont {
 		return createdFont;
 	}
 	
+	/**
+	 * Loads a bitmap font in the text format of BMFont.
+	 * 
+	 * @param descriptor the font descriptor ({@code .fnt} file)
+	 * @param pages the images of the pages, in the order of their ids
+	 * @return the loaded font.
+	 */
+	public static GLibFont loadBitmapFont(InputStream descriptor, BufferedImage... pages) {
+		GLibFont createdFont = null;
+		
+		try {
+			var reader = new BufferedReader(new InputStreamReader(descriptor, StandardCharsets.UTF_8));
+			createdFont = readBitmapFont(reader, pages);
+		} catch (IOException | RuntimeException e) {
+			GLibSystem.crashApplication("Could not load the bitmap font.", e);
+		}
+		
+		return createdFont;
+	}
+	
 	///////////////////////////////////
 
 	public static GLibFont getFont(String name, int style, float size) {
@@ -122,6 +172,46 @@ public class GLibFont {
 	}
 	
 	///////////////////////////////////
+	
+	/**
+	 * Gets how many strings drawn or measured by a batch
+	 * were found in the layout cache of their font.
+	 */
+	public static long getLayoutCacheHits() {
+		return GLibGlyphAtlas.getLayoutHits();
+	}
+	
+	/**
+	 * Gets how many strings drawn or measured by a
+	 * batch had to be laid out.
+	 */
+	public static long getLayoutCacheMisses() {
+		return GLibGlyphAtlas.getLayoutMisses();
+	}
+	
+	/**
+	 * Resets the layout cache counters.
+	 */
+	public static void resetLayoutCacheCounters() {
+		GLibGlyphAtlas.resetLayoutCounters();
+	}
+	
+	/**
+	 * Sets how many string layouts are kept for each font
+	 * (256 by default). Strings that are always drawn are
+	 * better laid out once with {@link GLibBatch#createText}.
+	 */
+	public static void setLayoutCacheCapacity(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("The layout cache capacity must be positive.");
+		
+		GLibGlyphAtlas.setLayoutCapacity(capacity);
+	}
+	
+	public static int getLayoutCacheCapacity() {
+		return GLibGlyphAtlas.getLayoutCapacity();
+	}
+	
 
 	public boolean isPlain() {
 		return fontStyle == PLAIN;
@@ -156,6 +246,10 @@ public class GLibFont {
 	public int getFontStyle() {
 		return fontStyle;
 	}
+	
+	public boolean isBitmapFont() {
+		return bitmapFont;
+	}
 
 	///////////////////////////////////
 
@@ -174,4 +268,125 @@ public class GLibFont {
 	Font getBaseFont() {
 		return baseFont;
 	}
+	
+	/**
+	 * Gets the glyphs of this font. The glyphs of AWT fonts
+	 * are drawn with the text hints of the given graphics.
+	 */
+	GLibGlyphAtlas getGlyphAtlas(Graphics2D graphics) {
+		if (glyphAtlas == null)
+			glyphAtlas = GLibGlyphAtlas.getAtlas(baseFont, graphics);
+		
+		return glyphAtlas;
+	}
+	
+	///////////////////////////////////
+	
+	private static GLibFont readBitmapFont(BufferedReader reader, BufferedImage[] pages) throws IOException {
+		var values = new HashMap<String, String>();
+		
+		String name = "Bitmap";
+		float size = DEFAULT_SIZE;
+		float base = 0;
+		GLibGlyphAtlas atlas = null;
+		
+		String line;
+		
+		while ((line = reader.readLine()) != null) {
+			var tag = readTag(line, values);
+			
+			switch (tag) {
+			case "info":
+				name = values.getOrDefault("face", name);
+				size = Math.abs(Float.parseFloat(values.getOrDefault("size", "0")));
+				break;
+			case "common":
+				int pageCount = Integer.parseInt(values.getOrDefault("pages", "1"));
+				
+				if (pages == null || pages.length < pageCount)
+					throw new IOException("The font needs " + pageCount + " page(s).");
+				
+				base = Float.parseFloat(values.get("base"));
+				atlas = GLibGlyphAtlas.createBitmapAtlas(pages, base,
+						Float.parseFloat(values.get("lineHeight")));
+				break;
+			case "char":
+				if (atlas == null)
+					throw new IOException("Glyph before the common line.");
+				
+				atlas.addGlyph(Integer.parseInt(values.get("id")),
+						Integer.parseInt(values.getOrDefault("page", "0")),
+						Integer.parseInt(values.get("x")), Integer.parseInt(values.get("y")),
+						Integer.parseInt(values.get("width")), Integer.parseInt(values.get("height")),
+						Float.parseFloat(values.get("xoffset")),
+						Float.parseFloat(values.get("yoffset")) - base,
+						Float.parseFloat(values.get("xadvance")));
+				break;
+			case "kerning":
+				if (atlas == null)
+					throw new IOException("Kerning before the common line.");
+				
+				atlas.addKerning(Integer.parseInt(values.get("first")),
+						Integer.parseInt(values.get("second")),
+						Float.parseFloat(values.get("amount")));
+				break;
+			}
+		}
+		
+		if (atlas == null)
+			throw new IOException("Missing common line.");
+		
+		return new GLibFont(atlas, name, PLAIN, size);
+	}
+	
+	/*
+	 * Reads a line like 'tag key=value key="quoted value"',
+	 * returning the tag and putting the pairs in the map.
+	 */
+	private static String readTag(String line, HashMap<String, String> values) {
+		values.clear();
+		
+		int length = line.length();
+		int i = 0;
+		
+		while (i < length && line.charAt(i) != ' ') i++;
+		
+		var tag = line.substring(0, i).trim();
+		
+		while (i < length) {
+			while (i < length && line.charAt(i) == ' ') i++;
+			
+			int keyStart = i;
+			
+			while (i < length && line.charAt(i) != '=' && line.charAt(i) != ' ') i++;
+			
+			var key = line.substring(keyStart, i);
+			
+			if (i >= length || line.charAt(i) != '=')
+				continue;
+			
+			i++;
+			
+			int valueStart;
+			int valueEnd;
+			
+			if (i < length && line.charAt(i) == '"') {
+				valueStart = ++i;
+				
+				while (i < length && line.charAt(i) != '"') i++;
+				
+				valueEnd = i++;
+			} else {
+				valueStart = i;
+				
+				while (i < length && line.charAt(i) != ' ') i++;
+				
+				valueEnd = i;
+			}
+			
+			values.put(key, line.substring(valueStart, Math.min(valueEnd, length)));
+		}
+		
+		return tag;
+	}
 }
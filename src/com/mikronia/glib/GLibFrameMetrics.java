@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+/**
+ * GLib frame metrics
+ * <p>
+ * The durations of the frame phases over a rolling window. Each
+ * phase has one histogram per second of the window; the values are
+ * recorded in the histogram of the current second, and the oldest
+ * one is cleared and reused when the window moves.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+final class GLibFrameMetrics {
+	
+	private final GLibHistogram[][] slots;
+	private volatile int current;
+	
+	/**
+	 * Creates a new {@code GLibFrameMetrics}.
+	 * 
+	 * @param window the window length in seconds
+	 * @param phases number of phases
+	 */
+	GLibFrameMetrics(int window, int phases) {
+		this.slots = new GLibHistogram[window][phases];
+		
+		for (var slot : slots) {
+			for (int i = 0; i < phases; i++)
+				slot[i] = new GLibHistogram();
+		}
+	}
+	
+	/////////////////////////
+	
+	void record(int phase, long nanos) {
+		slots[current][phase].record(nanos);
+	}
+	
+	/**
+	 * Moves the window by one second.
+	 */
+	void advance() {
+		int next = (current + 1) % slots.length;
+		
+		for (var histogram : slots[next])
+			histogram.reset();
+		
+		current = next;
+	}
+	
+	void reset() {
+		for (var slot : slots) {
+			for (var histogram : slot)
+				histogram.reset();
+		}
+	}
+	
+	/**
+	 * Merges the histograms of a phase over the window.
+	 */
+	GLibHistogram merge(int phase) {
+		var merged = new GLibHistogram();
+		
+		for (var slot : slots)
+			merged.add(slot[phase]);
+		
+		return merged;
+	}
+	
+	int getWindow() {
+		return slots.length;
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * GLib frame pacer
+ * <p>
+ * Waits for the deadline of each frame, which moves by a fixed
+ * period from frame to frame, so the time spent drawing a frame
+ * is not added to the wait. The thread is parked for most of the
+ * wait and spins for the last moments, with a margin that follows
+ * how late the parks wake up. The recent frame times are kept to
+ * report their mean, 99th percentile and jitter.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+final class GLibFramePacer {
+	
+	// recent frame times
+	private static final int HISTORY			= 1024;
+	
+	// limits of the spin margin
+	private static final long MIN_SPIN			= 100_000L;
+	private static final long MAX_SPIN			= 2_000_000L;
+	
+	private final long period;
+	private long deadline;
+	
+	// spinning before the deadline
+	private long spinMargin;
+	private long parkOvershoot;
+	
+	// lateness past the deadlines
+	private long overshoot;
+	private long paces;
+	
+	// frame times in nanoseconds
+	private final long[] frameTimes;
+	private final long[] sorted;
+	private int frameCount;
+	private long lastFrame;
+	
+	/**
+	 * Creates a new {@code GLibFramePacer}.
+	 * 
+	 * @param frameRate frames per second
+	 */
+	GLibFramePacer(double frameRate) {
+		this.period = (long) (1.0e9 / frameRate);
+		this.spinMargin = MAX_SPIN / 2;
+		this.frameTimes = new long[HISTORY];
+		this.sorted = new long[HISTORY];
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Waits until the deadline of the next frame. A frame
+	 * that missed its deadline doesn't wait at all: the
+	 * deadlines restart from it, so the next frames are
+	 * neither rushed to catch up nor held back a period.
+	 * 
+	 * @return the number of deadlines missed
+	 */
+	int waitForNextFrame() {
+		long now = System.nanoTime();
+		
+		if (deadline == 0)
+			deadline = now;
+		
+		deadline += period;
+		
+		if (now - deadline > 0) {
+			int missed = (int) ((now - deadline) / period) + 1;
+			deadline = now;
+			
+			markFrame();
+			return missed;
+		}
+		
+		long parkUntil = deadline - spinMargin;
+		
+		if (parkUntil - now > 0) {
+			LockSupport.parkNanos(parkUntil - now);
+			
+			// follows how late the parks wake up
+			long late = Math.max(0, System.nanoTime() - parkUntil);
+			
+			parkOvershoot += (late - parkOvershoot) / 8;
+			spinMargin = Math.max(MIN_SPIN, Math.min(MAX_SPIN, parkOvershoot * 2));
+		}
+		
+		while (System.nanoTime() - deadline < 0)
+			Thread.onSpinWait();
+		
+		overshoot += System.nanoTime() - deadline;
+		paces++;
+		
+		markFrame();
+		return 0;
+	}
+	
+	/**
+	 * Records the time since the previous frame.
+	 * Called once per frame when frames aren't paced.
+	 */
+	void markFrame() {
+		long now = System.nanoTime();
+		
+		if (lastFrame != 0)
+			frameTimes[frameCount++ % HISTORY] = now - lastFrame;
+		
+		lastFrame = now;
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Gets the mean of the recent frame times in milliseconds.
+	 */
+	double getMean() {
+		int count = Math.min(frameCount, HISTORY);
+		
+		if (count == 0) return 0;
+		
+		long sum = 0;
+		
+		for (int i = 0; i < count; i++)
+			sum += frameTimes[i];
+		
+		return sum / (count * 1.0e6);
+	}
+	
+	/**
+	 * Gets the 99th percentile of the recent
+	 * frame times in milliseconds.
+	 */
+	double getPercentile99() {
+		int count = Math.min(frameCount, HISTORY);
+		
+		if (count == 0) return 0;
+		
+		System.arraycopy(frameTimes, 0, sorted, 0, count);
+		Arrays.sort(sorted, 0, count);
+		
+		return sorted[Math.min(count - 1, (int) Math.ceil(count * 0.99) - 1)] / 1.0e6;
+	}
+	
+	/**
+	 * Gets the standard deviation of the recent
+	 * frame times in milliseconds.
+	 */
+	double getJitter() {
+		int count = Math.min(frameCount, HISTORY);
+		
+		if (count == 0) return 0;
+		
+		double mean = getMean();
+		double sum = 0;
+		
+		for (int i = 0; i < count; i++) {
+			double difference = frameTimes[i] / 1.0e6 - mean;
+			sum += difference * difference;
+		}
+		
+		return Math.sqrt(sum / count);
+	}
+	
+	/**
+	 * Gets how late the waits woke up past their
+	 * deadlines on average, in milliseconds.
+	 */
+	double getOvershoot() {
+		return paces == 0 ? 0 : overshoot / (paces * 1.0e6);
+	}
+}
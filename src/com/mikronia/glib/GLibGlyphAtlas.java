@@ -0,0 +1,691 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextAttribute;
+import java.awt.image.BufferedImage;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * GLib glyph atlas
+ * <p>
+ * Images holding the glyphs of a font, with their advances,
+ * kerning and the line metrics. Glyphs of AWT fonts are drawn
+ * once, the first time they are used; bitmap fonts come with all
+ * their glyphs already drawn.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+final class GLibGlyphAtlas {
+	
+	// atlases kept for reuse (fonts still in use keep theirs)
+	private static final int MAX_ATLASES		= 64;
+	
+	// atlases of the AWT fonts, shared by equal fonts, least recently used first
+	private static final LinkedHashMap<Map.Entry<Font, FontRenderContext>, GLibGlyphAtlas> atlases
+			= new LinkedHashMap<Map.Entry<Font, FontRenderContext>, GLibGlyphAtlas>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Map.Entry<Font, FontRenderContext>, GLibGlyphAtlas> eldest) {
+			return size() > MAX_ATLASES;
+		}
+	};
+	
+	private static final int ASCII				= 128;
+	private static final int UNKNOWN			= -2;
+	private static final int MISSING			= -1;
+	private static final int PADDING			= 1;
+	
+	// tinted pages (recently used colors)
+	private static final int TINT_SLOTS			= 8;
+	
+	// cached layouts of each atlas
+	private static int layoutCapacity			= 256;
+	private static long layoutHits;
+	private static long layoutMisses;
+	
+	// AWT font (null for bitmap fonts)
+	private final Font font;
+	private final FontRenderContext context;
+	private final boolean kerning;
+	
+	// pages
+	private BufferedImage[] pages;
+	
+	// ARGB pixels of the pages, for the software rasterizer,
+	// and how many glyphs were copied to them
+	private int[][] pagePixels;
+	private int[] pagePixelGlyphs;
+	private int pageCount;
+	private final int pageSize;
+	
+	// position of the next glyph in the last page
+	private int cursorX;
+	private int cursorY;
+	private int shelfHeight;
+	
+	// glyphs
+	private int[] glyphPages;
+	private int[] glyphBounds;
+	private float[] glyphOffsets;
+	private float[] glyphAdvances;
+	private int glyphCount;
+	
+	// glyph indices of the code points
+	private final int[] asciiGlyphs;
+	private int[] codeKeys;
+	private int[] codeGlyphs;
+	private int codeCount;
+	
+	// kerning of the pairs of code points
+	private long[] kerningKeys;
+	private float[] kerningAmounts;
+	private int kerningCount;
+	
+	// line metrics
+	private float ascent;
+	private float height;
+	
+	// tinted copies of the pages and how many glyphs were
+	// tinted in each, the oldest color is replaced
+	private final int[] tintColors;
+	private final BufferedImage[][] tintPages;
+	private final int[][] tintGlyphs;
+	private int[] tintPixels;
+	private int nextTint;
+	
+	// layouts of the recently drawn strings, least recently used first
+	private final LinkedHashMap<String, GLibTextLayout> layouts
+			= new LinkedHashMap<String, GLibTextLayout>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, GLibTextLayout> eldest) {
+			return size() > layoutCapacity;
+		}
+	};
+	
+	private GLibGlyphAtlas(Font font, FontRenderContext context, int pageSize) {
+		this.font = font;
+		this.context = context;
+		this.kerning = font != null
+				&& TextAttribute.KERNING_ON.equals(font.getAttributes().get(TextAttribute.KERNING));
+		this.pageSize = pageSize;
+		
+		this.pages = new BufferedImage[1];
+		this.pagePixels = new int[1][];
+		this.pagePixelGlyphs = new int[1];
+		
+		this.glyphPages = new int[ASCII];
+		this.glyphBounds = new int[ASCII * 4];
+		this.glyphOffsets = new float[ASCII * 2];
+		this.glyphAdvances = new float[ASCII];
+		
+		this.asciiGlyphs = new int[ASCII];
+		this.codeKeys = new int[64];
+		this.codeGlyphs = new int[64];
+		this.kerningKeys = new long[64];
+		this.kerningAmounts = new float[64];
+		
+		this.tintColors = new int[TINT_SLOTS];
+		this.tintPages = new BufferedImage[TINT_SLOTS][];
+		this.tintGlyphs = new int[TINT_SLOTS][];
+		
+		Arrays.fill(asciiGlyphs, UNKNOWN);
+		Arrays.fill(codeGlyphs, UNKNOWN);
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Gets the atlas of an AWT font, creating it on first use.
+	 * 
+	 * @param font the font
+	 * @param graphics graphics whose text hints are used
+	 * to draw the glyphs
+	 */
+	static GLibGlyphAtlas getAtlas(Font font, Graphics2D graphics) {
+		var context = new FontRenderContext(null,
+				graphics.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING),
+				graphics.getRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS));
+		var key = new AbstractMap.SimpleImmutableEntry<Font, FontRenderContext>(font, context);
+		var atlas = atlases.get(key);
+		
+		if (atlas == null) {
+			int glyphSize = (int) Math.ceil(font.getSize2D() * 2);
+			int pageSize = Math.max(256, Integer.highestOneBit(glyphSize * 16 - 1) << 1);
+			
+			atlas = new GLibGlyphAtlas(font, context, pageSize);
+			
+			var metrics = font.getLineMetrics("", context);
+			
+			atlas.ascent = metrics.getAscent();
+			atlas.height = metrics.getAscent() + metrics.getDescent() + metrics.getLeading();
+			
+			// printable ASCII is drawn right away
+			for (int c = ' '; c < 0x7F; c++)
+				atlas.glyph(c);
+			
+			atlases.put(key, atlas);
+		}
+		
+		return atlas;
+	}
+	
+	/**
+	 * Creates the atlas of a bitmap font.
+	 * 
+	 * @param pages the images of the glyphs
+	 * @param ascent distance from the top of a line to the baseline
+	 * @param height line height
+	 */
+	static GLibGlyphAtlas createBitmapAtlas(BufferedImage[] pages, float ascent, float height) {
+		var atlas = new GLibGlyphAtlas(null, null, 0);
+		
+		atlas.pages = pages.clone();
+		atlas.pagePixels = new int[pages.length][];
+		atlas.pagePixelGlyphs = new int[pages.length];
+		atlas.pageCount = pages.length;
+		atlas.ascent = ascent;
+		atlas.height = height;
+		
+		return atlas;
+	}
+	
+	/**
+	 * Adds a glyph of a bitmap font.
+	 * 
+	 * @param codePoint the character
+	 * @param page the page of the glyph
+	 * @param x X-axis position of the glyph in the page
+	 * @param y Y-axis position of the glyph in the page
+	 * @param w glyph width
+	 * @param h glyph height
+	 * @param offsetX horizontal distance from the pen to the glyph
+	 * @param offsetY vertical distance from the baseline to the glyph
+	 * @param advance horizontal distance to the next pen position
+	 */
+	void addGlyph(int codePoint, int page, int x, int y, int w, int h,
+			float offsetX, float offsetY, float advance) {
+		setGlyph(codePoint, addGlyph(page, x, y, w, h, offsetX, offsetY, advance));
+	}
+	
+	/**
+	 * Sets the kerning of a pair of characters.
+	 */
+	void addKerning(int first, int second, float amount) {
+		putKerning(kerningKey(first, second), amount);
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Gets the glyph of a character, drawing it if needed.
+	 * 
+	 * @return the glyph index or {@code -1} if
+	 * the font has no glyph for it
+	 */
+	int glyph(int codePoint) {
+		int glyph = getGlyph(codePoint);
+		
+		if (glyph == UNKNOWN) {
+			glyph = font != null ? drawGlyph(codePoint) : MISSING;
+			setGlyph(codePoint, glyph);
+		}
+		
+		return glyph;
+	}
+	
+	/**
+	 * Gets the kerning of a pair of characters.
+	 */
+	float kerning(int first, int second) {
+		long key = kerningKey(first, second);
+		int mask = kerningKeys.length - 1;
+		int slot = (int) (key ^ (key >>> 29)) * 0x9E3779B9 >>> 16 & mask;
+		
+		while (kerningKeys[slot] != 0) {
+			if (kerningKeys[slot] == key)
+				return kerningAmounts[slot];
+			
+			slot = (slot + 1) & mask;
+		}
+		
+		if (!kerning) return 0;
+		
+		// kerning of an AWT font is measured once per pair
+		var pair = new StringBuilder().appendCodePoint(first).appendCodePoint(second).toString();
+		float amount = (float) font.getStringBounds(pair, context).getWidth()
+				- advance(glyph(first)) - advance(glyph(second));
+		
+		putKerning(key, amount);
+		return amount;
+	}
+	
+	/**
+	 * Gets the layout of a line of text, laying
+	 * it out if it isn't cached.
+	 */
+	GLibTextLayout layout(String text) {
+		var layout = layouts.get(text);
+		
+		if (layout == null) {
+			layout = GLibTextLayout.create(this, text);
+			layouts.put(text, layout);
+			layoutMisses++;
+		} else {
+			layoutHits++;
+		}
+		
+		return layout;
+	}
+	
+	/**
+	 * Measures the width of a text.
+	 */
+	float getTextWidth(String text) {
+		return layout(text).getWidth();
+	}
+	
+	/////////////////////////
+	
+	int page(int glyph) {
+		return glyphPages[glyph];
+	}
+	
+	/**
+	 * Gets the position and size of a glyph in its page.
+	 * 
+	 * @param bound 0 for x, 1 for y, 2 for width, 3 for height
+	 */
+	int bound(int glyph, int bound) {
+		return glyphBounds[glyph * 4 + bound];
+	}
+	
+	float offsetX(int glyph) {
+		return glyphOffsets[glyph * 2];
+	}
+	
+	float offsetY(int glyph) {
+		return glyphOffsets[glyph * 2 + 1];
+	}
+	
+	float advance(int glyph) {
+		return glyph < 0 ? 0 : glyphAdvances[glyph];
+	}
+	
+	float getAscent() {
+		return ascent;
+	}
+	
+	float getHeight() {
+		return height;
+	}
+	
+	BufferedImage getPage(int page) {
+		return pages[page];
+	}
+	
+	int getPageCount() {
+		return pageCount;
+	}
+	
+	/**
+	 * Gets the ARGB pixels of a page. The page is converted
+	 * once, then only the glyphs added to it are copied.
+	 */
+	int[] getPagePixels(int page) {
+		var image = pages[page];
+		int w = image.getWidth();
+		
+		if (pagePixels[page] == null) {
+			pagePixels[page] = image.getRGB(0, 0, w, image.getHeight(), null, 0, w);
+		} else {
+			for (int glyph = pagePixelGlyphs[page]; glyph < glyphCount; glyph++) {
+				int x = bound(glyph, 0);
+				int y = bound(glyph, 1);
+				
+				if (glyphPages[glyph] == page && bound(glyph, 2) > 0 && bound(glyph, 3) > 0)
+					image.getRGB(x, y, bound(glyph, 2), bound(glyph, 3), pagePixels[page], y * w + x, w);
+			}
+		}
+		
+		pagePixelGlyphs[page] = glyphCount;
+		return pagePixels[page];
+	}
+	
+	/**
+	 * Gets a page with its pixels multiplied by a color.
+	 * Copies of the pages are kept for a few colors. When
+	 * a new color replaces the oldest one, its copies are
+	 * tinted again in place, and glyphs added to a page are
+	 * the only pixels tinted afterwards.
+	 */
+	BufferedImage getTintedPage(int page, int color) {
+		if (color == 0xFFFFFFFF)
+			return pages[page];
+		
+		int slot = 0;
+		
+		while (slot < TINT_SLOTS && (tintPages[slot] == null || tintColors[slot] != color))
+			slot++;
+		
+		if (slot == TINT_SLOTS) {
+			slot = nextTint;
+			nextTint = (nextTint + 1) % TINT_SLOTS;
+			
+			if (tintPages[slot] == null) {
+				tintPages[slot] = new BufferedImage[pages.length];
+				tintGlyphs[slot] = new int[pages.length];
+			} else {
+				Arrays.fill(tintGlyphs[slot], 0);
+			}
+			
+			tintColors[slot] = color;
+		}
+		
+		if (tintPages[slot].length < pages.length) {
+			tintPages[slot] = Arrays.copyOf(tintPages[slot], pages.length);
+			tintGlyphs[slot] = Arrays.copyOf(tintGlyphs[slot], pages.length);
+		}
+		
+		var tinted = tintPages[slot][page];
+		
+		if (tinted == null) {
+			tinted = new BufferedImage(pages[page].getWidth(), pages[page].getHeight(),
+					BufferedImage.TYPE_INT_ARGB);
+			tintPages[slot][page] = tinted;
+			tintGlyphs[slot][page] = 0;
+		}
+		
+		if (tintGlyphs[slot][page] != glyphCount) {
+			tint(page, color, tinted, tintGlyphs[slot][page]);
+			tintGlyphs[slot][page] = glyphCount;
+		}
+		
+		return tinted;
+	}
+	
+	/////////////////////////
+	
+	static long getLayoutHits() {
+		return layoutHits;
+	}
+	
+	static long getLayoutMisses() {
+		return layoutMisses;
+	}
+	
+	static void resetLayoutCounters() {
+		layoutHits = 0;
+		layoutMisses = 0;
+	}
+	
+	/**
+	 * Sets how many layouts each atlas keeps. Atlases
+	 * above the limit drop their oldest layouts as
+	 * they lay out new strings.
+	 */
+	static void setLayoutCapacity(int capacity) {
+		layoutCapacity = capacity;
+	}
+	
+	static int getLayoutCapacity() {
+		return layoutCapacity;
+	}
+	
+	/////////////////////////
+	
+	private int drawGlyph(int codePoint) {
+		var vector = font.createGlyphVector(context, new StringBuilder().appendCodePoint(codePoint).toString());
+		
+		if (vector.getNumGlyphs() == 0 || vector.getGlyphCode(0) == font.getMissingGlyphCode())
+			return MISSING;
+		
+		var bounds = vector.getGlyphPixelBounds(0, context, 0, 0);
+		float advance = vector.getGlyphMetrics(0).getAdvanceX();
+		
+		// spaces don't take room in the pages
+		if (bounds.isEmpty())
+			return addGlyph(0, 0, 0, 0, 0, 0, 0, advance);
+		
+		int w = bounds.width;
+		int h = bounds.height;
+		
+		if (pageCount > 0 && cursorX + w + PADDING > pages[pageCount - 1].getWidth()) {
+			// next shelf
+			cursorX = PADDING;
+			cursorY += shelfHeight + PADDING;
+			shelfHeight = 0;
+		}
+		
+		if (pageCount == 0 || cursorY + h + PADDING > pages[pageCount - 1].getHeight()
+				|| cursorX + w + PADDING > pages[pageCount - 1].getWidth())
+			addPage(Math.max(pageSize, Math.max(w, h) + PADDING * 2));
+		
+		int page = pageCount - 1;
+		int x = cursorX;
+		int y = cursorY;
+		
+		var g = pages[page].createGraphics();
+		
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, context.getAntiAliasingHint());
+		g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, context.getFractionalMetricsHint());
+		g.setColor(Color.WHITE);
+		g.drawGlyphVector(vector, x - bounds.x, y - bounds.y);
+		g.dispose();
+		
+		cursorX += w + PADDING;
+		shelfHeight = Math.max(shelfHeight, h);
+		
+		return addGlyph(page, x, y, w, h, bounds.x, bounds.y, advance);
+	}
+	
+	private void addPage(int size) {
+		if (pageCount == pages.length) {
+			pages = Arrays.copyOf(pages, pageCount * 2);
+			pagePixels = Arrays.copyOf(pagePixels, pageCount * 2);
+			pagePixelGlyphs = Arrays.copyOf(pagePixelGlyphs, pageCount * 2);
+		}
+		
+		pages[pageCount++] = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+		
+		cursorX = PADDING;
+		cursorY = PADDING;
+		shelfHeight = 0;
+	}
+	
+	private int addGlyph(int page, int x, int y, int w, int h, float offsetX, float offsetY, float advance) {
+		if (glyphCount == glyphPages.length) {
+			int capacity = glyphCount * 2;
+			
+			glyphPages = Arrays.copyOf(glyphPages, capacity);
+			glyphBounds = Arrays.copyOf(glyphBounds, capacity * 4);
+			glyphOffsets = Arrays.copyOf(glyphOffsets, capacity * 2);
+			glyphAdvances = Arrays.copyOf(glyphAdvances, capacity);
+		}
+		
+		int glyph = glyphCount++;
+		
+		glyphPages[glyph] = page;
+		glyphBounds[glyph * 4] = x;
+		glyphBounds[glyph * 4 + 1] = y;
+		glyphBounds[glyph * 4 + 2] = w;
+		glyphBounds[glyph * 4 + 3] = h;
+		glyphOffsets[glyph * 2] = offsetX;
+		glyphOffsets[glyph * 2 + 1] = offsetY;
+		glyphAdvances[glyph] = advance;
+		
+		return glyph;
+	}
+	
+	private int getGlyph(int codePoint) {
+		if (codePoint >= 0 && codePoint < ASCII)
+			return asciiGlyphs[codePoint];
+		
+		int mask = codeKeys.length - 1;
+		int slot = (codePoint * 0x9E3779B9) >>> 16 & mask;
+		
+		while (codeGlyphs[slot] != UNKNOWN) {
+			if (codeKeys[slot] == codePoint)
+				return codeGlyphs[slot];
+			
+			slot = (slot + 1) & mask;
+		}
+		
+		return UNKNOWN;
+	}
+	
+	private void setGlyph(int codePoint, int glyph) {
+		if (codePoint >= 0 && codePoint < ASCII) {
+			asciiGlyphs[codePoint] = glyph;
+			return;
+		}
+		
+		if ((codeCount + 1) * 2 > codeKeys.length) {
+			var oldKeys = codeKeys;
+			var oldGlyphs = codeGlyphs;
+			
+			codeKeys = new int[oldKeys.length * 2];
+			codeGlyphs = new int[oldGlyphs.length * 2];
+			codeCount = 0;
+			
+			Arrays.fill(codeGlyphs, UNKNOWN);
+			
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldGlyphs[i] != UNKNOWN)
+					setGlyph(oldKeys[i], oldGlyphs[i]);
+			}
+		}
+		
+		int mask = codeKeys.length - 1;
+		int slot = (codePoint * 0x9E3779B9) >>> 16 & mask;
+		
+		while (codeGlyphs[slot] != UNKNOWN && codeKeys[slot] != codePoint)
+			slot = (slot + 1) & mask;
+		
+		if (codeGlyphs[slot] == UNKNOWN)
+			codeCount++;
+		
+		codeKeys[slot] = codePoint;
+		codeGlyphs[slot] = glyph;
+	}
+	
+	private void putKerning(long key, float amount) {
+		if ((kerningCount + 1) * 2 > kerningKeys.length) {
+			var oldKeys = kerningKeys;
+			var oldAmounts = kerningAmounts;
+			
+			kerningKeys = new long[oldKeys.length * 2];
+			kerningAmounts = new float[oldAmounts.length * 2];
+			kerningCount = 0;
+			
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != 0)
+					putKerning(oldKeys[i], oldAmounts[i]);
+			}
+		}
+		
+		int mask = kerningKeys.length - 1;
+		int slot = (int) (key ^ (key >>> 29)) * 0x9E3779B9 >>> 16 & mask;
+		
+		while (kerningKeys[slot] != 0 && kerningKeys[slot] != key)
+			slot = (slot + 1) & mask;
+		
+		if (kerningKeys[slot] == 0)
+			kerningCount++;
+		
+		kerningKeys[slot] = key;
+		kerningAmounts[slot] = amount;
+	}
+	
+	/*
+	 * Keys are never zero, so zero marks the empty slots.
+	 */
+	private static long kerningKey(int first, int second) {
+		return ((long) (first + 1) << 32) | (second & 0xFFFFFFFFL);
+	}
+	
+	/*
+	 * Tints the glyphs of a page from the first one given,
+	 * copied through the raster so the image stays managed.
+	 */
+	private void tint(int page, int color, BufferedImage target, int firstGlyph) {
+		int[] source = getPagePixels(page);
+		int pageWidth = pages[page].getWidth();
+		var raster = target.getRaster();
+		
+		int alpha = color >>> 24;
+		int red = (color >> 16) & 0xFF;
+		int green = (color >> 8) & 0xFF;
+		int blue = color & 0xFF;
+		
+		for (int glyph = firstGlyph; glyph < glyphCount; glyph++) {
+			int x = bound(glyph, 0);
+			int y = bound(glyph, 1);
+			int w = bound(glyph, 2);
+			int h = bound(glyph, 3);
+			
+			if (glyphPages[glyph] != page || w <= 0 || h <= 0)
+				continue;
+			
+			if (tintPixels == null || tintPixels.length < w * h)
+				tintPixels = new int[w * h];
+			
+			for (int row = 0, i = 0; row < h; row++) {
+				int offset = (y + row) * pageWidth + x;
+				
+				for (int column = 0; column < w; column++, i++) {
+					int pixel = source[offset + column];
+					
+					tintPixels[i] = (multiply(pixel >>> 24, alpha) << 24)
+							| (multiply((pixel >> 16) & 0xFF, red) << 16)
+							| (multiply((pixel >> 8) & 0xFF, green) << 8)
+							| multiply(pixel & 0xFF, blue);
+				}
+			}
+			
+			raster.setDataElements(x, y, w, h, tintPixels);
+		}
+	}
+	
+	/*
+	 * Rounded (a * b) / 255.
+	 */
+	private static int multiply(int a, int b) {
+		int product = a * b + 0x80;
+		return (product + (product >> 8)) >> 8;
+	}
+}
@@ -43,6 +43,9 @@ final class GLibHints {
 	
 	private static Graphics2D sourceGraphics = null;
 	
+	// hints set on the graphics, applied again to the graphics of every frame
+	private static RenderingHints renderingHints = new RenderingHints(null);
+	
 	/////////////////////////
 
 	public static void set(int property, int value) {
@@ -59,6 +62,7 @@ final class GLibHints {
 	
 	public static void applyHintsToGraphics(Graphics2D g) {
 		sourceGraphics = g;
+		sourceGraphics.addRenderingHints(renderingHints);
 	}
 	
 	/////////////////////////
@@ -69,6 +73,7 @@ final class GLibHints {
 		
 		// changes the rendering hint
 		sourceGraphics.setRenderingHint(hintKey, hintVal);
+		renderingHints.put(hintKey, hintVal);
 	}
 
 	/////////////////////////
@@ -0,0 +1,189 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * GLib histogram
+ * <p>
+ * Counts durations in nanoseconds without locks, so any thread
+ * can record while another one reads. The buckets are log-linear:
+ * each power of two is split in 32 buckets, which keeps every
+ * recorded value within about 3% of the value reported for it.
+ * The maximum is tracked exactly.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+public final class GLibHistogram {
+	
+	// buckets per power of two
+	private static final int SUB_BITS			= 5;
+	private static final int SUB_COUNT			= 1 << SUB_BITS;
+	
+	// longest duration told apart (about 18 minutes)
+	private static final long HIGHEST			= (1L << 40) - 1;
+	private static final int BUCKETS			= (40 - SUB_BITS + 1) * SUB_COUNT;
+	
+	private final AtomicLongArray counts;
+	private final AtomicLong count;
+	private final AtomicLong total;
+	private final AtomicLong maximum;
+	
+	/**
+	 * Creates a new empty {@code GLibHistogram}.
+	 */
+	public GLibHistogram() {
+		this.counts = new AtomicLongArray(BUCKETS);
+		this.count = new AtomicLong();
+		this.total = new AtomicLong();
+		this.maximum = new AtomicLong();
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Records a duration.
+	 * 
+	 * @param nanos the duration in nanoseconds
+	 */
+	public void record(long nanos) {
+		if (nanos < 0)
+			nanos = 0;
+		
+		counts.incrementAndGet(bucketOf(nanos));
+		count.incrementAndGet();
+		total.addAndGet(nanos);
+		maximum.accumulateAndGet(nanos, Math::max);
+	}
+	
+	/**
+	 * Adds the values recorded by another histogram.
+	 */
+	public void add(GLibHistogram histogram) {
+		for (int i = 0; i < BUCKETS; i++) {
+			long bucket = histogram.counts.get(i);
+			
+			if (bucket != 0)
+				counts.addAndGet(i, bucket);
+		}
+		
+		count.addAndGet(histogram.count.get());
+		total.addAndGet(histogram.total.get());
+		maximum.accumulateAndGet(histogram.maximum.get(), Math::max);
+	}
+	
+	/**
+	 * Forgets every recorded value.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++)
+			counts.set(i, 0);
+		
+		count.set(0);
+		total.set(0);
+		maximum.set(0);
+	}
+	
+	/////////////////////////
+	
+	public long getCount() {
+		return count.get();
+	}
+	
+	/**
+	 * Gets the longest recorded duration in nanoseconds.
+	 */
+	public long getMaximum() {
+		return maximum.get();
+	}
+	
+	/**
+	 * Gets the mean of the recorded durations in nanoseconds.
+	 */
+	public double getMean() {
+		long count = this.count.get();
+		return count == 0 ? 0 : (double) total.get() / count;
+	}
+	
+	/**
+	 * Gets the duration that the given percentage of the
+	 * recorded values doesn't exceed, in nanoseconds.
+	 * 
+	 * @param percentile a percentage from 0 to 100
+	 */
+	public long getPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100)
+			throw new IllegalArgumentException(
+				"Percentile out of range: " + percentile);
+		
+		long count = 0;
+		
+		for (int i = 0; i < BUCKETS; i++)
+			count += counts.get(i);
+		
+		if (count == 0) return 0;
+		
+		long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+		long seen = 0;
+		
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			
+			if (seen >= rank)
+				return Math.min(highestOf(i), maximum.get());
+		}
+		
+		return maximum.get();
+	}
+	
+	/////////////////////////
+	
+	private static int bucketOf(long value) {
+		if (value < SUB_COUNT)
+			return (int) value;
+		
+		if (value > HIGHEST)
+			value = HIGHEST;
+		
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+		return ((shift + 1) << SUB_BITS) + (int) (value >>> shift) - SUB_COUNT;
+	}
+	
+	/*
+	 * Gets the highest value counted by a bucket.
+	 */
+	private static long highestOf(int bucket) {
+		if (bucket < SUB_COUNT)
+			return bucket;
+		
+		int shift = (bucket >> SUB_BITS) - 1;
+		long lowest = (long) ((bucket & (SUB_COUNT - 1)) + SUB_COUNT) << shift;
+		
+		return lowest + (1L << shift) - 1;
+	}
+}
@@ -409,14 +409,16 @@ public final class GLibInput {
 	 * Gets the mouse X-axis position.
 	 */
 	public static int getMouseX() {
-		return mouseX / GLib.getPixelSize();
+		var canvas = GLib.getApplication().canvas();
+		return Math.floorDiv(mouseX - canvas.getPresentX(), canvas.getPixelSize());
 	}
 	
 	/**
 	 * Gets the mouse Y-axis position.
 	 */
 	public static int getMouseY() {
-		return mouseY / GLib.getPixelSize();
+		var canvas = GLib.getApplication().canvas();
+		return Math.floorDiv(mouseY - canvas.getPresentY(), canvas.getPixelSize());
 	}
 	
 	/**
@@ -443,6 +445,65 @@ public final class GLibInput {
 		buttons[button] = false;
 	}
 
+	// SYNTHETIC EVENTS //
+	
+	/**
+	 * Presses a key as if it came from the keyboard.
+	 * Used to drive applications without a window.
+	 * 
+	 * @param key the key to be pressed
+	 */
+	public static void pressKey(int key) {
+		if (key < 0 || key >= keys.length)
+			return;
+		
+		keys[key] = true;
+	}
+	
+	/**
+	 * Releases a key pressed by {@link #pressKey(int)}.
+	 * 
+	 * @param key the key to be released
+	 */
+	public static void releaseKey(int key) {
+		dispatchKey(key);
+	}
+	
+	/**
+	 * Presses a mouse button as if it came from the mouse.
+	 * 
+	 * @param button the button to be pressed
+	 */
+	public static void pressButton(int button) {
+		if (button < 0 || button >= buttons.length)
+			return;
+		
+		buttons[button] = true;
+	}
+	
+	/**
+	 * Releases a button pressed by {@link #pressButton(int)}.
+	 * 
+	 * @param button the button to be released
+	 */
+	public static void releaseButton(int button) {
+		dispatchButton(button);
+	}
+	
+	/**
+	 * Moves the mouse over the canvas.
+	 * 
+	 * @param x X-axis position in window pixels
+	 * @param y Y-axis position in window pixels
+	 */
+	public static void moveMouse(int x, int y) {
+		mouseX = x;
+		mouseY = y;
+		mouseOnCanvas = true;
+	}
+	
+	///////////////////////////////////
+	
 	/**
 	 * Tests whether the mouse is on
 	 * the canvas.
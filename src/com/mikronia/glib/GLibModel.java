@@ -25,10 +25,15 @@
 package com.mikronia.glib;
 
 import java.awt.Polygon;
-import java.util.ArrayList;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
 
 /**
  * MkModel
+ * <p>
+ * The vertices are stored in a {@code float} array. Drawing a
+ * transformed model transforms its vertices into an array and
+ * a path that are reused from draw to draw.
  * 
  * @author Thaynan M. Silva
  * @version 1.0
@@ -37,15 +42,19 @@ public final class GLibModel {
 	
 	private Polygon basePolygon;
 
-	private ArrayList<Float> xCoords;
-	private ArrayList<Float> yCoords;
+	// x, y pairs
+	private float[] vertices;
+	private int vertexCount;
+	
+	// geometry of the last draw
+	private float[] transformed;
+	private Path2D.Float path;
 	
 	/**
 	 * Creates a new {@code MkModel}.
 	 */
 	public GLibModel() {
-		this.xCoords = new ArrayList<Float>();
-		this.yCoords = new ArrayList<Float>();
+		this.vertices = new float[16];
 	}
 	
 	/**
@@ -57,8 +66,16 @@ public final class GLibModel {
 	public void vertex(float x, float y) {
 		this.basePolygon = null;
 
-		this.xCoords.add(x);
-		this.yCoords.add(y);
+		if (vertexCount * 2 == vertices.length)
+			vertices = Arrays.copyOf(vertices, vertices.length * 2);
+		
+		vertices[vertexCount * 2] = x;
+		vertices[vertexCount * 2 + 1] = y;
+		vertexCount++;
+	}
+	
+	public int getVertexCount() {
+		return vertexCount;
 	}
 	
 	/**
@@ -71,9 +88,9 @@ public final class GLibModel {
 		if (basePolygon == null) {
 			basePolygon = new Polygon();
 			
-			for (int i = 0; i < xCoords.size(); i++) {
-				int xCoord = xCoords.get(i).intValue();
-				int yCoord = yCoords.get(i).intValue();
+			for (int i = 0; i < vertexCount; i++) {
+				int xCoord = (int) vertices[i * 2];
+				int yCoord = (int) vertices[i * 2 + 1];
 				
 				basePolygon.addPoint(xCoord, yCoord);
 			}
@@ -81,4 +98,72 @@ public final class GLibModel {
 		
 		return basePolygon;
 	}
+	
+	/**
+	 * Gets the vertices as x, y pairs.
+	 */
+	float[] getVertices() {
+		return vertices;
+	}
+	
+	/**
+	 * Gets the vertices scaled, rotated around the origin of
+	 * the model and then moved to the given position, as x, y
+	 * pairs. The array is reused by the next call.
+	 * 
+	 * @param angle rotation in radians
+	 */
+	float[] transform(float x, float y, float angle, float scale) {
+		if (transformed == null || transformed.length < vertexCount * 2)
+			transformed = new float[vertices.length];
+		
+		transform(vertices, vertexCount, x, y, angle, scale, transformed);
+		return transformed;
+	}
+	
+	/**
+	 * Gets the outline of the transformed model, for
+	 * Java2D to draw. The path is reused between draws.
+	 */
+	Path2D.Float getPath(float x, float y, float angle, float scale) {
+		var points = transform(x, y, angle, scale);
+		
+		if (path == null)
+			path = new Path2D.Float(Path2D.WIND_EVEN_ODD, vertexCount + 1);
+		
+		path.reset();
+		
+		for (int i = 0; i < vertexCount; i++) {
+			if (i == 0)
+				path.moveTo(points[0], points[1]);
+			else
+				path.lineTo(points[i * 2], points[i * 2 + 1]);
+		}
+		
+		if (vertexCount > 0)
+			path.closePath();
+		
+		return path;
+	}
+	
+	/**
+	 * Scales, rotates and moves vertices.
+	 * 
+	 * @param vertices x, y pairs
+	 * @param count number of vertices
+	 * @param angle rotation in radians
+	 * @param out the transformed x, y pairs
+	 */
+	static void transform(float[] vertices, int count, float x, float y, float angle, float scale, float[] out) {
+		float cos = (float) Math.cos(angle) * scale;
+		float sin = (float) Math.sin(angle) * scale;
+		
+		for (int i = 0; i < count * 2; i += 2) {
+			float vertexX = vertices[i];
+			float vertexY = vertices[i + 1];
+			
+			out[i] = x + vertexX * cos - vertexY * sin;
+			out[i + 1] = y + vertexX * sin + vertexY * cos;
+		}
+	}
 }
@@ -24,6 +24,7 @@
 
 package com.mikronia.glib;
 
+import java.util.Arrays;
 import java.util.HashMap;
 
 import com.mikronia.glib.utils.glib.GLibChecks;
@@ -35,10 +36,29 @@ import com.mikronia.glib.utils.glib.GLibChecks;
  * @version 1.0
  */
 public class GLibModels {
+	
+	public static final int NO_MODEL = -1;
 
 	private static HashMap<String, GLibModel> models = new HashMap<String, GLibModel>();
+	
+	// models by handle
+	private static HashMap<String, Integer> handles = new HashMap<String, Integer>();
+	private static GLibModel[] modelTable = new GLibModel[64];
+	private static int modelCount = 0;
 
 	public static void store(String ref, GLibModel model) {
+		storeModel(ref, model);
+	}
+	
+	/**
+	 * Stores a model and gets its handle.
+	 * 
+	 * @param ref a reference to the model
+	 * @param model the model
+	 * @return the model handle.
+	 * @see #store(String, GLibModel)
+	 */
+	public static int storeModel(String ref, GLibModel model) {
 		GLibChecks.assertNotNull(ref, "model_reference_null");
 		GLibChecks.assertFalse(ref.trim().isEmpty(), "model_reference_blank");
 		
@@ -47,6 +67,27 @@ public class GLibModels {
 		GLibChecks.assertFalse(models.containsKey(ref), "model_reference_exists");
 		
 		models.put(ref, model);
+		
+		if (modelCount == modelTable.length)
+			modelTable = Arrays.copyOf(modelTable, modelCount * 2);
+		
+		modelTable[modelCount] = model;
+		handles.put(ref, modelCount);
+		
+		return modelCount++;
+	}
+	
+	/**
+	 * Gets the handle of a model, which draws it
+	 * without looking up its reference.
+	 * 
+	 * @param ref a reference to the model
+	 * @return the model handle or {@link #NO_MODEL}.
+	 */
+	public static int getModelHandle(String ref) {
+		var handle = handles.get(ref);
+		
+		return handle == null ? NO_MODEL : handle;
 	}
 
 	public static GLibModel model(String ref) {
@@ -57,4 +98,14 @@ public class GLibModels {
 		
 		return models.get(ref);
 	}
+	
+	/**
+	 * Gets a model by its handle.
+	 */
+	static GLibModel model(int modelHandle) {
+		if (modelHandle < 0 || modelHandle >= modelCount)
+			throw new IllegalArgumentException("Inexistent model handle: " + modelHandle);
+		
+		return modelTable[modelHandle];
+	}
 }
@@ -0,0 +1,779 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.WeakHashMap;
+
+/**
+ * GLib software rasterizer
+ * <p>
+ * Draws straight into the {@code int} pixels of an opaque
+ * {@code BufferedImage}, without going through the Java2D
+ * pipeline. No objects are allocated while drawing, except
+ * the first time a sprite is drawn and when the mask of the
+ * curved shapes grows.
+ * <p>
+ * Shapes cover the pixels whose centers are inside them and
+ * scaled sprites are sampled at the pixel centers, like Java2D
+ * with pure strokes and nearest neighbor interpolation. Ovals
+ * and round rectangles are traced by Java2D into a mask, since
+ * their borders follow the steps of its own curve flattening.
+ * They are traced whole, as Java2D flattens the curves cut by
+ * the clip differently, so they don't change with the clip nor
+ * show seams between the tiles and dirty rectangles.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+final class GLibRasterizer {
+	
+	// ARGB pixels of the sprites, shared by all the rasterizers
+	private static final WeakHashMap<BufferedImage, int[]> spritePixels = new WeakHashMap<BufferedImage, int[]>();
+	
+	// scale of the error term of the polygon edges
+	private static final double ERROR_SCALE = Integer.MAX_VALUE;
+	
+	// largest mask traced whole, in pixels
+	private static final long MAX_TRACE_AREA = 1 << 22;
+	
+	private final int[] pixels;
+	
+	private final int width;
+	private final int height;
+	
+	// current color
+	private int color;
+	private int alpha;
+	
+	// translation
+	private int translateX;
+	private int translateY;
+	
+	// clip bounds [x0, x1) and [y0, y1)
+	private int clipX0;
+	private int clipY0;
+	private int clipX1;
+	private int clipY1;
+	
+	// scanline scratch buffers
+	private int[] crossings = new int[16];
+	private float[] points = new float[32];
+	
+	// mask of the curved shapes traced by Java2D
+	private BufferedImage mask;
+	private Graphics2D maskGraphics;
+	private int[] maskPixels;
+	
+	/**
+	 * Creates a new {@code GLibRasterizer}.
+	 * 
+	 * @param target an image of type {@code TYPE_INT_RGB}
+	 * or {@code TYPE_INT_ARGB}
+	 */
+	GLibRasterizer(BufferedImage target) {
+		this.pixels = ((DataBufferInt) target.getRaster().getDataBuffer()).getData();
+		this.width = target.getWidth();
+		this.height = target.getHeight();
+		this.color = 0xFF000000;
+		this.alpha = 0xFF;
+		
+		resetClip();
+	}
+	
+	/////////////////////////
+	
+	void setColor(int argb) {
+		this.color = argb;
+		this.alpha = argb >>> 24;
+	}
+	
+	void setTranslation(int x, int y) {
+		this.translateX = x;
+		this.translateY = y;
+	}
+	
+	/**
+	 * Limits the drawing to the given area
+	 * (in screen coordinates).
+	 */
+	void setClip(int x, int y, int w, int h) {
+		clipX0 = Math.max(0, x);
+		clipY0 = Math.max(0, y);
+		clipX1 = Math.min(width, x + w);
+		clipY1 = Math.min(height, y + h);
+	}
+	
+	void resetClip() {
+		setClip(0, 0, width, height);
+	}
+	
+	/////////////////////////
+	
+	void fillRect(int x, int y, int w, int h) {
+		x += translateX;
+		y += translateY;
+		
+		int x1 = x + w - 1;
+		int y1 = Math.min(y + h, clipY1);
+		
+		for (int row = Math.max(y, clipY0); row < y1; row++)
+			span(row, x, x1);
+	}
+	
+	void drawRect(int x, int y, int w, int h) {
+		if (w < 0 || h < 0) return;
+		
+		x += translateX;
+		y += translateY;
+		
+		span(y, x, x + w);
+		span(y + h, x, x + w);
+		
+		int y1 = Math.min(y + h, clipY1);
+		
+		for (int row = Math.max(y + 1, clipY0); row < y1; row++) {
+			span(row, x, x);
+			span(row, x + w, x + w);
+		}
+	}
+	
+	/**
+	 * Draws a line using the Bresenham's algorithm.
+	 */
+	void drawLine(int x0, int y0, int x1, int y1) {
+		x0 += translateX;
+		y0 += translateY;
+		x1 += translateX;
+		y1 += translateY;
+		
+		if (y0 == y1) {
+			span(y0, Math.min(x0, x1), Math.max(x0, x1));
+			return;
+		}
+		
+		int dx = Math.abs(x1 - x0);
+		int dy = -Math.abs(y1 - y0);
+		int sx = x0 < x1 ? 1 : -1;
+		int sy = y0 < y1 ? 1 : -1;
+		int error = dx + dy;
+		
+		while (true) {
+			plot(x0, y0);
+			
+			if (x0 == x1 && y0 == y1)
+				break;
+			
+			int e2 = error * 2;
+			
+			if (e2 >= dy) {
+				error += dy;
+				x0 += sx;
+			}
+			
+			if (e2 <= dx) {
+				error += dx;
+				y0 += sy;
+			}
+		}
+	}
+	
+	void fillOval(int x, int y, int w, int h) {
+		if (w <= 0 || h <= 0) return;
+		
+		trace(x, y, w, h, 0, 0, true, true);
+	}
+	
+	void drawOval(int x, int y, int w, int h) {
+		if (w < 0 || h < 0) return;
+		
+		trace(x, y, w, h, 0, 0, true, false);
+	}
+	
+	void fillRoundRect(int x, int y, int w, int h, int arcWidth, int arcHeight) {
+		if (w <= 0 || h <= 0) return;
+		
+		if (arcWidth <= 0 || arcHeight <= 0) {
+			fillRect(x, y, w, h);
+			return;
+		}
+		
+		trace(x, y, w, h, arcWidth, arcHeight, false, true);
+	}
+	
+	void drawRoundRect(int x, int y, int w, int h, int arcWidth, int arcHeight) {
+		if (w < 0 || h < 0) return;
+		
+		if (arcWidth <= 0 || arcHeight <= 0) {
+			drawRect(x, y, w, h);
+			return;
+		}
+		
+		trace(x, y, w, h, arcWidth, arcHeight, false, false);
+	}
+	
+	/**
+	 * Fills a polygon using the even-odd rule.
+	 */
+	void fillPolygon(Polygon polygon) {
+		int count = polygon.npoints;
+		
+		ensurePoints(count);
+		
+		for (int i = 0; i < count; i++) {
+			points[i * 2] = polygon.xpoints[i];
+			points[i * 2 + 1] = polygon.ypoints[i];
+		}
+		
+		fillPolygon(points, count);
+	}
+	
+	void drawPolygon(Polygon polygon) {
+		int count = polygon.npoints;
+		
+		for (int i = 0, j = count - 1; i < count; j = i++) {
+			drawLine(polygon.xpoints[j], polygon.ypoints[j],
+					polygon.xpoints[i], polygon.ypoints[i]);
+		}
+	}
+	
+	/**
+	 * Fills a model scaled, rotated around its origin and
+	 * moved to the given position, using the even-odd rule.
+	 * 
+	 * @param vertices x, y pairs
+	 * @param angle rotation in radians
+	 */
+	void fillModel(float[] vertices, int count, float x, float y, float angle, float scale) {
+		ensurePoints(count);
+		GLibModel.transform(vertices, count, x, y, angle, scale, points);
+		fillPolygon(points, count);
+	}
+	
+	/**
+	 * Draws the outline of a transformed model.
+	 * 
+	 * @param vertices x, y pairs
+	 * @param angle rotation in radians
+	 */
+	void drawModel(float[] vertices, int count, float x, float y, float angle, float scale) {
+		ensurePoints(count);
+		GLibModel.transform(vertices, count, x, y, angle, scale, points);
+		
+		for (int i = 0, j = count - 1; i < count; j = i++) {
+			drawLine(Math.round(points[j * 2]), Math.round(points[j * 2 + 1]),
+					Math.round(points[i * 2]), Math.round(points[i * 2 + 1]));
+		}
+	}
+	
+	/*
+	 * Fills a polygon given as x, y pairs, covering the
+	 * pixels whose centers are inside it.
+	 */
+	private void fillPolygon(float[] points, int count) {
+		if (count < 3) return;
+		
+		float minY = Float.POSITIVE_INFINITY;
+		float maxY = Float.NEGATIVE_INFINITY;
+		
+		for (int i = 0; i < count; i++) {
+			minY = Math.min(minY, points[i * 2 + 1] + translateY);
+			maxY = Math.max(maxY, points[i * 2 + 1] + translateY);
+		}
+		
+		if (crossings.length < count)
+			crossings = new int[count];
+		
+		int startRow = Math.max((int) Math.ceil(minY - 0.5f), clipY0);
+		int endRow = Math.min((int) Math.ceil(maxY - 0.5f), clipY1);
+		
+		for (int row = startRow; row < endRow; row++) {
+			int found = 0;
+			
+			for (int i = 0, j = count - 1; i < count; j = i++) {
+				float xa = points[j * 2] + translateX;
+				float ya = points[j * 2 + 1] + translateY;
+				float xb = points[i * 2] + translateX;
+				float yb = points[i * 2 + 1] + translateY;
+				
+				// edges are walked downwards
+				if (ya > yb) {
+					float swap = xa; xa = xb; xb = swap;
+					swap = ya; ya = yb; yb = swap;
+				}
+				
+				// half-open edges, horizontal edges are ignored
+				int firstRow = (int) Math.ceil(ya - 0.5f);
+				
+				if (row < firstRow || row >= (int) Math.ceil(yb - 0.5f))
+					continue;
+				
+				int crossing = crossing(xa, ya, xb, yb, firstRow, row);
+				
+				// insertion sort (polygons are small)
+				int k = found++;
+				
+				while (k > 0 && crossings[k - 1] > crossing) {
+					crossings[k] = crossings[k - 1];
+					k--;
+				}
+				
+				crossings[k] = crossing;
+			}
+			
+			for (int i = 0; i + 1 < found; i += 2)
+				span(row, crossings[i], crossings[i + 1] - 1);
+		}
+	}
+	
+	/**
+	 * Finds the first pixel whose center is right of an edge
+	 * on the given row.
+	 * <p>
+	 * The edge is stepped from its first row with a 31 bits
+	 * error term, the same way Java2D walks it, so that the
+	 * centers lying on the edge fall on the same side.
+	 */
+	private static int crossing(float xa, float ya, float xb, float yb, int firstRow, int row) {
+		float dx = xb - xa;
+		float dy = yb - ya;
+		float slope = dx / dy;
+		
+		float x = xa + (firstRow + 0.5f - ya) * dx / dy;
+		int firstX = (int) Math.ceil(x - 0.5f);
+		
+		double step = Math.floor(slope);
+		int stepError = (int) ((slope - step) * ERROR_SCALE);
+		int error = (int) ((x - (firstX - 0.5f)) * ERROR_SCALE);
+		
+		long steps = row - firstRow;
+		
+		return (int) (firstX + steps * (int) step + ((error + steps * stepError) >> 31));
+	}
+	
+	private void trace(int x, int y, int w, int h, int arcWidth, int arcHeight, boolean oval, boolean fill) {
+		if (alpha != 0)
+			trace(x + translateX, y + translateY, w, h, arcWidth, arcHeight, oval, fill, null);
+	}
+	
+	/*
+	 * Traces a curved shape with Java2D into the mask and
+	 * draws the visible runs of traced pixels, or adds them
+	 * to the spans when given. The mask holds the whole shape,
+	 * unless it is too large, in which case only its visible
+	 * part is traced.
+	 */
+	private void trace(int x, int y, int w, int h, int arcWidth, int arcHeight, boolean oval, boolean fill,
+			GLibSpans spans) {
+		// the shape stays inside [x, x + w] x [y, y + h]
+		int x0 = Math.max(x, clipX0);
+		int y0 = Math.max(y, clipY0);
+		int x1 = Math.min(x + w + 1, clipX1);
+		int y1 = Math.min(y + h + 1, clipY1);
+		
+		if (x0 >= x1 || y0 >= y1) return;
+		
+		// origin and size of the mask
+		int maskX = x0;
+		int maskY = y0;
+		int maskWidth = x1 - x0;
+		int maskHeight = y1 - y0;
+		
+		if ((w + 1L) * (h + 1L) <= MAX_TRACE_AREA) {
+			maskX = x;
+			maskY = y;
+			maskWidth = w + 1;
+			maskHeight = h + 1;
+		}
+		
+		if (mask == null || mask.getWidth() < maskWidth || mask.getHeight() < maskHeight) {
+			if (maskGraphics != null)
+				maskGraphics.dispose();
+			
+			int capacityW = Math.max(maskWidth, mask == null ? 64 : mask.getWidth());
+			int capacityH = Math.max(maskHeight, mask == null ? 64 : mask.getHeight());
+			
+			mask = new BufferedImage(capacityW, capacityH, BufferedImage.TYPE_INT_RGB);
+			maskPixels = ((DataBufferInt) mask.getRaster().getDataBuffer()).getData();
+			maskGraphics = mask.createGraphics();
+			maskGraphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+			maskGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+			maskGraphics.setColor(Color.WHITE);
+		}
+		
+		int stride = mask.getWidth();
+		
+		for (int row = 0; row < maskHeight; row++)
+			Arrays.fill(maskPixels, row * stride, row * stride + maskWidth, 0);
+		
+		maskGraphics.setClip(0, 0, maskWidth, maskHeight);
+		
+		if (oval && fill) {
+			maskGraphics.fillOval(x - maskX, y - maskY, w, h);
+		} else if (oval) {
+			maskGraphics.drawOval(x - maskX, y - maskY, w, h);
+		} else if (fill) {
+			maskGraphics.fillRoundRect(x - maskX, y - maskY, w, h, arcWidth, arcHeight);
+		} else {
+			maskGraphics.drawRoundRect(x - maskX, y - maskY, w, h, arcWidth, arcHeight);
+		}
+		
+		// reads only the visible part of the mask
+		for (int row = y0 - maskY; row < y1 - maskY; row++) {
+			int offset = row * stride;
+			int column = x0 - maskX;
+			int end = x1 - maskX;
+			
+			while (column < end) {
+				if (maskPixels[offset + column] == 0) {
+					column++;
+					continue;
+				}
+				
+				int start = column;
+				
+				while (column < end && maskPixels[offset + column] != 0)
+					column++;
+				
+				if (spans != null)
+					spans.add(maskY + row, maskX + start, maskX + column - 1);
+				else
+					span(maskY + row, maskX + start, maskX + column - 1);
+			}
+		}
+	}
+	
+	/**
+	 * Traces an oval or a round rectangle given in screen
+	 * coordinates into spans, inside the clip, without drawing
+	 * it. Round rectangles without arcs aren't traced, as they
+	 * are drawn as plain rectangles.
+	 * 
+	 * @return false if the shape wasn't traced
+	 */
+	boolean traceSpans(int x, int y, int w, int h, int arcWidth, int arcHeight, boolean oval, boolean fill,
+			GLibSpans spans) {
+		if (fill ? w <= 0 || h <= 0 : w < 0 || h < 0)
+			return true;
+		
+		if (!oval && (arcWidth <= 0 || arcHeight <= 0))
+			return false;
+		
+		trace(x, y, w, h, arcWidth, arcHeight, oval, fill, spans);
+		return true;
+	}
+	
+	/**
+	 * Draws the traced spans [from, to) inside the clip.
+	 */
+	void drawSpans(GLibSpans spans, int from, int to) {
+		for (int i = spans.find(clipY0, from, to); i < to && spans.row(i) < clipY1; i++)
+			span(spans.row(i), spans.first(i), spans.last(i));
+	}
+	
+	private void ensurePoints(int count) {
+		if (points.length < count * 2)
+			points = new float[count * 2];
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Draws a sprite. Opaque sprites are copied row by row,
+	 * fully transparent pixels are skipped and translucent
+	 * pixels are blended.
+	 */
+	void drawImage(BufferedImage image, int x, int y) {
+		drawImage(image, getPixels(image), x, y);
+	}
+	
+	/**
+	 * Draws a sprite whose pixels were already converted.
+	 */
+	void drawImage(BufferedImage image, int[] source, int x, int y) {
+		int imageWidth = image.getWidth();
+		int imageHeight = image.getHeight();
+		
+		x += translateX;
+		y += translateY;
+		
+		int x0 = Math.max(x, clipX0);
+		int y0 = Math.max(y, clipY0);
+		int x1 = Math.min(x + imageWidth, clipX1);
+		int y1 = Math.min(y + imageHeight, clipY1);
+		
+		if (x0 >= x1 || y0 >= y1) return;
+		
+		boolean opaque = image.getTransparency() == Transparency.OPAQUE;
+		
+		for (int row = y0; row < y1; row++) {
+			int sourceOffset = (row - y) * imageWidth + (x0 - x);
+			int targetOffset = row * width + x0;
+			
+			if (opaque) {
+				System.arraycopy(source, sourceOffset, pixels, targetOffset, x1 - x0);
+				continue;
+			}
+			
+			for (int column = x0; column < x1; column++)
+				blit(source[sourceOffset++], targetOffset++);
+		}
+	}
+	
+	/**
+	 * Draws a sprite using the nearest neighbor scaling.
+	 */
+	void drawImage(BufferedImage image, int x, int y, int w, int h) {
+		drawImage(image, getPixels(image), x, y, w, h);
+	}
+	
+	void drawImage(BufferedImage image, int[] source, int x, int y, int w, int h) {
+		if (w <= 0 || h <= 0) return;
+		
+		int imageWidth = image.getWidth();
+		int imageHeight = image.getHeight();
+		
+		x += translateX;
+		y += translateY;
+		
+		int x0 = Math.max(x, clipX0);
+		int y0 = Math.max(y, clipY0);
+		int x1 = Math.min(x + w, clipX1);
+		int y1 = Math.min(y + h, clipY1);
+		
+		for (int row = y0; row < y1; row++) {
+			int sourceRow = sample(row - y, imageHeight, h) * imageWidth;
+			int targetOffset = row * width + x0;
+			
+			// source column of the first pixel center and the
+			// remainder of (2 * column + 1) * imageWidth / (2 * w)
+			long numerator = (2L * (x0 - x) + 1) * imageWidth;
+			int sourceColumn = (int) (numerator / (2L * w));
+			long remainder = numerator % (2L * w);
+			
+			for (int column = x0; column < x1; column++) {
+				blit(source[sourceRow + sourceColumn], targetOffset++);
+				
+				remainder += 2L * imageWidth;
+				
+				while (remainder >= 2L * w) {
+					remainder -= 2L * w;
+					sourceColumn++;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Draws an area of an image multiplied by the current
+	 * color. Used to draw the glyphs of the text.
+	 * 
+	 * @param source the ARGB pixels of the image
+	 * @param imageWidth the width of the image
+	 */
+	void drawTinted(int[] source, int imageWidth, int sourceX, int sourceY, int w, int h, int x, int y) {
+		x += translateX;
+		y += translateY;
+		
+		int x0 = Math.max(x, clipX0);
+		int y0 = Math.max(y, clipY0);
+		int x1 = Math.min(x + w, clipX1);
+		int y1 = Math.min(y + h, clipY1);
+		
+		if (x0 >= x1 || y0 >= y1 || alpha == 0) return;
+		
+		for (int row = y0; row < y1; row++) {
+			int sourceOffset = (sourceY + row - y) * imageWidth + sourceX + (x0 - x);
+			int targetOffset = row * width + x0;
+			
+			for (int column = x0; column < x1; column++)
+				blitTinted(source[sourceOffset++], targetOffset++);
+		}
+	}
+	
+	/**
+	 * Draws an image multiplied by the current color,
+	 * using the nearest neighbor scaling.
+	 * 
+	 * @param source the ARGB pixels of the image
+	 */
+	void drawTinted(int[] source, int imageWidth, int imageHeight, int x, int y, int w, int h) {
+		if (w <= 0 || h <= 0) return;
+		
+		x += translateX;
+		y += translateY;
+		
+		int x0 = Math.max(x, clipX0);
+		int y0 = Math.max(y, clipY0);
+		int x1 = Math.min(x + w, clipX1);
+		int y1 = Math.min(y + h, clipY1);
+		
+		if (x0 >= x1 || y0 >= y1 || alpha == 0) return;
+		
+		for (int row = y0; row < y1; row++) {
+			int sourceRow = sample(row - y, imageHeight, h) * imageWidth;
+			int targetOffset = row * width + x0;
+			
+			for (int column = x0; column < x1; column++)
+				blitTinted(source[sourceRow + sample(column - x, imageWidth, w)], targetOffset++);
+		}
+	}
+	
+	/*
+	 * Source pixel under the center of a target pixel
+	 * when scaling a size to another one.
+	 */
+	private static int sample(int target, int sourceSize, int targetSize) {
+		return (int) ((2L * target + 1) * sourceSize / (2L * targetSize));
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Gets the ARGB pixels of a sprite, converting
+	 * it when drawn for the first time.
+	 */
+	static int[] getPixels(BufferedImage image) {
+		int[] data = spritePixels.get(image);
+		
+		if (data == null) {
+			int w = image.getWidth();
+			int h = image.getHeight();
+			
+			data = image.getRGB(0, 0, w, h, null, 0, w);
+			spritePixels.put(image, data);
+		}
+		
+		return data;
+	}
+	
+	/**
+	 * Forgets the pixels of a sprite whose
+	 * image was drawn again.
+	 */
+	static void forgetPixels(BufferedImage image) {
+		spritePixels.remove(image);
+	}
+	
+	/////////////////////////
+	
+	private void span(int y, int x0, int x1) {
+		if (y < clipY0 || y >= clipY1) return;
+		
+		x0 = Math.max(x0, clipX0);
+		x1 = Math.min(x1, clipX1 - 1);
+		
+		if (x0 > x1) return;
+		
+		int offset = y * width;
+		
+		if (alpha == 0xFF) {
+			Arrays.fill(pixels, offset + x0, offset + x1 + 1, color);
+		} else if (alpha != 0) {
+			for (int x = x0; x <= x1; x++)
+				pixels[offset + x] = blend(color, alpha, pixels[offset + x]);
+		}
+	}
+	
+	private void plot(int x, int y) {
+		if (x < clipX0 || x >= clipX1 || y < clipY0 || y >= clipY1)
+			return;
+		
+		int offset = y * width + x;
+		
+		if (alpha == 0xFF) {
+			pixels[offset] = color;
+		} else if (alpha != 0) {
+			pixels[offset] = blend(color, alpha, pixels[offset]);
+		}
+	}
+	
+	private void blit(int source, int offset) {
+		int sourceAlpha = source >>> 24;
+		
+		if (sourceAlpha == 0xFF) {
+			pixels[offset] = source;
+		} else if (sourceAlpha != 0) {
+			pixels[offset] = blend(source, sourceAlpha, pixels[offset]);
+		}
+	}
+	
+	/*
+	 * Blits a pixel multiplied by the current color.
+	 */
+	private void blitTinted(int source, int offset) {
+		int pixelAlpha = multiply(source >>> 24, alpha);
+		
+		if (pixelAlpha == 0) return;
+		
+		int tinted = tint(source, color);
+		
+		pixels[offset] = pixelAlpha == 0xFF ? 0xFF000000 | tinted
+				: blend(tinted, pixelAlpha, pixels[offset]);
+	}
+	
+	/**
+	 * Multiplies the color channels of a pixel by the
+	 * ones of a color, keeping the alpha of the pixel.
+	 */
+	static int tint(int pixel, int color) {
+		// white pixels (the common case) take the color as is
+		if ((pixel & 0xFFFFFF) == 0xFFFFFF)
+			return (pixel & 0xFF000000) | (color & 0xFFFFFF);
+		
+		return (pixel & 0xFF000000)
+				| (multiply((pixel >> 16) & 0xFF, (color >> 16) & 0xFF) << 16)
+				| (multiply((pixel >> 8) & 0xFF, (color >> 8) & 0xFF) << 8)
+				| multiply(pixel & 0xFF, color & 0xFF);
+	}
+	
+	/*
+	 * Source-over composition on an opaque pixel.
+	 */
+	private static int blend(int source, int alpha, int target) {
+		int inverse = 0xFF - alpha;
+		
+		int red = multiply(alpha, (source >> 16) & 0xFF) + multiply(inverse, (target >> 16) & 0xFF);
+		int green = multiply(alpha, (source >> 8) & 0xFF) + multiply(inverse, (target >> 8) & 0xFF);
+		int blue = multiply(alpha, source & 0xFF) + multiply(inverse, target & 0xFF);
+		
+		return 0xFF000000 | (red << 16) | (green << 8) | blue;
+	}
+	
+	/*
+	 * Rounded (a * b) / 255.
+	 */
+	private static int multiply(int a, int b) {
+		int product = a * b + 0x80;
+		return (product + (product >> 8)) >> 8;
+	}
+}
@@ -25,7 +25,13 @@
 package com.mikronia.glib;
 
 /**
- * 
+ * GLib renderable
+ * <p>
+ * Something updated and drawn by the timer. When the timer
+ * runs the update and the render on separate threads (see
+ * {@link GLibTimer#setThreaded(boolean)}), the update copies
+ * the state to be drawn into a snapshot and the render draws
+ * from the latest snapshot instead of the live state.
  * 
  * @author Thaynan M. Silva
  * @version 1.0
@@ -46,4 +52,39 @@ public interface GLibRenderable {
 	 */
 	public void update(double delta);
 	
+	/////////////////////////
+	
+	/**
+	 * Creates an empty snapshot. The threaded timer creates
+	 * three snapshots and reuses them for the whole run.
+	 * 
+	 * @return a new snapshot
+	 */
+	public default Object createSnapshot() {
+		return null;
+	}
+	
+	/**
+	 * Copies the state drawn by {@link #render(GLibBatch, Object)}
+	 * into a snapshot. Called on the update thread after the
+	 * updates of each tick; the snapshot isn't read by the
+	 * render thread until this method returns.
+	 * 
+	 * @param snapshot a snapshot given by {@link #createSnapshot()}
+	 */
+	public default void writeSnapshot(Object snapshot) { }
+	
+	/**
+	 * Draws a snapshot. Called on the render thread, which may
+	 * draw the same snapshot more than once. Only the snapshot
+	 * should be read, as the update thread keeps changing the
+	 * live state meanwhile.
+	 * 
+	 * @param batch graphics batch
+	 * @param snapshot the latest snapshot written
+	 */
+	public default void render(GLibBatch batch, Object snapshot) {
+		render(batch);
+	}
+	
 }
@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * GLib snapshot buffer
+ * <p>
+ * Three snapshots handed from the update thread to the render
+ * thread without locks. The update thread writes the back snapshot
+ * and swaps it with the middle one; the render thread swaps the
+ * middle one with its front snapshot when a newer one was published.
+ * The swaps are atomic, so everything written to a snapshot before
+ * it is published is visible to the render thread once it takes it.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+final class GLibSnapshotBuffer {
+	
+	// set on the middle index when it wasn't taken yet
+	private static final int FRESH				= 0x4;
+	private static final int INDEX				= 0x3;
+	
+	private final Object[] snapshots;
+	private final AtomicInteger middle;
+	
+	// owned by the update and render threads
+	private int back;
+	private int front;
+	
+	/**
+	 * Creates a new {@code GLibSnapshotBuffer}
+	 * with snapshots created by the application.
+	 */
+	GLibSnapshotBuffer(GLibRenderable renderable) {
+		this.snapshots = new Object[] {
+			renderable.createSnapshot(),
+			renderable.createSnapshot(),
+			renderable.createSnapshot()
+		};
+		this.back = 0;
+		this.middle = new AtomicInteger(1);
+		this.front = 2;
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Gets the snapshot to be written by the update thread.
+	 */
+	Object getBack() {
+		return snapshots[back];
+	}
+	
+	/**
+	 * Publishes the back snapshot, taking the
+	 * middle one as the next back snapshot.
+	 */
+	void publish() {
+		back = middle.getAndSet(back | FRESH) & INDEX;
+	}
+	
+	/**
+	 * Gets the latest published snapshot, to be read by the
+	 * render thread until the next call. Returns the same
+	 * snapshot as before when nothing new was published.
+	 */
+	Object acquire() {
+		if ((middle.get() & FRESH) != 0)
+			front = middle.getAndSet(front) & INDEX;
+		
+		return snapshots[front];
+	}
+}
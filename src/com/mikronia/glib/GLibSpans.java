@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import java.util.Arrays;
+
+/**
+ * GLib spans
+ * <p>
+ * Horizontal runs of pixels, kept as (row, first column, last
+ * column) triples in a single array that grows as needed and
+ * is reused every frame. Curved shapes are traced once into
+ * spans, which the tiles then draw inside their clip.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+final class GLibSpans {
+	
+	private int[] spans;
+	private int size;
+	
+	GLibSpans() {
+		this.spans = new int[3 * 256];
+	}
+	
+	/////////////////////////
+	
+	void add(int row, int first, int last) {
+		if (size * 3 == spans.length)
+			spans = Arrays.copyOf(spans, spans.length * 2);
+		
+		spans[size * 3] = row;
+		spans[size * 3 + 1] = first;
+		spans[size * 3 + 2] = last;
+		size++;
+	}
+	
+	/**
+	 * Finds the first span at or below the given row,
+	 * among spans [from, to) sorted by row.
+	 */
+	int find(int row, int from, int to) {
+		while (from < to) {
+			int middle = (from + to) >>> 1;
+			
+			if (spans[middle * 3] < row)
+				from = middle + 1;
+			else
+				to = middle;
+		}
+		
+		return from;
+	}
+	
+	void clear() {
+		size = 0;
+	}
+	
+	/////////////////////////
+	
+	int row(int span) {
+		return spans[span * 3];
+	}
+	
+	int first(int span) {
+		return spans[span * 3 + 1];
+	}
+	
+	int last(int span) {
+		return spans[span * 3 + 2];
+	}
+	
+	int size() {
+		return size;
+	}
+}
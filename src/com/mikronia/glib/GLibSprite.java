@@ -0,0 +1,276 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import java.awt.AlphaComposite;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+/**
+ * GLib sprite
+ * <p>
+ * A region of a spritesheet, stored according to the
+ * storage mode of the spritesheet (see {@link GLibSpritesheets}).
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+final class GLibSprite {
+	
+	// screen configuration (null when headless)
+	private static GraphicsConfiguration configuration;
+	private static boolean configurationLoaded;
+	
+	// cache counters (volatile images only)
+	private static long cacheHits;
+	private static long cacheRestores;
+	
+	// tinted copies kept per sprite
+	private static final int TINTS				= 4;
+	
+	private final BufferedImage image;
+	private final int storage;
+	
+	private VolatileImage volatileImage;
+	
+	// tinted copies, the oldest one is replaced
+	private int[] tints;
+	private BufferedImage[] tintedImages;
+	private int[] tintPixels;
+	private int nextTint;
+	
+	/**
+	 * Creates a new {@code GLibSprite}.
+	 * 
+	 * @param region the region of the spritesheet
+	 * @param storage the storage mode
+	 */
+	GLibSprite(BufferedImage region, int storage) {
+		if (storage != GLibSpritesheets.SHARED && getConfiguration() == null) {
+			// volatile images need a screen
+			storage = GLibSpritesheets.COMPATIBLE;
+		}
+		
+		this.storage = storage;
+		this.image = storage == GLibSpritesheets.SHARED ? region : createCompatibleCopy(region);
+		
+		if (storage == GLibSpritesheets.VOLATILE)
+			restoreVolatileImage();
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Gets the image of the sprite in memory.
+	 */
+	BufferedImage getImage() {
+		return image;
+	}
+	
+	/**
+	 * Gets the image to be drawn by Java2D. Volatile
+	 * images are validated and restored if their
+	 * contents were lost.
+	 */
+	Image getDrawable() {
+		if (storage != GLibSpritesheets.VOLATILE)
+			return image;
+		
+		int status = volatileImage.validate(configuration);
+		
+		if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+			volatileImage.flush();
+			restoreVolatileImage();
+		} else if (status == VolatileImage.IMAGE_RESTORED) {
+			copyToVolatileImage();
+		} else {
+			cacheHits++;
+		}
+		
+		return volatileImage;
+	}
+	
+	/**
+	 * Gets a copy of the image whose color channels are
+	 * multiplied by the ones of a tint, for Java2D to draw.
+	 * The alpha of the tint is left to the composite, so
+	 * fading sprites share the same copy. The last few tints
+	 * are kept, and the oldest copy is tinted again in place.
+	 * 
+	 * @param tint packed RGB color (the alpha is ignored)
+	 */
+	BufferedImage getTinted(int tint) {
+		tint |= 0xFF000000;
+		
+		if (tints == null) {
+			tints = new int[TINTS];
+			tintedImages = new BufferedImage[TINTS];
+		}
+		
+		for (int i = 0; i < TINTS; i++) {
+			if (tintedImages[i] != null && tints[i] == tint)
+				return tintedImages[i];
+		}
+		
+		int w = image.getWidth();
+		int h = image.getHeight();
+		int[] source = GLibRasterizer.getPixels(image);
+		
+		if (tintPixels == null)
+			tintPixels = new int[source.length];
+		
+		for (int i = 0; i < source.length; i++)
+			tintPixels[i] = GLibRasterizer.tint(source[i], tint);
+		
+		var tinted = tintedImages[nextTint];
+		
+		if (tinted == null) {
+			tinted = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+			tintedImages[nextTint] = tinted;
+		}
+		
+		// copied through the raster, so the image stays managed
+		tinted.getRaster().setDataElements(0, 0, w, h, tintPixels);
+		
+		tints[nextTint] = tint;
+		nextTint = (nextTint + 1) % TINTS;
+		
+		return tinted;
+	}
+	
+	int getStorage() {
+		return storage;
+	}
+	
+	/////////////////////////
+	
+	static long getCacheHits() {
+		return cacheHits;
+	}
+	
+	static long getCacheRestores() {
+		return cacheRestores;
+	}
+	
+	static void resetCounters() {
+		cacheHits = 0;
+		cacheRestores = 0;
+	}
+	
+	/////////////////////////
+	
+	private void restoreVolatileImage() {
+		volatileImage = configuration.createCompatibleVolatileImage(
+				image.getWidth(), image.getHeight(), image.getTransparency());
+		
+		copyToVolatileImage();
+	}
+	
+	private void copyToVolatileImage() {
+		do {
+			var g = volatileImage.createGraphics();
+			
+			g.setComposite(AlphaComposite.Src);
+			g.drawImage(image, 0, 0, null);
+			g.dispose();
+			
+			cacheRestores++;
+		} while (volatileImage.contentsLost());
+	}
+	
+	/*
+	 * Copies the region to a compatible image.
+	 */
+	private static BufferedImage createCompatibleCopy(BufferedImage region) {
+		var copy = createCompatibleImage(region.getWidth(), region.getHeight(), findTransparency(region));
+		var g = copy.createGraphics();
+		
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(region, 0, 0, null);
+		g.dispose();
+		
+		return copy;
+	}
+	
+	/**
+	 * Creates an image in the format of the screen, or
+	 * premultiplied ARGB when there's no screen.
+	 */
+	static BufferedImage createCompatibleImage(int w, int h, int transparency) {
+		if (getConfiguration() != null)
+			return configuration.createCompatibleImage(w, h, transparency);
+		
+		return new BufferedImage(w, h, transparency == Transparency.OPAQUE
+				? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE);
+	}
+	
+	/*
+	 * Opaque sprites are copied without alpha and sprites
+	 * with only fully (in)visible pixels use a bitmask.
+	 */
+	private static int findTransparency(BufferedImage region) {
+		if (region.getTransparency() == Transparency.OPAQUE)
+			return Transparency.OPAQUE;
+		
+		int w = region.getWidth();
+		int h = region.getHeight();
+		int[] row = new int[w];
+		
+		int transparency = Transparency.OPAQUE;
+		
+		for (int y = 0; y < h; y++) {
+			region.getRGB(0, y, w, 1, row, 0, w);
+			
+			for (int x = 0; x < w; x++) {
+				int alpha = row[x] >>> 24;
+				
+				if (alpha == 0) {
+					transparency = Transparency.BITMASK;
+				} else if (alpha != 0xFF) {
+					return Transparency.TRANSLUCENT;
+				}
+			}
+		}
+		
+		return transparency;
+	}
+	
+	private static GraphicsConfiguration getConfiguration() {
+		if (!configurationLoaded) {
+			configurationLoaded = true;
+			
+			if (!GraphicsEnvironment.isHeadless()) {
+				configuration = GraphicsEnvironment.getLocalGraphicsEnvironment()
+						.getDefaultScreenDevice().getDefaultConfiguration();
+			}
+		}
+		
+		return configuration;
+	}
+}
@@ -38,11 +38,32 @@ public final class GLibSpritesheet {
 
 	private final int cellWidth;
 	private final int cellHeight;
+	
+	// handles given by the spritesheet manager
+	private final int handle;
+	private final int firstSprite;
+	
+	private final int columns;
+	private final int rows;
+	
+	// how the cells are stored (see GLibSpritesheets)
+	private final int storage;
 
 	public GLibSpritesheet(BufferedImage sheet, int cellWidth, int cellHeight) {
+		this(sheet, cellWidth, cellHeight, GLibSpritesheets.NO_SPRITE, GLibSpritesheets.NO_SPRITE,
+				sheet.getWidth() / cellWidth, sheet.getHeight() / cellHeight, GLibSpritesheets.SHARED);
+	}
+	
+	GLibSpritesheet(BufferedImage sheet, int cellWidth, int cellHeight,
+			int handle, int firstSprite, int columns, int rows, int storage) {
 		this.sheet = sheet;
 		this.cellWidth = cellWidth;
 		this.cellHeight = cellHeight;
+		this.handle = handle;
+		this.firstSprite = firstSprite;
+		this.columns = columns;
+		this.rows = rows;
+		this.storage = storage;
 	}
 	
 	public BufferedImage get(int x, int y, int w, int h) {
@@ -60,4 +81,44 @@ public final class GLibSpritesheet {
 	public int getCellHeight() {
 		return cellHeight;
 	}
+	
+	public int getColumns() {
+		return columns;
+	}
+	
+	public int getRows() {
+		return rows;
+	}
+	
+	public int getCellCount() {
+		return columns * rows;
+	}
+	
+	/**
+	 * Gets how the cells of this spritesheet are
+	 * stored ({@link GLibSpritesheets#SHARED},
+	 * {@link GLibSpritesheets#COMPATIBLE} or
+	 * {@link GLibSpritesheets#VOLATILE}).
+	 */
+	public int getStorage() {
+		return storage;
+	}
+	
+	/**
+	 * Gets the handle of this spritesheet or
+	 * {@code -1} if it wasn't loaded by the
+	 * spritesheet manager.
+	 */
+	public int getHandle() {
+		return handle;
+	}
+	
+	/**
+	 * Gets the handle of the first cell of
+	 * this spritesheet or {@code -1} if it wasn't
+	 * loaded by the spritesheet manager.
+	 */
+	public int getFirstSprite() {
+		return firstSprite;
+	}
 }
\ No newline at end of file
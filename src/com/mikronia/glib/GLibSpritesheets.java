@@ -25,21 +25,49 @@
 package com.mikronia.glib;
 
 import java.awt.image.BufferedImage;
+import java.util.Arrays;
 import java.util.HashMap;
 
 /**
  * Spritesheet manager
+ * <p>
+ * Every cell of a loaded spritesheet gets an integer handle
+ * that can be drawn without any name lookup (see
+ * {@link GLibBatch#bindSprite(int)}).
  * 
  * @author Thaynan M. Silva
  * @version 1.0
  */
 public final class GLibSpritesheets {
 	
+	/** Handle of an inexistent sprite. */
+	public static final int NO_SPRITE = -1;
+	
+	/** Cells share the pixels of the spritesheet image. */
+	public static final int SHARED				= 0x1201;
+	
+	/** Cells are copied to images in the format of the screen. */
+	public static final int COMPATIBLE			= 0x1202;
+	
+	/**
+	 * Cells are also kept in video memory and restored
+	 * whenever their contents are lost.
+	 */
+	public static final int VOLATILE			= 0x1203;
+	
 	// spritesheet list
 	private static HashMap<String, GLibSpritesheet> spritesheets = new HashMap<String, GLibSpritesheet>();
 	
-	// sprite list
-	private static HashMap<String, BufferedImage> sprites = new HashMap<String, BufferedImage>();
+	// sprite list (areas that aren't cells)
+	private static HashMap<String, Integer> sprites = new HashMap<String, Integer>();
+	
+	// spritesheet handles
+	private static GLibSpritesheet[] sheetTable = new GLibSpritesheet[16];
+	private static int sheetCount = 0;
+	
+	// sprite region table (cells and areas of all the spritesheets)
+	private static GLibSprite[] spriteTable = new GLibSprite[256];
+	private static int spriteCount = 0;
 
 	/////////////////////////
 	
@@ -47,26 +75,157 @@ public final class GLibSpritesheets {
 	private GLibSpritesheets() { }
 	
 	/**
-	 * Loads a spritesheet.
+	 * Loads a spritesheet and slices all of its cells.
+	 * 
+	 * @param spritesheetName a reference to the spritesheet (e.g. 'player_attack')
+	 * @param spritesheet the spritesheet image
+	 * @param cellWidth width of the cell in the spritesheet
+	 * @param cellHeight height of the cell in the spritesheet
+	 * @return the spritesheet handle.
+	 */
+	public static int loadSpritesheet(String spritesheetName, BufferedImage spritesheet, int cellWidth, int cellHeight) {
+		return loadSpritesheet(spritesheetName, spritesheet, cellWidth, cellHeight, SHARED);
+	}
+	
+	/**
+	 * Loads a spritesheet and slices all of its cells.
+	 * <p>
+	 * With {@link #COMPATIBLE} or {@link #VOLATILE} storage every cell
+	 * is copied once, at load time, to an image Java2D can draw
+	 * without converting pixels. Spritesheets that fit the screen
+	 * format are drawn faster but use more memory.
 	 * 
 	 * @param spritesheetName a reference to the spritesheet (e.g. 'player_attack')
 	 * @param spritesheet the spritesheet image
 	 * @param cellWidth width of the cell in the spritesheet
 	 * @param cellHeight height of the cell in the spritesheet
+	 * @param storage {@link #SHARED}, {@link #COMPATIBLE} or {@link #VOLATILE}
+	 * @return the spritesheet handle.
 	 */
-	public static void loadSpritesheet(String spritesheetName, BufferedImage spritesheet, int cellWidth, int cellHeight) {
+	public static int loadSpritesheet(String spritesheetName, BufferedImage spritesheet, int cellWidth, int cellHeight, int storage) {
 		validateSpritesheetData(spritesheetName, spritesheet, cellWidth, cellHeight);
+		validateStorage(storage);
+		
+		int columns = spritesheet.getWidth() / cellWidth;
+		int rows = spritesheet.getHeight() / cellHeight;
+		
+		var sheet = new GLibSpritesheet(spritesheet, cellWidth, cellHeight,
+				sheetCount, spriteCount, columns, rows, storage);
+		
+		// slices the cells row by row
+		ensureSpriteCapacity(spriteCount + columns * rows);
+		
+		for (int cellY = 0; cellY < rows; cellY++) {
+			for (int cellX = 0; cellX < columns; cellX++) {
+				spriteTable[spriteCount++] = new GLibSprite(sheet.get(cellX * cellWidth,
+						cellY * cellHeight, cellWidth, cellHeight), storage);
+			}
+		}
 		
 		// stores the spritesheet
-		spritesheets.put(spritesheetName, new GLibSpritesheet(spritesheet, cellWidth, cellHeight));
+		if (sheetCount == sheetTable.length)
+			sheetTable = Arrays.copyOf(sheetTable, sheetCount * 2);
+		
+		sheetTable[sheetCount++] = sheet;
+		spritesheets.put(spritesheetName, sheet);
+		
+		return sheet.getHandle();
 	}
 
 	/**
-	 * Deletes all the spritesheets.
+	 * Deletes all the spritesheets. The handles
+	 * given before are no longer valid.
 	 */
 	public static void deleteSpritesheets() {
 		spritesheets.clear();
 		sprites.clear();
+		
+		Arrays.fill(sheetTable, 0, sheetCount, null);
+		Arrays.fill(spriteTable, 0, spriteCount, null);
+		
+		sheetCount = 0;
+		spriteCount = 0;
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Gets how many draws of volatile sprites found
+	 * their contents still valid, without a restore.
+	 */
+	public static long getCacheHits() {
+		return GLibSprite.getCacheHits();
+	}
+	
+	/**
+	 * Gets how many times the contents of volatile
+	 * sprites were (re)rendered.
+	 */
+	public static long getCacheRestores() {
+		return GLibSprite.getCacheRestores();
+	}
+	
+	/**
+	 * Resets the cache counters.
+	 */
+	public static void resetCacheCounters() {
+		GLibSprite.resetCounters();
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Gets the handle of a spritesheet.
+	 * 
+	 * @param spritesheetName the spritesheet reference
+	 * @return the spritesheet handle.
+	 */
+	public static int getSpritesheetHandle(String spritesheetName) {
+		return getSpritesheet(spritesheetName).getHandle();
+	}
+	
+	/**
+	 * Gets the handle of a sprite.
+	 * 
+	 * @param spritesheetHandle the spritesheet handle
+	 * @param cellX the cell column
+	 * @param cellY the cell row
+	 * @return the sprite handle or {@link #NO_SPRITE}
+	 * if the cell is outside the spritesheet.
+	 */
+	public static int getSpriteHandle(int spritesheetHandle, int cellX, int cellY) {
+		return getSpriteHandle(getSpritesheet(spritesheetHandle), cellX, cellY);
+	}
+	
+	/**
+	 * Gets the handle of a sprite.
+	 * 
+	 * @param spritesheetName the spritesheet reference
+	 * @param cellX the cell column
+	 * @param cellY the cell row
+	 * @return the sprite handle or {@link #NO_SPRITE}
+	 * if the cell is outside the spritesheet.
+	 */
+	public static int getSpriteHandle(String spritesheetName, int cellX, int cellY) {
+		return getSpriteHandle(getSpritesheet(spritesheetName), cellX, cellY);
+	}
+	
+	/**
+	 * Gets the handle of a sprite by its index in the
+	 * spritesheet (cells are counted row by row).
+	 * 
+	 * @param spritesheetHandle the spritesheet handle
+	 * @param cellIndex the cell index
+	 * @return the sprite handle or {@link #NO_SPRITE}
+	 * if the cell is outside the spritesheet.
+	 */
+	public static int getSpriteHandle(int spritesheetHandle, int cellIndex) {
+		var spritesheet = getSpritesheet(spritesheetHandle);
+		
+		if (cellIndex < 0 || cellIndex >= spritesheet.getCellCount())
+			return NO_SPRITE;
+		
+		return spritesheet.getFirstSprite() + cellIndex;
 	}
 	
 	/////////////////////////
@@ -79,55 +238,82 @@ public final class GLibSpritesheets {
 		return spritesheets.get(spritesheetName);
 	}
 	
+	/**
+	 * Gets a spritesheet by its handle.
+	 */
+	static GLibSpritesheet getSpritesheet(int spritesheetHandle) {
+		if (spritesheetHandle < 0 || spritesheetHandle >= sheetCount)
+			throw new IllegalArgumentException("Inexistent spritesheet handle: " + spritesheetHandle);
+		return sheetTable[spritesheetHandle];
+	}
+	
+	/**
+	 * Gets a sprite.
+	 * 
+	 * @return the sprite or {@code null}
+	 * if the handle is {@link #NO_SPRITE}.
+	 */
+	static GLibSprite getSprite(int spriteHandle) {
+		if (spriteHandle == NO_SPRITE)
+			return null;
+		if (spriteHandle < 0 || spriteHandle >= spriteCount)
+			throw new IllegalArgumentException("Inexistent sprite handle: " + spriteHandle);
+		return spriteTable[spriteHandle];
+	}
+	
 	/**
 	 * Gets an area from the spritesheet.
 	 */
-	static BufferedImage getSpritesheetArea(String spritesheetName, int spriteX, int spriteY, int spriteW, int spriteH) {
+	static GLibSprite getSpritesheetArea(String spritesheetName, int spriteX, int spriteY, int spriteW, int spriteH) {
 		var spritesheet = getSpritesheet(spritesheetName);
 		
-		validBounds(spriteX, spriteY, spriteW, spriteH, spritesheet);
+		if (!validBounds(spriteX, spriteY, spriteW, spriteH, spritesheet))
+			return null;
 
-		var reference = createSpriteName(spritesheetName, spriteX, spriteY, spriteW, spriteH);
+		var reference = createSpriteName(spritesheet, spriteX, spriteY, spriteW, spriteH);
+		var handle = sprites.get(reference);
 		
-		if (!sprites.containsKey(reference)) {
+		if (handle == null) {
 			// gets the sprite from the spritesheet
-			var sprite = spritesheet.get(spriteX, spriteY, spriteW, spriteH);
+			ensureSpriteCapacity(spriteCount + 1);
+			
+			handle = spriteCount;
+			spriteTable[spriteCount++] = new GLibSprite(spritesheet.get(spriteX, spriteY,
+					spriteW, spriteH), spritesheet.getStorage());
 			
 			// stores the created sprite
-			sprites.put(spritesheetName, sprite);
+			sprites.put(reference, handle);
 		}
 		
-		return sprites.get(reference);
+		return spriteTable[handle];
 	}
 	
-	static BufferedImage getSpriteCell(String spritesheetName, int cellX, int cellY) {
-		var spritesheet = getSpritesheet(spritesheetName);
-		
-		int spriteW = spritesheet.getCellWidth();
-		int spriteH = spritesheet.getCellHeight();
-		int coordX = cellX * spriteW;
-		int coordY = cellY * spriteH;
-		
-		if(!validBounds(coordX, coordY, spriteW, spriteH, spritesheet))
-			return null;
-		
-		var reference = createSpriteName(spritesheetName, coordX, coordY, spriteW, spriteH);
-
-		if (!sprites.containsKey(reference)) {
-			// gets the sprite from the spritesheet
-			var sprite = spritesheet.get(coordX, coordY, spriteW, spriteH);
-
-			// stores the created sprite
-			sprites.put(reference, sprite);
-		}
-		
-		return sprites.get(reference);
+	static GLibSprite getSpriteCell(String spritesheetName, int cellX, int cellY) {
+		return getSprite(getSpriteHandle(getSpritesheet(spritesheetName), cellX, cellY));
 	}
 	
 	/////////////////////////
 	
-	private static String createSpriteName(String spritesheetName, int x, int y, int w, int h) {
-		return new StringBuilder(spritesheetName).append(x).append(y).append(w).append(h).toString();
+	private static int getSpriteHandle(GLibSpritesheet spritesheet, int cellX, int cellY) {
+		if (cellX < 0 || cellX >= spritesheet.getColumns() || cellY < 0 || cellY >= spritesheet.getRows())
+			return NO_SPRITE;
+		
+		return spritesheet.getFirstSprite() + cellY * spritesheet.getColumns() + cellX;
+	}
+	
+	private static void ensureSpriteCapacity(int capacity) {
+		if (capacity <= spriteTable.length) return;
+		
+		spriteTable = Arrays.copyOf(spriteTable, Math.max(capacity, spriteTable.length * 2));
+	}
+	
+	/*
+	 * Areas are named after the spritesheet handle, as the
+	 * spritesheet names may hold any character.
+	 */
+	private static String createSpriteName(GLibSpritesheet spritesheet, int x, int y, int w, int h) {
+		return new StringBuilder().append(spritesheet.getHandle()).append(':').append(x).append(',').append(y)
+				.append(',').append(w).append(',').append(h).toString();
 	}
 	
 	private static void validateSpritesheetData(String spritesheetName, BufferedImage spritesheet, int cellWidth, int cellHeight) {
@@ -139,6 +325,13 @@ public final class GLibSpritesheets {
 			throw new IllegalArgumentException("The spritesheet already exists: " + spritesheetName);
 		if (spritesheet == null)
 			throw new NullPointerException("The spritesheet must not be null.");
+		if (cellWidth <= 0 || cellHeight <= 0)
+			throw new IllegalArgumentException("The cell size must be positive.");
+	}
+	
+	private static void validateStorage(int storage) {
+		if (storage != SHARED && storage != COMPATIBLE && storage != VOLATILE)
+			throw new IllegalArgumentException("Invalid spritesheet storage: " + storage);
 	}
 	
 	private static void validateSpritesheetExistence(String spritesheetName) {
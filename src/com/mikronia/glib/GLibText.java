@@ -0,0 +1,159 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import java.util.ArrayList;
+
+/**
+ * GLib text
+ * <p>
+ * A text laid out once and drawn many times, for strings that
+ * don't change such as labels and menus. The text can be wrapped
+ * at a maximum width, breaking the lines between words. Texts are
+ * created by {@link GLibBatch#createText(String, GLibFont, float)}.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+public final class GLibText {
+	
+	/** Width of texts that are only broken at new lines. */
+	public static final float NO_WRAP			= 0.0f;
+	
+	private final String text;
+	private final GLibFont font;
+	private final float wrapWidth;
+	
+	private final GLibGlyphAtlas atlas;
+	private final String[] lines;
+	private final GLibTextLayout[] layouts;
+	
+	private final float width;
+	private final float height;
+	
+	GLibText(String text, GLibFont font, float wrapWidth, GLibGlyphAtlas atlas) {
+		this.text = text;
+		this.font = font;
+		this.wrapWidth = wrapWidth;
+		this.atlas = atlas;
+		this.lines = wrap(atlas, text, wrapWidth);
+		this.layouts = new GLibTextLayout[lines.length];
+		
+		float width = 0;
+		
+		for (int i = 0; i < lines.length; i++) {
+			layouts[i] = GLibTextLayout.create(atlas, lines[i]);
+			width = Math.max(width, layouts[i].getWidth());
+		}
+		
+		this.width = width;
+		this.height = lines.length * atlas.getHeight();
+	}
+	
+	/////////////////////////
+	
+	public String getText() {
+		return text;
+	}
+	
+	public GLibFont getFont() {
+		return font;
+	}
+	
+	public float getWrapWidth() {
+		return wrapWidth;
+	}
+	
+	public int getLineCount() {
+		return lines.length;
+	}
+	
+	public String getLine(int line) {
+		return lines[line];
+	}
+	
+	/**
+	 * Gets the width of the longest line.
+	 */
+	public float getWidth() {
+		return width;
+	}
+	
+	public float getHeight() {
+		return height;
+	}
+	
+	/////////////////////////
+	
+	GLibGlyphAtlas getAtlas() {
+		return atlas;
+	}
+	
+	GLibTextLayout getLayout(int line) {
+		return layouts[line];
+	}
+	
+	/////////////////////////
+	
+	/*
+	 * Breaks the text at new lines and, when a wrap width is
+	 * given, between the words that would go past it. Words
+	 * wider than a line are left alone on their own line.
+	 */
+	private static String[] wrap(GLibGlyphAtlas atlas, String text, float wrapWidth) {
+		var lines = new ArrayList<String>();
+		
+		for (var paragraph : text.split("\n", -1)) {
+			if (wrapWidth <= 0) {
+				lines.add(paragraph);
+				continue;
+			}
+			
+			var line = new StringBuilder();
+			
+			for (var word : paragraph.split(" ")) {
+				if (word.isEmpty()) continue;
+				
+				if (line.length() > 0) {
+					var candidate = line + " " + word;
+					
+					if (GLibTextLayout.create(atlas, candidate).getWidth() <= wrapWidth) {
+						line.append(' ').append(word);
+						continue;
+					}
+					
+					lines.add(line.toString());
+					line.setLength(0);
+				}
+				
+				line.append(word);
+			}
+			
+			lines.add(line.toString());
+		}
+		
+		return lines.toArray(new String[lines.size()]);
+	}
+}
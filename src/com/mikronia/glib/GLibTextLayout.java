@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+/**
+ * GLib text layout
+ * <p>
+ * A line of text resolved against a glyph atlas: the glyph
+ * of each character and where its pen position falls once the
+ * advances and the kerning are applied. Layouts are cached by
+ * the atlas, so strings drawn frame after frame are only
+ * measured once.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+final class GLibTextLayout {
+	
+	private final int[] glyphs;
+	private final float[] positions;
+	private final float width;
+	
+	private GLibTextLayout(int[] glyphs, float[] positions, float width) {
+		this.glyphs = glyphs;
+		this.positions = positions;
+		this.width = width;
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Lays out a line of text.
+	 */
+	static GLibTextLayout create(GLibGlyphAtlas atlas, String text) {
+		int count = text.codePointCount(0, text.length());
+		int[] glyphs = new int[count];
+		float[] positions = new float[count];
+		
+		float penX = 0;
+		int previous = -1;
+		int glyph = 0;
+		
+		for (int i = 0; i < text.length(); glyph++) {
+			int codePoint = text.codePointAt(i);
+			i += Character.charCount(codePoint);
+			
+			if (previous != -1)
+				penX += atlas.kerning(previous, codePoint);
+			
+			glyphs[glyph] = atlas.glyph(codePoint);
+			positions[glyph] = penX;
+			
+			penX += atlas.advance(glyphs[glyph]);
+			previous = codePoint;
+		}
+		
+		return new GLibTextLayout(glyphs, positions, penX);
+	}
+	
+	/////////////////////////
+	
+	int getGlyphCount() {
+		return glyphs.length;
+	}
+	
+	/**
+	 * Gets the glyph index in the atlas, or {@code -1}
+	 * when the font has no glyph for the character.
+	 */
+	int getGlyph(int glyph) {
+		return glyphs[glyph];
+	}
+	
+	/**
+	 * Gets the pen position of a glyph, from
+	 * the start of the line.
+	 */
+	float getPosition(int glyph) {
+		return positions[glyph];
+	}
+	
+	float getWidth() {
+		return width;
+	}
+}
@@ -0,0 +1,296 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * GLib tile renderer
+ * <p>
+ * Splits the screen into square tiles and rasterizes them in
+ * parallel. The recorded commands are binned into the tiles they
+ * touch, and each tile runs its commands in order through its own
+ * rasterizer, clipped to the tile. Every pixel sees the same
+ * commands in the same order as when drawing serially, so the
+ * output is the same.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+final class GLibTileRenderer {
+	
+	static final int DEFAULT_TILE_SIZE			= 64;
+	
+	private final ForkJoinPool pool;
+	private final int workers;
+	
+	// tiles
+	private final int tileSize;
+	private final int columns;
+	private final int rows;
+	private final GLibRasterizer[] rasterizers;
+	
+	// commands of each tile, in drawing order
+	private final int[][] bins;
+	private final int[] binSizes;
+	
+	// tiles with commands
+	private final int[] activeTiles;
+	private int activeCount;
+	
+	// pixels and layouts resolved before drawing
+	// (the caches they come from aren't thread-safe)
+	private int[][] pixels;
+	private GLibTextLayout[] layouts;
+	
+	// curved shapes traced once for all the tiles, as ranges
+	// of spans by command (-1 when the command wasn't traced)
+	private final GLibSpans spans;
+	private int[] spanStarts;
+	private int[] spanEnds;
+	
+	// nanoseconds spent on each tile in the frame
+	private final long[] tileTimes;
+	
+	/**
+	 * Creates a new {@code GLibTileRenderer}.
+	 * 
+	 * @param target the image drawn by the tiles
+	 * @param tileSize tile width and height in pixels
+	 * @param workers number of worker threads
+	 */
+	GLibTileRenderer(BufferedImage target, int tileSize, int workers) {
+		this.tileSize = tileSize;
+		this.columns = (target.getWidth() + tileSize - 1) / tileSize;
+		this.rows = (target.getHeight() + tileSize - 1) / tileSize;
+		this.workers = workers;
+		
+		int tiles = columns * rows;
+		
+		this.rasterizers = new GLibRasterizer[tiles];
+		this.bins = new int[tiles][64];
+		this.binSizes = new int[tiles];
+		this.activeTiles = new int[tiles];
+		this.tileTimes = new long[tiles];
+		this.pixels = new int[1024][];
+		this.layouts = new GLibTextLayout[1024];
+		this.spans = new GLibSpans();
+		this.spanStarts = new int[1024];
+		this.spanEnds = new int[1024];
+		
+		Arrays.fill(spanStarts, -1);
+		
+		for (int tile = 0; tile < tiles; tile++) {
+			rasterizers[tile] = new GLibRasterizer(target);
+			rasterizers[tile].setClip((tile % columns) * tileSize, (tile / columns) * tileSize, tileSize, tileSize);
+		}
+		
+		this.pool = new ForkJoinPool(workers, pool -> {
+			var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("MkTile-" + thread.getPoolIndex());
+			return thread;
+		}, null, false);
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Adds a command to the tiles overlapping its screen
+	 * bounds [left, right) x [top, bottom).
+	 */
+	void add(int command, int left, int top, int right, int bottom) {
+		int column0 = Math.max(0, Math.floorDiv(left, tileSize));
+		int row0 = Math.max(0, Math.floorDiv(top, tileSize));
+		int column1 = Math.min(columns - 1, Math.floorDiv(right - 1, tileSize));
+		int row1 = Math.min(rows - 1, Math.floorDiv(bottom - 1, tileSize));
+		
+		for (int row = row0; row <= row1; row++) {
+			for (int column = column0; column <= column1; column++) {
+				int tile = row * columns + column;
+				
+				if (binSizes[tile] == 0)
+					activeTiles[activeCount++] = tile;
+				else if (binSizes[tile] == bins[tile].length)
+					bins[tile] = Arrays.copyOf(bins[tile], binSizes[tile] * 2);
+				
+				bins[tile][binSizes[tile]++] = command;
+			}
+		}
+	}
+	
+	/**
+	 * Rasterizes the commands added since the last
+	 * call, waiting for all the tiles to finish.
+	 */
+	void render(GLibBatch batch) {
+		if (activeCount == 0) return;
+		
+		pool.invoke(new TileTask(batch, 0, activeCount));
+		
+		for (int i = 0; i < activeCount; i++)
+			binSizes[activeTiles[i]] = 0;
+		
+		activeCount = 0;
+	}
+	
+	/**
+	 * Makes room for the resolved resources
+	 * of the given number of commands.
+	 */
+	void ensureCapacity(int commands) {
+		if (commands > pixels.length) {
+			int capacity = Math.max(commands, pixels.length * 2);
+			
+			pixels = Arrays.copyOf(pixels, capacity);
+			layouts = Arrays.copyOf(layouts, capacity);
+			spanEnds = Arrays.copyOf(spanEnds, capacity);
+			
+			int traced = spanStarts.length;
+			
+			spanStarts = Arrays.copyOf(spanStarts, capacity);
+			Arrays.fill(spanStarts, traced, capacity, -1);
+		}
+	}
+	
+	void setPixels(int command, int[] sprite) {
+		pixels[command] = sprite;
+	}
+	
+	int[] getPixels(int command) {
+		return pixels[command];
+	}
+	
+	void setLayout(int command, GLibTextLayout layout) {
+		layouts[command] = layout;
+	}
+	
+	GLibTextLayout getLayout(int command) {
+		return layouts[command];
+	}
+	
+	GLibSpans getSpans() {
+		return spans;
+	}
+	
+	void setSpans(int command, int from, int to) {
+		spanStarts[command] = from;
+		spanEnds[command] = to;
+	}
+	
+	/**
+	 * Draws the spans traced for a command inside a tile.
+	 * 
+	 * @return false if the command wasn't traced
+	 */
+	boolean drawSpans(GLibRasterizer tile, int command) {
+		if (spanStarts[command] < 0)
+			return false;
+		
+		tile.drawSpans(spans, spanStarts[command], spanEnds[command]);
+		return true;
+	}
+	
+	/**
+	 * Drops the resolved resources of the frame.
+	 */
+	void clear(int commands) {
+		Arrays.fill(pixels, 0, commands, null);
+		Arrays.fill(layouts, 0, commands, null);
+		Arrays.fill(spanStarts, 0, commands, -1);
+		spans.clear();
+	}
+	
+	/////////////////////////
+	
+	void resetTimes() {
+		Arrays.fill(tileTimes, 0);
+	}
+	
+	long getTileTime(int tile) {
+		return tileTimes[tile];
+	}
+	
+	int getTileCount() {
+		return binSizes.length;
+	}
+	
+	int getTileSize() {
+		return tileSize;
+	}
+	
+	int getWorkers() {
+		return workers;
+	}
+	
+	/**
+	 * Stops the worker threads.
+	 */
+	void dispose() {
+		pool.shutdown();
+	}
+	
+	/////////////////////////
+	
+	/*
+	 * Splits the tiles with commands in halves
+	 * until each task has a single tile to draw.
+	 */
+	private final class TileTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final GLibBatch batch;
+		private final int from;
+		private final int to;
+		
+		TileTask(GLibBatch batch, int from, int to) {
+			this.batch = batch;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				
+				invokeAll(new TileTask(batch, from, middle), new TileTask(batch, middle, to));
+				return;
+			}
+			
+			int tile = activeTiles[from];
+			int size = binSizes[tile];
+			long start = System.nanoTime();
+			
+			for (int i = 0; i < size; i++)
+				batch.rasterizeTile(rasterizers[tile], bins[tile][i]);
+			
+			tileTimes[tile] += System.nanoTime() - start;
+		}
+	}
+}
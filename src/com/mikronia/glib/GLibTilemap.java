@@ -0,0 +1,395 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import java.awt.AlphaComposite;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * GLib tilemap
+ * <p>
+ * A grid of tiles with one or more layers, drawn with the cells
+ * of a spritesheet. The map is split into square chunks that are
+ * drawn once into cached images, so a frame only draws the visible
+ * chunks. Changing a tile only draws its chunk again, and the least
+ * recently drawn chunks are dropped when too many are cached.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+public final class GLibTilemap {
+	
+	/** Tile without a sprite. */
+	public static final int EMPTY				= -1;
+	
+	public static final int DEFAULT_CHUNK_SIZE	= 16;
+	public static final int DEFAULT_MAX_CHUNKS	= 64;
+	
+	private static final int NONE				= -1;
+	
+	private final GLibSpritesheet spritesheet;
+	
+	// size in tiles
+	private final int width;
+	private final int height;
+	private final int layers;
+	
+	// tile size in pixels
+	private final int tileWidth;
+	private final int tileHeight;
+	
+	// cell indices of the tiles, row by row, for each layer
+	private final int[][] tiles;
+	
+	// chunks
+	private final int chunkSize;
+	private final int chunkColumns;
+	private final int chunkRows;
+	private final GLibSprite[] chunks;
+	private final boolean[] dirtyChunks;
+	
+	// cached chunks, from the most to the least recently drawn
+	private final int maxChunks;
+	private final int[] previous;
+	private final int[] next;
+	private int first;
+	private int last;
+	private int cachedChunks;
+	
+	// image of the last dropped chunk, reused by the next one
+	private BufferedImage spareImage;
+	
+	private int renderedChunks;
+	
+	// area seen by the batch, as left, top, right and bottom
+	private final float[] view = new float[4];
+	
+	/**
+	 * Creates a new {@code GLibTilemap} with
+	 * the default chunk size and cache limit.
+	 * 
+	 * @param spritesheetHandle the handle of the tiles spritesheet
+	 * @param width map width in tiles
+	 * @param height map height in tiles
+	 * @param layers number of layers
+	 */
+	public GLibTilemap(int spritesheetHandle, int width, int height, int layers) {
+		this(spritesheetHandle, width, height, layers, DEFAULT_CHUNK_SIZE, DEFAULT_MAX_CHUNKS);
+	}
+	
+	/**
+	 * Creates a new {@code GLibTilemap}.
+	 * 
+	 * @param spritesheetHandle the handle of the tiles spritesheet
+	 * @param width map width in tiles
+	 * @param height map height in tiles
+	 * @param layers number of layers
+	 * @param chunkSize chunk width and height in tiles
+	 * @param maxChunks maximum number of cached chunk images, which
+	 * should be above the number of chunks visible at once
+	 */
+	public GLibTilemap(int spritesheetHandle, int width, int height, int layers, int chunkSize, int maxChunks) {
+		if (width <= 0 || height <= 0 || layers <= 0)
+			throw new IllegalArgumentException("The map size and the number of layers must be positive.");
+		if (chunkSize <= 0 || maxChunks <= 0)
+			throw new IllegalArgumentException("The chunk size and the cache limit must be positive.");
+		
+		this.spritesheet = GLibSpritesheets.getSpritesheet(spritesheetHandle);
+		this.width = width;
+		this.height = height;
+		this.layers = layers;
+		this.tileWidth = spritesheet.getCellWidth();
+		this.tileHeight = spritesheet.getCellHeight();
+		
+		this.tiles = new int[layers][width * height];
+		
+		for (int[] layer : tiles)
+			Arrays.fill(layer, EMPTY);
+		
+		this.chunkSize = chunkSize;
+		this.chunkColumns = (width + chunkSize - 1) / chunkSize;
+		this.chunkRows = (height + chunkSize - 1) / chunkSize;
+		this.chunks = new GLibSprite[chunkColumns * chunkRows];
+		this.dirtyChunks = new boolean[chunks.length];
+		
+		this.maxChunks = maxChunks;
+		this.previous = new int[chunks.length];
+		this.next = new int[chunks.length];
+		this.first = NONE;
+		this.last = NONE;
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Sets a tile.
+	 * 
+	 * @param layer the layer of the tile
+	 * @param x tile column
+	 * @param y tile row
+	 * @param tile cell index in the spritesheet or {@link #EMPTY}
+	 */
+	public void setTile(int layer, int x, int y, int tile) {
+		validateTile(layer, x, y);
+		
+		int index = y * width + x;
+		
+		if (tiles[layer][index] == tile) return;
+		
+		tiles[layer][index] = tile;
+		dirtyChunks[(y / chunkSize) * chunkColumns + (x / chunkSize)] = true;
+	}
+	
+	/**
+	 * Sets all the tiles of a layer.
+	 * 
+	 * @param layer the layer
+	 * @param layerTiles cell indices row by row
+	 */
+	public void setTiles(int layer, int[] layerTiles) {
+		if (layer < 0 || layer >= layers)
+			throw new IllegalArgumentException("Inexistent layer: " + layer);
+		if (layerTiles == null)
+			throw new NullPointerException("The tiles must not be null.");
+		if (layerTiles.length != width * height)
+			throw new IllegalArgumentException("Expected " + (width * height) + " tiles, got " + layerTiles.length);
+		
+		System.arraycopy(layerTiles, 0, tiles[layer], 0, layerTiles.length);
+		Arrays.fill(dirtyChunks, true);
+	}
+	
+	public int getTile(int layer, int x, int y) {
+		validateTile(layer, x, y);
+		return tiles[layer][y * width + x];
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Draws the chunks visible on the screen, through the
+	 * transform or the camera of the batch.
+	 * 
+	 * @param batch the graphics batch
+	 * @param x X-axis position of the map
+	 * @param y Y-axis position of the map
+	 */
+	public void draw(GLibBatch batch, float x, float y) {
+		if (!batch.getVisibleBounds(view))
+			return;
+		
+		int chunkWidth = chunkSize * tileWidth;
+		int chunkHeight = chunkSize * tileHeight;
+		
+		int column0 = Math.max(0, (int) Math.floor((view[0] - x) / chunkWidth));
+		int row0 = Math.max(0, (int) Math.floor((view[1] - y) / chunkHeight));
+		int column1 = Math.min(chunkColumns, (int) Math.ceil((view[2] - x) / chunkWidth));
+		int row1 = Math.min(chunkRows, (int) Math.ceil((view[3] - y) / chunkHeight));
+		
+		for (int row = row0; row < row1; row++) {
+			for (int column = column0; column < column1; column++) {
+				int chunk = row * chunkColumns + column;
+				
+				batch.drawSprite(getChunk(chunk), x + column * chunkWidth, y + row * chunkHeight);
+			}
+		}
+	}
+	
+	/**
+	 * Drops all the cached chunk images.
+	 */
+	public void clearCache() {
+		Arrays.fill(chunks, null);
+		
+		first = NONE;
+		last = NONE;
+		cachedChunks = 0;
+		spareImage = null;
+	}
+	
+	/////////////////////////
+	
+	public int getWidth() {
+		return width;
+	}
+	
+	public int getHeight() {
+		return height;
+	}
+	
+	public int getLayers() {
+		return layers;
+	}
+	
+	public int getTileWidth() {
+		return tileWidth;
+	}
+	
+	public int getTileHeight() {
+		return tileHeight;
+	}
+	
+	public int getChunkSize() {
+		return chunkSize;
+	}
+	
+	/**
+	 * Gets the number of chunk images in the cache.
+	 */
+	public int getCachedChunks() {
+		return cachedChunks;
+	}
+	
+	/**
+	 * Gets the number of times a chunk was drawn into
+	 * its image since the map was created.
+	 */
+	public int getRenderedChunks() {
+		return renderedChunks;
+	}
+	
+	/////////////////////////
+	
+	/*
+	 * Gets the image of a chunk, drawing it if it is
+	 * not cached or if its tiles changed.
+	 */
+	private GLibSprite getChunk(int chunk) {
+		var sprite = chunks[chunk];
+		
+		if (sprite == null) {
+			if (cachedChunks == maxChunks)
+				dropChunk(last);
+			
+			sprite = renderChunk(chunk, takeImage());
+			cachedChunks++;
+		} else {
+			unlink(chunk);
+			
+			if (dirtyChunks[chunk])
+				sprite = renderChunk(chunk, sprite.getImage());
+		}
+		
+		// most recently drawn
+		previous[chunk] = NONE;
+		next[chunk] = first;
+		
+		if (first != NONE)
+			previous[first] = chunk;
+		if (last == NONE)
+			last = chunk;
+		
+		first = chunk;
+		
+		return sprite;
+	}
+	
+	/*
+	 * Draws the tiles of a chunk, layer by layer. A new sprite
+	 * is made every time, so the dirty rendering of the batch
+	 * notices the chunk changed.
+	 */
+	private GLibSprite renderChunk(int chunk, BufferedImage image) {
+		int tileX0 = (chunk % chunkColumns) * chunkSize;
+		int tileY0 = (chunk / chunkColumns) * chunkSize;
+		int tileX1 = Math.min(tileX0 + chunkSize, width);
+		int tileY1 = Math.min(tileY0 + chunkSize, height);
+		
+		var g = image.createGraphics();
+		
+		g.setComposite(AlphaComposite.Clear);
+		g.fillRect(0, 0, image.getWidth(), image.getHeight());
+		g.setComposite(AlphaComposite.SrcOver);
+		
+		for (int layer = 0; layer < layers; layer++) {
+			for (int tileY = tileY0; tileY < tileY1; tileY++) {
+				for (int tileX = tileX0; tileX < tileX1; tileX++) {
+					int tile = tiles[layer][tileY * width + tileX];
+					int handle = GLibSpritesheets.getSpriteHandle(spritesheet.getHandle(), tile);
+					
+					if (handle == GLibSpritesheets.NO_SPRITE) continue;
+					
+					g.drawImage(GLibSpritesheets.getSprite(handle).getImage(),
+							(tileX - tileX0) * tileWidth, (tileY - tileY0) * tileHeight, null);
+				}
+			}
+		}
+		
+		g.dispose();
+		
+		// the software rasterizer converts the pixels again
+		GLibRasterizer.forgetPixels(image);
+		
+		var sprite = new GLibSprite(image, GLibSpritesheets.SHARED);
+		
+		chunks[chunk] = sprite;
+		dirtyChunks[chunk] = false;
+		renderedChunks++;
+		
+		return sprite;
+	}
+	
+	private BufferedImage takeImage() {
+		var image = spareImage;
+		
+		if (image == null) {
+			return GLibSprite.createCompatibleImage(chunkSize * tileWidth,
+					chunkSize * tileHeight, Transparency.TRANSLUCENT);
+		}
+		
+		spareImage = null;
+		return image;
+	}
+	
+	private void dropChunk(int chunk) {
+		unlink(chunk);
+		
+		spareImage = chunks[chunk].getImage();
+		chunks[chunk] = null;
+		cachedChunks--;
+	}
+	
+	private void unlink(int chunk) {
+		if (previous[chunk] != NONE) {
+			next[previous[chunk]] = next[chunk];
+		} else {
+			first = next[chunk];
+		}
+		
+		if (next[chunk] != NONE) {
+			previous[next[chunk]] = previous[chunk];
+		} else {
+			last = previous[chunk];
+		}
+	}
+	
+	private void validateTile(int layer, int x, int y) {
+		if (layer < 0 || layer >= layers)
+			throw new IllegalArgumentException("Inexistent layer: " + layer);
+		if (x < 0 || x >= width || y < 0 || y >= height)
+			throw new IllegalArgumentException(String.format("Tile outside the map: %d, %d", x, y));
+	}
+}
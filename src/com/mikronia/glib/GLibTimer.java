@@ -24,6 +24,9 @@
 
 package com.mikronia.glib;
 
+import java.awt.Toolkit;
+import java.util.concurrent.locks.LockSupport;
+
 import com.mikronia.glib.utils.glib.GLibChecks;
 
 /**
@@ -37,19 +40,44 @@ public final class GLibTimer {
 	// static use only!
 	private GLibTimer() { }
 	
+	// frame phases
+	public static final int PHASE_UPDATE		= 0x0;
+	public static final int PHASE_RENDER		= 0x1;
+	public static final int PHASE_PRESENT		= 0x2;
+	public static final int PHASE_SLEEP			= 0x3;
+	public static final int PHASE_FRAME			= 0x4;
+	
+	private static final int PHASES				= 0x5;
+	
 	// scheduled application
 	private static GLibApp application;
 	
-	// properties
-	private static boolean running;
+	// properties (read by other threads)
+	private static volatile boolean running;
+	private static boolean threaded;
+	private static volatile boolean toolkitSync;
 
-	// the thread
+	// the threads
 	private static Thread thread;
+	private static Thread updateThread;
 	
 	// fields
-	private static String info = "...";
-	private static int frames = 0;
-	private static int ticks = 0;
+	private static volatile String info = "...";
+	private static volatile int frames = 0;
+	private static volatile int ticks = 0;
+	
+	// ticks performed by the update thread
+	private static volatile int tickCount = 0;
+	
+	// frame times (milliseconds)
+	private static volatile double frameTimeMean = 0;
+	private static volatile double frameTimeP99 = 0;
+	private static volatile double frameTimeJitter = 0;
+	private static volatile double pacingOvershoot = 0;
+	
+	// phase durations over the last seconds
+	private static volatile GLibFrameMetrics metrics = new GLibFrameMetrics(10, PHASES);
+	private static volatile long missedFrames = 0;
 
 	/**
 	 * Initializes the timer.
@@ -82,6 +110,42 @@ public final class GLibTimer {
 		running = false;
 	}
 	
+	/**
+	 * Runs the updates and the render on separate threads.
+	 * The update thread ticks at the frame rate and publishes a
+	 * snapshot after its updates, and the render thread draws the
+	 * latest snapshot (see {@link GLibRenderable}). Must be set
+	 * before the application is initialized.
+	 * 
+	 * @param threaded threaded mode state
+	 */
+	public static void setThreaded(boolean threaded) {
+		if (running)
+			throw new IllegalStateException(
+				"MkTimer is already running.");
+		
+		GLibTimer.threaded = threaded;
+	}
+	
+	public static boolean isThreaded() {
+		return threaded;
+	}
+	
+	/**
+	 * Synchronizes the display with {@link Toolkit#sync()}
+	 * after each frame is shown, which keeps buffered
+	 * windowing systems from queuing frames.
+	 * 
+	 * @param toolkitSync toolkit sync state
+	 */
+	public static void setToolkitSync(boolean toolkitSync) {
+		GLibTimer.toolkitSync = toolkitSync;
+	}
+	
+	public static boolean isToolkitSync() {
+		return toolkitSync;
+	}
+	
 	/////////////////////////
 	
 	/**
@@ -109,18 +173,127 @@ public final class GLibTimer {
 		return info;
 	}
 	
+	/**
+	 * Gets the mean of the recent frame
+	 * times, in milliseconds.
+	 */
+	public static double getFrameTimeMean() {
+		return frameTimeMean;
+	}
+	
+	/**
+	 * Gets the 99th percentile of the recent
+	 * frame times, in milliseconds.
+	 */
+	public static double getFrameTimeP99() {
+		return frameTimeP99;
+	}
+	
+	/**
+	 * Gets the standard deviation of the recent
+	 * frame times, in milliseconds.
+	 */
+	public static double getFrameTimeJitter() {
+		return frameTimeJitter;
+	}
+	
+	/**
+	 * Gets how late the frames started past
+	 * their deadlines on average, in milliseconds.
+	 */
+	public static double getPacingOvershoot() {
+		return pacingOvershoot;
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Gets the durations of a frame phase recorded over the
+	 * metrics window. The update phase holds one value per
+	 * tick; the other phases hold one value per frame.
+	 * 
+	 * @param phase one of the {@code PHASE_*} constants
+	 * @return a copy of the merged histograms
+	 */
+	public static GLibHistogram getPhaseHistogram(int phase) {
+		checkPhase(phase);
+		return metrics.merge(phase);
+	}
+	
+	/**
+	 * Gets a percentile of the durations of a frame
+	 * phase over the metrics window, in milliseconds.
+	 * 
+	 * @param phase one of the {@code PHASE_*} constants
+	 * @param percentile a percentage from 0 to 100
+	 */
+	public static double getPhasePercentile(int phase, double percentile) {
+		return getPhaseHistogram(phase).getPercentile(percentile) / 1.0e6;
+	}
+	
+	/**
+	 * Gets the longest duration of a frame phase
+	 * over the metrics window, in milliseconds.
+	 * 
+	 * @param phase one of the {@code PHASE_*} constants
+	 */
+	public static double getPhaseMaximum(int phase) {
+		return getPhaseHistogram(phase).getMaximum() / 1.0e6;
+	}
+	
+	/**
+	 * Gets the number of frame deadlines missed
+	 * since the timer started or the metrics
+	 * were reset.
+	 */
+	public static long getMissedFrames() {
+		return missedFrames;
+	}
+	
+	/**
+	 * Sets the length of the metrics window,
+	 * forgetting the recorded durations.
+	 * 
+	 * @param seconds the window length
+	 */
+	public static void setMetricsWindow(int seconds) {
+		if (seconds <= 0)
+			throw new IllegalArgumentException(
+				"Invalid metrics window: " + seconds);
+		
+		metrics = new GLibFrameMetrics(seconds, PHASES);
+	}
+	
+	public static int getMetricsWindow() {
+		return metrics.getWindow();
+	}
+	
+	/**
+	 * Forgets the recorded durations and
+	 * the missed frames.
+	 */
+	public static void resetMetrics() {
+		metrics.reset();
+		missedFrames = 0;
+	}
+	
 	/////////////////////////
 	
 	/**
 	 * Loop scope.
 	 */
 	private static void performGameLoop() throws Exception {
+		if (threaded) {
+			performThreadedLoop();
+			return;
+		}
+		
 		long frameCounterMarker = System.currentTimeMillis();
 		
 		// timer stuff
 		final double frameRate = GLib.getFrames();
-		long sleepTime = (long) (1000 / frameRate);
 		double nanos = 1.0e9 / frameRate;
+		var pacer = new GLibFramePacer(frameRate);
 		
 		long lastTime = System.nanoTime();
 		double delta = 0.0;
@@ -133,7 +306,7 @@ public final class GLibTimer {
 		
 		while (running) {
 			var canvas = application.canvas();
-			var batch = canvas.getGraphicsBatch();
+			var metrics = GLibTimer.metrics;
 			
 			// count delta time
 			long currentTime = System.nanoTime();
@@ -142,32 +315,44 @@ public final class GLibTimer {
 			
 			// update application
 			while (delta > 1) {
+				long updateTime = System.nanoTime();
+				
 				// update application
 				application.update(delta--);
 				ticks++;
+				
+				metrics.record(PHASE_UPDATE, System.nanoTime() - updateTime);
 			}
 
 			// prepare canvas
+			long renderTime = System.nanoTime();
 			canvas.prepareToDraw();
 			
+			// the batch is created again along with the graphics
+			var batch = canvas.getGraphicsBatch();
+			
 			if (batch != null) {
-				// render application
-				application.render(batch);
-				frames++;
+				// render application (again when the
+				// back buffer lost the frame)
+				do {
+					batch.beginFrame();
+					application.render(batch);
+					batch.endFrame();
+				} while (!present(canvas, metrics, renderTime));
 				
-				// show buffer
-				canvas.drawOnScreen();
+				frames++;
 			}
 			
-			// sleep thread
-			if (!GLib.hasUnlimitedFrames())
-				Thread.sleep(sleepTime);
+			// wait for the next frame
+			pace(pacer, metrics, currentTime);
 
 			// calculate FPS and UPS
 			if (System.currentTimeMillis() - frameCounterMarker >= 1000) {
 				GLibTimer.info = String.format("%d fps, %d ups", frames, ticks);				
 				GLibTimer.frames = frames;
 				GLibTimer.ticks = ticks;
+				publishFrameTimes(pacer);
+				metrics.advance();
 				
 				frameCounterMarker += 1000;
 				
@@ -179,4 +364,156 @@ public final class GLibTimer {
 		// terminate GLib
 		thread.join();
 	}
+	
+	/*
+	 * Renders on this thread while another one updates
+	 * the application and publishes its snapshots.
+	 */
+	private static void performThreadedLoop() throws Exception {
+		long frameCounterMarker = System.currentTimeMillis();
+		
+		var pacer = new GLibFramePacer(GLib.getFrames());
+		
+		int frames = 0;
+		int lastTickCount = 0;
+		
+		application.init();
+		
+		// the first snapshot is ready before the first frame
+		var snapshots = new GLibSnapshotBuffer(application);
+		
+		application.writeSnapshot(snapshots.getBack());
+		snapshots.publish();
+		
+		updateThread = new Thread(() -> GLibChecks.perform(() -> {
+			performUpdateLoop(snapshots);
+		}, "performUpdateLoop", GLibTimer.class), "MkUpdate");
+		
+		updateThread.start();
+		
+		while (running) {
+			var canvas = application.canvas();
+			var metrics = GLibTimer.metrics;
+			
+			long frameTime = System.nanoTime();
+			canvas.prepareToDraw();
+			
+			var batch = canvas.getGraphicsBatch();
+			
+			if (batch != null) {
+				do {
+					batch.beginFrame();
+					application.render(batch, snapshots.acquire());
+					batch.endFrame();
+				} while (!present(canvas, metrics, frameTime));
+				
+				frames++;
+			}
+			
+			pace(pacer, metrics, frameTime);
+			
+			if (System.currentTimeMillis() - frameCounterMarker >= 1000) {
+				int tickCount = GLibTimer.tickCount;
+				int ticks = tickCount - lastTickCount;
+				
+				GLibTimer.info = String.format("%d fps, %d ups", frames, ticks);
+				GLibTimer.frames = frames;
+				GLibTimer.ticks = ticks;
+				publishFrameTimes(pacer);
+				metrics.advance();
+				
+				frameCounterMarker += 1000;
+				
+				frames = 0;
+				lastTickCount = tickCount;
+			}
+		}
+		
+		updateThread.join();
+	}
+	
+	/*
+	 * Ticks at the frame rate, publishing
+	 * a snapshot after the updates.
+	 */
+	private static void performUpdateLoop(GLibSnapshotBuffer snapshots) {
+		double nanos = 1.0e9 / GLib.getFrames();
+		
+		long lastTime = System.nanoTime();
+		double delta = 0.0;
+		
+		while (running) {
+			long currentTime = System.nanoTime();
+			delta += (currentTime - lastTime) / nanos;
+			lastTime = currentTime;
+			
+			if (delta > 1) {
+				while (delta > 1) {
+					long updateTime = System.nanoTime();
+					
+					application.update(delta--);
+					tickCount++;
+					
+					metrics.record(PHASE_UPDATE, System.nanoTime() - updateTime);
+				}
+				
+				application.writeSnapshot(snapshots.getBack());
+				snapshots.publish();
+			}
+			
+			// waits for the next tick
+			LockSupport.parkNanos((long) ((1 - delta) * nanos));
+		}
+	}
+	
+	/////////////////////////
+	
+	/*
+	 * Shows the frame, recording the render phase that began
+	 * at the given time. Returns false when the frame was lost
+	 * and must be drawn again.
+	 */
+	private static boolean present(GLibCanvas canvas, GLibFrameMetrics metrics, long renderTime) {
+		long presentTime = System.nanoTime();
+		metrics.record(PHASE_RENDER, presentTime - renderTime);
+		
+		boolean shown = canvas.drawOnScreen();
+		
+		if (toolkitSync && !GLib.isHeadless())
+			Toolkit.getDefaultToolkit().sync();
+		
+		metrics.record(PHASE_PRESENT, System.nanoTime() - presentTime);
+		return shown;
+	}
+	
+	/*
+	 * Waits for the deadline of the next frame,
+	 * or only records the frame when unlimited.
+	 */
+	private static void pace(GLibFramePacer pacer, GLibFrameMetrics metrics, long frameTime) {
+		long sleepTime = System.nanoTime();
+		
+		if (GLib.hasUnlimitedFrames())
+			pacer.markFrame();
+		else
+			missedFrames += pacer.waitForNextFrame();
+		
+		long now = System.nanoTime();
+		
+		metrics.record(PHASE_SLEEP, now - sleepTime);
+		metrics.record(PHASE_FRAME, now - frameTime);
+	}
+	
+	private static void checkPhase(int phase) {
+		if (phase < 0 || phase >= PHASES)
+			throw new IllegalArgumentException(
+				"Invalid frame phase: " + phase);
+	}
+	
+	private static void publishFrameTimes(GLibFramePacer pacer) {
+		frameTimeMean = pacer.getMean();
+		frameTimeP99 = pacer.getPercentile99();
+		frameTimeJitter = pacer.getJitter();
+		pacingOvershoot = pacer.getOvershoot();
+	}
 }
@@ -0,0 +1,201 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * GLib upscaler
+ * <p>
+ * Scales the pixelated buffer to the screen by an integer factor
+ * with nearest-neighbor sampling. Each source pixel is repeated
+ * along the first row of its block, and the row is then copied
+ * to the rest of the block. Large frames are split into bands of
+ * rows scaled in parallel.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+final class GLibUpscaler {
+	
+	// screen pixels below which a frame is scaled serially
+	private static final int PARALLEL_THRESHOLD	= 1 << 16;
+	
+	private final ForkJoinPool pool;
+	private final int workers;
+	
+	/**
+	 * Creates a new {@code GLibUpscaler}.
+	 * 
+	 * @param workers number of worker threads
+	 * (one scales in the calling thread)
+	 */
+	GLibUpscaler(int workers) {
+		this.workers = workers;
+		
+		this.pool = workers < 2 ? null : new ForkJoinPool(workers, pool -> {
+			var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("MkPresent-" + thread.getPoolIndex());
+			return thread;
+		}, null, false);
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Scales the source area [x0, x1) x [y0, y1) into the target,
+	 * placing the source origin at (offsetX, offsetY).
+	 */
+	void upscale(int[] source, int sourceWidth, int[] target, int targetWidth,
+			int scale, int offsetX, int offsetY, int x0, int y0, int x1, int y1) {
+		if (x0 >= x1 || y0 >= y1) return;
+		
+		int pixels = (x1 - x0) * (y1 - y0) * scale * scale;
+		
+		if (pool == null || pixels < PARALLEL_THRESHOLD) {
+			scaleRows(source, sourceWidth, target, targetWidth, scale, offsetX, offsetY, x0, x1, y0, y1);
+			return;
+		}
+		
+		// about two bands per worker
+		int bandRows = Math.max(1, (y1 - y0 + workers * 2 - 1) / (workers * 2));
+		
+		pool.invoke(new BandTask(source, sourceWidth, target, targetWidth,
+				scale, offsetX, offsetY, x0, x1, y0, y1, bandRows));
+	}
+	
+	/*
+	 * Scales the columns [x0, x1) of the source rows [row0, row1).
+	 */
+	private static void scaleRows(int[] source, int sourceWidth, int[] target, int targetWidth,
+			int scale, int offsetX, int offsetY, int x0, int x1, int row0, int row1) {
+		int width = (x1 - x0) * scale;
+		
+		for (int y = row0; y < row1; y++) {
+			int sourceIndex = y * sourceWidth + x0;
+			int rowIndex = (offsetY + y * scale) * targetWidth + offsetX + x0 * scale;
+			int targetIndex = rowIndex;
+			
+			// first row of the blocks
+			if (scale == 2) {
+				for (int x = x0; x < x1; x++) {
+					int pixel = source[sourceIndex++];
+					
+					target[targetIndex] = pixel;
+					target[targetIndex + 1] = pixel;
+					targetIndex += 2;
+				}
+			} else if (scale < 8) {
+				for (int x = x0; x < x1; x++) {
+					int pixel = source[sourceIndex++];
+					
+					for (int i = 0; i < scale; i++)
+						target[targetIndex + i] = pixel;
+					
+					targetIndex += scale;
+				}
+			} else {
+				for (int x = x0; x < x1; x++) {
+					Arrays.fill(target, targetIndex, targetIndex + scale, source[sourceIndex++]);
+					targetIndex += scale;
+				}
+			}
+			
+			// remaining rows are copies of the first one
+			for (int i = 1; i < scale; i++)
+				System.arraycopy(target, rowIndex, target, rowIndex + i * targetWidth, width);
+		}
+	}
+	
+	/////////////////////////
+	
+	int getWorkers() {
+		return workers;
+	}
+	
+	/**
+	 * Stops the worker threads.
+	 */
+	void dispose() {
+		if (pool != null)
+			pool.shutdown();
+	}
+	
+	/////////////////////////
+	
+	/*
+	 * Splits the rows in halves until each
+	 * task has a single band to scale.
+	 */
+	private static final class BandTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final int[] source;
+		private final int sourceWidth;
+		private final int[] target;
+		private final int targetWidth;
+		private final int scale;
+		private final int offsetX;
+		private final int offsetY;
+		private final int x0;
+		private final int x1;
+		private final int row0;
+		private final int row1;
+		private final int bandRows;
+		
+		BandTask(int[] source, int sourceWidth, int[] target, int targetWidth,
+				int scale, int offsetX, int offsetY, int x0, int x1, int row0, int row1, int bandRows) {
+			this.source = source;
+			this.sourceWidth = sourceWidth;
+			this.target = target;
+			this.targetWidth = targetWidth;
+			this.scale = scale;
+			this.offsetX = offsetX;
+			this.offsetY = offsetY;
+			this.x0 = x0;
+			this.x1 = x1;
+			this.row0 = row0;
+			this.row1 = row1;
+			this.bandRows = bandRows;
+		}
+		
+		@Override
+		protected void compute() {
+			if (row1 - row0 > bandRows) {
+				int middle = (row0 + row1) >>> 1;
+				
+				invokeAll(
+					new BandTask(source, sourceWidth, target, targetWidth, scale, offsetX, offsetY, x0, x1, row0, middle, bandRows),
+					new BandTask(source, sourceWidth, target, targetWidth, scale, offsetX, offsetY, x0, x1, middle, row1, bandRows));
+				return;
+			}
+			
+			scaleRows(source, sourceWidth, target, targetWidth, scale, offsetX, offsetY, x0, x1, row0, row1);
+		}
+	}
+}
@@ -24,6 +24,7 @@
 package com.mikronia.glib.animation;
 
 import com.mikronia.glib.GLibBatch;
+import com.mikronia.glib.GLibSpritesheets;
 
 public class Animation {
 
@@ -59,7 +60,7 @@ public class Animation {
 		// binds the animation sprite
 		int[] sprite = animationFrames[currentFrame].getSprite();
 		
-		batch.bindSprite(sprite[0], sprite[1]);
+		batch.bindSprite(GLibSpritesheets.getSpriteHandle(spritesheet, sprite[0], sprite[1]));
 	}
 	
 	public void end(GLibBatch batch) {
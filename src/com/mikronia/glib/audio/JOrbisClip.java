@@ -27,6 +27,7 @@ package com.mikronia.glib.audio;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioSystem;
@@ -76,6 +77,7 @@ public class JOrbisClip {
 	private byte[] buffer = null;
 	private int bytes = 0;
 	private Thread player = null;
+	private OutputStream sink = null;
 
 	private float balance;
 	private float gain = -1;
@@ -284,6 +286,33 @@ public class JOrbisClip {
 		player.start();
 	}
 
+	/**
+	 * Decode the whole clip on the calling thread, writing the
+	 * 16 bit samples to a stream instead of the output line
+	 * 
+	 * @param out The stream the samples are written to
+	 * @throws IOException Indicates a failure to read or write the samples
+	 */
+	synchronized void decode(OutputStream out) throws IOException {
+		stop();
+		bitStream.reset();
+
+		sink = out;
+		player = Thread.currentThread();
+
+		try {
+			playStream(player);
+		} catch (RuntimeException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw e;
+		} finally {
+			player = null;
+			sink = null;
+			bitStream.reset();
+		}
+	}
+
 	/**
 	 * Loop the clip - maybe for background music
 	 */
@@ -510,7 +539,9 @@ public class JOrbisClip {
 			float[][][] _pcmf = new float[1][][];
 			int[] _index = new int[oi.channels];
 
-			getOutputLine(oi.channels, oi.rate);
+			if (sink == null) {
+				getOutputLine(oi.channels, oi.rate);
+			}
 
 			while (eos == 0) {
 				while (eos == 0) {
@@ -586,7 +617,7 @@ public class JOrbisClip {
 											ptr += 2 * (oi.channels);
 										}
 									}
-									outputLine.write(convbuffer, 0, 2 * oi.channels * bout);
+									writeSamples(2 * oi.channels * bout);
 									vd.synthesis_read(bout);
 								}
 							}
@@ -621,4 +652,21 @@ public class JOrbisClip {
 
 		oy.clear();
 	}
+
+	/*
+	 * Writes the converted samples to the sink
+	 * when decoding, or to the output line
+	 */
+	private void writeSamples(int length) {
+		if (sink == null) {
+			outputLine.write(convbuffer, 0, length);
+			return;
+		}
+
+		try {
+			sink.write(convbuffer, 0, length);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
 }
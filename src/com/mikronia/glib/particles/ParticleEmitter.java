@@ -0,0 +1,200 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib.particles;
+
+import java.util.Random;
+
+import com.mikronia.glib.GLibSpritesheets;
+
+/**
+ * Particle emitter
+ * <p>
+ * Emits particles into a system at a steady rate or in bursts,
+ * picking their direction, speed, lifetime and sprite from the
+ * configured ranges.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+public class ParticleEmitter {
+	
+	private final Random random;
+	
+	// position
+	private float x;
+	private float y;
+	
+	// particles per second
+	private float rate;
+	private float pending;
+	
+	// direction and spread in radians
+	private float angle;
+	private float spread;
+	
+	// ranges
+	private float minSpeed;
+	private float maxSpeed;
+	private float minLife;
+	private float maxLife;
+	
+	private int color;
+	private int[] sprites;
+	
+	/**
+	 * Creates a new {@code ParticleEmitter} that emits a sprite
+	 * in every direction, for one second, at 100 pixels per second.
+	 * 
+	 * @param sprite sprite handle
+	 */
+	public ParticleEmitter(int sprite) {
+		this.random = new Random();
+		this.spread = (float) (Math.PI * 2);
+		this.minSpeed = this.maxSpeed = 100;
+		this.minLife = this.maxLife = 1;
+		this.color = 0xFFFFFFFF;
+		this.sprites = new int[] { sprite };
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Emits the particles due in the elapsed time.
+	 */
+	void update(ParticleSystem system, float seconds) {
+		pending += rate * seconds;
+		
+		int particles = (int) pending;
+		pending -= particles;
+		
+		burst(system, particles);
+	}
+	
+	/**
+	 * Emits particles at once.
+	 * 
+	 * @param system the particle system
+	 * @param particles number of particles
+	 */
+	public void burst(ParticleSystem system, int particles) {
+		for (int i = 0; i < particles; i++) {
+			float direction = angle + (random.nextFloat() - 0.5f) * spread;
+			float speed = minSpeed + random.nextFloat() * (maxSpeed - minSpeed);
+			float life = minLife + random.nextFloat() * (maxLife - minLife);
+			int sprite = sprites.length == 1 ? sprites[0] : sprites[random.nextInt(sprites.length)];
+			
+			if (!system.emit(x, y, (float) Math.cos(direction) * speed, (float) Math.sin(direction) * speed,
+					life, color, sprite))
+				return;
+		}
+	}
+	
+	/////////////////////////
+	
+	public void setPosition(float x, float y) {
+		this.x = x;
+		this.y = y;
+	}
+	
+	/**
+	 * Sets the number of particles emitted
+	 * per second while the system updates.
+	 */
+	public void setRate(float rate) {
+		if (rate < 0)
+			throw new IllegalArgumentException("Invalid emission rate: " + rate);
+		
+		this.rate = rate;
+	}
+	
+	/**
+	 * Sets the direction of the particles.
+	 * 
+	 * @param angle the central direction in radians
+	 * @param spread the width of the cone around it in radians
+	 */
+	public void setDirection(float angle, float spread) {
+		this.angle = angle;
+		this.spread = spread;
+	}
+	
+	/**
+	 * Sets the speed range in pixels per second.
+	 */
+	public void setSpeed(float min, float max) {
+		if (min < 0 || max < min)
+			throw new IllegalArgumentException("Invalid speed range: " + min + ", " + max);
+		
+		this.minSpeed = min;
+		this.maxSpeed = max;
+	}
+	
+	/**
+	 * Sets the lifetime range in seconds.
+	 */
+	public void setLife(float min, float max) {
+		if (min <= 0 || max < min)
+			throw new IllegalArgumentException("Invalid lifetime range: " + min + ", " + max);
+		
+		this.minLife = min;
+		this.maxLife = max;
+	}
+	
+	/**
+	 * Sets the packed ARGB tint of the particles.
+	 */
+	public void setColor(int color) {
+		this.color = color;
+	}
+	
+	/**
+	 * Sets the sprites picked at random for the particles.
+	 * 
+	 * @param sprites sprite handles
+	 */
+	public void setSprites(int... sprites) {
+		if (sprites == null || sprites.length == 0)
+			throw new IllegalArgumentException("At least one sprite is needed.");
+		
+		for (int sprite : sprites) {
+			if (sprite == GLibSpritesheets.NO_SPRITE)
+				throw new IllegalArgumentException("Invalid sprite handle: " + sprite);
+		}
+		
+		this.sprites = sprites.clone();
+	}
+	
+	public float getX() {
+		return x;
+	}
+	
+	public float getY() {
+		return y;
+	}
+	
+	public float getRate() {
+		return rate;
+	}
+}
@@ -0,0 +1,380 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib.particles;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.mikronia.glib.GLibBatch;
+
+/**
+ * Particle system
+ * <p>
+ * Particles stored in parallel primitive arrays, one array for
+ * each property, instead of one object per particle. The slots of
+ * dead particles are kept in a free list and reused by the next
+ * particles emitted, and everything is allocated up front, so the
+ * system allocates nothing once it is running. Large systems can
+ * split their updates across worker threads.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+public class ParticleSystem {
+	
+	// particles per worker before the update is split
+	private static final int PARALLEL_THRESHOLD	= 4096;
+	
+	private final int capacity;
+	
+	// particles
+	private final float[] positionX;
+	private final float[] positionY;
+	private final float[] velocityX;
+	private final float[] velocityY;
+	private final float[] life;
+	private final float[] lifetime;
+	private final int[] colors;
+	private final int[] sprites;
+	private final boolean[] alive;
+	
+	// slots of dead particles
+	private final int[] freeSlots;
+	private int freeCount;
+	
+	// slots used so far and live particles
+	private int used;
+	private int count;
+	
+	// forces
+	private float gravityX;
+	private float gravityY;
+	private float drag;
+	private boolean fadeOut;
+	
+	private final ArrayList<ParticleEmitter> emitters;
+	
+	// live particles gathered for drawing
+	private final float[] renderX;
+	private final float[] renderY;
+	private final int[] renderColors;
+	private final int[] renderSprites;
+	
+	// parallel updates
+	private ForkJoinPool pool;
+	private UpdateTask[] tasks;
+	private RootTask root;
+	private float step;
+	private float damping;
+	
+	/**
+	 * Creates a new {@code ParticleSystem}.
+	 * 
+	 * @param capacity maximum number of live particles
+	 */
+	public ParticleSystem(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("Invalid particle capacity: " + capacity);
+		
+		this.capacity = capacity;
+		this.positionX = new float[capacity];
+		this.positionY = new float[capacity];
+		this.velocityX = new float[capacity];
+		this.velocityY = new float[capacity];
+		this.life = new float[capacity];
+		this.lifetime = new float[capacity];
+		this.colors = new int[capacity];
+		this.sprites = new int[capacity];
+		this.alive = new boolean[capacity];
+		this.freeSlots = new int[capacity];
+		this.renderX = new float[capacity];
+		this.renderY = new float[capacity];
+		this.renderColors = new int[capacity];
+		this.renderSprites = new int[capacity];
+		this.emitters = new ArrayList<ParticleEmitter>();
+		this.fadeOut = true;
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Adds a particle.
+	 * 
+	 * @param x X-axis position
+	 * @param y Y-axis position
+	 * @param vx X-axis velocity in pixels per second
+	 * @param vy Y-axis velocity in pixels per second
+	 * @param lifetime lifetime in seconds
+	 * @param color packed ARGB tint of the sprite
+	 * @param sprite sprite handle
+	 * @return false if the system is full
+	 */
+	public boolean emit(float x, float y, float vx, float vy, float lifetime, int color, int sprite) {
+		int slot;
+		
+		if (freeCount > 0) {
+			slot = freeSlots[--freeCount];
+		} else if (used < capacity) {
+			slot = used++;
+		} else {
+			return false;
+		}
+		
+		positionX[slot] = x;
+		positionY[slot] = y;
+		velocityX[slot] = vx;
+		velocityY[slot] = vy;
+		life[slot] = lifetime;
+		this.lifetime[slot] = lifetime;
+		colors[slot] = color;
+		sprites[slot] = sprite;
+		alive[slot] = true;
+		count++;
+		
+		return true;
+	}
+	
+	/**
+	 * Runs the emitters and moves the particles,
+	 * freeing the slots of the ones that died.
+	 * 
+	 * @param seconds elapsed time
+	 */
+	public void update(float seconds) {
+		for (int i = 0; i < emitters.size(); i++)
+			emitters.get(i).update(this, seconds);
+		
+		step = seconds;
+		damping = Math.max(0, 1 - drag * seconds);
+		
+		if (pool != null && used >= PARALLEL_THRESHOLD * 2) {
+			root.reinitialize();
+			pool.invoke(root);
+		} else {
+			integrate(0, used);
+		}
+		
+		// frees the slots of the dead particles
+		for (int i = 0; i < used; i++) {
+			if (alive[i] && life[i] <= 0) {
+				alive[i] = false;
+				freeSlots[freeCount++] = i;
+				count--;
+			}
+		}
+	}
+	
+	/**
+	 * Draws the live particles in a single batch call. The
+	 * fade-out only changes the alpha of the tints, so the
+	 * particles of an emitter share one tinted sprite copy.
+	 */
+	public void render(GLibBatch batch) {
+		int visible = 0;
+		
+		for (int i = 0; i < used; i++) {
+			if (!alive[i]) continue;
+			
+			int color = colors[i];
+			
+			if (fadeOut) {
+				int alpha = (int) ((color >>> 24) * Math.min(1, life[i] / lifetime[i]));
+				color = (alpha << 24) | (color & 0xFFFFFF);
+			}
+			
+			renderX[visible] = positionX[i];
+			renderY[visible] = positionY[i];
+			renderColors[visible] = color;
+			renderSprites[visible] = sprites[i];
+			visible++;
+		}
+		
+		batch.drawSprites(renderSprites, renderX, renderY, null, renderColors, visible);
+	}
+	
+	/**
+	 * Kills all the particles.
+	 */
+	public void clear() {
+		for (int i = 0; i < used; i++)
+			alive[i] = false;
+		
+		used = 0;
+		count = 0;
+		freeCount = 0;
+	}
+	
+	/////////////////////////
+	
+	public void addEmitter(ParticleEmitter emitter) {
+		if (emitter == null)
+			throw new NullPointerException("The emitter must not be null.");
+		
+		emitters.add(emitter);
+	}
+	
+	public void removeEmitter(ParticleEmitter emitter) {
+		emitters.remove(emitter);
+	}
+	
+	/**
+	 * Sets the acceleration applied to
+	 * every particle, in pixels per second squared.
+	 */
+	public void setGravity(float x, float y) {
+		this.gravityX = x;
+		this.gravityY = y;
+	}
+	
+	/**
+	 * Sets the fraction of the velocity
+	 * lost per second, from 0 to 1.
+	 */
+	public void setDrag(float drag) {
+		this.drag = Math.max(0, Math.min(1, drag));
+	}
+	
+	/**
+	 * Fades the particles out as they
+	 * reach the end of their lifetime.
+	 */
+	public void setFadeOut(boolean fadeOut) {
+		this.fadeOut = fadeOut;
+	}
+	
+	/**
+	 * Splits the updates of large systems across worker
+	 * threads. One worker updates on the calling thread.
+	 * 
+	 * @param workers number of worker threads
+	 */
+	public void setWorkers(int workers) {
+		if (workers <= 0)
+			throw new IllegalArgumentException("Invalid number of workers: " + workers);
+		
+		if (pool != null)
+			pool.shutdown();
+		
+		if (workers == 1) {
+			pool = null;
+			tasks = null;
+			root = null;
+			return;
+		}
+		
+		pool = new ForkJoinPool(workers, pool -> {
+			var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("MkParticles-" + thread.getPoolIndex());
+			thread.setDaemon(true);
+			return thread;
+		}, null, false);
+		
+		tasks = new UpdateTask[workers];
+		
+		for (int i = 0; i < workers; i++)
+			tasks[i] = new UpdateTask(i);
+		
+		root = new RootTask();
+	}
+	
+	public int getWorkers() {
+		return tasks == null ? 1 : tasks.length;
+	}
+	
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	/**
+	 * Gets the number of live particles.
+	 */
+	public int getCount() {
+		return count;
+	}
+	
+	/////////////////////////
+	
+	/*
+	 * Moves the particles of the given slots. Dead particles
+	 * are moved too, which keeps the loop free of branches.
+	 */
+	private void integrate(int from, int to) {
+		float step = this.step;
+		float damping = this.damping;
+		float accelerationX = gravityX * step;
+		float accelerationY = gravityY * step;
+		
+		for (int i = from; i < to; i++) {
+			float vx = (velocityX[i] + accelerationX) * damping;
+			float vy = (velocityY[i] + accelerationY) * damping;
+			
+			velocityX[i] = vx;
+			velocityY[i] = vy;
+			positionX[i] += vx * step;
+			positionY[i] += vy * step;
+			life[i] -= step;
+		}
+	}
+	
+	/*
+	 * Runs the tasks of the workers. The tasks are
+	 * reused, so updates don't allocate them.
+	 */
+	private final class RootTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected void compute() {
+			for (var task : tasks)
+				task.reinitialize();
+			
+			invokeAll(tasks);
+		}
+	}
+	
+	/*
+	 * Moves an equal share of the slots.
+	 */
+	private final class UpdateTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final int worker;
+		
+		UpdateTask(int worker) {
+			this.worker = worker;
+		}
+		
+		@Override
+		protected void compute() {
+			int share = (used + tasks.length - 1) / tasks.length;
+			int from = worker * share;
+			
+			integrate(from, Math.min(used, from + share));
+		}
+	}
+}
@@ -0,0 +1,682 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib.physics;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Broadphase
+ * <p>
+ * Finds the overlapping pairs of a set of boxes with sweep and
+ * prune. The boxes are kept sorted by their left (or top) edge,
+ * and each box is only tested against the boxes starting before
+ * it ends. Boxes move little between updates, so the order of
+ * the last update is nearly sorted and an insertion sort brings
+ * it up to date in about linear time.
+ * <p>
+ * Each update compares the pairs found with the pairs of the last
+ * update and reports the contacts that began, stayed and ended to
+ * a {@link ContactListener}. Pairs are kept as packed longs, so
+ * nothing is allocated once the arrays have grown. The sweep of
+ * large sets can be split across worker threads.
+ * <p>
+ * Objects are identified by non-negative ids, which index the
+ * arrays of the broadphase, so they should be small and dense.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+public final class Broadphase {
+	
+	private static final int NONE				= -1;
+	private static final int INITIAL_CAPACITY	= 1024;
+	
+	// boxes per worker before the sweep is split
+	private static final int PARALLEL_THRESHOLD	= 4096;
+	
+	// sweep axes
+	private static final int AXIS_X				= 0;
+	private static final int AXIS_Y				= 1;
+	
+	// objects by id
+	private boolean[] present;
+	private boolean[] sorted;
+	private float[] minX;
+	private float[] minY;
+	private float[] maxX;
+	private float[] maxY;
+	private int size;
+	
+	// objects added since the last update
+	private int[] added;
+	private int addedCount;
+	
+	// boxes in sweep order, with the bounds on the
+	// other axis interleaved as (min, max) pairs
+	private int[] sortedIds;
+	private float[] sortedMin;
+	private float[] sortedMax;
+	private float[] otherBounds;
+	private int sortedCount;
+	private int axis;
+	
+	// buffers for sorting from scratch
+	private long[] sortKeys;
+	private int[] swapIds;
+	private float[] swapMin;
+	private float[] swapMax;
+	private float[] swapOtherBounds;
+	
+	// spread of the boxes on each axis, to pick the sweep axis
+	private double varianceX;
+	private double varianceY;
+	
+	// pairs of the last update and their index
+	private long[] pairs;
+	private int[] pairStamps;
+	private int pairCount;
+	private int[] table;
+	private int tableShift;
+	private int stamp;
+	
+	private ContactListener listener;
+	
+	// sweeps
+	private ForkJoinPool pool;
+	private SweepTask[] tasks;
+	private RootTask root;
+	
+	/**
+	 * Creates a new {@code Broadphase}.
+	 */
+	public Broadphase() {
+		this.present = new boolean[INITIAL_CAPACITY];
+		this.sorted = new boolean[INITIAL_CAPACITY];
+		this.minX = new float[INITIAL_CAPACITY];
+		this.minY = new float[INITIAL_CAPACITY];
+		this.maxX = new float[INITIAL_CAPACITY];
+		this.maxY = new float[INITIAL_CAPACITY];
+		this.added = new int[INITIAL_CAPACITY];
+		
+		this.sortedIds = new int[INITIAL_CAPACITY];
+		this.sortedMin = new float[INITIAL_CAPACITY];
+		this.sortedMax = new float[INITIAL_CAPACITY];
+		this.otherBounds = new float[INITIAL_CAPACITY * 2];
+		this.sortKeys = new long[INITIAL_CAPACITY];
+		this.swapIds = new int[INITIAL_CAPACITY];
+		this.swapMin = new float[INITIAL_CAPACITY];
+		this.swapMax = new float[INITIAL_CAPACITY];
+		this.swapOtherBounds = new float[INITIAL_CAPACITY * 2];
+		
+		this.pairs = new long[INITIAL_CAPACITY];
+		this.pairStamps = new int[INITIAL_CAPACITY];
+		this.tableShift = 64 - 11;
+		this.table = new int[1 << 11];
+		
+		this.tasks = new SweepTask[] { new SweepTask(0) };
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Adds an object, or moves it when already added.
+	 * Changes are seen by the next update.
+	 * 
+	 * @param id the object id
+	 * @param x left edge
+	 * @param y top edge
+	 * @param w width
+	 * @param h height
+	 */
+	public void insert(int id, float x, float y, float w, float h) {
+		if (id < 0)
+			throw new IllegalArgumentException("Id must not be negative. You typed " + id);
+		
+		if (id >= present.length)
+			growObjects(id + 1);
+		
+		minX[id] = x;
+		minY[id] = y;
+		maxX[id] = x + w;
+		maxY[id] = y + h;
+		
+		if (present[id]) return;
+		
+		present[id] = true;
+		size++;
+		
+		// still sorted when removed and added back
+		if (!sorted[id]) {
+			sorted[id] = true;
+			
+			if (addedCount == added.length)
+				added = Arrays.copyOf(added, addedCount * 2);
+			
+			added[addedCount++] = id;
+		}
+	}
+	
+	public void insert(int id, Box box) {
+		insert(id, box.x(), box.y(), box.w(), box.h());
+	}
+	
+	/**
+	 * Removes an object. Its contacts end on the next update.
+	 * Does nothing if it wasn't added.
+	 * 
+	 * @param id the object id
+	 */
+	public void remove(int id) {
+		if (!contains(id)) return;
+		
+		present[id] = false;
+		size--;
+	}
+	
+	/**
+	 * Removes all the objects. Their contacts
+	 * end on the next update.
+	 */
+	public void clear() {
+		for (int i = 0; i < sortedCount; i++)
+			present[sortedIds[i]] = false;
+		
+		for (int i = 0; i < addedCount; i++)
+			present[added[i]] = false;
+		
+		size = 0;
+	}
+	
+	public boolean contains(int id) {
+		return id >= 0 && id < present.length && present[id];
+	}
+	
+	/**
+	 * Gets the number of objects.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	// UPDATE //
+	
+	/**
+	 * Finds the overlapping pairs and reports the contacts.
+	 * Pairs that begin or stay are reported first, in sweep
+	 * order, and pairs that ended last. The listener must not
+	 * change the broadphase.
+	 */
+	public void update() {
+		gather();
+		sort();
+		
+		if (pool != null && sortedCount >= PARALLEL_THRESHOLD * 2) {
+			root.reinitialize();
+			pool.invoke(root);
+		} else {
+			tasks[0].sweep(0, sortedCount);
+		}
+		
+		if (++stamp == 0)
+			stamp = 1;
+		
+		int found = pool == null ? 1 : tasks.length;
+		
+		for (int i = 0; i < found; i++) {
+			var task = tasks[i];
+			
+			for (int j = 0; j < task.count; j++)
+				touch(task.pairs[j]);
+			
+			task.count = 0;
+		}
+		
+		release();
+	}
+	
+	/*
+	 * Copies the bounds of the live objects in sweep order,
+	 * dropping the removed ones and appending the added ones.
+	 */
+	private void gather() {
+		int count = 0;
+		int total = sortedCount + addedCount;
+		
+		if (total > sortedIds.length)
+			growSorted(total);
+		
+		double sumX = 0;
+		double sumY = 0;
+		double squaresX = 0;
+		double squaresY = 0;
+		
+		for (int i = 0; i < total; i++) {
+			int id = i < sortedCount ? sortedIds[i] : added[i - sortedCount];
+			
+			if (!present[id]) {
+				sorted[id] = false;
+				continue;
+			}
+			
+			float x0 = minX[id];
+			float y0 = minY[id];
+			float x1 = maxX[id];
+			float y1 = maxY[id];
+			
+			if (axis == AXIS_X) {
+				sortedMin[count] = x0;
+				sortedMax[count] = x1;
+				otherBounds[count * 2] = y0;
+				otherBounds[count * 2 + 1] = y1;
+			} else {
+				sortedMin[count] = y0;
+				sortedMax[count] = y1;
+				otherBounds[count * 2] = x0;
+				otherBounds[count * 2 + 1] = x1;
+			}
+			
+			sortedIds[count++] = id;
+			
+			double centerX = x0 + x1;
+			double centerY = y0 + y1;
+			
+			sumX += centerX;
+			sumY += centerY;
+			squaresX += centerX * centerX;
+			squaresY += centerY * centerY;
+		}
+		
+		sortedCount = count;
+		addedCount = 0;
+		
+		if (count > 0) {
+			varianceX = squaresX / count - (sumX / count) * (sumX / count);
+			varianceY = squaresY / count - (sumY / count) * (sumY / count);
+		}
+	}
+	
+	/*
+	 * Sorts the boxes by their start on the sweep axis. The
+	 * insertion sort gives up when the boxes are far from
+	 * sorted, like after many were added.
+	 */
+	private void sort() {
+		int count = sortedCount;
+		long shifts = 0;
+		long limit = 8L * count + 1024;
+		
+		for (int i = 1; i < count; i++) {
+			float min = sortedMin[i];
+			
+			if (sortedMin[i - 1] <= min)
+				continue;
+			
+			int id = sortedIds[i];
+			float max = sortedMax[i];
+			float min2 = otherBounds[i * 2];
+			float max2 = otherBounds[i * 2 + 1];
+			int j = i;
+			
+			do {
+				sortedIds[j] = sortedIds[j - 1];
+				sortedMin[j] = sortedMin[j - 1];
+				sortedMax[j] = sortedMax[j - 1];
+				otherBounds[j * 2] = otherBounds[j * 2 - 2];
+				otherBounds[j * 2 + 1] = otherBounds[j * 2 - 1];
+				j--;
+			} while (j > 0 && sortedMin[j - 1] > min);
+			
+			sortedIds[j] = id;
+			sortedMin[j] = min;
+			sortedMax[j] = max;
+			otherBounds[j * 2] = min2;
+			otherBounds[j * 2 + 1] = max2;
+			
+			shifts += i - j;
+			
+			if (shifts > limit) {
+				sortAll();
+				break;
+			}
+		}
+		
+		// sweeps the axis where the boxes spread the most,
+		// with some margin so the axis doesn't flip often
+		if (axis == AXIS_X ? varianceY > varianceX * 2 : varianceX > varianceY * 2)
+			axis = axis == AXIS_X ? AXIS_Y : AXIS_X;
+	}
+	
+	private void sortAll() {
+		int count = sortedCount;
+		long[] keys = sortKeys;
+		
+		for (int i = 0; i < count; i++) {
+			int bits = Float.floatToIntBits(sortedMin[i]);
+			
+			// orders negative floats as signed ints
+			bits ^= (bits >> 31) & 0x7FFFFFFF;
+			keys[i] = (long) bits << 32 | i;
+		}
+		
+		Arrays.sort(keys, 0, count);
+		
+		for (int i = 0; i < count; i++) {
+			int from = (int) keys[i];
+			
+			swapIds[i] = sortedIds[from];
+			swapMin[i] = sortedMin[from];
+			swapMax[i] = sortedMax[from];
+			swapOtherBounds[i * 2] = otherBounds[from * 2];
+			swapOtherBounds[i * 2 + 1] = otherBounds[from * 2 + 1];
+		}
+		
+		int[] ids = sortedIds;
+		float[] mins = sortedMin;
+		float[] maxs = sortedMax;
+		float[] others = otherBounds;
+		
+		sortedIds = swapIds;
+		sortedMin = swapMin;
+		sortedMax = swapMax;
+		otherBounds = swapOtherBounds;
+		
+		swapIds = ids;
+		swapMin = mins;
+		swapMax = maxs;
+		swapOtherBounds = others;
+	}
+	
+	// PAIRS //
+	
+	/*
+	 * Marks a pair as found, reporting
+	 * whether it began or stayed.
+	 */
+	private void touch(long pair) {
+		int mask = table.length - 1;
+		int slot = hash(pair);
+		int index;
+		
+		while ((index = table[slot]) != 0) {
+			if (pairs[index - 1] == pair) {
+				pairStamps[index - 1] = stamp;
+				
+				if (listener != null)
+					listener.stayContact((int) (pair >>> 32), (int) pair);
+				
+				return;
+			}
+			
+			slot = (slot + 1) & mask;
+		}
+		
+		if (pairCount == pairs.length) {
+			pairs = Arrays.copyOf(pairs, pairCount * 2);
+			pairStamps = Arrays.copyOf(pairStamps, pairCount * 2);
+		}
+		
+		pairs[pairCount] = pair;
+		pairStamps[pairCount] = stamp;
+		table[slot] = ++pairCount;
+		
+		// keeps the table at most half full
+		if (pairCount * 2 > table.length)
+			rehash(table.length * 2);
+		
+		if (listener != null)
+			listener.beginContact((int) (pair >>> 32), (int) pair);
+	}
+	
+	/*
+	 * Drops the pairs not found by this update,
+	 * reporting that they ended.
+	 */
+	private void release() {
+		int kept = 0;
+		
+		for (int i = 0; i < pairCount; i++) {
+			long pair = pairs[i];
+			
+			if (pairStamps[i] == stamp) {
+				pairs[kept] = pair;
+				pairStamps[kept++] = stamp;
+			} else if (listener != null) {
+				listener.endContact((int) (pair >>> 32), (int) pair);
+			}
+		}
+		
+		if (kept < pairCount) {
+			pairCount = kept;
+			rehash(table.length);
+		}
+	}
+	
+	private void rehash(int capacity) {
+		if (capacity != table.length) {
+			table = new int[capacity];
+			tableShift = 64 - Integer.numberOfTrailingZeros(capacity);
+		} else {
+			Arrays.fill(table, 0);
+		}
+		
+		int mask = capacity - 1;
+		
+		for (int i = 0; i < pairCount; i++) {
+			int slot = hash(pairs[i]);
+			
+			while (table[slot] != 0)
+				slot = (slot + 1) & mask;
+			
+			table[slot] = i + 1;
+		}
+	}
+	
+	private int hash(long pair) {
+		return (int) ((pair * 0x9E3779B97F4A7C15L) >>> tableShift);
+	}
+	
+	private void growObjects(int minimum) {
+		int capacity = Math.max(minimum, present.length * 2);
+		
+		present = Arrays.copyOf(present, capacity);
+		sorted = Arrays.copyOf(sorted, capacity);
+		minX = Arrays.copyOf(minX, capacity);
+		minY = Arrays.copyOf(minY, capacity);
+		maxX = Arrays.copyOf(maxX, capacity);
+		maxY = Arrays.copyOf(maxY, capacity);
+	}
+	
+	private void growSorted(int minimum) {
+		int capacity = Math.max(minimum, sortedIds.length * 2);
+		
+		sortedIds = Arrays.copyOf(sortedIds, capacity);
+		sortedMin = Arrays.copyOf(sortedMin, capacity);
+		sortedMax = Arrays.copyOf(sortedMax, capacity);
+		otherBounds = Arrays.copyOf(otherBounds, capacity * 2);
+		sortKeys = new long[capacity];
+		swapIds = new int[capacity];
+		swapMin = new float[capacity];
+		swapMax = new float[capacity];
+		swapOtherBounds = new float[capacity * 2];
+	}
+	
+	/////////////////////////
+	
+	public void setListener(ContactListener listener) {
+		this.listener = listener;
+	}
+	
+	/**
+	 * Splits the sweep of large sets across worker
+	 * threads. One worker sweeps on the calling thread.
+	 * Contacts are still reported on the calling thread.
+	 * 
+	 * @param workers number of worker threads
+	 */
+	public void setWorkers(int workers) {
+		if (workers <= 0)
+			throw new IllegalArgumentException("Invalid number of workers: " + workers);
+		
+		if (pool != null)
+			pool.shutdown();
+		
+		var first = tasks[0];
+		
+		if (workers == 1) {
+			pool = null;
+			tasks = new SweepTask[] { first };
+			root = null;
+			return;
+		}
+		
+		pool = new ForkJoinPool(workers, pool -> {
+			var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName("MkBroadphase-" + thread.getPoolIndex());
+			thread.setDaemon(true);
+			return thread;
+		}, null, false);
+		
+		tasks = new SweepTask[workers];
+		tasks[0] = first;
+		
+		for (int i = 1; i < workers; i++)
+			tasks[i] = new SweepTask(i);
+		
+		root = new RootTask();
+	}
+	
+	public ContactListener getListener() {
+		return listener;
+	}
+	
+	public int getWorkers() {
+		return tasks.length;
+	}
+	
+	/**
+	 * Gets the number of pairs found by the last update.
+	 */
+	public int getPairCount() {
+		return pairCount;
+	}
+	
+	/**
+	 * Gets the lower id of a pair found by the last update.
+	 */
+	public int getPairA(int index) {
+		return (int) (pairs[index] >>> 32);
+	}
+	
+	/**
+	 * Gets the higher id of a pair found by the last update.
+	 */
+	public int getPairB(int index) {
+		return (int) pairs[index];
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s{size=%d, pairs=%d}", getClass().getName(), size, pairCount);
+	}
+	
+	/////////////////////////
+	
+	/*
+	 * Runs the tasks of the workers. The tasks are
+	 * reused, so updates don't allocate them.
+	 */
+	private final class RootTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected void compute() {
+			for (var task : tasks)
+				task.reinitialize();
+			
+			invokeAll(tasks);
+		}
+	}
+	
+	/*
+	 * Sweeps an equal share of the boxes, keeping
+	 * the pairs found in its own buffer.
+	 */
+	private final class SweepTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final int worker;
+		
+		private long[] pairs;
+		private int count;
+		
+		SweepTask(int worker) {
+			this.worker = worker;
+			this.pairs = new long[INITIAL_CAPACITY];
+		}
+		
+		@Override
+		protected void compute() {
+			int share = (sortedCount + tasks.length - 1) / tasks.length;
+			int from = worker * share;
+			
+			sweep(from, Math.min(sortedCount, from + share));
+		}
+		
+		/*
+		 * Tests the boxes [from, to) against the boxes
+		 * after them that start before they end.
+		 */
+		void sweep(int from, int to) {
+			int[] ids = sortedIds;
+			float[] mins = sortedMin;
+			float[] others = otherBounds;
+			int total = sortedCount;
+			
+			for (int i = from; i < to; i++) {
+				float max = sortedMax[i];
+				float min2 = others[i * 2];
+				float max2 = others[i * 2 + 1];
+				int a = ids[i];
+				
+				for (int j = i + 1; j < total && mins[j] <= max; j++) {
+					// a single branch, almost never taken
+					if ((others[j * 2] <= max2) & (others[j * 2 + 1] >= min2)) {
+					
+						int b = ids[j];
+						
+						if (count == pairs.length)
+							pairs = Arrays.copyOf(pairs, count * 2);
+						
+						pairs[count++] = a < b ? (long) a << 32 | b : (long) b << 32 | a;
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,53 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib.physics;
+
+/**
+ * Contact listener
+ * <p>
+ * Receives the contacts found by a {@code Broadphase}. The ids
+ * of a pair are always given in ascending order.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+public interface ContactListener {
+	
+	/**
+	 * Called when two objects start overlapping.
+	 */
+	public default void beginContact(int a, int b) {}
+	
+	/**
+	 * Called on every update while two objects keep overlapping.
+	 */
+	public default void stayContact(int a, int b) {}
+	
+	/**
+	 * Called when two objects stop overlapping,
+	 * or when one of them was removed.
+	 */
+	public default void endContact(int a, int b) {}
+}
@@ -0,0 +1,120 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib.physics;
+
+/**
+ * Sweep result
+ * <p>
+ * The earliest hit of a box moving along a vector. Results are
+ * meant to be reused, so sweeping doesn't allocate.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+public final class SweepResult {
+	
+	public static final int NONE = -1;
+	
+	int target;
+	float time;
+	float normalX;
+	float normalY;
+	float remainingX;
+	float remainingY;
+	
+	public SweepResult() {
+		reset(0, 0);
+	}
+	
+	/////////////////////////
+	
+	/*
+	 * Clears the hit of a new sweep along (dx, dy).
+	 */
+	void reset(float dx, float dy) {
+		target = NONE;
+		time = 1;
+		normalX = 0;
+		normalY = 0;
+		remainingX = dx;
+		remainingY = dy;
+	}
+	
+	/////////////////////////
+	
+	public boolean isHit() {
+		return time < 1;
+	}
+	
+	/**
+	 * Gets the id of the static box that was hit, or {@link #NONE}
+	 * when nothing was hit or the target wasn't indexed.
+	 */
+	public int getTarget() {
+		return target;
+	}
+	
+	/**
+	 * Gets the fraction of the motion done before the
+	 * hit, from 0 to 1 (1 when nothing was hit).
+	 */
+	public float getTime() {
+		return time;
+	}
+	
+	/**
+	 * Gets the X-axis of the surface normal at the hit.
+	 */
+	public float getNormalX() {
+		return normalX;
+	}
+	
+	/**
+	 * Gets the Y-axis of the surface normal at the hit.
+	 */
+	public float getNormalY() {
+		return normalY;
+	}
+	
+	/**
+	 * Gets the X-axis of the motion left after the hit.
+	 */
+	public float getRemainingX() {
+		return remainingX;
+	}
+	
+	/**
+	 * Gets the Y-axis of the motion left after the hit.
+	 */
+	public float getRemainingY() {
+		return remainingY;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s{time=%.3f, normal=[%.0f,%.0f], target=%d}",
+				getClass().getName(), time, normalX, normalY, target);
+	}
+}
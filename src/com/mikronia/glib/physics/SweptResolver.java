@@ -0,0 +1,304 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib.physics;
+
+import java.util.Arrays;
+
+import com.mikronia.glib.spatial.SpatialIndex;
+import com.mikronia.glib.spatial.SpatialVisitor;
+
+/**
+ * Swept resolver
+ * <p>
+ * Moves boxes along a vector without passing through the
+ * static boxes in their way, however fast they are. The time of
+ * impact against a box is found by growing it by the size of
+ * the moving box and casting the motion against it, axis by
+ * axis. A box is moved up to its earliest hit and the result
+ * tells the normal of the surface and the motion left, which can
+ * be slid along the surface or bounced by the caller.
+ * <p>
+ * Static boxes are kept in a {@link SpatialIndex}, which is
+ * queried with the bounds of the whole motion. Nothing is
+ * allocated while sweeping.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+public final class SweptResolver {
+	
+	private static final int INITIAL_CAPACITY	= 1024;
+	
+	// boxes closer than this are touching, which keeps
+	// rounding errors from letting boxes sink into walls
+	private static final float SKIN				= 0.001f;
+	
+	private final SpatialIndex index;
+	
+	// static boxes by id
+	private float[] minX;
+	private float[] minY;
+	private float[] maxX;
+	private float[] maxY;
+	
+	// current sweep
+	private final SweepResult hit;
+	private final SpatialVisitor visitor;
+	private float moverX;
+	private float moverY;
+	private float moverW;
+	private float moverH;
+	private float moveX;
+	private float moveY;
+	private SweepResult result;
+	
+	/**
+	 * Creates a new {@code SweptResolver}.
+	 * 
+	 * @param index empty index for the static boxes
+	 */
+	public SweptResolver(SpatialIndex index) {
+		if (index == null)
+			throw new IllegalArgumentException("Index must not be null");
+		
+		this.index = index;
+		this.minX = new float[INITIAL_CAPACITY];
+		this.minY = new float[INITIAL_CAPACITY];
+		this.maxX = new float[INITIAL_CAPACITY];
+		this.maxY = new float[INITIAL_CAPACITY];
+		this.hit = new SweepResult();
+		
+		this.visitor = id -> {
+			sweep(moverX, moverY, moverW, moverH, moveX, moveY,
+					minX[id], minY[id], maxX[id] - minX[id], maxY[id] - minY[id], id, result);
+			return true;
+		};
+	}
+	
+	/////////////////////////
+	
+	/**
+	 * Adds a static box, or moves it when already added.
+	 */
+	public void addStatic(int id, float x, float y, float w, float h) {
+		if (id < 0)
+			throw new IllegalArgumentException("Id must not be negative. You typed " + id);
+		
+		if (id >= minX.length) {
+			int capacity = Math.max(id + 1, minX.length * 2);
+			
+			minX = Arrays.copyOf(minX, capacity);
+			minY = Arrays.copyOf(minY, capacity);
+			maxX = Arrays.copyOf(maxX, capacity);
+			maxY = Arrays.copyOf(maxY, capacity);
+		}
+		
+		minX[id] = x;
+		minY[id] = y;
+		maxX[id] = x + w;
+		maxY[id] = y + h;
+		
+		index.insert(id, x, y, w, h);
+	}
+	
+	public void addStatic(int id, Box box) {
+		addStatic(id, box.x, box.y, box.w, box.h);
+	}
+	
+	public void removeStatic(int id) {
+		index.remove(id);
+	}
+	
+	public void clearStatic() {
+		index.clear();
+	}
+	
+	// SWEEPS //
+	
+	/**
+	 * Finds the earliest static box hit by a box moving
+	 * along (dx, dy), without moving it.
+	 * 
+	 * @return true if a static box was hit
+	 */
+	public boolean sweep(Box box, float dx, float dy, SweepResult result) {
+		result.reset(dx, dy);
+		
+		if (dx == 0 && dy == 0)
+			return false;
+		
+		this.moverX = box.x;
+		this.moverY = box.y;
+		this.moverW = box.w;
+		this.moverH = box.h;
+		this.moveX = dx;
+		this.moveY = dy;
+		this.result = result;
+		
+		// bounds of the whole motion
+		float x0 = Math.min(box.x, box.x + dx) - SKIN;
+		float y0 = Math.min(box.y, box.y + dy) - SKIN;
+		float x1 = Math.max(box.x, box.x + dx) + box.w + SKIN;
+		float y1 = Math.max(box.y, box.y + dy) + box.h + SKIN;
+		
+		index.queryRect(x0, y0, x1 - x0, y1 - y0, visitor);
+		
+		this.result = null;
+		return result.isHit();
+	}
+	
+	/**
+	 * Moves a box along (dx, dy), stopping it at
+	 * the earliest static box in its way.
+	 * 
+	 * @return true if a static box was hit
+	 */
+	public boolean move(Box box, float dx, float dy, SweepResult result) {
+		sweep(box, dx, dy, result);
+		
+		box.x += dx * result.time;
+		box.y += dy * result.time;
+		
+		return result.isHit();
+	}
+	
+	/**
+	 * Moves a list of boxes, each along its own motion, stopping
+	 * them at the earliest static box in their way. Boxes are
+	 * only stopped by static boxes, not by each other.
+	 * 
+	 * @param boxes boxes to move
+	 * @param motions motion of each box as (dx, dy) pairs,
+	 * replaced by the motion left after the hit
+	 * @param normals receives the normal of each hit as (x, y)
+	 * pairs, or (0, 0) for the boxes that hit nothing
+	 * @param targets receives the id of the static box hit by
+	 * each box, or {@link SweepResult#NONE}
+	 * @param count number of boxes
+	 * @return number of boxes that hit a static box
+	 */
+	public int moveAll(Box[] boxes, float[] motions, float[] normals, int[] targets, int count) {
+		int hits = 0;
+		
+		for (int i = 0; i < count; i++) {
+			if (move(boxes[i], motions[i * 2], motions[i * 2 + 1], hit))
+				hits++;
+			
+			motions[i * 2] = hit.remainingX;
+			motions[i * 2 + 1] = hit.remainingY;
+			normals[i * 2] = hit.normalX;
+			normals[i * 2 + 1] = hit.normalY;
+			targets[i] = hit.target;
+		}
+		
+		return hits;
+	}
+	
+	/**
+	 * Finds when a box moving along (dx, dy) hits another box.
+	 * 
+	 * @return true if the box was hit
+	 */
+	public static boolean sweep(Box box, float dx, float dy, Box target, SweepResult result) {
+		result.reset(dx, dy);
+		
+		sweep(box.x, box.y, box.w, box.h, dx, dy,
+				target.x, target.y, target.w, target.h, SweepResult.NONE, result);
+		
+		return result.isHit();
+	}
+	
+	/*
+	 * Casts the motion of box A against box B, keeping
+	 * the hit in the result if it is the earliest so far.
+	 */
+	private static void sweep(float ax, float ay, float aw, float ah, float dx, float dy,
+			float bx, float by, float bw, float bh, int target, SweepResult result) {
+		if (dx == 0 && dy == 0)
+			return;
+		
+		float entryX;
+		float entryY;
+		float exitX;
+		float exitY;
+		float gapX;
+		float gapY;
+		
+		if (dx == 0) {
+			// touching boxes slide along each other
+			if (ax + aw - SKIN <= bx || ax + SKIN >= bx + bw)
+				return;
+			
+			gapX = 0;
+			entryX = Float.NEGATIVE_INFINITY;
+			exitX = Float.POSITIVE_INFINITY;
+		} else {
+			gapX = dx > 0 ? bx - (ax + aw) : ax - (bx + bw);
+			entryX = gapX / Math.abs(dx);
+			exitX = (gapX + aw + bw) / Math.abs(dx);
+		}
+		
+		if (dy == 0) {
+			if (ay + ah - SKIN <= by || ay + SKIN >= by + bh)
+				return;
+			
+			gapY = 0;
+			entryY = Float.NEGATIVE_INFINITY;
+			exitY = Float.POSITIVE_INFINITY;
+		} else {
+			gapY = dy > 0 ? by - (ay + ah) : ay - (by + bh);
+			entryY = gapY / Math.abs(dy);
+			exitY = (gapY + ah + bh) / Math.abs(dy);
+		}
+		
+		boolean alongX = entryX > entryY;
+		float entry = alongX ? entryX : entryY;
+		float exit = Math.min(exitX, exitY);
+		
+		// missed, too far, or already deep inside (so it can get out)
+		if (entry >= exit || exit <= 0 || entry >= result.time || (alongX ? gapX : gapY) < -SKIN)
+			return;
+		
+		float time = Math.max(entry, 0);
+		
+		result.target = target;
+		result.time = time;
+		result.normalX = alongX ? -Math.signum(dx) : 0;
+		result.normalY = alongX ? 0 : -Math.signum(dy);
+		result.remainingX = dx * (1 - time);
+		result.remainingY = dy * (1 - time);
+	}
+	
+	/////////////////////////
+	
+	public SpatialIndex getIndex() {
+		return index;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s{statics=%d}", getClass().getName(), index.size());
+	}
+}
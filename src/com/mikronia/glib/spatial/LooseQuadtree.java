@@ -0,0 +1,437 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib.spatial;
+
+import java.util.Arrays;
+
+/**
+ * Loose quadtree
+ * <p>
+ * Tree of nested squares for objects that rarely move, like
+ * the tiles and walls of a level. Each object is kept in a
+ * single node, the smallest whose cell is as big as the object
+ * and holds its center. The bounds of a node are its cell grown
+ * by half a cell on each side, so an object never needs to be
+ * split between nodes.
+ * <p>
+ * Nodes aren't allocated: each level is a full grid of nodes
+ * stored in flat arrays, so the depth is limited to
+ * {@value #MAX_DEPTH}. Objects whose centers are outside the
+ * world are kept in the root.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+public final class LooseQuadtree implements SpatialIndex {
+	
+	public static final int MAX_DEPTH			= 10;
+	
+	private static final int NONE				= -1;
+	private static final int INITIAL_CAPACITY	= 1024;
+	
+	// query shapes
+	private static final int RECT				= 0;
+	private static final int CIRCLE				= 1;
+	private static final int RAY				= 2;
+	
+	private final float x;
+	private final float y;
+	private final float w;
+	private final float h;
+	private final int depth;
+	
+	// first node of each level
+	private final int[] levelOffsets;
+	
+	// first object of each node and objects in each level
+	private final int[] heads;
+	private final int[] levelCounts;
+	
+	// objects by id
+	private boolean[] present;
+	private float[] minX;
+	private float[] minY;
+	private float[] maxX;
+	private float[] maxY;
+	private int[] nodes;
+	private int[] next;
+	private int[] previous;
+	private int size;
+	private int limit;
+	
+	// current query
+	private int shape;
+	private float queryMinX;
+	private float queryMinY;
+	private float queryMaxX;
+	private float queryMaxY;
+	private float queryX;
+	private float queryY;
+	private float queryDX;
+	private float queryDY;
+	private float queryLength;
+	
+	/**
+	 * Creates a new {@code LooseQuadtree}.
+	 * 
+	 * @param x left edge of the world
+	 * @param y top edge of the world
+	 * @param w width of the world
+	 * @param h height of the world
+	 * @param depth levels below the root (0 to {@value #MAX_DEPTH})
+	 */
+	public LooseQuadtree(float x, float y, float w, float h, int depth) {
+		if (!(w > 0 && h > 0))
+			throw new IllegalArgumentException("World size must be above 0. You typed " + w + "x" + h);
+		
+		if (depth < 0 || depth > MAX_DEPTH)
+			throw new IllegalArgumentException("Depth must be between 0 and " + MAX_DEPTH + ". You typed " + depth);
+		
+		this.x = x;
+		this.y = y;
+		this.w = w;
+		this.h = h;
+		this.depth = depth;
+		
+		this.levelOffsets = new int[depth + 2];
+		
+		for (int level = 1; level < levelOffsets.length; level++)
+			levelOffsets[level] = levelOffsets[level - 1] + (1 << (2 * (level - 1)));
+		
+		this.heads = new int[levelOffsets[depth + 1]];
+		this.levelCounts = new int[depth + 1];
+		Arrays.fill(heads, NONE);
+		
+		this.present = new boolean[INITIAL_CAPACITY];
+		this.minX = new float[INITIAL_CAPACITY];
+		this.minY = new float[INITIAL_CAPACITY];
+		this.maxX = new float[INITIAL_CAPACITY];
+		this.maxY = new float[INITIAL_CAPACITY];
+		this.nodes = new int[INITIAL_CAPACITY];
+		this.next = new int[INITIAL_CAPACITY];
+		this.previous = new int[INITIAL_CAPACITY];
+	}
+	
+	/////////////////////////
+	
+	@Override
+	public void insert(int id, float x, float y, float w, float h) {
+		if (id < 0)
+			throw new IllegalArgumentException("Id must not be negative. You typed " + id);
+		
+		if (id >= present.length)
+			growObjects(id + 1);
+		
+		int node = place(x, y, w, h);
+		
+		minX[id] = x;
+		minY[id] = y;
+		maxX[id] = x + w;
+		maxY[id] = y + h;
+		
+		if (present[id]) {
+			if (node == nodes[id])
+				return;
+			
+			unlink(id);
+		} else {
+			present[id] = true;
+			size++;
+			limit = Math.max(limit, id + 1);
+		}
+		
+		link(id, node);
+	}
+	
+	@Override
+	public void remove(int id) {
+		if (!contains(id)) return;
+		
+		unlink(id);
+		present[id] = false;
+		size--;
+	}
+	
+	@Override
+	public void clear() {
+		Arrays.fill(present, 0, limit, false);
+		Arrays.fill(heads, NONE);
+		Arrays.fill(levelCounts, 0);
+		
+		size = 0;
+		limit = 0;
+	}
+	
+	@Override
+	public boolean contains(int id) {
+		return id >= 0 && id < present.length && present[id];
+	}
+	
+	@Override
+	public int size() {
+		return size;
+	}
+	
+	// QUERIES //
+	
+	@Override
+	public void queryRect(float x, float y, float w, float h, SpatialVisitor visitor) {
+		shape = RECT;
+		queryMinX = x;
+		queryMinY = y;
+		queryMaxX = x + w;
+		queryMaxY = y + h;
+		
+		query(visitor);
+	}
+	
+	@Override
+	public void queryRadius(float x, float y, float radius, SpatialVisitor visitor) {
+		if (!(radius >= 0)) return;
+		
+		shape = CIRCLE;
+		queryX = x;
+		queryY = y;
+		queryLength = radius;
+		queryMinX = x - radius;
+		queryMinY = y - radius;
+		queryMaxX = x + radius;
+		queryMaxY = y + radius;
+		
+		query(visitor);
+	}
+	
+	@Override
+	public void queryRay(float x, float y, float dx, float dy, float length, SpatialVisitor visitor) {
+		if (!(length >= 0)) return;
+		
+		shape = RAY;
+		queryX = x;
+		queryY = y;
+		queryDX = dx;
+		queryDY = dy;
+		queryLength = length;
+		
+		// an infinite ray along an axis stays on its line
+		float endX = dx == 0 ? x : x + dx * length;
+		float endY = dy == 0 ? y : y + dy * length;
+		
+		queryMinX = Math.min(x, endX);
+		queryMinY = Math.min(y, endY);
+		queryMaxX = Math.max(x, endX);
+		queryMaxY = Math.max(y, endY);
+		
+		query(visitor);
+	}
+	
+	/*
+	 * Visits the nodes whose loose bounds touch the bounds of
+	 * the query. Each level is a grid, so the nodes are found
+	 * directly instead of walking down from the root.
+	 */
+	private void query(SpatialVisitor visitor) {
+		for (int level = 0; level <= depth; level++) {
+			if (levelCounts[level] == 0)
+				continue;
+			
+			int offset = levelOffsets[level];
+			
+			// the root also holds the objects outside the world
+			if (level == 0) {
+				if (!visitNode(offset, visitor))
+					return;
+				
+				continue;
+			}
+			
+			int cells = 1 << level;
+			float cellW = w / cells;
+			float cellH = h / cells;
+			
+			// cells whose bounds grown by half a cell touch the query
+			int column0 = clamp((float) Math.ceil((queryMinX - x) / cellW - 1.5f), cells);
+			int column1 = clamp((float) Math.floor((queryMaxX - x) / cellW + 0.5f), cells);
+			int row0 = clamp((float) Math.ceil((queryMinY - y) / cellH - 1.5f), cells);
+			int row1 = clamp((float) Math.floor((queryMaxY - y) / cellH + 0.5f), cells);
+			
+			for (int row = row0; row <= row1; row++) {
+				for (int column = column0; column <= column1; column++) {
+					int node = offset + (row << level) + column;
+					
+					if (heads[node] == NONE)
+						continue;
+					
+					// rays and circles don't fill their bounds
+					if (shape != RECT) {
+						float nodeX = x + (column - 0.5f) * cellW;
+						float nodeY = y + (row - 0.5f) * cellH;
+						
+						if (!test(nodeX, nodeY, nodeX + 2 * cellW, nodeY + 2 * cellH))
+							continue;
+					}
+					
+					if (!visitNode(node, visitor))
+						return;
+				}
+			}
+		}
+	}
+	
+	private boolean visitNode(int node, SpatialVisitor visitor) {
+		for (int id = heads[node]; id != NONE; id = next[id]) {
+			if (test(minX[id], minY[id], maxX[id], maxY[id]) && !visitor.visit(id))
+				return false;
+		}
+		
+		return true;
+	}
+	
+	private static int clamp(float cell, int cells) {
+		return (int) Math.max(0, Math.min(cells - 1, cell));
+	}
+	
+	private boolean test(float minX, float minY, float maxX, float maxY) {
+		switch (shape) {
+		case CIRCLE:
+			return SpatialBounds.overlapsCircle(minX, minY, maxX, maxY, queryX, queryY, queryLength);
+		case RAY:
+			return SpatialBounds.rayEntry(minX, minY, maxX, maxY,
+					queryX, queryY, queryDX, queryDY, queryLength) >= 0;
+		default:
+			return SpatialBounds.overlaps(minX, minY, maxX, maxY,
+					queryMinX, queryMinY, queryMaxX, queryMaxY);
+		}
+	}
+	
+	// NODES //
+	
+	/*
+	 * Finds the node of an object: the deepest level
+	 * whose cells are as big as the object, in the
+	 * cell holding its center.
+	 */
+	private int place(float x, float y, float w, float h) {
+		float centerX = (x + w * 0.5f - this.x) / this.w;
+		float centerY = (y + h * 0.5f - this.y) / this.h;
+		
+		if (!(centerX >= 0 && centerX < 1 && centerY >= 0 && centerY < 1))
+			return 0;
+		
+		for (int level = depth; level > 0; level--) {
+			int cells = 1 << level;
+			
+			if (w * cells <= this.w && h * cells <= this.h) {
+				int column = Math.min((int) (centerX * cells), cells - 1);
+				int row = Math.min((int) (centerY * cells), cells - 1);
+				
+				return levelOffsets[level] + (row << level) + column;
+			}
+		}
+		
+		return 0;
+	}
+	
+	private void link(int id, int node) {
+		int head = heads[node];
+		
+		nodes[id] = node;
+		previous[id] = NONE;
+		next[id] = head;
+		
+		if (head != NONE)
+			previous[head] = id;
+		
+		heads[node] = id;
+		count(node, 1);
+	}
+	
+	private void unlink(int id) {
+		int node = nodes[id];
+		int before = previous[id];
+		int after = next[id];
+		
+		if (before == NONE)
+			heads[node] = after;
+		else
+			next[before] = after;
+		
+		if (after != NONE)
+			previous[after] = before;
+		
+		count(node, -1);
+	}
+	
+	/*
+	 * Updates the object count of the level of a node.
+	 */
+	private void count(int node, int delta) {
+		int level = 0;
+		
+		while (level < depth && node >= levelOffsets[level + 1])
+			level++;
+		
+		levelCounts[level] += delta;
+	}
+	
+	private void growObjects(int minimum) {
+		int capacity = Math.max(minimum, present.length * 2);
+		
+		present = Arrays.copyOf(present, capacity);
+		minX = Arrays.copyOf(minX, capacity);
+		minY = Arrays.copyOf(minY, capacity);
+		maxX = Arrays.copyOf(maxX, capacity);
+		maxY = Arrays.copyOf(maxY, capacity);
+		nodes = Arrays.copyOf(nodes, capacity);
+		next = Arrays.copyOf(next, capacity);
+		previous = Arrays.copyOf(previous, capacity);
+	}
+	
+	// GETTERS //
+	
+	public float getX() {
+		return x;
+	}
+	
+	public float getY() {
+		return y;
+	}
+	
+	public float getW() {
+		return w;
+	}
+	
+	public float getH() {
+		return h;
+	}
+	
+	public int getDepth() {
+		return depth;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s{size=%d, depth=%d}", getClass().getName(), size, depth);
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib.spatial;
+
+/**
+ * Spatial bounds
+ * <p>
+ * Intersection tests between axis-aligned boxes given by
+ * their edges and the shapes of the queries.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+final class SpatialBounds {
+	
+	private SpatialBounds() { }
+	
+	/////////////////////////
+	
+	static boolean overlaps(float minX, float minY, float maxX, float maxY,
+			float queryMinX, float queryMinY, float queryMaxX, float queryMaxY) {
+		return minX <= queryMaxX && maxX >= queryMinX && minY <= queryMaxY && maxY >= queryMinY;
+	}
+	
+	static boolean overlapsCircle(float minX, float minY, float maxX, float maxY,
+			float x, float y, float radius) {
+		float dx = x - Math.max(minX, Math.min(x, maxX));
+		float dy = y - Math.max(minY, Math.min(y, maxY));
+		
+		return dx * dx + dy * dy <= radius * radius;
+	}
+	
+	/**
+	 * Finds where a ray enters a box (slab test).
+	 * 
+	 * @return the ray parameter in [0, length] where the
+	 * box is entered, or -1 when the ray misses it
+	 */
+	static float rayEntry(float minX, float minY, float maxX, float maxY,
+			float x, float y, float dx, float dy, float length) {
+		float near = 0;
+		float far = length;
+		
+		if (dx == 0) {
+			if (x < minX || x > maxX)
+				return -1;
+		} else {
+			float t0 = (minX - x) / dx;
+			float t1 = (maxX - x) / dx;
+			
+			near = Math.max(near, Math.min(t0, t1));
+			far = Math.min(far, Math.max(t0, t1));
+		}
+		
+		if (dy == 0) {
+			if (y < minY || y > maxY)
+				return -1;
+		} else {
+			float t0 = (minY - y) / dy;
+			float t1 = (maxY - y) / dy;
+			
+			near = Math.max(near, Math.min(t0, t1));
+			far = Math.min(far, Math.max(t0, t1));
+		}
+		
+		return near <= far ? near : -1;
+	}
+}
@@ -0,0 +1,583 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib.spatial;
+
+import java.util.Arrays;
+
+/**
+ * Spatial hash
+ * <p>
+ * Uniform grid for objects that move every tick. The world is
+ * split into square cells and each object is listed in the cells
+ * its bounds touch. Only the cells holding objects are stored, in
+ * a hash table of linked lists kept in int arrays, so the world
+ * has no limits. Moving an object inside the same cells only
+ * updates its bounds.
+ * <p>
+ * The cells should be about the size of the common objects.
+ * Objects touching too many cells are kept apart and tested by
+ * every query.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+public final class SpatialHash implements SpatialIndex {
+	
+	private static final int NONE				= -1;
+	private static final int INITIAL_CAPACITY	= 1024;
+	
+	// cells an object may touch before being kept apart
+	private static final int MAX_OBJECT_CELLS	= 64;
+	
+	// query shapes
+	private static final int RECT				= 0;
+	private static final int CIRCLE				= 1;
+	private static final int RAY				= 2;
+	
+	private final float cellSize;
+	private final float inverseCellSize;
+	
+	// first entry of each bucket
+	private int[] buckets;
+	
+	// entries (an object in a cell), linked in
+	// their bucket and in their object
+	private int[] entryObjects;
+	private int[] entryCellsX;
+	private int[] entryCellsY;
+	private int[] entryNext;
+	private int[] entryPrevious;
+	private int[] entryNextOfObject;
+	private int entryCount;
+	private int entryLimit;
+	private int freeEntry;
+	
+	// objects by id
+	private boolean[] present;
+	private float[] minX;
+	private float[] minY;
+	private float[] maxX;
+	private float[] maxY;
+	private int[] cellsX0;
+	private int[] cellsY0;
+	private int[] cellsX1;
+	private int[] cellsY1;
+	private int[] firstEntries;
+	private int size;
+	private int limit;
+	
+	// objects kept apart and their positions in the list
+	private int[] largeObjects;
+	private int[] largeSlots;
+	private int largeCount;
+	
+	// objects visited by the current query
+	private int[] marks;
+	private int mark;
+	
+	// current query
+	private int shape;
+	private float queryMinX;
+	private float queryMinY;
+	private float queryMaxX;
+	private float queryMaxY;
+	private float queryX;
+	private float queryY;
+	private float queryDX;
+	private float queryDY;
+	private float queryLength;
+	
+	/**
+	 * Creates a new {@code SpatialHash}.
+	 * 
+	 * @param cellSize width and height of the cells
+	 */
+	public SpatialHash(float cellSize) {
+		if (!(cellSize > 0))
+			throw new IllegalArgumentException("Cell size must be above 0. You typed " + cellSize);
+		
+		this.cellSize = cellSize;
+		this.inverseCellSize = 1.0f / cellSize;
+		
+		this.buckets = new int[INITIAL_CAPACITY];
+		Arrays.fill(buckets, NONE);
+		
+		this.entryObjects = new int[INITIAL_CAPACITY];
+		this.entryCellsX = new int[INITIAL_CAPACITY];
+		this.entryCellsY = new int[INITIAL_CAPACITY];
+		this.entryNext = new int[INITIAL_CAPACITY];
+		this.entryPrevious = new int[INITIAL_CAPACITY];
+		this.entryNextOfObject = new int[INITIAL_CAPACITY];
+		this.freeEntry = NONE;
+		
+		this.present = new boolean[INITIAL_CAPACITY];
+		this.minX = new float[INITIAL_CAPACITY];
+		this.minY = new float[INITIAL_CAPACITY];
+		this.maxX = new float[INITIAL_CAPACITY];
+		this.maxY = new float[INITIAL_CAPACITY];
+		this.cellsX0 = new int[INITIAL_CAPACITY];
+		this.cellsY0 = new int[INITIAL_CAPACITY];
+		this.cellsX1 = new int[INITIAL_CAPACITY];
+		this.cellsY1 = new int[INITIAL_CAPACITY];
+		this.firstEntries = new int[INITIAL_CAPACITY];
+		this.largeSlots = new int[INITIAL_CAPACITY];
+		this.largeObjects = new int[16];
+		this.marks = new int[INITIAL_CAPACITY];
+		
+		Arrays.fill(firstEntries, NONE);
+		Arrays.fill(largeSlots, NONE);
+	}
+	
+	/////////////////////////
+	
+	@Override
+	public void insert(int id, float x, float y, float w, float h) {
+		if (id < 0)
+			throw new IllegalArgumentException("Id must not be negative. You typed " + id);
+		
+		if (id >= present.length)
+			growObjects(id + 1);
+		
+		int x0 = cell(x);
+		int y0 = cell(y);
+		int x1 = cell(x + w);
+		int y1 = cell(y + h);
+		
+		minX[id] = x;
+		minY[id] = y;
+		maxX[id] = x + w;
+		maxY[id] = y + h;
+		
+		if (present[id]) {
+			// still in the same cells
+			if (x0 == cellsX0[id] && y0 == cellsY0[id] && x1 == cellsX1[id] && y1 == cellsY1[id])
+				return;
+			
+			unlink(id);
+		} else {
+			present[id] = true;
+			size++;
+			limit = Math.max(limit, id + 1);
+		}
+		
+		cellsX0[id] = x0;
+		cellsY0[id] = y0;
+		cellsX1[id] = x1;
+		cellsY1[id] = y1;
+		
+		link(id);
+	}
+	
+	@Override
+	public void remove(int id) {
+		if (!contains(id)) return;
+		
+		unlink(id);
+		present[id] = false;
+		size--;
+	}
+	
+	@Override
+	public void clear() {
+		Arrays.fill(present, 0, limit, false);
+		Arrays.fill(firstEntries, 0, limit, NONE);
+		Arrays.fill(largeSlots, 0, limit, NONE);
+		Arrays.fill(buckets, NONE);
+		Arrays.fill(entryObjects, 0, entryLimit, NONE);
+		
+		entryCount = 0;
+		entryLimit = 0;
+		freeEntry = NONE;
+		largeCount = 0;
+		size = 0;
+		limit = 0;
+	}
+	
+	@Override
+	public boolean contains(int id) {
+		return id >= 0 && id < present.length && present[id];
+	}
+	
+	@Override
+	public int size() {
+		return size;
+	}
+	
+	// QUERIES //
+	
+	@Override
+	public void queryRect(float x, float y, float w, float h, SpatialVisitor visitor) {
+		shape = RECT;
+		queryMinX = x;
+		queryMinY = y;
+		queryMaxX = x + w;
+		queryMaxY = y + h;
+		
+		query(visitor);
+	}
+	
+	@Override
+	public void queryRadius(float x, float y, float radius, SpatialVisitor visitor) {
+		if (!(radius >= 0)) return;
+		
+		shape = CIRCLE;
+		queryX = x;
+		queryY = y;
+		queryLength = radius;
+		queryMinX = x - radius;
+		queryMinY = y - radius;
+		queryMaxX = x + radius;
+		queryMaxY = y + radius;
+		
+		query(visitor);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The cells are walked from the origin of the ray, so
+	 * the nearer objects are usually visited first.
+	 */
+	@Override
+	public void queryRay(float x, float y, float dx, float dy, float length, SpatialVisitor visitor) {
+		if (!(length >= 0)) return;
+		
+		shape = RAY;
+		queryX = x;
+		queryY = y;
+		queryDX = dx;
+		queryDY = dy;
+		queryLength = length;
+		
+		nextMark();
+		
+		int cellX = cell(x);
+		int cellY = cell(y);
+		// an infinite ray along an axis stays on its line
+		int endX = cell(dx == 0 ? x : x + dx * length);
+		int endY = cell(dy == 0 ? y : y + dy * length);
+		long steps = Math.abs((long) endX - cellX) + Math.abs((long) endY - cellY);
+		
+		// cheaper to test every object
+		if (steps >= limit) {
+			visitAll(visitor);
+			return;
+		}
+		
+		int stepX = dx > 0 ? 1 : -1;
+		int stepY = dy > 0 ? 1 : -1;
+		
+		// ray parameter at the next cell edge on each axis
+		float nextX = dx == 0 ? Float.POSITIVE_INFINITY : ((cellX + (dx > 0 ? 1 : 0)) * cellSize - x) / dx;
+		float nextY = dy == 0 ? Float.POSITIVE_INFINITY : ((cellY + (dy > 0 ? 1 : 0)) * cellSize - y) / dy;
+		float deltaX = dx == 0 ? Float.POSITIVE_INFINITY : cellSize / Math.abs(dx);
+		float deltaY = dy == 0 ? Float.POSITIVE_INFINITY : cellSize / Math.abs(dy);
+		
+		for (long step = 0; ; step++) {
+			if (!visitCell(cellX, cellY, visitor))
+				return;
+			
+			if (step == steps)
+				break;
+			
+			if (cellY == endY || (cellX != endX && nextX < nextY)) {
+				cellX += stepX;
+				nextX += deltaX;
+			} else {
+				cellY += stepY;
+				nextY += deltaY;
+			}
+		}
+		
+		visitLarge(visitor);
+	}
+	
+	/*
+	 * Visits the cells overlapping the bounds of the query.
+	 */
+	private void query(SpatialVisitor visitor) {
+		nextMark();
+		
+		int x0 = cell(queryMinX);
+		int y0 = cell(queryMinY);
+		int x1 = cell(queryMaxX);
+		int y1 = cell(queryMaxY);
+		
+		// cheaper to test every object
+		if (countCells(x0, y0, x1, y1) >= limit) {
+			visitAll(visitor);
+			return;
+		}
+		
+		// long counters, since the cells saturate at the int range
+		for (long cellY = y0; cellY <= y1; cellY++) {
+			for (long cellX = x0; cellX <= x1; cellX++) {
+				if (!visitCell((int) cellX, (int) cellY, visitor))
+					return;
+			}
+		}
+		
+		visitLarge(visitor);
+	}
+	
+	private boolean visitCell(int cellX, int cellY, SpatialVisitor visitor) {
+		for (int entry = buckets[bucket(cellX, cellY)]; entry != NONE; entry = entryNext[entry]) {
+			if (entryCellsX[entry] != cellX || entryCellsY[entry] != cellY)
+				continue;
+			
+			int id = entryObjects[entry];
+			
+			if (marks[id] == mark)
+				continue;
+			
+			marks[id] = mark;
+			
+			if (test(id) && !visitor.visit(id))
+				return false;
+		}
+		
+		return true;
+	}
+	
+	private void visitLarge(SpatialVisitor visitor) {
+		for (int i = 0; i < largeCount; i++) {
+			int id = largeObjects[i];
+			
+			if (test(id) && !visitor.visit(id))
+				return;
+		}
+	}
+	
+	private void visitAll(SpatialVisitor visitor) {
+		for (int id = 0; id < limit; id++) {
+			if (present[id] && test(id) && !visitor.visit(id))
+				return;
+		}
+	}
+	
+	private boolean test(int id) {
+		switch (shape) {
+		case CIRCLE:
+			return SpatialBounds.overlapsCircle(minX[id], minY[id], maxX[id], maxY[id], queryX, queryY, queryLength);
+		case RAY:
+			return SpatialBounds.rayEntry(minX[id], minY[id], maxX[id], maxY[id],
+					queryX, queryY, queryDX, queryDY, queryLength) >= 0;
+		default:
+			return SpatialBounds.overlaps(minX[id], minY[id], maxX[id], maxY[id],
+					queryMinX, queryMinY, queryMaxX, queryMaxY);
+		}
+	}
+	
+	private void nextMark() {
+		if (++mark == 0) {
+			Arrays.fill(marks, 0);
+			mark = 1;
+		}
+	}
+	
+	// ENTRIES //
+	
+	/*
+	 * Lists the object in its cells.
+	 */
+	private void link(int id) {
+		int x0 = cellsX0[id];
+		int y0 = cellsY0[id];
+		int x1 = cellsX1[id];
+		int y1 = cellsY1[id];
+		long cells = countCells(x0, y0, x1, y1);
+		
+		firstEntries[id] = NONE;
+		
+		if (cells > MAX_OBJECT_CELLS) {
+			if (largeCount == largeObjects.length)
+				largeObjects = Arrays.copyOf(largeObjects, largeCount * 2);
+			
+			largeSlots[id] = largeCount;
+			largeObjects[largeCount++] = id;
+			return;
+		}
+		
+		ensureEntries((int) cells);
+		
+		for (long row = y0; row <= y1; row++) {
+			for (long column = x0; column <= x1; column++) {
+				int cellX = (int) column;
+				int cellY = (int) row;
+				int entry = freeEntry;
+				
+				if (entry != NONE)
+					freeEntry = entryNext[entry];
+				else
+					entry = entryLimit++;
+				
+				entryObjects[entry] = id;
+				entryCellsX[entry] = cellX;
+				entryCellsY[entry] = cellY;
+				entryNextOfObject[entry] = firstEntries[id];
+				firstEntries[id] = entry;
+				entryCount++;
+				
+				linkBucket(entry, bucket(cellX, cellY));
+			}
+		}
+	}
+	
+	private void unlink(int id) {
+		int slot = largeSlots[id];
+		
+		if (slot != NONE) {
+			int last = largeObjects[--largeCount];
+			
+			largeObjects[slot] = last;
+			largeSlots[last] = slot;
+			largeSlots[id] = NONE;
+			return;
+		}
+		
+		for (int entry = firstEntries[id]; entry != NONE; ) {
+			int next = entryNextOfObject[entry];
+			int previousInBucket = entryPrevious[entry];
+			int nextInBucket = entryNext[entry];
+			
+			if (previousInBucket == NONE)
+				buckets[bucket(entryCellsX[entry], entryCellsY[entry])] = nextInBucket;
+			else
+				entryNext[previousInBucket] = nextInBucket;
+			
+			if (nextInBucket != NONE)
+				entryPrevious[nextInBucket] = previousInBucket;
+			
+			entryObjects[entry] = NONE;
+			entryNext[entry] = freeEntry;
+			freeEntry = entry;
+			entryCount--;
+			
+			entry = next;
+		}
+		
+		firstEntries[id] = NONE;
+	}
+	
+	private void linkBucket(int entry, int bucket) {
+		int first = buckets[bucket];
+		
+		entryPrevious[entry] = NONE;
+		entryNext[entry] = first;
+		
+		if (first != NONE)
+			entryPrevious[first] = entry;
+		
+		buckets[bucket] = entry;
+	}
+	
+	private int bucket(int cellX, int cellY) {
+		int hash = cellX * 0x9E3779B1 + cellY * 0x7FEB352D;
+		
+		return (hash ^ (hash >>> 15)) & (buckets.length - 1);
+	}
+	
+	private int cell(float coord) {
+		return (int) Math.floor(coord * inverseCellSize);
+	}
+	
+	/*
+	 * Counts the cells of a range, saturating instead of
+	 * overflowing when it spans the whole int range.
+	 */
+	private static long countCells(int x0, int y0, int x1, int y1) {
+		long columns = (long) x1 - x0 + 1;
+		long rows = (long) y1 - y0 + 1;
+		
+		if (columns > Integer.MAX_VALUE || rows > Integer.MAX_VALUE)
+			return Long.MAX_VALUE;
+		
+		return columns * rows;
+	}
+	
+	/*
+	 * Makes room for more entries, keeping the
+	 * buckets at most as many as the entries.
+	 */
+	private void ensureEntries(int entries) {
+		if (entryLimit + entries > entryObjects.length) {
+			int capacity = Math.max(entryLimit + entries, entryObjects.length * 2);
+			
+			entryObjects = Arrays.copyOf(entryObjects, capacity);
+			entryCellsX = Arrays.copyOf(entryCellsX, capacity);
+			entryCellsY = Arrays.copyOf(entryCellsY, capacity);
+			entryNext = Arrays.copyOf(entryNext, capacity);
+			entryPrevious = Arrays.copyOf(entryPrevious, capacity);
+			entryNextOfObject = Arrays.copyOf(entryNextOfObject, capacity);
+		}
+		
+		if (entryCount + entries > buckets.length) {
+			int capacity = buckets.length * 2;
+			
+			while (capacity < entryCount + entries)
+				capacity *= 2;
+			
+			buckets = new int[capacity];
+			Arrays.fill(buckets, NONE);
+			
+			for (int entry = 0; entry < entryLimit; entry++) {
+				if (entryObjects[entry] != NONE)
+					linkBucket(entry, bucket(entryCellsX[entry], entryCellsY[entry]));
+			}
+		}
+	}
+	
+	private void growObjects(int minimum) {
+		int previous = present.length;
+		int capacity = Math.max(minimum, previous * 2);
+		
+		present = Arrays.copyOf(present, capacity);
+		minX = Arrays.copyOf(minX, capacity);
+		minY = Arrays.copyOf(minY, capacity);
+		maxX = Arrays.copyOf(maxX, capacity);
+		maxY = Arrays.copyOf(maxY, capacity);
+		cellsX0 = Arrays.copyOf(cellsX0, capacity);
+		cellsY0 = Arrays.copyOf(cellsY0, capacity);
+		cellsX1 = Arrays.copyOf(cellsX1, capacity);
+		cellsY1 = Arrays.copyOf(cellsY1, capacity);
+		firstEntries = Arrays.copyOf(firstEntries, capacity);
+		largeSlots = Arrays.copyOf(largeSlots, capacity);
+		marks = Arrays.copyOf(marks, capacity);
+		
+		Arrays.fill(firstEntries, previous, capacity, NONE);
+		Arrays.fill(largeSlots, previous, capacity, NONE);
+	}
+	
+	// GETTERS //
+	
+	public float getCellSize() {
+		return cellSize;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s{size=%d, cellSize=%.2f}", getClass().getName(), size, cellSize);
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib.spatial;
+
+import com.mikronia.glib.physics.Box;
+
+/**
+ * Spatial index
+ * <p>
+ * Finds the objects of a world by their bounds. Objects are
+ * identified by non-negative ids, which index the arrays of
+ * the index, so they should be small and dense (like the slots
+ * of an entity array). Queries pass the objects found to a
+ * visitor instead of returning a list, and an object is visited
+ * at most once per query.
+ * <p>
+ * Indexes aren't thread-safe, and a visitor must not query or
+ * change the index it is visiting.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+public interface SpatialIndex {
+	
+	/**
+	 * Adds an object, or moves it when already added.
+	 * 
+	 * @param id the object id
+	 * @param x left edge
+	 * @param y top edge
+	 * @param w width
+	 * @param h height
+	 */
+	public void insert(int id, float x, float y, float w, float h);
+	
+	/**
+	 * Removes an object. Does nothing if it wasn't added.
+	 * 
+	 * @param id the object id
+	 */
+	public void remove(int id);
+	
+	/**
+	 * Removes all the objects.
+	 */
+	public void clear();
+	
+	public boolean contains(int id);
+	
+	/**
+	 * Gets the number of objects.
+	 */
+	public int size();
+	
+	/////////////////////////
+	
+	/**
+	 * Visits the objects overlapping a rectangle.
+	 */
+	public void queryRect(float x, float y, float w, float h, SpatialVisitor visitor);
+	
+	/**
+	 * Visits the objects overlapping a circle.
+	 */
+	public void queryRadius(float x, float y, float radius, SpatialVisitor visitor);
+	
+	/**
+	 * Visits the objects hit by a ray from (x, y) going along
+	 * (dx, dy) up to the given length, in units of (dx, dy).
+	 */
+	public void queryRay(float x, float y, float dx, float dy, float length, SpatialVisitor visitor);
+	
+	/////////////////////////
+	
+	/**
+	 * Moves an object, adding it when it wasn't added.
+	 */
+	public default void update(int id, float x, float y, float w, float h) {
+		insert(id, x, y, w, h);
+	}
+	
+	public default void insert(int id, Box box) {
+		insert(id, box.x(), box.y(), box.w(), box.h());
+	}
+	
+	public default void update(int id, Box box) {
+		update(id, box.x(), box.y(), box.w(), box.h());
+	}
+	
+	public default void queryRect(Box box, SpatialVisitor visitor) {
+		queryRect(box.x(), box.y(), box.w(), box.h(), visitor);
+	}
+	
+}
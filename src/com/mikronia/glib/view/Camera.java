@@ -1,8 +1,282 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
 package com.mikronia.glib.view;
 
-public class Camera {
+import java.awt.geom.AffineTransform;
 
+/**
+ * Camera
+ * <p>
+ * Maps the world to a viewport of the screen. The position is
+ * the world point shown at the center of the viewport, scaled by
+ * the zoom and rotated around it. Bound to a batch (see
+ * {@code GLibBatch.setCamera}), the draw calls take world
+ * coordinates and the ones entirely outside the view are culled.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+public class Camera {
+	
+	private float x;
+	private float y;
+	private float zoom;
+	private float rotation;
+	
+	// viewport in screen pixels (empty until set or bound)
+	private int viewportX;
+	private int viewportY;
+	private int viewportWidth;
+	private int viewportHeight;
+	
+	// world to screen transform and world bounds of the
+	// view, updated only after the camera changes
+	private final AffineTransform transform;
+	private float left;
+	private float top;
+	private float right;
+	private float bottom;
+	private boolean changed;
+	
+	/**
+	 * Creates a camera at the world origin. The viewport
+	 * is the whole screen once bound to a batch.
+	 */
 	public Camera() {
+		this.zoom = 1.0f;
+		this.transform = new AffineTransform();
+		this.changed = true;
+	}
+	
+	/**
+	 * Creates a camera at the world origin
+	 * with the given viewport size.
+	 */
+	public Camera(int viewportWidth, int viewportHeight) {
+		this();
+		setViewport(0, 0, viewportWidth, viewportHeight);
+	}
+	
+	// ACTIONS //
+	
+	public void move(float dx, float dy) {
+		setPosition(x + dx, y + dy);
+	}
+	
+	/**
+	 * Tests whether a world rectangle is at least
+	 * partially inside the view.
+	 */
+	public boolean isVisible(float x, float y, float w, float h) {
+		update();
+		return x < right && x + w > left && y < bottom && y + h > top;
+	}
+	
+	/**
+	 * Tests whether a world point is inside the view.
+	 */
+	public boolean isVisible(float x, float y) {
+		update();
+		return x >= left && x < right && y >= top && y < bottom;
+	}
+	
+	/////////////////////////
+	
+	// screen = viewport center + rotation(zoom * (world - position))
+	
+	public float toScreenX(float worldX, float worldY) {
+		float dx = (worldX - x) * zoom;
+		float dy = (worldY - y) * zoom;
 		
+		return viewportX + viewportWidth * 0.5f + dx * cos() - dy * sin();
+	}
+	
+	public float toScreenY(float worldX, float worldY) {
+		float dx = (worldX - x) * zoom;
+		float dy = (worldY - y) * zoom;
+		
+		return viewportY + viewportHeight * 0.5f + dx * sin() + dy * cos();
+	}
+	
+	public float toWorldX(float screenX, float screenY) {
+		float dx = screenX - viewportX - viewportWidth * 0.5f;
+		float dy = screenY - viewportY - viewportHeight * 0.5f;
+		
+		return x + (dx * cos() + dy * sin()) / zoom;
+	}
+	
+	public float toWorldY(float screenX, float screenY) {
+		float dx = screenX - viewportX - viewportWidth * 0.5f;
+		float dy = screenY - viewportY - viewportHeight * 0.5f;
+		
+		return y + (dy * cos() - dx * sin()) / zoom;
+	}
+	
+	/////////////////////////
+	
+	private void update() {
+		if (!changed) return;
+		
+		transform.setToTranslation(viewportX + viewportWidth * 0.5, viewportY + viewportHeight * 0.5);
+		transform.rotate(rotation);
+		transform.scale(zoom, zoom);
+		transform.translate(-x, -y);
+		
+		// the rotated viewport seen from the world
+		float cos = Math.abs(cos());
+		float sin = Math.abs(sin());
+		float extentX = (viewportWidth * cos + viewportHeight * sin) * 0.5f / zoom;
+		float extentY = (viewportWidth * sin + viewportHeight * cos) * 0.5f / zoom;
+		
+		left = x - extentX;
+		top = y - extentY;
+		right = x + extentX;
+		bottom = y + extentY;
+		
+		changed = false;
+	}
+	
+	private float cos() {
+		return rotation == 0 ? 1.0f : (float) Math.cos(rotation);
+	}
+	
+	private float sin() {
+		return rotation == 0 ? 0.0f : (float) Math.sin(rotation);
+	}
+	
+	// SETTERS //
+	
+	public void setPosition(float x, float y) {
+		this.x = x;
+		this.y = y;
+		this.changed = true;
+	}
+	
+	/**
+	 * Sets the zoom, 1 by default. Above 1 the
+	 * world looks bigger.
+	 */
+	public void setZoom(float zoom) {
+		if (!(zoom > 0))
+			throw new IllegalArgumentException("Zoom must be above 0. You typed " + zoom);
+		
+		this.zoom = zoom;
+		this.changed = true;
+	}
+	
+	/**
+	 * Sets the rotation of the view in radians.
+	 */
+	public void setRotation(float rotation) {
+		this.rotation = rotation;
+		this.changed = true;
+	}
+	
+	/**
+	 * Sets the area of the screen the world is shown in.
+	 */
+	public void setViewport(int x, int y, int width, int height) {
+		if (width < 0 || height < 0)
+			throw new IllegalArgumentException(String.format(
+					"Viewport size must not be negative. You typed %dx%d", width, height));
+		
+		this.viewportX = x;
+		this.viewportY = y;
+		this.viewportWidth = width;
+		this.viewportHeight = height;
+		this.changed = true;
+	}
+	
+	// GETTERS //
+	
+	public float getX() {
+		return x;
+	}
+	
+	public float getY() {
+		return y;
+	}
+	
+	public float getZoom() {
+		return zoom;
+	}
+	
+	public float getRotation() {
+		return rotation;
+	}
+	
+	public int getViewportX() {
+		return viewportX;
+	}
+	
+	public int getViewportY() {
+		return viewportY;
+	}
+	
+	public int getViewportWidth() {
+		return viewportWidth;
+	}
+	
+	public int getViewportHeight() {
+		return viewportHeight;
+	}
+	
+	/**
+	 * Gets the world to screen transform. The object is
+	 * reused by the camera and must not be changed.
+	 */
+	public AffineTransform getTransform() {
+		update();
+		return transform;
+	}
+	
+	// world bounds of the view
+	
+	public float getViewLeft() {
+		update();
+		return left;
+	}
+	
+	public float getViewTop() {
+		update();
+		return top;
+	}
+	
+	public float getViewRight() {
+		update();
+		return right;
+	}
+	
+	public float getViewBottom() {
+		update();
+		return bottom;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s{x=%.2f, y=%.2f, zoom=%.2f, rotation=%.2f}",
+			getClass().getName(), x, y, zoom, rotation);
 	}
 }
@@ -11,6 +11,10 @@ module mikronia.glib {
 	exports com.mikronia.glib;
 	exports com.mikronia.glib.vector;
 	exports com.mikronia.glib.animation;
+	exports com.mikronia.glib.particles;
+	exports com.mikronia.glib.view;
+	exports com.mikronia.glib.spatial;
+	exports com.mikronia.glib.physics;
 
 	opens com.mikronia.glib.utils;
 	opens com.mikronia.glib.audio;
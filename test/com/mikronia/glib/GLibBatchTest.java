@@ -0,0 +1,194 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.mikronia.glib.particles.ParticleSystem;
+import com.mikronia.glib.view.Camera;
+
+/**
+ * GLib batch tests
+ * <p>
+ * Checks the area seen through the transforms and cameras,
+ * and draws a system of fading particles, whose tints change
+ * every frame, to check that the frames allocate nothing but
+ * the noise of the JIT once warmed up, on Java2D and on the
+ * software rasterizer.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+class GLibBatchTest {
+	
+	private static final String SPRITESHEET = "batch-test";
+	
+	private static final int WARM_UP = 600;
+	private static final int FRAMES = 200;
+	
+	// bytes per frame left to the JIT and the thread allocation
+	// buffers, far below the megabytes of re-tinting every frame
+	private static final long ALLOCATION_NOISE = 256;
+	
+	private static int sprite;
+	
+	@BeforeAll
+	static void loadSprites() {
+		var sheet = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+		
+		for (int y = 0; y < 8; y++) {
+			for (int x = 0; x < 8; x++)
+				sheet.setRGB(x, y, x < 4 ? 0xFFFFFFFF : 0x80C0C0C0);
+		}
+		
+		int handle = GLibSpritesheets.loadSpritesheet(SPRITESHEET, sheet, 4, 4, GLibSpritesheets.SHARED);
+		sprite = GLibSpritesheets.getSpriteHandle(handle, 0, 0);
+	}
+	
+	@AfterAll
+	static void deleteSprites() {
+		GLibSpritesheets.deleteSpritesheets();
+	}
+	
+	/*
+	 * Runs frames of fading particles and returns the bytes
+	 * allocated per frame by updating and drawing them, after
+	 * the warm up. The batch must not allocate colors, strokes
+	 * nor transforms once warmed up either.
+	 */
+	private static long allocatedPerFrame(GLibBatch batch) {
+		var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		var system = new ParticleSystem(10000);
+		var random = new Random(1);
+		
+		system.setFadeOut(true);
+		
+		long allocated = 0;
+		
+		for (int frame = 0; frame < WARM_UP + FRAMES; frame++) {
+			for (int i = 0; i < 100; i++) {
+				system.emit(random.nextInt(320), random.nextInt(240),
+						random.nextFloat() * 40 - 20, random.nextFloat() * 40 - 20,
+						0.5f + random.nextFloat() * 2, 0xFFE08020, sprite);
+			}
+			
+			batch.beginFrame();
+			
+			long before = threads.getCurrentThreadAllocatedBytes();
+			
+			system.update(1 / 60.0f);
+			system.render(batch);
+			
+			if (frame >= WARM_UP) {
+				allocated += threads.getCurrentThreadAllocatedBytes() - before;
+				assertEquals(0, batch.getAllocations(), "frame " + frame);
+			}
+		}
+		
+		assertTrue(system.getCount() > 5000, "count " + system.getCount());
+		
+		return allocated / FRAMES;
+	}
+	
+	private static GLibBatch batch() {
+		var target = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+		return new GLibBatch(target.createGraphics(), 320, 240);
+	}
+	
+	/////////////////////////
+	
+	@Test
+	void visibleBoundsFollowTheTransform() {
+		var batch = batch();
+		var bounds = new float[4];
+		
+		assertTrue(batch.getVisibleBounds(bounds));
+		assertArrayEquals(new float[] { 0, 0, 320, 240 }, bounds);
+		
+		// screen = 2 * point - (100, 50)
+		batch.translate(-100, -50);
+		batch.scale(2, 2);
+		
+		assertTrue(batch.getVisibleBounds(bounds));
+		assertArrayEquals(new float[] { 50, 25, 210, 145 }, bounds, 1.0e-4f);
+		
+		// a quarter turn around the origin
+		batch.rotate((float) (Math.PI / 2), 0, 0);
+		
+		assertTrue(batch.getVisibleBounds(bounds));
+		assertArrayEquals(new float[] { 25, -210, 145, -50 }, bounds, 1.0e-3f);
+		
+		batch.scale(0, 1);
+		
+		assertFalse(batch.getVisibleBounds(bounds));
+	}
+	
+	@Test
+	void visibleBoundsFollowTheCamera() {
+		var batch = batch();
+		var camera = new Camera();
+		var bounds = new float[4];
+		
+		camera.setPosition(1000, 500);
+		camera.setZoom(2);
+		batch.setCamera(camera);
+		
+		assertTrue(batch.getVisibleBounds(bounds));
+		assertArrayEquals(new float[] { 920, 440, 1080, 560 }, bounds, 1.0e-4f);
+		
+		camera.move(10, 0);
+		
+		assertTrue(batch.getVisibleBounds(bounds));
+		assertArrayEquals(new float[] { 930, 440, 1090, 560 }, bounds, 1.0e-4f);
+	}
+	
+	@Test
+	void fadingSpritesAllocateNothingOnJava2D() {
+		long allocated = allocatedPerFrame(batch());
+		
+		assertTrue(allocated <= ALLOCATION_NOISE, "allocated " + allocated + " bytes per frame");
+	}
+	
+	@Test
+	void fadingSpritesAllocateNothingOnTheRasterizer() {
+		var target = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+		var batch = new GLibBatch(target.createGraphics(), new GLibRasterizer(target), 320, 240);
+		
+		long allocated = allocatedPerFrame(batch);
+		
+		assertTrue(allocated <= ALLOCATION_NOISE, "allocated " + allocated + " bytes per frame");
+	}
+}
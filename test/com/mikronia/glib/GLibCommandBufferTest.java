@@ -0,0 +1,161 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * GLib command buffer tests
+ * <p>
+ * Checks the order of the sorted commands, on both sides of
+ * the radix sort threshold, against a stable reference sort.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+class GLibCommandBufferTest {
+	
+	/*
+	 * Records a rectangle holding its recording index in x.
+	 */
+	private static void record(GLibCommandBuffer buffer, int index, int color, int layer, float depth) {
+		buffer.record(GLibCommandBuffer.FILL_RECT, index, 0, 1, 1, 0, 0, color, layer, depth, null, null);
+	}
+	
+	private static int recorded(GLibCommandBuffer buffer, int position) {
+		return (int) buffer.coord(buffer.command(position), 0);
+	}
+	
+	/////////////////////////
+	
+	@Test
+	void sortsLayersAcrossZero() {
+		// layers out of the short range are clamped to it
+		int[] layers = { 5, -3, 0, Short.MAX_VALUE, -1, 1, Short.MIN_VALUE, 100000, -100000 };
+		int[] expected = { -3, -1, 0, 1, 5 };
+		
+		// insertion sort below the threshold, radix sort above it
+		for (int copies : new int[] { 1, 20 }) {
+			var buffer = new GLibCommandBuffer();
+			
+			for (int copy = 0; copy < copies; copy++) {
+				for (int i = 0; i < layers.length; i++)
+					record(buffer, copy * layers.length + i, 0xFF000000, layers[i], 0);
+			}
+			
+			buffer.sort();
+			
+			int position = 0;
+			
+			// the clamped layers first, then the middle ones, then the top
+			for (int copy = 0; copy < copies; copy++) {
+				assertEquals(copy * layers.length + 6, recorded(buffer, position++));
+				assertEquals(copy * layers.length + 8, recorded(buffer, position++));
+			}
+			
+			for (int layer : expected) {
+				int index = indexOf(layers, layer);
+				
+				for (int copy = 0; copy < copies; copy++)
+					assertEquals(copy * layers.length + index, recorded(buffer, position++), "layer " + layer);
+			}
+			
+			for (int copy = 0; copy < copies; copy++) {
+				assertEquals(copy * layers.length + 3, recorded(buffer, position++));
+				assertEquals(copy * layers.length + 7, recorded(buffer, position++));
+			}
+		}
+	}
+	
+	private static int indexOf(int[] values, int value) {
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == value)
+				return i;
+		}
+		
+		return -1;
+	}
+	
+	@Test
+	void matchesAStableReferenceSort() {
+		var random = new Random(21);
+		int[] layers = { Short.MIN_VALUE, -70000, -2, -1, 0, 1, 2, 300, Short.MAX_VALUE, 70000 };
+		float[] depths = { Float.NEGATIVE_INFINITY, -1.5e9f, -3, -0.0f, 0.0f, Float.MIN_VALUE, 0.5f, 7, 1.0e30f,
+				Float.POSITIVE_INFINITY, Float.NaN };
+		int[] colors = { 0xFF000000, 0xFFFFFFFF, 0x80FF0000, 0x00000000, 0xFF00FF00 };
+		Object[] images = { new Object(), new Object(), new Object() };
+		
+		for (int size : new int[] { 0, 1, 2, 17, 63, 64, 65, 100, 1000, 5000 }) {
+			for (int trial = 0; trial < 5; trial++) {
+				var buffer = new GLibCommandBuffer();
+				var reference = new ArrayList<int[]>();
+				
+				// state ids follow the first appearance of each color or image
+				var colorStates = new HashMap<Integer, Integer>();
+				var imageStates = new IdentityHashMap<Object, Integer>();
+				float[] recordedDepths = new float[size];
+				
+				for (int i = 0; i < size; i++) {
+					int layer = layers[random.nextInt(trial == 0 ? 2 : layers.length)];
+					float depth = depths[random.nextInt(depths.length)];
+					int state;
+					
+					if (random.nextInt(3) == 0) {
+						var image = images[random.nextInt(images.length)];
+						
+						buffer.record(GLibCommandBuffer.DRAW_SPRITE, i, 0, 1, 1, 0, 0, 0xFFFFFFFF, layer, depth, image, null);
+						state = imageStates.computeIfAbsent(image, key -> colorStates.size() + imageStates.size() + 1);
+					} else {
+						int color = colors[random.nextInt(colors.length)];
+						
+						record(buffer, i, color, layer, depth);
+						state = colorStates.computeIfAbsent(color, key -> colorStates.size() + imageStates.size() + 1);
+					}
+					
+					recordedDepths[i] = depth;
+					reference.add(new int[] { i, Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, layer)), state });
+				}
+				
+				// List.sort is stable, so equal keys keep their recording order
+				reference.sort(Comparator.<int[]>comparingInt(command -> command[1])
+						.thenComparing((a, b) -> Float.compare(recordedDepths[a[0]], recordedDepths[b[0]]))
+						.thenComparingInt(command -> command[2]));
+				
+				buffer.sort();
+				
+				for (int position = 0; position < size; position++)
+					assertEquals(reference.get(position)[0], recorded(buffer, position), "size " + size + " position " + position);
+			}
+		}
+	}
+}
@@ -0,0 +1,198 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * GLib dirty region tests
+ * <p>
+ * Adds random rectangles and checks the merged region against
+ * a pixel grid of everything added.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+class GLibDirtyRegionTest {
+	
+	private static final int WIDTH = 320;
+	private static final int HEIGHT = 240;
+	
+	// the region never holds more rectangles than this
+	private static final int MAX_RECTS = 16;
+	
+	// rectangles closer than this were worth merging
+	private static final int MERGE_SLACK = 1024;
+	
+	/*
+	 * Adds a rectangle to the region and to the pixel grid.
+	 */
+	private static void add(GLibDirtyRegion region, boolean[] grid, int left, int top, int right, int bottom) {
+		region.add(left, top, right, bottom);
+		
+		for (int y = Math.max(top, 0); y < Math.min(bottom, HEIGHT); y++) {
+			for (int x = Math.max(left, 0); x < Math.min(right, WIDTH); x++)
+				grid[y * WIDTH + x] = true;
+		}
+	}
+	
+	private static boolean covers(GLibDirtyRegion region, int x, int y) {
+		for (int rect = 0; rect < region.size(); rect++) {
+			if (region.intersects(rect, x, y, x + 1, y + 1))
+				return true;
+		}
+		
+		return false;
+	}
+	
+	/*
+	 * Checks that the region covers the grid, stays on the
+	 * screen and keeps no pair of rectangles worth merging.
+	 */
+	private static void assertValid(GLibDirtyRegion region, boolean[] grid) {
+		assertTrue(region.size() <= MAX_RECTS);
+		
+		for (int rect = 0; rect < region.size(); rect++) {
+			int x = region.getX(rect);
+			int y = region.getY(rect);
+			
+			assertTrue(region.getWidth(rect) > 0 && region.getHeight(rect) > 0);
+			assertTrue(x >= 0 && y >= 0 && x + region.getWidth(rect) <= WIDTH && y + region.getHeight(rect) <= HEIGHT);
+			
+			for (int other = rect + 1; other < region.size(); other++)
+				assertTrue(mergeCost(region, rect, other) >= MERGE_SLACK, "rectangles " + rect + " and " + other);
+		}
+		
+		int area = 0;
+		
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				if (grid[y * WIDTH + x])
+					assertTrue(covers(region, x, y), "pixel (" + x + ", " + y + ") not covered");
+				
+				if (covers(region, x, y))
+					area++;
+			}
+		}
+		
+		// overlapping rectangles count their shared pixels twice
+		assertTrue(region.getArea() >= area);
+	}
+	
+	private static long mergeCost(GLibDirtyRegion region, int a, int b) {
+		long left = Math.min(region.getX(a), region.getX(b));
+		long top = Math.min(region.getY(a), region.getY(b));
+		long right = Math.max(region.getX(a) + region.getWidth(a), region.getX(b) + region.getWidth(b));
+		long bottom = Math.max(region.getY(a) + region.getHeight(a), region.getY(b) + region.getHeight(b));
+		
+		long separate = (long) region.getWidth(a) * region.getHeight(a) + (long) region.getWidth(b) * region.getHeight(b);
+		
+		return (right - left) * (bottom - top) - separate;
+	}
+	
+	/////////////////////////
+	
+	@Test
+	void coversEverythingAdded() {
+		var random = new Random(6);
+		int largest = 0;
+		
+		for (int trial = 0; trial < 200; trial++) {
+			var region = new GLibDirtyRegion(WIDTH, HEIGHT);
+			var grid = new boolean[WIDTH * HEIGHT];
+			int rects = 1 + random.nextInt(trial < 100 ? 8 : 60);
+			
+			for (int i = 0; i < rects; i++) {
+				// small sprites, some of them partly off the screen
+				int x = random.nextInt(WIDTH + 40) - 20;
+				int y = random.nextInt(HEIGHT + 40) - 20;
+				
+				add(region, grid, x, y, x + 1 + random.nextInt(24), y + 1 + random.nextInt(24));
+			}
+			
+			assertValid(region, grid);
+			largest = Math.max(largest, region.size());
+		}
+		
+		// the full region was reached, growing the cheapest rectangles
+		assertEquals(MAX_RECTS, largest);
+	}
+	
+	@Test
+	void mergesTouchingRectangles() {
+		var region = new GLibDirtyRegion(WIDTH, HEIGHT);
+		
+		// a row of adjacent tiles becomes a single strip
+		for (int x = 0; x < 160; x += 16)
+			region.add(x, 32, x + 16, 48);
+		
+		assertEquals(1, region.size());
+		assertEquals(160 * 16, region.getArea());
+		
+		// a far away rectangle stays apart
+		region.add(280, 200, 290, 210);
+		
+		assertEquals(2, region.size());
+	}
+	
+	@Test
+	void addsOtherRegions() {
+		var random = new Random(7);
+		var first = new GLibDirtyRegion(WIDTH, HEIGHT);
+		var second = new GLibDirtyRegion(WIDTH, HEIGHT);
+		var grid = new boolean[WIDTH * HEIGHT];
+		
+		for (int i = 0; i < 30; i++) {
+			int x = random.nextInt(WIDTH);
+			int y = random.nextInt(HEIGHT);
+			
+			add(i % 2 == 0 ? first : second, grid, x, y, x + 8, y + 8);
+		}
+		
+		first.add(second);
+		assertValid(first, grid);
+		
+		first.addAll();
+		
+		assertEquals(1, first.size());
+		assertEquals(WIDTH * HEIGHT, first.getArea());
+	}
+	
+	@Test
+	void ignoresRectanglesOffTheScreen() {
+		var region = new GLibDirtyRegion(WIDTH, HEIGHT);
+		
+		region.add(-50, 10, 0, 20);
+		region.add(WIDTH, 10, WIDTH + 5, 20);
+		region.add(10, 10, 10, 20);
+		
+		assertTrue(region.isEmpty());
+	}
+}
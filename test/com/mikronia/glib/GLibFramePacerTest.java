@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * GLib frame pacer tests
+ * <p>
+ * Paces frames with a known amount of work and checks the
+ * resulting frame rate. The bounds are loose, since the
+ * tests run on shared machines.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+class GLibFramePacerTest {
+	
+	private static final int FRAMES = 40;
+	
+	/*
+	 * Paces the given number of frames, each doing
+	 * the given work, and returns the mean frame time
+	 * in milliseconds.
+	 */
+	private static double pace(GLibFramePacer pacer, long work) {
+		pacer.waitForNextFrame();
+		
+		long start = System.nanoTime();
+		
+		for (int i = 0; i < FRAMES; i++) {
+			LockSupport.parkNanos(work);
+			pacer.waitForNextFrame();
+		}
+		
+		return (System.nanoTime() - start) / (FRAMES * 1.0e6);
+	}
+	
+	/////////////////////////
+	
+	@Test
+	void keepsThePeriod() {
+		double frameTime = pace(new GLibFramePacer(60), 5_000_000L);
+		
+		assertTrue(frameTime > 16.0 && frameTime < 20.0, "frame time " + frameTime);
+	}
+	
+	@Test
+	void lateFramesDontWait() {
+		// 18 ms of work at 60 Hz runs at about 55 fps, not 30
+		double frameTime = pace(new GLibFramePacer(60), 18_000_000L);
+		
+		assertTrue(frameTime < 24.0, "frame time " + frameTime);
+	}
+	
+	@Test
+	void countsMissedDeadlines() {
+		var pacer = new GLibFramePacer(100);
+		
+		pacer.waitForNextFrame();
+		LockSupport.parkNanos(35_000_000L);
+		
+		int missed = pacer.waitForNextFrame();
+		long start = System.nanoTime();
+		
+		// the deadlines restart from the late frame
+		int next = pacer.waitForNextFrame();
+		long elapsed = System.nanoTime() - start;
+		
+		assertTrue(missed >= 3, "missed " + missed);
+		assertEquals(0, next);
+		assertTrue(elapsed > 8_000_000L, "waited " + elapsed);
+	}
+}
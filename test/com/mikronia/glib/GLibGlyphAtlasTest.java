@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * GLib glyph atlas tests
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+class GLibGlyphAtlasTest {
+	
+	private static Graphics2D graphics() {
+		var graphics = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+		
+		graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		return graphics;
+	}
+	
+	private static int[] pixels(BufferedImage image) {
+		return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+	}
+	
+	/*
+	 * The whole page multiplied by the color.
+	 */
+	private static int[] expected(BufferedImage page, int color) {
+		int[] pixels = pixels(page);
+		
+		for (int i = 0; i < pixels.length; i++) {
+			int tinted = 0;
+			
+			for (int shift = 0; shift < 32; shift += 8)
+				tinted |= Math.round(((pixels[i] >>> shift) & 0xFF) * ((color >>> shift) & 0xFF) / 255f) << shift;
+			
+			pixels[i] = tinted;
+		}
+		
+		return pixels;
+	}
+	
+	/////////////////////////
+	
+	@Test
+	void tintsTheGlyphsAddedBetweenColors() {
+		var atlas = GLibGlyphAtlas.getAtlas(new Font(Font.SANS_SERIF, Font.PLAIN, 19), graphics());
+		int[] colors = new int[12];
+		
+		for (int i = 0; i < colors.length; i++)
+			colors[i] = 0xFF000000 | (i * 0x2F1B37 + 0x103050) & 0xFFFFFF | (i % 3) << 30;
+		
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < colors.length; i++) {
+				// new glyphs land on the pages between the tints
+				atlas.glyph(0x391 + round * colors.length + i);
+				
+				for (int page = 0; page < atlas.getPageCount(); page++) {
+					var image = atlas.getPage(page);
+					
+					assertArrayEquals(pixels(image), atlas.getPagePixels(page));
+					assertArrayEquals(expected(image, colors[i]), pixels(atlas.getTintedPage(page, colors[i])));
+				}
+			}
+		}
+	}
+	
+	@Test
+	void reusesTheCopiesOfOldColors() {
+		var atlas = GLibGlyphAtlas.getAtlas(new Font(Font.SERIF, Font.PLAIN, 17), graphics());
+		Set<BufferedImage> copies = Collections.newSetFromMap(new IdentityHashMap<BufferedImage, Boolean>());
+		
+		for (int color = 0; color < 8; color++)
+			copies.add(atlas.getTintedPage(0, 0xFF000000 | color * 0x1F));
+		
+		for (int color = 8; color < 64; color++)
+			assertTrue(copies.contains(atlas.getTintedPage(0, 0xFF000000 | color * 0x1F)));
+	}
+	
+	@Test
+	void dropsTheOldestAtlases() {
+		var graphics = graphics();
+		var font = new Font(Font.MONOSPACED, Font.PLAIN, 8);
+		var first = GLibGlyphAtlas.getAtlas(font, graphics);
+		
+		for (int i = 1; i < 100; i++) {
+			var atlas = GLibGlyphAtlas.getAtlas(font.deriveFont(8 + i / 16f), graphics);
+			
+			assertSame(atlas, GLibGlyphAtlas.getAtlas(font.deriveFont(8 + i / 16f), graphics));
+		}
+		
+		assertNotSame(first, GLibGlyphAtlas.getAtlas(font, graphics));
+	}
+}
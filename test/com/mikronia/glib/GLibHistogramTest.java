@@ -0,0 +1,183 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * GLib histogram tests
+ * <p>
+ * Checks the buckets and percentiles against the exact
+ * values, computed by sorting everything recorded.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+class GLibHistogramTest {
+	
+	// each power of two is split in 32 buckets
+	private static final double ERROR = 1.0 / 32;
+	
+	private static final long HIGHEST = (1L << 40) - 1;
+	
+	/*
+	 * Gets the highest value of the bucket of a value: the
+	 * median of the value and a larger one comes from the
+	 * first bucket, bounded only by the larger maximum.
+	 */
+	private static long bucketHighest(long value) {
+		var histogram = new GLibHistogram();
+		
+		histogram.record(value);
+		histogram.record(Long.MAX_VALUE);
+		
+		return histogram.getPercentile(50);
+	}
+	
+	/*
+	 * Random durations spread over many powers of two.
+	 */
+	private static long[] durations(Random random, int count) {
+		long[] values = new long[count];
+		
+		for (int i = 0; i < count; i++)
+			values[i] = (long) Math.pow(2, random.nextDouble() * 38);
+		
+		return values;
+	}
+	
+	/////////////////////////
+	
+	@Test
+	void bucketsKeepTheValues() {
+		var random = new Random(14);
+		long previous = -1;
+		long previousHighest = -1;
+		
+		for (int i = 0; i < 20000; i++) {
+			// every value up to 4096, then random ones in increasing order
+			long value = i <= 4096 ? i : previous + 1 + (long) (random.nextDouble() * previous / 250);
+			
+			if (value > HIGHEST) break;
+			
+			long highest = bucketHighest(value);
+			
+			assertTrue(highest >= value, value + " counted up to " + highest);
+			assertTrue(highest - value <= value * ERROR, value + " counted up to " + highest);
+			assertTrue(highest >= previousHighest, "buckets out of order at " + value);
+			
+			if (value < 32)
+				assertEquals(value, highest);
+			
+			previous = value;
+			previousHighest = highest;
+		}
+		
+		// past the highest value, everything shares the last bucket
+		assertEquals(bucketHighest(HIGHEST), bucketHighest(HIGHEST * 4));
+	}
+	
+	@Test
+	void matchesExactPercentiles() {
+		var random = new Random(15);
+		
+		for (int count : new int[] { 1, 2, 10, 1000, 100000 }) {
+			long[] values = durations(random, count);
+			var histogram = new GLibHistogram();
+			
+			for (long value : values)
+				histogram.record(value);
+			
+			Arrays.sort(values);
+			
+			for (double percentile : new double[] { 0, 1, 25, 50, 90, 99, 99.9, 100 }) {
+				long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+				long exact = values[(int) rank - 1];
+				long reported = histogram.getPercentile(percentile);
+				
+				String message = "p" + percentile + " of " + count + ": " + reported + " for " + exact;
+				
+				assertTrue(reported >= exact && reported - exact <= exact * ERROR, message);
+				assertTrue(reported <= values[count - 1], message);
+			}
+			
+			assertEquals(values[count - 1], histogram.getMaximum());
+			assertEquals(Arrays.stream(values).average().getAsDouble(), histogram.getMean(), 1.0e-6 * histogram.getMean());
+		}
+	}
+	
+	@Test
+	void addsHistograms() {
+		var random = new Random(16);
+		long[] values = durations(random, 5000);
+		
+		var all = new GLibHistogram();
+		var first = new GLibHistogram();
+		var second = new GLibHistogram();
+		
+		for (int i = 0; i < values.length; i++) {
+			all.record(values[i]);
+			(i % 3 == 0 ? first : second).record(values[i]);
+		}
+		
+		first.add(second);
+		
+		assertEquals(all.getCount(), first.getCount());
+		assertEquals(all.getMaximum(), first.getMaximum());
+		assertEquals(all.getMean(), first.getMean(), 1.0e-9 * all.getMean());
+		
+		for (double percentile = 0; percentile <= 100; percentile += 0.5)
+			assertEquals(all.getPercentile(percentile), first.getPercentile(percentile));
+	}
+	
+	@Test
+	void recordsFromManyThreads() throws InterruptedException {
+		var histogram = new GLibHistogram();
+		var threads = new Thread[4];
+		
+		for (int t = 0; t < threads.length; t++) {
+			long offset = t;
+			
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 50000; i++)
+					histogram.record(1000 + offset);
+			});
+			threads[t].start();
+		}
+		
+		for (var thread : threads)
+			thread.join();
+		
+		assertEquals(200000, histogram.getCount());
+		assertEquals(1003, histogram.getMaximum());
+		assertEquals(1001.5, histogram.getMean(), 1.0e-9);
+	}
+}
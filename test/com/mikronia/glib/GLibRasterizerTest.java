@@ -0,0 +1,276 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * GLib rasterizer tests
+ * <p>
+ * Draws each primitive with the rasterizer and with Java2D
+ * (pure strokes, no antialiasing, nearest neighbor scaling)
+ * and checks that both cover the same pixels.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+class GLibRasterizerTest {
+	
+	private static final int SIZE = 96;
+	private static final int BACKGROUND = 0xFF203040;
+	private static final int COLOR = 0xFFE0A020;
+	
+	// margin around the Java2D image of the curves, so that it doesn't clip them
+	private static final int MARGIN = 64;
+	
+	// origins, including ones partly outside the image
+	private static final int[][] ORIGINS = { { 3, 4 }, { 10, 7 }, { -6, -5 }, { 70, 60 } };
+	
+	/*
+	 * Draws with both backends in every origin and checks
+	 * that the images match.
+	 * 
+	 * The shapes are compared with an opaque color, since
+	 * Java2D moves the edges of translucent shapes when it
+	 * goes through its general path pipeline.
+	 */
+	private static void assertParity(String name,
+			BiConsumer<GLibRasterizer, int[]> rasterizer, BiConsumer<Graphics2D, int[]> java2d) {
+		for (int[] origin : ORIGINS)
+			assertParity(name + String.format(" origin=(%d, %d)", origin[0], origin[1]), COLOR, origin, 0, rasterizer, java2d);
+	}
+	
+	/*
+	 * Same as above for the curves, which the rasterizer traces
+	 * whole. Java2D flattens the curves cut by the clip another
+	 * way, so they are drawn in a larger image and cropped.
+	 */
+	private static void assertCurveParity(String name,
+			BiConsumer<GLibRasterizer, int[]> rasterizer, BiConsumer<Graphics2D, int[]> java2d) {
+		for (int[] origin : ORIGINS)
+			assertParity(name + String.format(" origin=(%d, %d)", origin[0], origin[1]), COLOR, origin, MARGIN, rasterizer, java2d);
+	}
+	
+	private static void assertParity(String name, int color, int[] origin, int margin,
+			BiConsumer<GLibRasterizer, int[]> rasterizer, BiConsumer<Graphics2D, int[]> java2d) {
+		var padded = new BufferedImage(SIZE + margin * 2, SIZE + margin * 2, BufferedImage.TYPE_INT_RGB);
+		var actual = background();
+		
+		var graphics = padded.createGraphics();
+		graphics.setColor(new Color(BACKGROUND));
+		graphics.fillRect(0, 0, padded.getWidth(), padded.getHeight());
+		graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+		graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+		graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+		graphics.setColor(new Color(color, true));
+		java2d.accept(graphics, new int[] { origin[0] + margin, origin[1] + margin });
+		graphics.dispose();
+		
+		var expected = padded.getSubimage(margin, margin, SIZE, SIZE);
+		
+		var target = new GLibRasterizer(actual);
+		target.setColor(color);
+		rasterizer.accept(target, origin);
+		
+		assertEquals(0, countDifferences(expected, actual), name);
+	}
+	
+	private static BufferedImage background() {
+		var image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+		
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = 0; x < SIZE; x++)
+				image.setRGB(x, y, BACKGROUND);
+		}
+		
+		return image;
+	}
+	
+	private static int countDifferences(BufferedImage expected, BufferedImage actual) {
+		int differences = 0;
+		
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = 0; x < SIZE; x++) {
+				if (expected.getRGB(x, y) != actual.getRGB(x, y))
+					differences++;
+			}
+		}
+		
+		return differences;
+	}
+	
+	/*
+	 * Sprite with opaque, translucent and clear pixels.
+	 */
+	private static BufferedImage sprite() {
+		var image = new BufferedImage(7, 5, BufferedImage.TYPE_INT_ARGB);
+		
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				int alpha = (x + y) % 3 == 0 ? 0 : (x + y) % 3 == 1 ? 0xFF : 0x60;
+				image.setRGB(x, y, (alpha << 24) | (x * 36 << 16) | (y * 50 << 8) | 0x80);
+			}
+		}
+		
+		return image;
+	}
+	
+	/////////////////////////
+	
+	@Test
+	void fillRect() {
+		assertParity("fillRect",
+				(r, o) -> r.fillRect(o[0], o[1], 23, 14),
+				(g, o) -> g.fillRect(o[0], o[1], 23, 14));
+	}
+	
+	@Test
+	void blending() {
+		for (int alpha = 0; alpha <= 0xFF; alpha += 15) {
+			assertParity("fillRect alpha=" + alpha, (alpha << 24) | 0xE0A020, ORIGINS[0], 0,
+					(r, o) -> r.fillRect(o[0], o[1], 23, 14),
+					(g, o) -> g.fillRect(o[0], o[1], 23, 14));
+		}
+	}
+	
+	@Test
+	void drawRect() {
+		assertParity("drawRect",
+				(r, o) -> r.drawRect(o[0], o[1], 23, 14),
+				(g, o) -> g.drawRect(o[0], o[1], 23, 14));
+	}
+	
+	@Test
+	void drawLine() {
+		int[][] lines = { { 0, 0, 30, 9 }, { 0, 20, 7, 0 }, { 25, 3, 2, 17 }, { 4, 4, 4, 30 }, { 30, 5, 1, 5 } };
+		
+		for (var line : lines) {
+			assertParity("drawLine",
+					(r, o) -> r.drawLine(o[0] + line[0], o[1] + line[1], o[0] + line[2], o[1] + line[3]),
+					(g, o) -> g.drawLine(o[0] + line[0], o[1] + line[1], o[0] + line[2], o[1] + line[3]));
+		}
+	}
+	
+	@Test
+	void ovals() {
+		int[][] sizes = { { 20, 11 }, { 33, 17 }, { 16, 16 }, { 9, 9 }, { 7, 40 }, { 60, 3 }, { 1, 1 }, { 2, 2 } };
+		
+		for (var size : sizes) {
+			assertCurveParity("fillOval " + size[0] + "x" + size[1],
+					(r, o) -> r.fillOval(o[0], o[1], size[0], size[1]),
+					(g, o) -> g.fillOval(o[0], o[1], size[0], size[1]));
+			assertCurveParity("drawOval " + size[0] + "x" + size[1],
+					(r, o) -> r.drawOval(o[0], o[1], size[0], size[1]),
+					(g, o) -> g.drawOval(o[0], o[1], size[0], size[1]));
+		}
+	}
+	
+	@Test
+	void roundRects() {
+		int[][] sizes = { { 30, 20, 10, 8 }, { 25, 13, 6, 6 }, { 18, 18, 30, 30 }, { 40, 9, 4, 12 } };
+		
+		for (var size : sizes) {
+			String name = size[0] + "x" + size[1] + " arc " + size[2] + "x" + size[3];
+			
+			assertCurveParity("fillRoundRect " + name,
+					(r, o) -> r.fillRoundRect(o[0], o[1], size[0], size[1], size[2], size[3]),
+					(g, o) -> g.fillRoundRect(o[0], o[1], size[0], size[1], size[2], size[3]));
+			assertCurveParity("drawRoundRect " + name,
+					(r, o) -> r.drawRoundRect(o[0], o[1], size[0], size[1], size[2], size[3]),
+					(g, o) -> g.drawRoundRect(o[0], o[1], size[0], size[1], size[2], size[3]));
+		}
+	}
+	
+	@Test
+	void polygons() {
+		int[] xs = { 0, 25, 31, 12, 3 };
+		int[] ys = { 2, 0, 20, 28, 15 };
+		
+		assertParity("fillPolygon",
+				(r, o) -> r.fillPolygon(translated(xs, ys, o)),
+				(g, o) -> g.fillPolygon(translated(xs, ys, o)));
+		assertParity("drawPolygon",
+				(r, o) -> r.drawPolygon(translated(xs, ys, o)),
+				(g, o) -> g.drawPolygon(translated(xs, ys, o)));
+	}
+	
+	@Test
+	void randomPolygons() {
+		var random = new Random(5);
+		
+		for (int test = 0; test < 500; test++) {
+			int count = 3 + random.nextInt(6);
+			int[] xs = new int[count];
+			int[] ys = new int[count];
+			
+			for (int i = 0; i < count; i++) {
+				xs[i] = random.nextInt(80);
+				ys[i] = random.nextInt(80);
+			}
+			
+			assertParity("fillPolygon " + Arrays.toString(xs) + " " + Arrays.toString(ys),
+					(r, o) -> r.fillPolygon(translated(xs, ys, o)),
+					(g, o) -> g.fillPolygon(translated(xs, ys, o)));
+		}
+	}
+	
+	private static Polygon translated(int[] xs, int[] ys, int[] origin) {
+		var polygon = new Polygon(xs, ys, xs.length);
+		polygon.translate(origin[0], origin[1]);
+		return polygon;
+	}
+	
+	@Test
+	void drawImage() {
+		var sprite = sprite();
+		
+		assertParity("drawImage",
+				(r, o) -> r.drawImage(sprite, o[0], o[1]),
+				(g, o) -> g.drawImage(sprite, o[0], o[1], null));
+	}
+	
+	@Test
+	void drawImageScaled() {
+		var sprite = sprite();
+		int[][] sizes = { { 14, 10 }, { 17, 12 }, { 21, 7 }, { 3, 2 }, { 5, 9 }, { 40, 33 } };
+		
+		for (var size : sizes) {
+			assertParity("drawImage " + size[0] + "x" + size[1],
+					(r, o) -> r.drawImage(sprite, o[0], o[1], size[0], size[1]),
+					(g, o) -> g.drawImage(sprite, o[0], o[1], size[0], size[1], null));
+		}
+	}
+}
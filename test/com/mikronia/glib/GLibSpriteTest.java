@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * GLib sprite tests
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+class GLibSpriteTest {
+	
+	private static GLibSprite sprite() {
+		var image = new BufferedImage(3, 2, BufferedImage.TYPE_INT_ARGB);
+		int[] pixels = { 0xFFFFFFFF, 0xFF808080, 0x80FFFFFF, 0x00000000, 0xFF102030, 0x40C08040 };
+		
+		image.setRGB(0, 0, 3, 2, pixels, 0, 3);
+		
+		return new GLibSprite(image, GLibSpritesheets.SHARED);
+	}
+	
+	private static int[] expected(GLibSprite sprite, int tint) {
+		int[] pixels = GLibRasterizer.getPixels(sprite.getImage()).clone();
+		
+		for (int i = 0; i < pixels.length; i++)
+			pixels[i] = GLibRasterizer.tint(pixels[i], tint);
+		
+		return pixels;
+	}
+	
+	private static int[] pixels(BufferedImage image) {
+		return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+	}
+	
+	/////////////////////////
+	
+	@Test
+	void tintsTheColorChannels() {
+		var sprite = sprite();
+		
+		assertArrayEquals(expected(sprite, 0xFFE08020), pixels(sprite.getTinted(0xFFE08020)));
+	}
+	
+	@Test
+	void sharesTheCopyAcrossAlphas() {
+		var sprite = sprite();
+		var tinted = sprite.getTinted(0xFFE08020);
+		
+		for (int alpha = 0; alpha < 0xFF; alpha += 5)
+			assertSame(tinted, sprite.getTinted((alpha << 24) | 0xE08020));
+	}
+	
+	@Test
+	void reusesTheEvictedCopy() {
+		var sprite = sprite();
+		var images = new BufferedImage[8];
+		
+		for (int i = 0; i < images.length; i++) {
+			int tint = 0xFF000000 | (i * 0x1F2F3F);
+			
+			images[i] = sprite.getTinted(tint);
+			assertArrayEquals(expected(sprite, tint), pixels(images[i]));
+		}
+		
+		// the ring of tints wraps around to the same images
+		assertNotSame(images[0], images[1]);
+		assertSame(images[0], images[4]);
+		assertSame(images[3], images[7]);
+	}
+	
+	@Test
+	void countsOnlyVolatileHits() {
+		var image = new BufferedImage(3, 2, BufferedImage.TYPE_INT_ARGB);
+		
+		// no screen here, so volatile sprites fall back to compatible images
+		var compatible = new GLibSprite(image, GLibSpritesheets.COMPATIBLE);
+		var shared = new GLibSprite(image, GLibSpritesheets.SHARED);
+		
+		GLibSprite.resetCounters();
+		
+		for (int i = 0; i < 10; i++) {
+			compatible.getDrawable();
+			shared.getDrawable();
+		}
+		
+		assertEquals(0, GLibSprite.getCacheHits());
+	}
+	
+	@Test
+	void keepsAreasOfSimilarNamesApart() {
+		var image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+		
+		GLibSpritesheets.loadSpritesheet("area", image, 8, 8);
+		GLibSpritesheets.loadSpritesheet("area1", image, 8, 8);
+		
+		// "area" at 12 and "area1" at 2 had the same name
+		var area = GLibSpritesheets.getSpritesheetArea("area", 12, 0, 1, 1);
+		var area1 = GLibSpritesheets.getSpritesheetArea("area1", 2, 0, 1, 1);
+		
+		assertNotSame(area, area1);
+		assertSame(area, GLibSpritesheets.getSpritesheetArea("area", 12, 0, 1, 1));
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * GLib tile renderer tests
+ * <p>
+ * Draws random frames of overlapping translucent shapes and
+ * sprites crossing the tile borders, in immediate and deferred
+ * modes, and checks that the tiles give the same pixels as the
+ * serial rasterizer, whatever the tile size and worker count.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+class GLibTileRendererTest {
+	
+	private static final String SPRITESHEET = "tile-test";
+	
+	private static final int WIDTH = 300;
+	private static final int HEIGHT = 200;
+	
+	private static int[] sprites;
+	
+	@BeforeAll
+	static void loadSprites() {
+		var sheet = new BufferedImage(16, 8, BufferedImage.TYPE_INT_ARGB);
+		
+		for (int y = 0; y < 8; y++) {
+			for (int x = 0; x < 16; x++)
+				sheet.setRGB(x, y, x < 8 ? 0xFF000000 | x * 0x1F0000 | y * 0x1F00 : 0x80FFFFFF - x * 0x0A0000);
+		}
+		
+		int handle = GLibSpritesheets.loadSpritesheet(SPRITESHEET, sheet, 8, 8, GLibSpritesheets.SHARED);
+		sprites = new int[] { GLibSpritesheets.getSpriteHandle(handle, 0, 0), GLibSpritesheets.getSpriteHandle(handle, 1, 0) };
+	}
+	
+	@AfterAll
+	static void deleteSprites() {
+		GLibSpritesheets.deleteSpritesheets();
+	}
+	
+	/*
+	 * Draws a random frame from the given seed, serially or
+	 * with a tile renderer when tileSize isn't zero, and
+	 * returns its pixels.
+	 */
+	private static int[] draw(long seed, boolean deferred, int tileSize, int workers) {
+		var target = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		var graphics = target.createGraphics();
+		var batch = new GLibBatch(graphics, new GLibRasterizer(target), WIDTH, HEIGHT);
+		GLibTileRenderer renderer = null;
+		
+		if (tileSize != 0) {
+			renderer = new GLibTileRenderer(target, tileSize, workers);
+			batch.setTileRenderer(renderer);
+		}
+		
+		var random = new Random(seed);
+		
+		batch.setDeferred(deferred);
+		batch.beginFrame();
+		batch.clearColor(0xFF203040);
+		batch.clearScreen();
+		
+		for (int i = 0; i < 400; i++) {
+			batch.layer(random.nextInt(4));
+			batch.depth(random.nextInt(8));
+			batch.color(random.nextInt() | (random.nextBoolean() ? 0xFF000000 : 0));
+			
+			float x = random.nextFloat() * (WIDTH + 60) - 30;
+			float y = random.nextFloat() * (HEIGHT + 60) - 30;
+			float w = random.nextFloat() * 90;
+			float h = random.nextFloat() * 90;
+			
+			switch (random.nextInt(10)) {
+			case 0: batch.fillRect(x, y, w, h); break;
+			case 1: batch.drawRect(x, y, w, h); break;
+			case 2: batch.drawLine(x, y, x + w - 45, y + h - 45); break;
+			case 3: batch.fillOval(x, y, w, h); break;
+			case 4: batch.drawOval(x, y, w, h); break;
+			case 5: batch.fillRoundRect(x, y, w, h, w / 3, h / 3); break;
+			case 6: batch.drawSprite(sprites[random.nextInt(2)], x, y); break;
+			case 7:
+				batch.bindSprite(sprites[random.nextInt(2)]);
+				batch.drawSprite(x, y, w, h);
+				break;
+			case 8:
+				// the wide strokes and flips the rasterizer can't draw split the tiles
+				batch.stroke(random.nextInt(3) + 1);
+				batch.drawRect(x, y, w, h);
+				batch.stroke(1);
+				break;
+			default:
+				batch.translate(x, y);
+				batch.scale(-2, 2);
+				batch.fillRect(0, 0, w / 2, h / 2);
+				batch.scale(-0.5f, 0.5f);
+				batch.translate(-x, -y);
+				break;
+			}
+		}
+		
+		batch.endFrame();
+		graphics.dispose();
+		
+		if (renderer != null)
+			renderer.dispose();
+		
+		return ((DataBufferInt) target.getRaster().getDataBuffer()).getData();
+	}
+	
+	/*
+	 * Gets the number of different pixels.
+	 */
+	private static int countDifferences(int[] expected, int[] actual) {
+		int differences = 0;
+		
+		for (int i = 0; i < expected.length; i++) {
+			if (expected[i] != actual[i])
+				differences++;
+		}
+		
+		return differences;
+	}
+	
+	/////////////////////////
+	
+	@Test
+	void matchesSerialDrawing() {
+		for (long seed = 0; seed < 10; seed++) {
+			for (boolean deferred : new boolean[] { false, true }) {
+				int[] expected = draw(seed, deferred, 0, 0);
+				
+				for (int tileSize : new int[] { 64, 37, 256 }) {
+					for (int workers : new int[] { 1, 3 }) {
+						int[] actual = draw(seed, deferred, tileSize, workers);
+						
+						assertEquals(0, countDifferences(expected, actual), "seed " + seed + " deferred " + deferred
+								+ " tile size " + tileSize + " workers " + workers);
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.mikronia.glib.view.Camera;
+
+/**
+ * GLib tilemap tests
+ * <p>
+ * Draws a map of 128 pixels wide chunks on a 320x240 screen
+ * and counts the chunks drawn through transforms and cameras.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+class GLibTilemapTest {
+	
+	private static final String SPRITESHEET = "tilemap-test";
+	
+	private static int spritesheet;
+	
+	@BeforeAll
+	static void loadSprites() {
+		var sheet = new BufferedImage(16, 8, BufferedImage.TYPE_INT_ARGB);
+		
+		spritesheet = GLibSpritesheets.loadSpritesheet(SPRITESHEET, sheet, 8, 8, GLibSpritesheets.SHARED);
+	}
+	
+	@AfterAll
+	static void deleteSprites() {
+		GLibSpritesheets.deleteSpritesheets();
+	}
+	
+	/*
+	 * Draws a fresh map once and returns
+	 * how many chunks were drawn.
+	 */
+	private static int drawnChunks(GLibBatch batch, float x, float y) {
+		var tilemap = new GLibTilemap(spritesheet, 512, 512, 1, 16, 64);
+		int[] tiles = new int[512 * 512];
+		
+		Arrays.fill(tiles, 1);
+		tilemap.setTiles(0, tiles);
+		tilemap.draw(batch, x, y);
+		
+		return tilemap.getCachedChunks();
+	}
+	
+	private static GLibBatch batch() {
+		var target = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+		return new GLibBatch(target.createGraphics(), 320, 240);
+	}
+	
+	/////////////////////////
+	
+	@Test
+	void drawsTheChunksOnTheScreen() {
+		assertEquals(3 * 2, drawnChunks(batch(), 0, 0));
+		
+		// chunks 7 to 10 and 4 to 6
+		assertEquals(4 * 3, drawnChunks(batch(), -1000, -600));
+	}
+	
+	@Test
+	void followsTheTransform() {
+		var batch = batch();
+		
+		batch.translate(-1000, -600);
+		assertEquals(4 * 3, drawnChunks(batch, 0, 0));
+		
+		// x from 500 to 660 and y from 300 to 420,
+		// chunks 3 to 5 and 2 to 3
+		batch.scale(2, 2);
+		assertEquals(3 * 2, drawnChunks(batch, 0, 0));
+	}
+	
+	@Test
+	void followsTheCamera() {
+		var batch = batch();
+		var camera = new Camera();
+		
+		// x from 1920 to 2080 and y from 1940 to 2060
+		camera.setPosition(2000, 2000);
+		camera.setZoom(2);
+		batch.setCamera(camera);
+		
+		assertEquals(2 * 2, drawnChunks(batch, 0, 0));
+		
+		// the map starts at the right of the view
+		assertEquals(0, drawnChunks(batch, 2100, 0));
+	}
+}
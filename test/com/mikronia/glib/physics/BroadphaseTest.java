@@ -0,0 +1,273 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib.physics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Broadphase tests
+ * <p>
+ * Moves, adds and removes random boxes and checks the pairs
+ * found against a brute force search over all the pairs of
+ * boxes, serially and with worker threads, and checks that
+ * the contacts reported follow the pairs of each update.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+class BroadphaseTest {
+	
+	// enough boxes to split the sweep across the workers
+	private static final int COUNT = 10000;
+	
+	private static long pair(int a, int b) {
+		return (long) a << 32 | b;
+	}
+	
+	/*
+	 * Checks the contacts reported against the pairs of the
+	 * last update: each pair begins once, stays until it ends,
+	 * and is reported once per update.
+	 */
+	private static final class Contacts implements ContactListener {
+		
+		final Set<Long> current = new HashSet<>();
+		final Set<Long> reported = new HashSet<>();
+		final List<String> events = new ArrayList<>();
+		
+		// keeps the events, only for small sets
+		boolean recording;
+		
+		@Override
+		public void beginContact(int a, int b) {
+			assertTrue(a < b, "begin " + a + " " + b);
+			assertTrue(current.add(pair(a, b)), "began twice " + a + " " + b);
+			assertTrue(reported.add(pair(a, b)));
+			record("begin", a, b);
+		}
+		
+		@Override
+		public void stayContact(int a, int b) {
+			assertTrue(current.contains(pair(a, b)), "stayed without beginning " + a + " " + b);
+			assertTrue(reported.add(pair(a, b)), "stayed twice " + a + " " + b);
+			record("stay", a, b);
+		}
+		
+		@Override
+		public void endContact(int a, int b) {
+			assertTrue(current.remove(pair(a, b)), "ended without beginning " + a + " " + b);
+			record("end", a, b);
+		}
+		
+		void record(String event, int a, int b) {
+			if (recording)
+				events.add(event + " " + a + " " + b);
+		}
+		
+		void update(Broadphase broadphase) {
+			reported.clear();
+			events.clear();
+			broadphase.update();
+			
+			var pairs = pairs(broadphase);
+			
+			assertEquals(pairs, current);
+			assertEquals(pairs, reported);
+		}
+	}
+	
+	private static Set<Long> pairs(Broadphase broadphase) {
+		var pairs = new HashSet<Long>();
+		
+		for (int i = 0; i < broadphase.getPairCount(); i++)
+			pairs.add(pair(broadphase.getPairA(i), broadphase.getPairB(i)));
+		
+		assertEquals(broadphase.getPairCount(), pairs.size(), "pair found twice");
+		
+		return pairs;
+	}
+	
+	/*
+	 * Finds the overlapping pairs by testing every pair.
+	 */
+	private static Set<Long> bruteForce(float[] x, float[] y, float[] w, float[] h, boolean[] added) {
+		int count = 0;
+		int[] ids = new int[x.length];
+		float[] minX = new float[x.length];
+		float[] minY = new float[x.length];
+		float[] maxX = new float[x.length];
+		float[] maxY = new float[x.length];
+		
+		for (int id = 0; id < x.length; id++) {
+			if (!added[id]) continue;
+			
+			ids[count] = id;
+			minX[count] = x[id];
+			minY[count] = y[id];
+			maxX[count] = x[id] + w[id];
+			maxY[count] = y[id] + h[id];
+			count++;
+		}
+		
+		var pairs = new HashSet<Long>();
+		
+		for (int a = 0; a < count; a++) {
+			for (int b = a + 1; b < count; b++) {
+				if (minX[a] <= maxX[b] && minX[b] <= maxX[a] && minY[a] <= maxY[b] && minY[b] <= maxY[a])
+					pairs.add(pair(ids[a], ids[b]));
+			}
+		}
+		
+		return pairs;
+	}
+	
+	/////////////////////////
+	
+	@Test
+	void matchesBruteForce() {
+		var random = new Random(24);
+		
+		// the same boxes, swept serially and by three workers
+		var broadphases = new Broadphase[] { new Broadphase(), new Broadphase() };
+		var contacts = new Contacts[] { new Contacts(), new Contacts() };
+		
+		float[] x = new float[COUNT];
+		float[] y = new float[COUNT];
+		float[] w = new float[COUNT];
+		float[] h = new float[COUNT];
+		boolean[] added = new boolean[COUNT];
+		
+		broadphases[1].setWorkers(3);
+		
+		for (int i = 0; i < broadphases.length; i++)
+			broadphases[i].setListener(contacts[i]);
+		
+		for (int id = 0; id < COUNT; id++) {
+			x[id] = random.nextFloat() * 3000;
+			y[id] = random.nextFloat() * 3000;
+			w[id] = 4 + random.nextFloat() * 20;
+			h[id] = 4 + random.nextFloat() * 20;
+		}
+		
+		for (int step = 0; step < 60; step++) {
+			for (int id = 0; id < COUNT; id++) {
+				// squeezes the boxes together halfway, which reorders most of them
+				if (step == 30) {
+					x[id] *= 0.05f;
+					y[id] *= 1.5f;
+				}
+				
+				x[id] += random.nextFloat() * 4 - 2;
+				y[id] += random.nextFloat() * 4 - 2;
+				
+				if (step == 0 || random.nextInt(200) == 0)
+					added[id] = !added[id];
+				
+				for (var broadphase : broadphases) {
+					if (added[id]) {
+						broadphase.insert(id, x[id], y[id], w[id], h[id]);
+					} else {
+						broadphase.remove(id);
+					}
+				}
+			}
+			
+			if (step == 45) {
+				for (var broadphase : broadphases)
+					broadphase.clear();
+				
+				Arrays.fill(added, false);
+			}
+			
+			int size = 0;
+			
+			for (boolean box : added) {
+				if (box) size++;
+			}
+			
+			for (int i = 0; i < broadphases.length; i++) {
+				contacts[i].update(broadphases[i]);
+				assertEquals(size, broadphases[i].size());
+			}
+			
+			assertEquals(pairs(broadphases[0]), pairs(broadphases[1]), "step " + step);
+			
+			// before and after the boxes are squeezed, and at the end
+			if (step == 1 || step == 29 || step == 31 || step == 59)
+				assertEquals(bruteForce(x, y, w, h, added), pairs(broadphases[0]), "step " + step);
+		}
+		
+		broadphases[1].setWorkers(1);
+	}
+	
+	@Test
+	void reportsContacts() {
+		var broadphase = new Broadphase();
+		var contacts = new Contacts();
+		
+		contacts.recording = true;
+		broadphase.setListener(contacts);
+		
+		// 1 touches 0, 2 is apart
+		broadphase.insert(0, 0, 0, 10, 10);
+		broadphase.insert(1, 10, 5, 10, 10);
+		broadphase.insert(2, 30, 0, 10, 10);
+		contacts.update(broadphase);
+		
+		assertEquals(List.of("begin 0 1"), contacts.events);
+		
+		broadphase.insert(2, 15, 0, 10, 10);
+		contacts.update(broadphase);
+		
+		assertEquals(List.of("stay 0 1", "begin 1 2"), contacts.events);
+		
+		broadphase.remove(1);
+		contacts.update(broadphase);
+		
+		assertEquals(Set.of("end 0 1", "end 1 2"), new HashSet<>(contacts.events));
+		
+		// added back in the same place
+		broadphase.insert(1, 10, 5, 10, 10);
+		contacts.update(broadphase);
+		
+		assertEquals(Set.of("begin 0 1", "begin 1 2"), new HashSet<>(contacts.events));
+		
+		broadphase.clear();
+		contacts.update(broadphase);
+		
+		assertEquals(Set.of("end 0 1", "end 1 2"), new HashSet<>(contacts.events));
+		assertEquals(0, broadphase.getPairCount());
+	}
+}
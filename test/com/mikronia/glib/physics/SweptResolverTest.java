@@ -0,0 +1,255 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib.physics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.mikronia.glib.spatial.LooseQuadtree;
+import com.mikronia.glib.spatial.SpatialHash;
+import com.mikronia.glib.spatial.SpatialIndex;
+
+/**
+ * Swept resolver tests
+ * <p>
+ * Moves random boxes through random walls and checks the time
+ * of impact against a brute force search over all the walls,
+ * then checks that fast boxes don't tunnel through thin walls,
+ * that boxes slide over floors of tiles without snagging on
+ * their seams and that moving allocates nothing but the noise
+ * of the JIT.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+class SweptResolverTest {
+	
+	private static final float WORLD = 2000;
+	
+	private static final int WARM_UP = 2000;
+	private static final int FRAMES = 200;
+	
+	// bytes per frame left to the JIT and the thread allocation
+	// buffers, far below a single result or array per box
+	private static final long ALLOCATION_NOISE = 64;
+	
+	private static final class Body extends Box {
+		
+		Body(float x, float y, float w, float h) {
+			super(x, y, w, h);
+		}
+	}
+	
+	private static boolean overlap(Box a, Box b, float margin) {
+		return a.x() < b.xw() - margin && a.xw() > b.x() + margin && a.y() < b.yh() - margin && a.yh() > b.y() + margin;
+	}
+	
+	/*
+	 * Gets the first time the moving box overlaps the
+	 * wall, or 1 when it doesn't, from the times it
+	 * overlaps the wall along each axis.
+	 */
+	private static double impact(Box box, float dx, float dy, Box wall) {
+		double[] entry = new double[2];
+		double[] exit = new double[2];
+		float[] motion = { dx, dy };
+		float[] min = { box.x(), box.y() };
+		float[] max = { box.xw(), box.yh() };
+		float[] wallMin = { wall.x(), wall.y() };
+		float[] wallMax = { wall.xw(), wall.yh() };
+		
+		for (int axis = 0; axis < 2; axis++) {
+			if (motion[axis] == 0) {
+				if (max[axis] <= wallMin[axis] || min[axis] >= wallMax[axis])
+					return 1;
+				
+				entry[axis] = Double.NEGATIVE_INFINITY;
+				exit[axis] = Double.POSITIVE_INFINITY;
+				continue;
+			}
+			
+			double t0 = ((double) wallMin[axis] - max[axis]) / motion[axis];
+			double t1 = ((double) wallMax[axis] - min[axis]) / motion[axis];
+			
+			entry[axis] = Math.min(t0, t1);
+			exit[axis] = Math.max(t0, t1);
+		}
+		
+		double first = Math.max(entry[0], entry[1]);
+		double last = Math.min(exit[0], exit[1]);
+		
+		return first < last && first >= 0 && first < 1 ? first : 1;
+	}
+	
+	/////////////////////////
+	
+	@Test
+	void matchesBruteForce() {
+		for (SpatialIndex index : new SpatialIndex[] { new SpatialHash(64), new LooseQuadtree(0, 0, WORLD, WORLD, 6) }) {
+			var random = new Random(25);
+			var resolver = new SweptResolver(index);
+			var result = new SweepResult();
+			var walls = new Body[1000];
+			int hits = 0;
+			
+			for (int id = 0; id < walls.length; id++) {
+				// some walls span many cells
+				float w = 1 + random.nextFloat() * (id % 5 == 0 ? 300 : 20);
+				float h = 1 + random.nextFloat() * 20;
+				
+				walls[id] = new Body(random.nextFloat() * WORLD, random.nextFloat() * WORLD, w, h);
+				resolver.addStatic(id, walls[id]);
+			}
+			
+			for (int test = 0; test < 5000; test++) {
+				var box = new Body(random.nextFloat() * WORLD, random.nextFloat() * WORLD,
+						1 + random.nextFloat() * 10, 1 + random.nextFloat() * 10);
+				
+				boolean inside = false;
+				
+				for (var wall : walls)
+					inside |= overlap(box, wall, 0);
+				
+				if (inside) continue;
+				
+				// long and short motions, and motions along the axes
+				float dx = test % 7 == 0 ? 0 : (random.nextFloat() - 0.5f) * (test % 2 == 0 ? WORLD : 50);
+				float dy = test % 3 == 0 ? 0 : (random.nextFloat() - 0.5f) * 400;
+				
+				double expected = 1;
+				
+				for (var wall : walls)
+					expected = Math.min(expected, impact(box, dx, dy, wall));
+				
+				boolean hit = resolver.move(box, dx, dy, result);
+				
+				assertEquals(expected < 1, hit, index + " test " + test);
+				assertEquals(expected, result.getTime(), 1.0e-5, index + " test " + test);
+				
+				if (!hit) continue;
+				
+				hits++;
+				
+				assertEquals(dx * (1 - result.getTime()), result.getRemainingX(), 1.0e-3);
+				assertEquals(dy * (1 - result.getTime()), result.getRemainingY(), 1.0e-3);
+				assertTrue(overlap(box, walls[result.getTarget()], -0.01f), "stopped away from the wall hit");
+				
+				// slides along the wall with what is left
+				for (int slide = 0; slide < 3 && hit; slide++) {
+					hit = resolver.move(box, result.getNormalX() != 0 ? 0 : result.getRemainingX(),
+							result.getNormalY() != 0 ? 0 : result.getRemainingY(), result);
+					
+					for (var wall : walls)
+						assertFalse(overlap(box, wall, 0.01f), "went into a wall");
+				}
+			}
+			
+			assertTrue(hits > 1000, "hits " + hits);
+		}
+	}
+	
+	@Test
+	void fastBoxesDontTunnel() {
+		var resolver = new SweptResolver(new SpatialHash(32));
+		var result = new SweepResult();
+		var bullet = new Body(0, 500, 2, 2);
+		
+		// a wall one pixel thick
+		resolver.addStatic(0, 100, 0, 1, 1000);
+		
+		for (int frame = 0; frame < 10; frame++)
+			resolver.move(bullet, 3000, 0.3f, result);
+		
+		assertEquals(98, bullet.x(), 1.0e-3);
+		assertEquals(-1, result.getNormalX());
+		assertEquals(0, result.getTarget());
+	}
+	
+	@Test
+	void slidesOverTiles() {
+		var resolver = new SweptResolver(new SpatialHash(16));
+		var result = new SweepResult();
+		var player = new Body(5, 92, 8, 8);
+		
+		// a floor of 16 pixel tiles
+		for (int id = 0; id < 100; id++)
+			resolver.addStatic(id, id * 16, 100, 16, 16);
+		
+		for (int frame = 0; frame < 100; frame++) {
+			if (!resolver.move(player, 7.3f, 1, result)) continue;
+			
+			// lands on the floor and walks on, without hitting the seams
+			assertEquals(0, result.getNormalX(), "frame " + frame);
+			assertEquals(-1, result.getNormalY(), "frame " + frame);
+			assertFalse(resolver.move(player, result.getRemainingX(), 0, result), "frame " + frame);
+		}
+		
+		assertEquals(735, player.x(), 1.0e-2);
+		assertEquals(92, player.y(), 1.0e-3);
+	}
+	
+	@Test
+	void allocatesNothing() {
+		var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		var random = new Random(2);
+		var resolver = new SweptResolver(new LooseQuadtree(0, 0, WORLD, WORLD, 6));
+		int count = 1000;
+		var boxes = new Box[count];
+		float[] motions = new float[count * 2];
+		float[] normals = new float[count * 2];
+		int[] targets = new int[count];
+		
+		for (int id = 0; id < 2000; id++)
+			resolver.addStatic(id, random.nextFloat() * WORLD, random.nextFloat() * WORLD, 10, 10);
+		
+		for (int i = 0; i < count; i++)
+			boxes[i] = new Body(random.nextFloat() * WORLD, random.nextFloat() * WORLD, 4, 4);
+		
+		long allocated = 0;
+		int hits = 0;
+		
+		for (int frame = 0; frame < WARM_UP + FRAMES; frame++) {
+			for (int i = 0; i < motions.length; i++)
+				motions[i] = random.nextFloat() * 40 - 20;
+			
+			long before = threads.getCurrentThreadAllocatedBytes();
+			int frameHits = resolver.moveAll(boxes, motions, normals, targets, count);
+			
+			if (frame >= WARM_UP) {
+				allocated += threads.getCurrentThreadAllocatedBytes() - before;
+				hits += frameHits;
+			}
+		}
+		
+		assertTrue(hits > 0, "hits " + hits);
+		assertTrue(allocated / FRAMES <= ALLOCATION_NOISE, "allocated " + allocated / FRAMES + " bytes per frame");
+	}
+}
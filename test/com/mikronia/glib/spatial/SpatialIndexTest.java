@@ -0,0 +1,352 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Thaynan Silva
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.mikronia.glib.spatial;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Spatial index tests
+ * <p>
+ * Inserts, moves and removes random boxes, some of them much
+ * larger than the cells or partly outside the quadtree, and
+ * checks the rectangle, circle and ray queries against a brute
+ * force search over all the boxes. Boxes touching the queries
+ * are found, and boxes just apart from them aren't.
+ * 
+ * @author Thaynan M. Silva
+ * @version 1.0
+ */
+class SpatialIndexTest {
+	
+	private static final int COUNT = 3000;
+	private static final float WORLD = 10000;
+	
+	// boxes of the brute force search
+	private final float[] minX = new float[COUNT];
+	private final float[] minY = new float[COUNT];
+	private final float[] maxX = new float[COUNT];
+	private final float[] maxY = new float[COUNT];
+	private final boolean[] added = new boolean[COUNT];
+	
+	private static SpatialIndex[] indexes() {
+		return new SpatialIndex[] { new SpatialHash(32), new LooseQuadtree(0, 0, WORLD, WORLD, 8) };
+	}
+	
+	/*
+	 * Adds or moves a box in the indexes and
+	 * in the brute force search.
+	 */
+	private void update(SpatialIndex[] indexes, int id, float x, float y, float w, float h) {
+		minX[id] = x;
+		minY[id] = y;
+		maxX[id] = x + w;
+		maxY[id] = y + h;
+		added[id] = true;
+		
+		for (var index : indexes)
+			index.update(id, x, y, w, h);
+	}
+	
+	private void remove(SpatialIndex[] indexes, int id) {
+		added[id] = false;
+		
+		for (var index : indexes)
+			index.remove(id);
+	}
+	
+	private Set<Integer> inRect(float x, float y, float w, float h) {
+		var found = new HashSet<Integer>();
+		
+		for (int id = 0; id < COUNT; id++) {
+			if (added[id] && minX[id] <= x + w && maxX[id] >= x && minY[id] <= y + h && maxY[id] >= y)
+				found.add(id);
+		}
+		
+		return found;
+	}
+	
+	private Set<Integer> inCircle(float x, float y, float radius) {
+		var found = new HashSet<Integer>();
+		
+		for (int id = 0; id < COUNT; id++) {
+			if (!added[id]) continue;
+			
+			// nearest point of the box to the center
+			float nearestX = Math.max(minX[id], Math.min(x, maxX[id]));
+			float nearestY = Math.max(minY[id], Math.min(y, maxY[id]));
+			
+			if ((nearestX - x) * (nearestX - x) + (nearestY - y) * (nearestY - y) <= radius * radius)
+				found.add(id);
+		}
+		
+		return found;
+	}
+	
+	private Set<Integer> onRay(float x, float y, float dx, float dy, float length) {
+		var found = new HashSet<Integer>();
+		
+		for (int id = 0; id < COUNT; id++) {
+			if (added[id] && hits(new float[] { x, y }, new float[] { dx, dy }, length,
+					new float[] { minX[id], minY[id] }, new float[] { maxX[id], maxY[id] }))
+				found.add(id);
+		}
+		
+		return found;
+	}
+	
+	/*
+	 * Clips the ray to the slab of each axis.
+	 */
+	private static boolean hits(float[] origin, float[] direction, float length, float[] min, float[] max) {
+		double enter = 0;
+		double exit = length;
+		
+		for (int axis = 0; axis < 2; axis++) {
+			if (direction[axis] == 0) {
+				if (origin[axis] < min[axis] || origin[axis] > max[axis])
+					return false;
+				
+				continue;
+			}
+			
+			double t0 = (min[axis] - origin[axis]) / (double) direction[axis];
+			double t1 = (max[axis] - origin[axis]) / (double) direction[axis];
+			
+			enter = Math.max(enter, Math.min(t0, t1));
+			exit = Math.min(exit, Math.max(t0, t1));
+		}
+		
+		return enter <= exit;
+	}
+	
+	/*
+	 * Checks that every object found was visited once.
+	 */
+	private static void assertVisited(Set<Integer> expected, List<Integer> visited, String query) {
+		assertEquals(visited.size(), new HashSet<>(visited).size(), query + " visited an object twice");
+		assertEquals(expected, new HashSet<>(visited), query);
+	}
+	
+	/////////////////////////
+	
+	@Test
+	void matchesBruteForce() {
+		var random = new Random(23);
+		var indexes = indexes();
+		
+		for (int id = 0; id < COUNT; id++) {
+			// a few boxes span hundreds of cells
+			float w = 4 + random.nextFloat() * (id % 100 == 0 ? 3000 : 28);
+			float h = 4 + random.nextFloat() * 28;
+			
+			update(indexes, id, random.nextFloat() * (WORLD + 200) - 100, random.nextFloat() * (WORLD + 200) - 100, w, h);
+		}
+		
+		for (int round = 0; round < 20; round++) {
+			for (int change = 0; change < 500; change++) {
+				int id = random.nextInt(COUNT);
+				
+				if (random.nextInt(10) == 0) {
+					remove(indexes, id);
+				} else {
+					float x = added[id] ? minX[id] : random.nextFloat() * WORLD;
+					float y = added[id] ? minY[id] : random.nextFloat() * WORLD;
+					float w = added[id] ? maxX[id] - minX[id] : 10;
+					float h = added[id] ? maxY[id] - minY[id] : 10;
+					
+					update(indexes, id, x + random.nextFloat() * 80 - 40, y + random.nextFloat() * 80 - 40, w, h);
+				}
+			}
+			
+			for (int query = 0; query < 20; query++) {
+				float x = random.nextFloat() * WORLD;
+				float y = random.nextFloat() * WORLD;
+				float w = random.nextFloat() * (query == 0 ? 2 * WORLD : 500);
+				float h = random.nextFloat() * 500;
+				float radius = random.nextFloat() * 300;
+				float angle = random.nextFloat() * 6.283f;
+				float length = random.nextFloat() * 3000;
+				
+				// and rays along the axes
+				float dx = query == 1 ? 1 : query == 2 ? 0 : (float) Math.cos(angle);
+				float dy = query == 1 ? 0 : query == 2 ? -1 : (float) Math.sin(angle);
+				
+				var rect = inRect(x, y, w, h);
+				var circle = inCircle(x, y, radius);
+				var ray = onRay(x, y, dx, dy, length);
+				
+				for (var index : indexes) {
+					var visited = new ArrayList<Integer>();
+					index.queryRect(x, y, w, h, visited::add);
+					assertVisited(rect, visited, index + " rect");
+					
+					visited.clear();
+					index.queryRadius(x, y, radius, visited::add);
+					assertVisited(circle, visited, index + " circle");
+					
+					visited.clear();
+					index.queryRay(x, y, dx, dy, length, visited::add);
+					assertVisited(ray, visited, index + " ray");
+				}
+			}
+			
+			for (var index : indexes) {
+				int size = 0;
+				
+				for (int id = 0; id < COUNT; id++) {
+					if (added[id]) size++;
+					assertEquals(added[id], index.contains(id), index + " contains " + id);
+				}
+				
+				assertEquals(size, index.size(), index + " size");
+			}
+		}
+	}
+	
+	@Test
+	void findsTouchingBoxes() {
+		var indexes = indexes();
+		
+		// on and off the cell borders
+		for (float corner : new float[] { 96, 100.5f }) {
+			float size = 50;
+			float far = corner + size;
+			float gap = 0.01f;
+			
+			// touching each edge, then just apart from it
+			update(indexes, 0, far, corner, 10, 10);
+			update(indexes, 1, corner - 10, corner, 10, 10);
+			update(indexes, 2, corner, far, 10, 10);
+			update(indexes, 3, corner, corner - 10, 10, 10);
+			update(indexes, 4, far + gap, corner, 10, 10);
+			update(indexes, 5, corner - 10 - gap, corner, 10, 10);
+			update(indexes, 6, corner, far + gap, 10, 10);
+			update(indexes, 7, corner, corner - 10 - gap, 10, 10);
+			
+			var rect = inRect(corner, corner, size, size);
+			float center = corner + size / 2;
+			
+			assertEquals(Set.of(0, 1, 2, 3), rect);
+			
+			for (var index : indexes) {
+				var visited = new ArrayList<Integer>();
+				index.queryRect(corner, corner, size, size, visited::add);
+				assertVisited(rect, visited, index + " rect");
+				
+				visited.clear();
+				index.queryRadius(center, center + 20, size / 2, visited::add);
+				assertVisited(inCircle(center, center + 20, size / 2), visited, index + " circle");
+				
+				visited.clear();
+				index.queryRay(corner - 20, corner + 5, 1, 0, 20 + size, visited::add);
+				assertVisited(onRay(corner - 20, corner + 5, 1, 0, 20 + size), visited, index + " ray");
+			}
+		}
+	}
+	
+	@Test
+	void handlesHugeBounds() {
+		var indexes = indexes();
+		var random = new Random(230);
+		
+		for (int id = 0; id < 100; id++)
+			update(indexes, id, random.nextFloat() * 1000, random.nextFloat() * 1000, 10, 10);
+		
+		// far away and huge boxes, whose cells saturate
+		update(indexes, 100, 1e12f, 0, 10, 10);
+		update(indexes, 101, -1e12f, 0, 2e12f, 5);
+		update(indexes, 102, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+		
+		float infinity = Float.POSITIVE_INFINITY;
+		float[][] rects = { { 0, 0, infinity, 8 }, { -1e12f, 0, 2e12f, 8 }, { 1e12f, 0, 8, 8 },
+				{ -infinity, -infinity, infinity, infinity }, { 0, -1e30f, 8, 2e30f } };
+		float[] radii = { 1e12f, 1e30f, infinity };
+		float[][] rays = { { 1, 0, infinity }, { 0, 1, 1e30f }, { 0.6f, 0.8f, 1e12f } };
+		
+		assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+			for (var index : indexes) {
+				var visited = new ArrayList<Integer>();
+				
+				for (var rect : rects) {
+					visited.clear();
+					index.queryRect(rect[0], rect[1], rect[2], rect[3], visited::add);
+					assertVisited(inRect(rect[0], rect[1], rect[2], rect[3]), visited, index + " rect");
+				}
+				
+				for (float radius : radii) {
+					visited.clear();
+					index.queryRadius(500, 500, radius, visited::add);
+					assertVisited(inCircle(500, 500, radius), visited, index + " circle");
+				}
+				
+				for (var ray : rays) {
+					visited.clear();
+					index.queryRay(500, 500, ray[0], ray[1], ray[2], visited::add);
+					assertVisited(onRay(500, 500, ray[0], ray[1], ray[2]), visited, index + " ray");
+				}
+			}
+		});
+	}
+	
+	@Test
+	void stopsWhenTheVisitorSaysSo() {
+		for (var index : indexes()) {
+			for (int id = 0; id < 100; id++)
+				index.insert(id, id * 10, id * 10, 50, 50);
+			
+			int[] visited = { 0 };
+			index.queryRect(0, 0, WORLD, WORLD, id -> ++visited[0] < 5);
+			
+			assertEquals(5, visited[0], index.toString());
+		}
+	}
+	
+	@Test
+	void clearRemovesEverything() {
+		for (var index : indexes()) {
+			for (int id = 0; id < 100; id++)
+				index.insert(id, id * 97 % WORLD, id * 31 % WORLD, 20, 20);
+			
+			index.clear();
+			
+			var visited = new ArrayList<Integer>();
+			index.queryRect(-1e6f, -1e6f, 2e6f, 2e6f, visited::add);
+			
+			assertEquals(0, index.size(), index.toString());
+			assertTrue(visited.isEmpty(), index.toString());
+		}
+	}
+}